@@ -0,0 +1,159 @@
+package de.eldecker.dhbw.spring.badnews.benchmark;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static de.eldecker.dhbw.spring.badnews.logik.SchlagzeilenErzeuger.EREIGNISSE_ARRAY;
+import static de.eldecker.dhbw.spring.badnews.logik.SchlagzeilenErzeuger.ORTE_DEUTSCHLAD_ARRAY;
+import static de.eldecker.dhbw.spring.badnews.logik.SchlagzeilenErzeuger.ORTE_NATIONEN_ARRAY;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
+import de.eldecker.dhbw.spring.badnews.logik.SchlagzeilenErzeuger;
+
+
+/**
+ * Benchmark für die Erzeugung von Zufalls-Schlagzeilen: Vergleich der
+ * ursprünglichen Erzeugung (Referenz) mit der aktuellen sequentiellen
+ * Erzeugung und der parallelen Erzeugung auf allen CPU-Kernen.
+ * <br><br>
+ *
+ * Die Referenz ist eine Kopie des ursprünglichen Codes aus
+ * {@link SchlagzeilenErzeuger} (ein gemeinsamer statischer {@link Random},
+ * Text mit {@code String.format()}), siehe {@link OriginalErzeuger}; sie wird
+ * hier aufbewahrt, damit der Vergleich auch nach weiteren Änderungen an
+ * {@link SchlagzeilenErzeuger} möglich bleibt.
+ * <br><br>
+ *
+ * Aufruf: {@code ./mvnw -P jmh verify -Djmh.filter=SchlagzeilenErzeugerBenchmark}
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( MILLISECONDS )
+@Warmup( iterations = 2 )
+@Measurement( iterations = 3 )
+@Fork( value = 1, jvmArgsAppend = { "-Xms3g", "-Xmx3g" } )
+public class SchlagzeilenErzeugerBenchmark {
+
+    /** Anzahl der zu erzeugenden Schlagzeilen. */
+    @Param( { "1000000", "10000000" } )
+    public int anzahl;
+
+    /** Objekt unter Test; hat keine Abhängigkeiten, deshalb ohne Spring-Kontext. */
+    private final SchlagzeilenErzeuger _erzeuger = new SchlagzeilenErzeuger();
+
+
+    /**
+     * Ursprüngliche Implementierung von {@link SchlagzeilenErzeuger} als
+     * Referenz; unverändert bis auf Logging und Klassenname.
+     */
+    private static final class OriginalErzeuger {
+
+        /** Zufallsgenerator */
+        private final static Random _random = new Random();
+
+        private String getZufallsElement( String[] stringArray ) {
+
+            final int laenge = stringArray.length;
+            if ( laenge == 0) {
+
+                return "";
+            }
+
+            int randomIndex = _random.nextInt( laenge );
+
+            return stringArray[ randomIndex ];
+        }
+
+        public SchlagzeilenEntity erzeugeZufallsSchlagzeile() {
+
+            final String ereignis = getZufallsElement( EREIGNISSE_ARRAY );
+
+            String  ort    = "";
+            boolean inland = false;
+
+            if ( _random.nextFloat() < .3 ) { // 30% Wahrscheinlichkeit für Inlandsnachricht
+
+                ort = getZufallsElement( ORTE_DEUTSCHLAD_ARRAY );
+                inland = true;
+
+            } else {
+
+                ort = getZufallsElement( ORTE_NATIONEN_ARRAY );
+            }
+
+            final String schlagzeile = String.format( "%s in %s", ereignis, ort );
+
+            final SchlagzeilenEntity ergebnisEntity =
+                                    new SchlagzeilenEntity( schlagzeile, inland );
+
+            return ergebnisEntity;
+        }
+
+        public List<SchlagzeilenEntity> erzeugeZufallsSchlagzeilen( int anzahl ) {
+
+            final List<SchlagzeilenEntity> ergebnisListe = new ArrayList<>( anzahl );
+
+            for ( int i = 0 ; i < anzahl; i++ ) {
+
+                final SchlagzeilenEntity entity = erzeugeZufallsSchlagzeile();
+                ergebnisListe.add( entity );
+            }
+
+            return ergebnisListe;
+        }
+    }
+
+    /** Referenz: ursprüngliche Implementierung. */
+    private final OriginalErzeuger _original = new OriginalErzeuger();
+
+
+    /**
+     * Ursprüngliche sequentielle Erzeugung (Referenz).
+     *
+     * @return Erzeugte Schlagzeilen (Rückgabe verhindert "Dead Code Elimination")
+     */
+    @Benchmark
+    public List<SchlagzeilenEntity> original() {
+
+        return _original.erzeugeZufallsSchlagzeilen( anzahl );
+    }
+
+
+    /**
+     * Aktuelle sequentielle Erzeugung ({@code ThreadLocalRandom}, Text aus
+     * dem Wörterbuch).
+     *
+     * @return Erzeugte Schlagzeilen
+     */
+    @Benchmark
+    public List<SchlagzeilenEntity> sequentiell() {
+
+        return _erzeuger.erzeugeZufallsSchlagzeilen( anzahl );
+    }
+
+
+    /**
+     * Parallele Erzeugung mit einem {@code SplittableRandom} pro Block.
+     *
+     * @return Erzeugte Schlagzeilen
+     */
+    @Benchmark
+    public List<SchlagzeilenEntity> parallel() {
+
+        return _erzeuger.erzeugeZufallsSchlagzeilenParallel( anzahl, 42L );
+    }
+
+}
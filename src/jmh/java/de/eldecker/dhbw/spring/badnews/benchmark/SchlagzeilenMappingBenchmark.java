@@ -0,0 +1,94 @@
+package de.eldecker.dhbw.spring.badnews.benchmark;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
+import de.eldecker.dhbw.spring.badnews.logik.SchlagzeilenErzeuger;
+import de.eldecker.dhbw.spring.badnews.model.Schlagzeile;
+import de.eldecker.dhbw.spring.badnews.web.SucheRestController;
+import tools.jackson.databind.json.JsonMapper;
+
+
+/**
+ * Benchmark für die Umwandlung von Entities in Objekte für die REST-Antwort
+ * ({@link SucheRestController#zuSchlagzeilen(List)}), einmal ohne und einmal
+ * mit anschließender Serialisierung nach JSON.
+ * <br><br>
+ *
+ * Aufruf: {@code ./mvnw -P jmh verify -Djmh.filter=SchlagzeilenMappingBenchmark}
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class SchlagzeilenMappingBenchmark {
+
+    /** Anzahl der Entities pro Aufruf (Seitengröße). */
+    @Param( { "10", "100", "1000" } )
+    public int anzahl;
+
+    /** Entities mit gesetzter ID, wie sie von der DB geladen werden. */
+    private List<SchlagzeilenEntity> _entities;
+
+    /** JSON-Mapper mit Default-Konfiguration. */
+    private final JsonMapper _jsonMapper = JsonMapper.builder().build();
+
+
+    /**
+     * Erzeugt Entities; die ID wird per Reflection gesetzt, da es keinen
+     * Setter für sie gibt.
+     */
+    @Setup
+    public void setup() {
+
+        _entities = new SchlagzeilenErzeuger().erzeugeZufallsSchlagzeilenParallel( anzahl, 42L );
+
+        long id = 1;
+        for ( SchlagzeilenEntity entity : _entities ) {
+
+            ReflectionTestUtils.setField( entity, "id", id++ );
+        }
+    }
+
+
+    /**
+     * Nur Umwandlung Entity nach {@link Schlagzeile}.
+     *
+     * @return Liste für REST-Antwort
+     */
+    @Benchmark
+    public List<Schlagzeile> mapping() {
+
+        return SucheRestController.zuSchlagzeilen( _entities );
+    }
+
+
+    /**
+     * Umwandlung und Serialisierung nach JSON.
+     *
+     * @return JSON-Dokument als Byte-Array
+     */
+    @Benchmark
+    public byte[] mappingUndJson() {
+
+        return _jsonMapper.writeValueAsBytes( SucheRestController.zuSchlagzeilen( _entities ) );
+    }
+
+}
@@ -0,0 +1,185 @@
+package de.eldecker.dhbw.spring.badnews.benchmark;
+
+import static de.eldecker.dhbw.spring.badnews.helferlein.SortierReihenfolgeKonstanten.SORT_ID_ASC;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import de.eldecker.dhbw.spring.badnews.BadNewsApplication;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenRepo;
+import de.eldecker.dhbw.spring.badnews.logik.DatenImportFortschritt;
+
+
+/**
+ * Benchmark für die Query-Methoden {@code sucheSchlagzeilen()} und
+ * {@code findAll(Pageable)} von {@link SchlagzeilenRepo} für verschiedene
+ * Tabellengrößen und Seitenpositionen ("Tiefe" der Seite, wirkt sich bei
+ * {@code OFFSET} auf die Laufzeit aus).
+ * <br><br>
+ *
+ * Pro Fork wird ein Spring-Kontext ohne Web-Server mit einer In-Memory-H2-DB
+ * gestartet, die beim Start mit {@code tabellengroesse} Zufalls-Schlagzeilen
+ * befüllt wird. Der Import läuft im Hintergrund, deshalb wird vor der Messung
+ * gewartet, bis er fertig ist. Der Trigramm-Index ist deaktiviert, damit die
+ * JPQL-Query gemessen wird.
+ * <br><br>
+ *
+ * Aufruf: {@code ./mvnw -P jmh verify -Djmh.filter=SchlagzeilenRepoBenchmark}
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" } )
+public class SchlagzeilenRepoBenchmark {
+
+    /** Anzahl Schlagzeilen pro Seite wie bei {@code suche.js}. */
+    private static final int ANZAHL_PRO_SEITE = 100;
+
+    /** Suchbegriff, trifft ca. jede 53. Schlagzeile. */
+    private static final String SUCHBEGRIFF = "Erdbeben";
+
+    /** Anzahl der Schlagzeilen in der Tabelle. */
+    @Param( { "10000", "100000" } )
+    public int tabellengroesse;
+
+    /** Position der abgefragten Seite: erste, mittlere oder letzte Seite. */
+    @Param( { "erste", "mitte", "letzte" } )
+    public String seitenPosition;
+
+    /** Spring-Kontext mit In-Memory-DB. */
+    private ConfigurableApplicationContext _kontext;
+
+    /** Objekt unter Test. */
+    private SchlagzeilenRepo _repo;
+
+    /** Seitenanforderung für {@code findAll()}. */
+    private PageRequest _seiteListe;
+
+    /** Seitenanforderung für {@code sucheSchlagzeilen()}. */
+    private PageRequest _seiteSuche;
+
+
+    /**
+     * Startet Spring-Kontext, wartet auf das Befüllen der DB und berechnet
+     * die abzufragenden Seiten.
+     */
+    @Setup( Level.Trial )
+    public void setup() throws InterruptedException {
+
+        // als Kommandozeilen-Argumente, weil diese Vorrang vor application.properties haben
+        _kontext = new SpringApplicationBuilder( BadNewsApplication.class )
+                        .run( "--spring.main.web-application-type=none",
+                              "--badnews.reaktiv.port=-1",
+                              "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                              "--spring.jpa.hibernate.ddl-auto=create-drop",
+                              "--badnews.import.anzahl=" + tabellengroesse,
+                              "--badnews.suche.trigramm-index=false",
+                              "--logging.file.name=",
+                              "--logging.level.root=WARN" );
+
+        warteAufImport( _kontext.getBean( DatenImportFortschritt.class ) );
+
+        _repo = _kontext.getBean( SchlagzeilenRepo.class );
+
+        final int seitenListe = _repo.findAll( PageRequest.of( 0, ANZAHL_PRO_SEITE ) ).getTotalPages();
+        final int seitenSuche = _repo.sucheSchlagzeilen( SUCHBEGRIFF, PageRequest.of( 0, ANZAHL_PRO_SEITE ) )
+                                     .getTotalPages();
+
+        _seiteListe = PageRequest.of( seitenNummer( seitenListe ), ANZAHL_PRO_SEITE, SORT_ID_ASC );
+        _seiteSuche = PageRequest.of( seitenNummer( seitenSuche ), ANZAHL_PRO_SEITE, SORT_ID_ASC );
+    }
+
+
+    /**
+     * Spring-Kontext schließen.
+     */
+    @TearDown( Level.Trial )
+    public void tearDown() {
+
+        _kontext.close();
+    }
+
+
+    /**
+     * Seite aus allen Schlagzeilen laden (mit COUNT-Query).
+     *
+     * @return Geladene Seite (Rückgabe verhindert "Dead Code Elimination")
+     */
+    @Benchmark
+    public Page<SchlagzeilenEntity> findAll() {
+
+        return _repo.findAll( _seiteListe );
+    }
+
+
+    /**
+     * Textsuche mit LIKE-Query und COUNT-Query.
+     *
+     * @return Seite mit Treffern
+     */
+    @Benchmark
+    public Page<SchlagzeilenEntity> sucheSchlagzeilen() {
+
+        return _repo.sucheSchlagzeilen( SUCHBEGRIFF, _seiteSuche );
+    }
+
+
+    /**
+     * Wartet, bis der Import im Hintergrund fertig ist; sonst würden die Seiten
+     * für eine halb gefüllte Tabelle berechnet und parallel zu den INSERTs gemessen.
+     *
+     * @param fortschritt Bean mit Fortschritt des Imports
+     *
+     * @throws IllegalStateException Import ist mit Fehler abgebrochen
+     */
+    private static void warteAufImport( DatenImportFortschritt fortschritt ) throws InterruptedException {
+
+        while ( fortschritt.isLaeuft() ) {
+
+            Thread.sleep( 100 );
+        }
+
+        if ( fortschritt.getFehler() != null ) {
+
+            throw new IllegalStateException( "Import für Benchmark fehlgeschlagen.", fortschritt.getFehler() );
+        }
+    }
+
+
+    /**
+     * Berechnet die Nummer der Seite für {@link #seitenPosition}.
+     *
+     * @param anzahlSeiten Anzahl der Seiten insgesamt
+     *
+     * @return Seitennummer (0-basiert)
+     */
+    private int seitenNummer( int anzahlSeiten ) {
+
+        return switch ( seitenPosition ) {
+
+            case "erste" -> 0;
+            case "mitte" -> anzahlSeiten / 2;
+            default      -> Math.max( 0, anzahlSeiten - 1 );
+        };
+    }
+
+}
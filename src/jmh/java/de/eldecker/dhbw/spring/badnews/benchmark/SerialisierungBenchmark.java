@@ -0,0 +1,140 @@
+package de.eldecker.dhbw.spring.badnews.benchmark;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
+import de.eldecker.dhbw.spring.badnews.logik.SchlagzeilenErzeuger;
+import de.eldecker.dhbw.spring.badnews.model.Schlagzeile;
+import de.eldecker.dhbw.spring.badnews.web.SchlagzeilenBinaerConverter;
+import de.eldecker.dhbw.spring.badnews.web.SucheRestController;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+
+/**
+ * Benchmark für Serialisierung und Deserialisierung einer Seite mit
+ * Suchergebnissen ({@code List<Schlagzeile>}) in den Formaten, die
+ * {@code /api/v1/suche} über Content Negotiation anbietet: JSON, CBOR
+ * und das Binärformat von {@link SchlagzeilenBinaerConverter}.
+ * <br><br>
+ *
+ * Die Größe der serialisierten Seite wird beim Setup auf die Konsole
+ * geschrieben, da sie nicht von der Laufzeit abhängt.
+ * <br><br>
+ *
+ * Aufruf: {@code ./mvnw -P jmh verify -Djmh.filter=SerialisierungBenchmark}
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class SerialisierungBenchmark {
+
+    /** Anzahl Schlagzeilen pro Seite. */
+    @Param( { "10", "100", "500" } )
+    public int anzahl;
+
+    /** Format der REST-Antwort. */
+    @Param( { "json", "cbor", "binaer" } )
+    public String format;
+
+    /** Typ für Deserialisierung mit Jackson. */
+    private static final TypeReference<List<Schlagzeile>> TYP_LISTE = new TypeReference<>() {};
+
+    /** Zu serialisierende Seite. */
+    private List<Schlagzeile> _schlagzeilen;
+
+    /** Serialisierte Seite für Benchmark der Deserialisierung. */
+    private byte[] _serialisiert;
+
+    /** Jackson-Mapper für {@link #format}; {@code null} bei Binärformat. */
+    private ObjectMapper _mapper;
+
+
+    /**
+     * Erzeugt Seite mit Zufalls-Schlagzeilen (fester Seed) und serialisiert
+     * sie einmal für die Deserialisierung.
+     */
+    @Setup
+    public void setup() {
+
+        final List<SchlagzeilenEntity> entities =
+                new SchlagzeilenErzeuger().erzeugeZufallsSchlagzeilenParallel( anzahl, 42L );
+
+        long id = 1;
+        for ( SchlagzeilenEntity entity : entities ) {
+
+            ReflectionTestUtils.setField( entity, "id", id++ );
+        }
+        _schlagzeilen = SucheRestController.zuSchlagzeilen( entities );
+
+        _mapper = switch ( format ) {
+
+            case "json"   -> JsonMapper.builder().build();
+            case "cbor"   -> CBORMapper.builder().build();
+            case "binaer" -> null;
+            default       -> throw new IllegalArgumentException( "Unbekanntes Format: " + format );
+        };
+
+        _serialisiert = serialisieren();
+
+        System.out.printf( "%nGröße für %d Schlagzeilen als %s: %d Bytes%n",
+                           anzahl, format, _serialisiert.length );
+    }
+
+
+    /**
+     * Seite im gewählten Format serialisieren.
+     *
+     * @return Serialisierte Seite
+     */
+    @Benchmark
+    public byte[] serialisieren() {
+
+        if ( _mapper != null ) {
+
+            return _mapper.writeValueAsBytes( _schlagzeilen );
+        }
+
+        return SchlagzeilenBinaerConverter.kodiere( _schlagzeilen );
+    }
+
+
+    /**
+     * Seite im gewählten Format deserialisieren, wie es ein Client tun muss.
+     *
+     * @return Deserialisierte Seite
+     */
+    @Benchmark
+    public List<Schlagzeile> deserialisieren() throws IOException {
+
+        if ( _mapper != null ) {
+
+            return _mapper.readValue( _serialisiert, TYP_LISTE );
+        }
+
+        return SchlagzeilenBinaerConverter.dekodiere( new ByteArrayInputStream( _serialisiert ) );
+    }
+
+}
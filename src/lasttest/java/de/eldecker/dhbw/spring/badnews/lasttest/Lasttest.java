@@ -0,0 +1,414 @@
+package de.eldecker.dhbw.spring.badnews.lasttest;
+
+import static java.lang.String.format;
+import static java.net.http.HttpClient.Version.HTTP_1_1;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import de.eldecker.dhbw.spring.badnews.BadNewsApplication;
+import de.eldecker.dhbw.spring.badnews.logik.DatenImportFortschritt;
+import tools.jackson.databind.json.JsonMapper;
+
+
+/**
+ * Lasttest für die wichtigsten Endpunkte der Anwendung: Die Anwendung wird im
+ * selben Prozess mit einer In-Memory-H2-Datenbank gestartet, die mit einer
+ * konfigurierbaren Anzahl Schlagzeilen befüllt wird. Danach wird jeder Endpunkt
+ * nacheinander mit mehreren Threads gleichzeitig per HTTP abgefragt; die
+ * Antwortzeiten werden in einem {@code HdrHistogram} erfasst.
+ * <br><br>
+ *
+ * Das Ergebnis wird mit einer Baseline verglichen: Ist bei einem Endpunkt das
+ * 99. Perzentil der Antwortzeit um mehr als die Toleranz höher oder der
+ * Durchsatz um mehr als die Toleranz niedriger als in der Baseline, oder gab
+ * es fehlerhafte Antworten, dann endet das Programm mit Exit-Code 1 (und damit
+ * der Maven-Build im Profil {@code lasttest} mit einem Fehler).
+ * <br><br>
+ *
+ * Konfiguration über System-Properties (Default-Werte siehe Konstanten):
+ * <ul>
+ *   <li>{@code lasttest.groesse}: Anzahl Schlagzeilen in der DB</li>
+ *   <li>{@code lasttest.nebenlaeufigkeit}: Anzahl Threads, die gleichzeitig Anfragen schicken</li>
+ *   <li>{@code lasttest.aufwaermen}: Dauer der Aufwärmphase pro Endpunkt (ISO-8601)</li>
+ *   <li>{@code lasttest.dauer}: Dauer der Messphase pro Endpunkt (ISO-8601)</li>
+ *   <li>{@code lasttest.toleranz}: Erlaubte Verschlechterung gegenüber Baseline, z.B. 0.25 für 25%</li>
+ *   <li>{@code lasttest.baseline}: Pfad der Baseline-Datei</li>
+ *   <li>{@code lasttest.ergebnis}: Pfad der Ergebnis-Datei</li>
+ *   <li>{@code lasttest.baseline.schreiben}: bei {@code true} wird das Ergebnis als neue Baseline gespeichert</li>
+ * </ul>
+ */
+public class Lasttest {
+
+    /** Default für Anzahl Schlagzeilen in der DB. */
+    private static final int GROESSE = 10_000;
+
+    /** Default für Anzahl gleichzeitiger Threads. */
+    private static final int NEBENLAEUFIGKEIT = 8;
+
+    /** Default für Dauer Aufwärmphase. */
+    private static final String AUFWAERMEN = "PT5S";
+
+    /** Default für Dauer Messphase. */
+    private static final String DAUER = "PT15S";
+
+    /** Default für erlaubte Verschlechterung gegenüber der Baseline. */
+    private static final double TOLERANZ = 0.25;
+
+    /** Suchbegriffe für {@code /api/v1/suche}, wie sie von Nutzern häufig verwendet werden. */
+    private static final String[] SUCHBEGRIFFE = { "Erdbeben", "Bayern", "brand", "krise", "Italien" };
+
+    /** Timeout für eine einzelne Anfrage. */
+    private static final Duration TIMEOUT_ANFRAGE = Duration.ofSeconds( 30 );
+
+
+    /**
+     * Endpunkt, der im Lasttest abgefragt wird.
+     *
+     * @param name Name für Ausgabe und Vergleich mit Baseline
+     *
+     * @param pfad Liefert für jede Anfrage den Pfad mit Query-Parametern
+     */
+    private record Endpunkt( String name, Supplier<String> pfad ) {}
+
+
+    /**
+     * Ergebnis eines Threads in der Messphase.
+     *
+     * @param histogramm Antwortzeiten der erfolgreichen Anfragen in Nanosekunden
+     *
+     * @param anzahlFehler Anzahl der fehlerhaften Anfragen
+     */
+    private record Teilergebnis( Histogram histogramm, long anzahlFehler ) {}
+
+
+    /**
+     * Einstiegsmethode, Konfiguration über System-Properties.
+     *
+     * @param args Wird nicht ausgewertet
+     */
+    public static void main( String[] args ) throws Exception {
+
+        final int      groesse          = Integer.getInteger( "lasttest.groesse", GROESSE );
+        final int      nebenlaeufigkeit = Integer.getInteger( "lasttest.nebenlaeufigkeit", NEBENLAEUFIGKEIT );
+        final Duration aufwaermen       = Duration.parse( System.getProperty( "lasttest.aufwaermen", AUFWAERMEN ) );
+        final Duration dauer            = Duration.parse( System.getProperty( "lasttest.dauer", DAUER ) );
+        final double   toleranz         = Double.parseDouble( System.getProperty( "lasttest.toleranz", TOLERANZ + "" ) );
+        final File     baselineDatei    = new File( System.getProperty( "lasttest.baseline", "src/lasttest/baseline/lasttest-baseline.json" ) );
+        final File     ergebnisDatei    = new File( System.getProperty( "lasttest.ergebnis", "target/lasttest-ergebnis.json" ) );
+        final boolean  baselineSchreiben = Boolean.getBoolean( "lasttest.baseline.schreiben" );
+
+        System.out.printf( "Lasttest: %d Schlagzeilen, %d Threads, Aufwärmen %s, Messen %s pro Endpunkt%n",
+                           groesse, nebenlaeufigkeit, aufwaermen, dauer );
+
+        final List<Endpunkt> endpunkte = List.of(
+                new Endpunkt( "/app/schlagzeilen",
+                              () -> "/app/schlagzeilen?anzahl=20&seite=" + zufallsZahl( groesse / 20 ) ),
+                new Endpunkt( "/app/schlagzeile/{id}",
+                              () -> "/app/schlagzeile/" + zufallsZahl( groesse ) ),
+                new Endpunkt( "/app/statistik",
+                              () -> "/app/statistik" ),
+                new Endpunkt( "/api/v1/suche",
+                              () -> "/api/v1/suche?anzahl=100&seite=1&query=" +
+                                    SUCHBEGRIFFE[ ThreadLocalRandom.current().nextInt( SUCHBEGRIFFE.length ) ] )
+            );
+
+        final List<Messergebnis> ergebnisse = new ArrayList<>();
+
+        final ConfigurableApplicationContext kontext = starteAnwendung( groesse );
+        try {
+
+            final String basisUrl = "http://localhost:" + kontext.getEnvironment().getProperty( "local.server.port" );
+
+            final HttpClient client = HttpClient.newBuilder()
+                                                .version( HTTP_1_1 )
+                                                .connectTimeout( TIMEOUT_ANFRAGE )
+                                                .build();
+
+            for ( Endpunkt endpunkt : endpunkte ) {
+
+                belaste( client, basisUrl, endpunkt, nebenlaeufigkeit, aufwaermen );
+                final Messergebnis ergebnis = belaste( client, basisUrl, endpunkt, nebenlaeufigkeit, dauer );
+
+                ergebnisse.add( ergebnis );
+                System.out.printf( "%-24s %8.1f Anfr./s  p50=%7.2f ms  p90=%7.2f ms  p99=%7.2f ms  p99,9=%7.2f ms  max=%7.2f ms  Fehler=%d%n",
+                                   ergebnis.endpunkt(), ergebnis.anfragenProSekunde(),
+                                   ergebnis.p50Ms(), ergebnis.p90Ms(), ergebnis.p99Ms(),
+                                   ergebnis.p999Ms(), ergebnis.maxMs(), ergebnis.anzahlFehler() );
+            }
+
+        } finally {
+
+            kontext.close();
+        }
+
+        final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+        ergebnisDatei.getAbsoluteFile().getParentFile().mkdirs();
+        jsonMapper.writerWithDefaultPrettyPrinter().writeValue( ergebnisDatei, ergebnisse );
+        System.out.println( "Ergebnis gespeichert in " + ergebnisDatei );
+
+        if ( baselineSchreiben ) {
+
+            jsonMapper.writerWithDefaultPrettyPrinter().writeValue( baselineDatei, ergebnisse );
+            System.out.println( "Neue Baseline gespeichert in " + baselineDatei );
+            System.exit( 0 );
+        }
+
+        if ( !baselineDatei.exists() ) {
+
+            System.out.println( "Keine Baseline gefunden (" + baselineDatei + "), kein Vergleich." );
+            System.exit( 0 );
+        }
+
+        final Messergebnis[] baseline = jsonMapper.readValue( baselineDatei, Messergebnis[].class );
+
+        final List<String> verstoesse = vergleicheMitBaseline( ergebnisse, baseline, toleranz );
+        if ( verstoesse.isEmpty() ) {
+
+            System.out.printf( "Keine Verschlechterung gegenüber Baseline (Toleranz %.0f%%).%n", toleranz * 100 );
+            System.exit( 0 );
+        }
+
+        System.out.println( "Verschlechterung gegenüber Baseline:" );
+        verstoesse.forEach( verstoss -> System.out.println( "  " + verstoss ) );
+        System.exit( 1 );
+    }
+
+
+    /**
+     * Startet die Anwendung mit zufälligem Port und In-Memory-DB und wartet,
+     * bis der Import im Hintergrund fertig ist.
+     *
+     * @param groesse Anzahl Schlagzeilen, mit der die DB beim Start befüllt wird
+     *
+     * @return Spring-Kontext der gestarteten Anwendung
+     */
+    private static ConfigurableApplicationContext starteAnwendung( int groesse ) throws InterruptedException {
+
+        // als Kommandozeilen-Argumente, weil diese Vorrang vor application.properties haben
+        final ConfigurableApplicationContext kontext =
+                new SpringApplicationBuilder( BadNewsApplication.class )
+                    .run( "--server.port=0",
+                          "--badnews.reaktiv.port=-1",
+                          "--spring.datasource.url=jdbc:h2:mem:lasttest;DB_CLOSE_DELAY=-1",
+                          "--spring.jpa.hibernate.ddl-auto=create-drop",
+                          "--badnews.import.anzahl=" + groesse,
+                          "--logging.file.name=",
+                          "--logging.level.root=WARN" );
+
+        warteAufImport( kontext );
+
+        return kontext;
+    }
+
+
+    /**
+     * Wartet, bis der Import beim Start fertig ist; vorher antworten die
+     * Endpunkte mit Status-Code 503.
+     *
+     * @param kontext Spring-Kontext der gestarteten Anwendung
+     */
+    static void warteAufImport( ConfigurableApplicationContext kontext ) throws InterruptedException {
+
+        final DatenImportFortschritt fortschritt = kontext.getBean( DatenImportFortschritt.class );
+        while ( fortschritt.isLaeuft() ) {
+
+            Thread.sleep( 100 );
+        }
+    }
+
+
+    /**
+     * Fragt einen Endpunkt für die angegebene Dauer mit mehreren Threads ab.
+     *
+     * @param client HTTP-Client, wird von allen Threads geteilt
+     *
+     * @param basisUrl URL der Anwendung ohne Pfad
+     *
+     * @param endpunkt Abzufragender Endpunkt
+     *
+     * @param nebenlaeufigkeit Anzahl Threads
+     *
+     * @param dauer Dauer der Belastung
+     *
+     * @return Messergebnis für den Endpunkt
+     */
+    private static Messergebnis belaste( HttpClient client, String basisUrl, Endpunkt endpunkt,
+                                         int nebenlaeufigkeit, Duration dauer )
+            throws InterruptedException, ExecutionException {
+
+        final long start = System.nanoTime();
+        final long ende  = start + dauer.toNanos();
+
+        final ExecutorService threadPool = Executors.newFixedThreadPool( nebenlaeufigkeit );
+        final List<Future<Teilergebnis>> futures = new ArrayList<>( nebenlaeufigkeit );
+        for ( int i = 0; i < nebenlaeufigkeit; i++ ) {
+
+            futures.add( threadPool.submit( () -> sendeAnfragen( client, basisUrl, endpunkt, ende ) ) );
+        }
+
+        final Histogram histogramm = new Histogram( 3 );
+        long anzahlFehler = 0;
+        for ( Future<Teilergebnis> future : futures ) {
+
+            final Teilergebnis teilergebnis = future.get();
+            histogramm.add( teilergebnis.histogramm() );
+            anzahlFehler += teilergebnis.anzahlFehler();
+        }
+        threadPool.shutdown();
+
+        final double sekunden = ( System.nanoTime() - start ) / 1e9;
+
+        return new Messergebnis( endpunkt.name(),
+                                 histogramm.getTotalCount(),
+                                 anzahlFehler,
+                                 runde( histogramm.getTotalCount() / sekunden ),
+                                 millis( histogramm.getValueAtPercentile( 50.0 ) ),
+                                 millis( histogramm.getValueAtPercentile( 90.0 ) ),
+                                 millis( histogramm.getValueAtPercentile( 99.0 ) ),
+                                 millis( histogramm.getValueAtPercentile( 99.9 ) ),
+                                 millis( histogramm.getMaxValue() ) );
+    }
+
+
+    /**
+     * Schickt Anfragen nacheinander, bis die Endzeit erreicht ist (ein Thread).
+     */
+    private static Teilergebnis sendeAnfragen( HttpClient client, String basisUrl,
+                                               Endpunkt endpunkt, long ende ) {
+
+        final Histogram histogramm = new Histogram( 3 );
+        long anzahlFehler = 0;
+
+        while ( System.nanoTime() < ende ) {
+
+            final HttpRequest anfrage = HttpRequest.newBuilder( URI.create( basisUrl + endpunkt.pfad().get() ) )
+                                                   .timeout( TIMEOUT_ANFRAGE )
+                                                   .GET()
+                                                   .build();
+            final long anfang = System.nanoTime();
+            try {
+
+                final HttpResponse<Void> antwort = client.send( anfrage, HttpResponse.BodyHandlers.discarding() );
+                if ( antwort.statusCode() == 200 ) {
+
+                    histogramm.recordValue( System.nanoTime() - anfang );
+
+                } else {
+
+                    anzahlFehler++;
+                }
+            }
+            catch ( IOException ex ) {
+
+                anzahlFehler++;
+            }
+            catch ( InterruptedException ex ) {
+
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        return new Teilergebnis( histogramm, anzahlFehler );
+    }
+
+
+    /**
+     * Vergleicht die Messergebnisse mit der Baseline.
+     *
+     * @param ergebnisse Aktuelle Messergebnisse
+     *
+     * @param baseline Messergebnisse der Baseline
+     *
+     * @param toleranz Erlaubte Verschlechterung, z.B. 0.25 für 25%
+     *
+     * @return Liste mit Beschreibungen der Verstöße, leer wenn es keine gibt
+     */
+    private static List<String> vergleicheMitBaseline( List<Messergebnis> ergebnisse,
+                                                       Messergebnis[] baseline,
+                                                       double toleranz ) {
+
+        final Map<String, Messergebnis> baselineNachName = new HashMap<>();
+        for ( Messergebnis ergebnis : baseline ) {
+
+            baselineNachName.put( ergebnis.endpunkt(), ergebnis );
+        }
+
+        final List<String> verstoesse = new ArrayList<>();
+
+        for ( Messergebnis ergebnis : ergebnisse ) {
+
+            if ( ergebnis.anzahlFehler() > 0 ) {
+
+                verstoesse.add( format( "%s: %d fehlerhafte Antworten",
+                                        ergebnis.endpunkt(), ergebnis.anzahlFehler() ) );
+            }
+
+            final Messergebnis referenz = baselineNachName.get( ergebnis.endpunkt() );
+            if ( referenz == null ) { continue; }
+
+            if ( ergebnis.p99Ms() > referenz.p99Ms() * ( 1 + toleranz ) ) {
+
+                verstoesse.add( format( "%s: p99 %.2f ms statt %.2f ms",
+                                        ergebnis.endpunkt(), ergebnis.p99Ms(), referenz.p99Ms() ) );
+            }
+            if ( ergebnis.anfragenProSekunde() < referenz.anfragenProSekunde() * ( 1 - toleranz ) ) {
+
+                verstoesse.add( format( "%s: %.1f Anfragen/s statt %.1f Anfragen/s",
+                                        ergebnis.endpunkt(), ergebnis.anfragenProSekunde(),
+                                        referenz.anfragenProSekunde() ) );
+            }
+        }
+
+        return verstoesse;
+    }
+
+
+    /**
+     * Liefert Zufallszahl zwischen 1 und {@code max} (jeweils inklusive).
+     */
+    private static int zufallsZahl( int max ) {
+
+        return 1 + ThreadLocalRandom.current().nextInt( Math.max( 1, max ) );
+    }
+
+
+    /**
+     * Rechnet Nanosekunden in Millisekunden um (zwei Nachkommastellen).
+     */
+    private static double millis( long nanos ) {
+
+        return runde( nanos / 1e6 );
+    }
+
+
+    /**
+     * Rundet auf zwei Nachkommastellen.
+     */
+    private static double runde( double wert ) {
+
+        return Math.round( wert * 100 ) / 100.0;
+    }
+
+}
@@ -0,0 +1,35 @@
+package de.eldecker.dhbw.spring.badnews.lasttest;
+
+
+/**
+ * Ergebnis des Lasttests für einen Endpunkt; wird als JSON gespeichert
+ * (Ergebnis-Datei und Baseline).
+ *
+ * @param endpunkt Name des Endpunkts, z.B. {@code /app/statistik}
+ *
+ * @param anzahlAnfragen Anzahl der erfolgreichen Anfragen in der Messphase
+ *
+ * @param anzahlFehler Anzahl der Anfragen mit HTTP-Status ungleich 200 oder Exception
+ *
+ * @param anfragenProSekunde Durchsatz (erfolgreiche Anfragen pro Sekunde)
+ *
+ * @param p50Ms Median der Antwortzeit in Millisekunden
+ *
+ * @param p90Ms 90. Perzentil der Antwortzeit in Millisekunden
+ *
+ * @param p99Ms 99. Perzentil der Antwortzeit in Millisekunden
+ *
+ * @param p999Ms 99,9. Perzentil der Antwortzeit in Millisekunden
+ *
+ * @param maxMs Maximale Antwortzeit in Millisekunden
+ */
+public record Messergebnis( String endpunkt,
+                            long   anzahlAnfragen,
+                            long   anzahlFehler,
+                            double anfragenProSekunde,
+                            double p50Ms,
+                            double p90Ms,
+                            double p99Ms,
+                            double p999Ms,
+                            double maxMs ) {
+}
@@ -0,0 +1,295 @@
+package de.eldecker.dhbw.spring.badnews.lasttest;
+
+import static java.net.http.HttpClient.Version.HTTP_1_1;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+
+/**
+ * Benchmark für die Startzeit der Anwendung: Gemessen wird die Zeit vom
+ * Start der JVM bis zur ersten erfolgreichen Antwort (Status-Code 200) von
+ * {@code /app/schlagzeilen}, jeweils in einem eigenen Prozess. Verglichen
+ * werden das normale JAR und die Varianten aus Profil {@code schnellstart}
+ * (Spring AOT, CDS-Archiv und beides).
+ * <br><br>
+ *
+ * Damit jeder Start dieselben Bedingungen hat, wird zuerst einmal eine
+ * DB-Datei mit Schlagzeilen erzeugt und vor jedem Start in ein leeres
+ * Arbeitsverzeichnis kopiert; beim Start wird also kein Import ausgeführt.
+ * Die Varianten werden abwechselnd gestartet, damit sich Schwankungen der
+ * Maschine auf alle Varianten gleich auswirken.
+ * <br><br>
+ *
+ * Konfiguration über System-Properties:
+ * <ul>
+ *   <li>{@code lasttest.groesse}: Anzahl Schlagzeilen in der DB</li>
+ *   <li>{@code startzeit.wiederholungen}: Anzahl Starts pro Variante</li>
+ *   <li>{@code startzeit.target}: Verzeichnis mit Build-Ergebnissen</li>
+ * </ul>
+ * Aufruf: {@code ./mvnw -P schnellstart,lasttest verify -Dlasttest.klasse=de.eldecker.dhbw.spring.badnews.lasttest.StartzeitBenchmark}
+ */
+public class StartzeitBenchmark {
+
+    /** Default für Anzahl Schlagzeilen in der DB. */
+    private static final int GROESSE = 10_000;
+
+    /** Default für Anzahl Starts pro Variante. */
+    private static final int WIEDERHOLUNGEN = 5;
+
+    /** Max. Wartezeit auf erste erfolgreiche Antwort. */
+    private static final Duration TIMEOUT_START = Duration.ofMinutes( 3 );
+
+    /** Pause zwischen zwei Anfragen, solange die Anwendung noch nicht antwortet. */
+    private static final long ABFRAGE_INTERVALL_MS = 10;
+
+    /** Verzeichnis mit Build-Ergebnissen; wird von Maven gesetzt. */
+    private static final Path TARGET = Path.of( System.getProperty( "startzeit.target", "target" ) );
+
+    /** Verzeichnis mit Ergebnissen von Profil {@code schnellstart}. */
+    private static final Path SCHNELLSTART = TARGET.resolve( "schnellstart" );
+
+
+    /**
+     * Variante für den Start der Anwendung.
+     *
+     * @param name Name für Ausgabe
+     *
+     * @param jvmArgumente Argumente für {@code java} vor {@code -jar}
+     *
+     * @param jar JAR-Datei der Anwendung
+     */
+    private record Variante( String name, List<String> jvmArgumente, Path jar ) {}
+
+
+    /**
+     * Einstiegsmethode, Konfiguration über System-Properties.
+     *
+     * @param args Wird nicht ausgewertet
+     */
+    public static void main( String[] args ) throws Exception {
+
+        final int groesse        = Integer.getInteger( "lasttest.groesse", GROESSE );
+        final int wiederholungen = Integer.getInteger( "startzeit.wiederholungen", WIEDERHOLUNGEN );
+
+        final Path fatJar         = findeFatJar();
+        final Path entpacktesJar  = SCHNELLSTART.resolve( fatJar.getFileName() );
+        final String archiv       = SCHNELLSTART.resolve( "badnews.jsa"     ).toAbsolutePath().toString();
+        final String archivAot    = SCHNELLSTART.resolve( "badnews-aot.jsa" ).toAbsolutePath().toString();
+
+        if ( !Files.exists( entpacktesJar ) ) {
+
+            throw new IllegalStateException( "Nicht gefunden: " + entpacktesJar + ", zuerst mit Profil schnellstart bauen." );
+        }
+
+        final List<Variante> varianten = List.of(
+                new Variante( "Standard (Fat-JAR)", List.of(), fatJar ),
+                new Variante( "Entpackt"          , List.of(), entpacktesJar ),
+                new Variante( "Entpackt + CDS"    , List.of( "-XX:SharedArchiveFile=" + archiv ), entpacktesJar ),
+                new Variante( "Entpackt + AOT"    , List.of( "-Dspring.aot.enabled=true" ), entpacktesJar ),
+                new Variante( "Entpackt + AOT + CDS",
+                              List.of( "-XX:SharedArchiveFile=" + archivAot, "-Dspring.aot.enabled=true" ), entpacktesJar )
+            );
+
+        System.out.printf( "Startzeit-Benchmark: %d Schlagzeilen, %d Starts pro Variante, %s%n",
+                           groesse, wiederholungen, Runtime.version() );
+
+        final Path vorlage = erzeugeDb( fatJar, groesse );
+
+        final long[][] messwerte = new long[ varianten.size() ][ wiederholungen ];
+        for ( int i = 0; i < wiederholungen; i++ ) {
+
+            for ( int v = 0; v < varianten.size(); v++ ) {
+
+                messwerte[ v ][ i ] = messeStart( varianten.get( v ), vorlage );
+            }
+        }
+
+        System.out.printf( "%n%-22s %8s %8s %8s%n", "Variante", "Min", "Median", "Max" );
+        for ( int v = 0; v < varianten.size(); v++ ) {
+
+            final long[] werte = messwerte[ v ];
+            Arrays.sort( werte );
+            System.out.printf( "%-22s %5d ms %5d ms %5d ms%n",
+                               varianten.get( v ).name(), werte[ 0 ], werte[ werte.length / 2 ], werte[ werte.length - 1 ] );
+        }
+
+        System.exit( 0 );
+    }
+
+
+    /**
+     * Sucht das von {@code spring-boot:repackage} erzeugte JAR in {@code target}.
+     */
+    private static Path findeFatJar() throws IOException {
+
+        try ( Stream<Path> dateien = Files.list( TARGET ) ) {
+
+            return dateien.filter( datei -> datei.getFileName().toString().matches( "badnews-.*\\.jar" ) )
+                          .findFirst()
+                          .orElseThrow( () -> new IllegalStateException( "Kein JAR in " + TARGET.toAbsolutePath() ) );
+        }
+    }
+
+
+    /**
+     * Startet die Anwendung einmal mit leerer DB, wartet bis der Import fertig
+     * ist (erste erfolgreiche Antwort) und beendet sie wieder.
+     *
+     * @return Verzeichnis mit der DB-Datei als Vorlage
+     */
+    private static Path erzeugeDb( Path fatJar, int groesse ) throws Exception {
+
+        final Path verzeichnis = Files.createTempDirectory( "badnews-startzeit-db" );
+        Files.createDirectory( verzeichnis.resolve( "db" ) );
+
+        System.out.println( "Erzeuge DB mit " + groesse + " Schlagzeilen ..." );
+        final Variante variante = new Variante( "DB erzeugen", List.of(), fatJar );
+        starteUndWarte( variante, verzeichnis, "--badnews.import.anzahl=" + groesse );
+
+        return verzeichnis.resolve( "db" );
+    }
+
+
+    /**
+     * Kopiert die DB in ein neues Arbeitsverzeichnis, startet die Anwendung und
+     * misst die Zeit bis zur ersten erfolgreichen Antwort.
+     *
+     * @return Zeit in Millisekunden
+     */
+    private static long messeStart( Variante variante, Path vorlage ) throws Exception {
+
+        final Path verzeichnis = Files.createTempDirectory( "badnews-startzeit" );
+        final Path db          = Files.createDirectory( verzeichnis.resolve( "db" ) );
+        try ( Stream<Path> dateien = Files.list( vorlage ) ) {
+
+            dateien.forEach( datei -> kopiere( datei, db.resolve( datei.getFileName() ) ) );
+        }
+
+        final long dauerMs = starteUndWarte( variante, verzeichnis );
+        System.out.printf( "%-22s %5d ms%n", variante.name(), dauerMs );
+
+        return dauerMs;
+    }
+
+
+    /**
+     * Startet die Anwendung als eigenen Prozess, fragt {@code /app/schlagzeilen}
+     * ab, bis der Status-Code 200 ist, und beendet den Prozess dann regulär
+     * (damit H2 die DB-Datei sauber schließt).
+     *
+     * @param variante Variante mit JVM-Argumenten und JAR
+     *
+     * @param verzeichnis Arbeitsverzeichnis mit Unterverzeichnis {@code db}
+     *
+     * @param weitereArgumente Zusätzliche Argumente für die Anwendung
+     *
+     * @return Zeit vom Start des Prozesses bis zur ersten erfolgreichen Antwort in Millisekunden
+     */
+    private static long starteUndWarte( Variante variante, Path verzeichnis, String... weitereArgumente )
+            throws Exception {
+
+        final int port = freierPort();
+
+        final List<String> kommando = new ArrayList<>();
+        kommando.add( ProcessHandle.current().info().command().orElse( "java" ) );
+        kommando.addAll( variante.jvmArgumente() );
+        kommando.add( "-jar" );
+        kommando.add( variante.jar().toAbsolutePath().toString() );
+        kommando.add( "--server.port=" + port );
+        kommando.add( "--badnews.reaktiv.port=0" );
+        kommando.add( "--logging.file.name=" );
+        kommando.addAll( List.of( weitereArgumente ) );
+
+        final HttpClient client = HttpClient.newBuilder()
+                                            .version( HTTP_1_1 )
+                                            .connectTimeout( Duration.ofSeconds( 1 ) )
+                                            .build();
+        final HttpRequest anfrage =
+                HttpRequest.newBuilder( URI.create( "http://localhost:" + port + "/app/schlagzeilen" ) )
+                           .timeout( Duration.ofSeconds( 10 ) )
+                           .GET()
+                           .build();
+
+        final long start = System.nanoTime();
+        final Process prozess = new ProcessBuilder( kommando ).directory( verzeichnis.toFile() )
+                                                              .redirectErrorStream( true )
+                                                              .redirectOutput( new File( verzeichnis.toFile(), "ausgabe.log" ) )
+                                                              .start();
+        try {
+
+            final long deadline = start + TIMEOUT_START.toNanos();
+            while ( System.nanoTime() < deadline ) {
+
+                if ( !prozess.isAlive() ) {
+
+                    throw new IllegalStateException( "Anwendung beendet, siehe " + verzeichnis.resolve( "ausgabe.log" ) );
+                }
+                try {
+
+                    if ( client.send( anfrage, HttpResponse.BodyHandlers.discarding() ).statusCode() == 200 ) {
+
+                        return TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start );
+                    }
+                }
+                catch ( IOException ex ) {
+
+                    // Server lauscht noch nicht
+                }
+                Thread.sleep( ABFRAGE_INTERVALL_MS );
+            }
+            throw new IllegalStateException( "Keine erfolgreiche Antwort nach " + TIMEOUT_START );
+        }
+        finally {
+
+            prozess.destroy();
+            if ( !prozess.waitFor( 30, TimeUnit.SECONDS ) ) {
+
+                prozess.destroyForcibly();
+            }
+        }
+    }
+
+
+    /**
+     * Freien TCP-Port ermitteln.
+     */
+    private static int freierPort() throws IOException {
+
+        try ( ServerSocket socket = new ServerSocket( 0 ) ) {
+
+            return socket.getLocalPort();
+        }
+    }
+
+
+    /**
+     * Kopiert eine Datei; für Verwendung in Lambda-Ausdrücken.
+     */
+    private static void kopiere( Path quelle, Path ziel ) {
+
+        try {
+
+            Files.copy( quelle, ziel );
+        }
+        catch ( IOException ex ) {
+
+            throw new UncheckedIOException( ex );
+        }
+    }
+
+}
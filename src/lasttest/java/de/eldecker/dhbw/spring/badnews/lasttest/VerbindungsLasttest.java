@@ -0,0 +1,256 @@
+package de.eldecker.dhbw.spring.badnews.lasttest;
+
+import static java.net.http.HttpClient.Version.HTTP_1_1;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import de.eldecker.dhbw.spring.badnews.BadNewsApplication;
+import de.eldecker.dhbw.spring.badnews.web.ReaktiverSuchServer;
+
+
+/**
+ * Vergleich der Anzahl gleichzeitiger Verbindungen, die der blockierende
+ * Such-Endpunkt ({@code /api/v1/suche}, Spring MVC auf Tomcat mit JPA) und
+ * der reaktive Such-Endpunkt ({@code /api/v1/suche/stream}, WebFlux auf Netty
+ * mit R2DBC) verkraften: Für jede Stufe werden alle Anfragen gleichzeitig
+ * abgeschickt (je eine eigene HTTP-Verbindung). Gemessen werden Fehler,
+ * Antwortzeiten, Gesamtdauer und die max. Anzahl Server-Threads des
+ * jeweiligen Stacks, die während der Stufe gleichzeitig existierten.
+ * <br><br>
+ *
+ * Die Anwendung läuft im selben Prozess mit In-Memory-DB, ohne Trigramm-Index
+ * und ohne Cache für Suchergebnisse, damit jede Suche mit {@code LIKE} über
+ * die Tabelle läuft. Beide Endpunkte liefern die ersten 100 Treffer.
+ * <br><br>
+ *
+ * Konfiguration über System-Properties:
+ * <ul>
+ *   <li>{@code lasttest.groesse}: Anzahl Schlagzeilen in der DB</li>
+ *   <li>{@code lasttest.verbindungen}: Stufen, z.B. {@code 100,500,1000}</li>
+ * </ul>
+ * Aufruf: {@code ./mvnw -P lasttest verify -Dlasttest.klasse=de.eldecker.dhbw.spring.badnews.lasttest.VerbindungsLasttest}
+ */
+public class VerbindungsLasttest {
+
+    /** Default für Anzahl Schlagzeilen in der DB. */
+    private static final int GROESSE = 10_000;
+
+    /** Default für Stufen mit Anzahl gleichzeitiger Verbindungen. */
+    private static final String VERBINDUNGEN = "100,500,1000,2000";
+
+    /** Suchbegriffe, wie in {@link Lasttest}. */
+    private static final String[] SUCHBEGRIFFE = { "Erdbeben", "Bayern", "brand", "krise", "Italien" };
+
+    /** Timeout für eine einzelne Anfrage. */
+    private static final Duration TIMEOUT_ANFRAGE = Duration.ofSeconds( 120 );
+
+    /** Intervall, in dem die Server-Threads gezählt werden. */
+    private static final long ABTAST_INTERVALL_MS = 20;
+
+
+    /**
+     * Variante des Such-Endpunkts.
+     *
+     * @param name Name für Ausgabe
+     *
+     * @param basisUrl URL des Servers ohne Pfad
+     *
+     * @param pfad Pfad mit Query-Parametern ohne Suchbegriff
+     *
+     * @param threadPraefixe Präfixe der Namen der Server-Threads dieses Stacks
+     */
+    private record Variante( String name, String basisUrl, String pfad, String... threadPraefixe ) {}
+
+
+    /**
+     * Einstiegsmethode, Konfiguration über System-Properties.
+     *
+     * @param args Wird nicht ausgewertet
+     */
+    public static void main( String[] args ) throws Exception {
+
+        final int    groesse      = Integer.getInteger( "lasttest.groesse", GROESSE );
+        final String verbindungen = System.getProperty( "lasttest.verbindungen", VERBINDUNGEN );
+
+        System.out.printf( "Verbindungs-Lasttest: %d Schlagzeilen, Stufen %s%n", groesse, verbindungen );
+
+        final ConfigurableApplicationContext kontext = starteAnwendung( groesse );
+        try {
+
+            final String urlMvc     = "http://localhost:" + kontext.getEnvironment().getProperty( "local.server.port" );
+            final String urlReaktiv = "http://localhost:" + kontext.getBean( ReaktiverSuchServer.class ).getPort();
+
+            final List<Variante> varianten = List.of(
+                    new Variante( "MVC"     , urlMvc    , "/api/v1/suche?anzahl=100&seite=1&query=", "http-nio-" ),
+                    new Variante( "Reaktiv" , urlReaktiv, "/api/v1/suche/stream?max=100&query="    , "reactor-http-", "reaktiv-suche-" )
+                );
+
+            final ExecutorService clientExecutor = Executors.newFixedThreadPool( 4 );
+            final HttpClient client = HttpClient.newBuilder()
+                                                .version( HTTP_1_1 )
+                                                .connectTimeout( TIMEOUT_ANFRAGE )
+                                                .executor( clientExecutor )
+                                                .build();
+
+            for ( Variante variante : varianten ) { // Aufwärmen
+
+                belaste( client, variante, 50 );
+            }
+
+            System.out.printf( "%-8s %11s %8s %7s %10s %10s %10s %9s%n",
+                               "Variante", "Verbindungen", "Erfolg", "Fehler", "Dauer", "p50", "p99", "Threads" );
+
+            for ( String stufe : verbindungen.split( "," ) ) {
+
+                final int anzahl = Integer.parseInt( stufe.trim() );
+                for ( Variante variante : varianten ) {
+
+                    belaste( client, variante, anzahl );
+                }
+            }
+
+            clientExecutor.shutdownNow();
+
+        } finally {
+
+            kontext.close();
+        }
+
+        System.exit( 0 );
+    }
+
+
+    /**
+     * Startet die Anwendung mit zufälligen Ports und In-Memory-DB, ohne
+     * Trigramm-Index und ohne Cache für Suchergebnisse, und wartet auf das
+     * Ende des Imports.
+     */
+    private static ConfigurableApplicationContext starteAnwendung( int groesse ) throws InterruptedException {
+
+        final ConfigurableApplicationContext kontext =
+                new SpringApplicationBuilder( BadNewsApplication.class )
+                    .run( "--server.port=0",
+                          "--badnews.reaktiv.port=0",
+                          "--spring.datasource.url=jdbc:h2:mem:lasttest;DB_CLOSE_DELAY=-1",
+                          "--spring.jpa.hibernate.ddl-auto=create-drop",
+                          "--badnews.import.anzahl=" + groesse,
+                          "--badnews.suche.trigramm-index=false",
+                          "--badnews.suche.cache.max-bytes=0",
+                          "--logging.file.name=",
+                          "--logging.level.root=WARN" );
+
+        Lasttest.warteAufImport( kontext );
+
+        return kontext;
+    }
+
+
+    /**
+     * Schickt {@code anzahl} Anfragen gleichzeitig und wartet auf alle Antworten;
+     * Ergebnis wird auf die Konsole geschrieben.
+     */
+    private static void belaste( HttpClient client, Variante variante, int anzahl ) throws InterruptedException {
+
+        final Histogram     histogramm   = new Histogram( 3 );
+        final AtomicInteger anzahlFehler = new AtomicInteger( 0 );
+
+        final AtomicBoolean laeuft     = new AtomicBoolean( true );
+        final AtomicLong    maxThreads = new AtomicLong( 0 );
+        final Thread abtaster = Thread.ofPlatform().daemon().start( () -> {
+
+            while ( laeuft.get() ) {
+
+                maxThreads.accumulateAndGet( zaehleThreads( variante.threadPraefixe() ), Math::max );
+                try {
+
+                    Thread.sleep( ABTAST_INTERVALL_MS );
+                }
+                catch ( InterruptedException ex ) {
+
+                    return;
+                }
+            }
+        });
+
+        final long start = System.nanoTime();
+
+        final List<CompletableFuture<Void>> futures = new ArrayList<>( anzahl );
+        for ( int i = 0; i < anzahl; i++ ) {
+
+            final String suchbegriff = SUCHBEGRIFFE[ ThreadLocalRandom.current().nextInt( SUCHBEGRIFFE.length ) ];
+            final HttpRequest anfrage =
+                    HttpRequest.newBuilder( URI.create( variante.basisUrl() + variante.pfad() + suchbegriff ) )
+                               .timeout( TIMEOUT_ANFRAGE )
+                               .GET()
+                               .build();
+
+            final long anfang = System.nanoTime();
+            futures.add( client.sendAsync( anfrage, HttpResponse.BodyHandlers.discarding() )
+                               .handle( ( antwort, fehler ) -> {
+
+                                   if ( fehler == null && antwort.statusCode() == 200 ) {
+
+                                       synchronized ( histogramm ) {
+
+                                           histogramm.recordValue( System.nanoTime() - anfang );
+                                       }
+                                   } else {
+
+                                       anzahlFehler.incrementAndGet();
+                                   }
+                                   return null;
+                               }) );
+        }
+        CompletableFuture.allOf( futures.toArray( CompletableFuture[]::new ) ).join();
+
+        final long dauerMs = TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start );
+
+        laeuft.set( false );
+        abtaster.join();
+
+        System.out.printf( "%-8s %11d %8d %7d %7d ms %7.0f ms %7.0f ms %9d%n",
+                           variante.name(), anzahl, histogramm.getTotalCount(), anzahlFehler.get(), dauerMs,
+                           histogramm.getValueAtPercentile( 50.0 ) / 1e6,
+                           histogramm.getValueAtPercentile( 99.0 ) / 1e6,
+                           maxThreads.get() );
+    }
+
+
+    /**
+     * Zählt die lebenden Threads, deren Name mit einem der Präfixe beginnt.
+     */
+    private static long zaehleThreads( String... praefixe ) {
+
+        return Thread.getAllStackTraces()
+                     .keySet()
+                     .stream()
+                     .filter( thread -> {
+
+                         for ( String praefix : praefixe ) {
+
+                             if ( thread.getName().startsWith( praefix ) ) { return true; }
+                         }
+                         return false;
+                     })
+                     .count();
+    }
+
+}
@@ -2,12 +2,18 @@ package de.eldecker.dhbw.spring.badnews;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 /**
  * Klasse mit Einstiegsmethode, kann im Debugger ausgeführt werden.
+ * <br><br>
+ *
+ * Mit {@code @EnableScheduling} werden Methoden mit {@code @Scheduled}
+ * (z.B. Konsistenz-Prüfung in {@code StatistikZaehler}) regelmäßig ausgeführt.
  */
 @SpringBootApplication
+@EnableScheduling
 public class BadNewsApplication {
 
 	public static void main( String[] args ) {
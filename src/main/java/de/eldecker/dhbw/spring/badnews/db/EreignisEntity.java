@@ -0,0 +1,69 @@
+package de.eldecker.dhbw.spring.badnews.db;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+
+/**
+ * Eintrag im Wörterbuch der Ereignisse: Ein Objekt dieser Entity-Klasse
+ * ordnet einem Ereignis-Code den Text des Ereignisses zu, siehe auch
+ * {@link SchlagzeilenWoerterbuch}.
+ */
+@Entity
+@Table( name = "Ereignisse" )
+public class EreignisEntity {
+
+    /** Ereignis-Code (Index im Array {@code EREIGNISSE_ARRAY}). */
+    @Id
+    private Short code;
+
+    /** Text des Ereignisses, z.B. "Waldbrand". */
+    private String bezeichnung;
+
+
+    /**
+     * Default-Konstruktor, wird von JPA benötigt.
+     */
+    public EreignisEntity() {
+
+        bezeichnung = "";
+    }
+
+
+    /**
+     * Konstruktor für neuen Eintrag im Wörterbuch.
+     *
+     * @param code Ereignis-Code
+     *
+     * @param bezeichnung Text des Ereignisses
+     */
+    public EreignisEntity( short code, String bezeichnung ) {
+
+        this.code        = code;
+        this.bezeichnung = bezeichnung;
+    }
+
+
+    /**
+     * Getter für Ereignis-Code (Primärschlüssel).
+     *
+     * @return Ereignis-Code
+     */
+    public Short getCode() {
+
+        return code;
+    }
+
+
+    /**
+     * Getter für Text des Ereignisses.
+     *
+     * @return Text des Ereignisses
+     */
+    public String getBezeichnung() {
+
+        return bezeichnung;
+    }
+
+}
@@ -0,0 +1,11 @@
+package de.eldecker.dhbw.spring.badnews.db;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+
+/**
+ * Repository für das Wörterbuch der Ereignisse (Tabelle {@code Ereignisse}).
+ */
+public interface EreignisRepo extends JpaRepository<EreignisEntity, Short> {
+
+}
@@ -0,0 +1,86 @@
+package de.eldecker.dhbw.spring.badnews.db;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+
+/**
+ * Eintrag im Wörterbuch der Orte: Ein Objekt dieser Entity-Klasse ordnet
+ * einem Orts-Code den Namen des Orts zu, siehe auch
+ * {@link SchlagzeilenWoerterbuch}.
+ */
+@Entity
+@Table( name = "Orte" )
+public class OrtEntity {
+
+    /** Orts-Code, siehe {@link SchlagzeilenWoerterbuch#ORT_CODE_NATIONEN}. */
+    @Id
+    private Short code;
+
+    /** Name des Orts, z.B. "Bayern" oder "der Schweiz". */
+    private String bezeichnung;
+
+    /** {@code true} wenn der Ort in Deutschland liegt, sonst {@code false}. */
+    private boolean inland;
+
+
+    /**
+     * Default-Konstruktor, wird von JPA benötigt.
+     */
+    public OrtEntity() {
+
+        bezeichnung = "";
+    }
+
+
+    /**
+     * Konstruktor für neuen Eintrag im Wörterbuch.
+     *
+     * @param code Orts-Code
+     *
+     * @param bezeichnung Name des Orts
+     *
+     * @param inland {@code true} für Ort in Deutschland, sonst {@code false}
+     */
+    public OrtEntity( short code, String bezeichnung, boolean inland ) {
+
+        this.code        = code;
+        this.bezeichnung = bezeichnung;
+        this.inland      = inland;
+    }
+
+
+    /**
+     * Getter für Orts-Code (Primärschlüssel).
+     *
+     * @return Orts-Code
+     */
+    public Short getCode() {
+
+        return code;
+    }
+
+
+    /**
+     * Getter für Name des Orts.
+     *
+     * @return Name des Orts
+     */
+    public String getBezeichnung() {
+
+        return bezeichnung;
+    }
+
+
+    /**
+     * Getter für Abfrage, ob der Ort in Deutschland liegt.
+     *
+     * @return {@code true} für Ort in Deutschland, sonst {@code false}
+     */
+    public boolean isInland() {
+
+        return inland;
+    }
+
+}
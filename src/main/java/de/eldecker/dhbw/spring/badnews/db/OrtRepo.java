@@ -0,0 +1,11 @@
+package de.eldecker.dhbw.spring.badnews.db;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+
+/**
+ * Repository für das Wörterbuch der Orte (Tabelle {@code Orte}).
+ */
+public interface OrtRepo extends JpaRepository<OrtEntity, Short> {
+
+}
@@ -0,0 +1,105 @@
+package de.eldecker.dhbw.spring.badnews.db;
+
+import org.springframework.core.Ordered;
+
+
+/**
+ * Interface für Beans, die über Schreibzugriffe auf die Tabelle mit den
+ * Schlagzeilen informiert werden wollen, z.B. um In-Memory-Datenstrukturen
+ * wie einen Suchindex aktuell zu halten.
+ * <br><br>
+ *
+ * Alle Beans, die dieses Interface implementieren, werden von
+ * {@link SchlagzeilenEntityListener} aufgerufen, und zwar erst nach dem
+ * Commit der Transaktion (wenn eine Transaktion aktiv ist). Die Methoden
+ * können von mehreren Threads gleichzeitig aufgerufen werden.
+ * <br><br>
+ *
+ * Die Reihenfolge der Aufrufe wird mit {@code @Order} und den Konstanten
+ * {@code REIHENFOLGE_*} festgelegt: Zuerst werden alle Indizes, Caches und
+ * Zähler aktualisiert, erst danach wird die Versionsnummer in
+ * {@code DatenVersion} erhöht. Eine Suche, die schon die neue Versionsnummer
+ * sieht, findet also auch in allen Indizes schon den neuen Zustand und kann
+ * kein veraltetes Ergebnis unter der neuen Version in einen Cache legen.
+ */
+public interface SchlagzeilenBeobachter {
+
+    /** Reihenfolge für Beobachter, die Indizes, Caches oder Zähler aktualisieren. */
+    int REIHENFOLGE_INDEX = 0;
+
+    /** Reihenfolge für Erhöhung der Versionsnummer, nach allen Indizes. */
+    int REIHENFOLGE_VERSION = Ordered.LOWEST_PRECEDENCE - 1;
+
+    /** Reihenfolge für Benachrichtigung von Clients (Live-Ticker), ganz am Ende. */
+    int REIHENFOLGE_BENACHRICHTIGUNG = Ordered.LOWEST_PRECEDENCE;
+
+
+    /**
+     * Baut den Zustand des Beobachters (z.B. einen Index) aus der DB auf.
+     * Wird einmal beim Start im Hintergrund aufgerufen, siehe
+     * {@code DatenImporterApplicationRunner}; bis alle Beobachter aufgebaut
+     * sind, werden Anfragen, die die Daten brauchen, mit Status-Code 503
+     * beantwortet.
+     */
+    default void aufbauen() {}
+
+
+    /**
+     * Wird aufgerufen, nachdem eine neue Schlagzeile gespeichert wurde.
+     *
+     * @param entity Neu gespeicherte Schlagzeile, ID ist gesetzt
+     */
+    default void nachEinfuegen( SchlagzeilenEntity entity ) {}
+
+
+    /**
+     * Wird aufgerufen, nachdem eine bestehende Schlagzeile geändert wurde.
+     *
+     * @param entity Geänderte Schlagzeile (neuer Zustand)
+     */
+    default void nachAenderung( SchlagzeilenEntity entity ) {}
+
+
+    /**
+     * Wird aufgerufen, nachdem eine bestehende Schlagzeile geändert wurde;
+     * Variante für Beobachter, die wissen müssen, ob sich die Kategorie
+     * (Inland/Ausland) geändert hat. Die Default-Implementierung ruft
+     * {@link #nachAenderung(SchlagzeilenEntity)} auf.
+     *
+     * @param entity Geänderte Schlagzeile (neuer Zustand)
+     *
+     * @param inlandVorher Wert des Flags {@code inland} vor der Änderung
+     */
+    default void nachAenderung( SchlagzeilenEntity entity, boolean inlandVorher ) {
+
+        nachAenderung( entity );
+    }
+
+
+    /**
+     * Wird aufgerufen, nachdem eine bestehende Schlagzeile geändert wurde;
+     * Variante für Beobachter, die den alten Text brauchen und ihn deshalb
+     * nicht selbst pro ID speichern müssen. Die Default-Implementierung ruft
+     * {@link #nachAenderung(SchlagzeilenEntity, boolean)} auf.
+     *
+     * @param entity Geänderte Schlagzeile (neuer Zustand)
+     *
+     * @param inlandVorher Wert des Flags {@code inland} vor der Änderung
+     *
+     * @param schlagzeileVorher Text vor der Änderung; {@code null}, wenn nicht
+     *                          bekannt (Entity nicht aus der DB geladen)
+     */
+    default void nachAenderung( SchlagzeilenEntity entity, boolean inlandVorher, String schlagzeileVorher ) {
+
+        nachAenderung( entity, inlandVorher );
+    }
+
+
+    /**
+     * Wird aufgerufen, nachdem eine Schlagzeile gelöscht wurde.
+     *
+     * @param entity Gelöschte Schlagzeile, ID ist noch gesetzt
+     */
+    default void nachLoeschen( SchlagzeilenEntity entity ) {}
+
+}
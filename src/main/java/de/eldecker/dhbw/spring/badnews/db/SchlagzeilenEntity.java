@@ -5,17 +5,32 @@ import static jakarta.persistence.GenerationType.SEQUENCE;
 import java.util.Objects;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 
 
 /**
  * Ein Objekt dieser Entity-Klasse repräsentiert eine Tabellenzeile
  * mit der Schlagzeile einer schlechten Nachricht.
+ * <br><br>
+ *
+ * Schreibzugriffe werden über {@link SchlagzeilenEntityListener} an alle
+ * {@link SchlagzeilenBeobachter} gemeldet.
+ * <br><br>
+ *
+ * Zusätzlich zum Text werden Codes für Ereignis und Ort gespeichert, siehe
+ * {@link SchlagzeilenWoerterbuch}. Im kompakten Speichermodus
+ * ({@code badnews.speicherung.kompakt=true}) bleibt die Text-Spalte leer
+ * und der Text wird aus den Codes ermittelt.
  */
 @Entity
 @Table( name = "Schlagzeilen" )
+@EntityListeners( SchlagzeilenEntityListener.class )
 public class SchlagzeilenEntity {
 
     /**
@@ -25,17 +40,49 @@ public class SchlagzeilenEntity {
      *
      * Bei Wahl der Strategie {@code AUTO} wird auch {@code SEQUENCE}
      * gewählt.
+     * <br><br>
+     *
+     * Mit {@code allocationSize=50} reserviert Hibernate mit einem Aufruf der
+     * Sequenz 50 IDs (Optimizer "pooled"); das entspricht dem Inkrement der
+     * Sequenz in bestehenden DB-Dateien und darf deshalb nicht geändert werden.
      */
     @Id
-    @GeneratedValue( strategy = SEQUENCE )
+    @GeneratedValue( strategy = SEQUENCE, generator = "schlagzeilen_seq" )
+    @SequenceGenerator( name = "schlagzeilen_seq", sequenceName = "Schlagzeilen_SEQ", allocationSize = 50 )
     private Long id;
 
-    /** Text der zufällig erzeugten Negativschlagzeile. */
+    /**
+     * Text der zufällig erzeugten Negativschlagzeile; {@code null}, wenn
+     * die Schlagzeile im kompakten Speichermodus nur als Codes gespeichert ist.
+     */
     private String schlagzeile;
 
+    /** Code des Ereignisses oder {@code null}, wenn Text nicht im Wörterbuch. */
+    private Short ereignisCode;
+
+    /** Code des Orts oder {@code null}, wenn Text nicht im Wörterbuch. */
+    private Short ortCode;
+
     /** {@code true} wenn die Schlagzeile das Inland betrifft, sonst {@code false}. */
     private boolean inland;
 
+    /**
+     * Wert von {@link #inland}, wie er zuletzt aus der DB gelesen bzw. in
+     * die DB geschrieben wurde; wird nicht persistiert, sondern wird bei
+     * Änderungen für {@link SchlagzeilenBeobachter} benötigt.
+     */
+    @Transient
+    private boolean inlandGespeichert;
+
+    /**
+     * Text der Schlagzeile, wie er zuletzt aus der DB gelesen bzw. in die DB
+     * geschrieben wurde (für Schlagzeilen aus dem Wörterbuch die kanonische
+     * String-Instanz, also keine Kopie); wird nicht persistiert, sondern wird
+     * bei Änderungen für {@link SchlagzeilenBeobachter} benötigt.
+     */
+    @Transient
+    private String schlagzeileGespeichert;
+
 
     /**
      * Default-Konstruktor, wird von JPA benötigt.
@@ -53,8 +100,7 @@ public class SchlagzeilenEntity {
      */
     public SchlagzeilenEntity( String schlagzeile ) {
 
-        this.schlagzeile = schlagzeile;
-        this.inland      = true;
+        this( schlagzeile, true );
     }
 
 
@@ -68,8 +114,25 @@ public class SchlagzeilenEntity {
      */
     public SchlagzeilenEntity( String schlagzeile, boolean inland ) {
 
-        this.schlagzeile = schlagzeile;
-        this.inland      = inland;
+        setSchlagzeile( schlagzeile );
+        this.inland = inland;
+    }
+
+
+    /**
+     * Konstruktor für neue Schlagzeile aus Codes des {@link SchlagzeilenWoerterbuch};
+     * der Text ist die kanonische String-Instanz aus dem Wörterbuch.
+     *
+     * @param ereignisCode Code des Ereignisses
+     *
+     * @param ortCode Code des Orts; bestimmt auch das Flag {@code inland}
+     */
+    public SchlagzeilenEntity( short ereignisCode, short ortCode ) {
+
+        this.schlagzeile  = SchlagzeilenWoerterbuch.text( ereignisCode, ortCode );
+        this.ereignisCode = ereignisCode;
+        this.ortCode      = ortCode;
+        this.inland       = SchlagzeilenWoerterbuch.istInland( ortCode );
     }
 
 
@@ -88,22 +151,117 @@ public class SchlagzeilenEntity {
     /**
      * Getter für den Text der Schlagzeile.
      *
-     * @return Text der Schlagzeile.
+     * @return Text der Schlagzeile; für Schlagzeilen aus dem Wörterbuch
+     *         die kanonische String-Instanz.
      */
     public String getSchlagzeile() {
 
-        return schlagzeile;
+        return schlagzeile != null ? schlagzeile
+                                   : SchlagzeilenWoerterbuch.text( ereignisCode, ortCode );
     }
 
 
     /**
-     * Setter für den Text der Schlagzeile.
+     * Setter für den Text der Schlagzeile; die Codes für Ereignis und Ort
+     * werden entsprechend gesetzt.
      *
      * @param schlagzeile Text der Schlagzeile.
      */
     public void setSchlagzeile( String schlagzeile ) {
 
-        this.schlagzeile = schlagzeile;
+        this.schlagzeile  = SchlagzeilenWoerterbuch.kanonisch( schlagzeile );
+        this.ereignisCode = SchlagzeilenWoerterbuch.ereignisCode( schlagzeile );
+        this.ortCode      = SchlagzeilenWoerterbuch.ortCode( schlagzeile );
+    }
+
+
+    /**
+     * Getter für Code des Ereignisses.
+     *
+     * @return Ereignis-Code oder {@code null}, wenn Schlagzeile nicht im Wörterbuch
+     */
+    public Short getEreignisCode() {
+
+        return ereignisCode;
+    }
+
+
+    /**
+     * Getter für Code des Orts.
+     *
+     * @return Orts-Code oder {@code null}, wenn Schlagzeile nicht im Wörterbuch
+     */
+    public Short getOrtCode() {
+
+        return ortCode;
+    }
+
+
+    /**
+     * Entfernt den Text, wenn die Schlagzeile vollständig durch die Codes
+     * beschrieben ist (kompakter Speichermodus); wird vor dem Schreiben in
+     * die DB von {@link SchlagzeilenEntityListener} aufgerufen.
+     */
+    void nurCodesSpeichern() {
+
+        if ( ereignisCode != null && ortCode != null ) {
+
+            schlagzeile = null;
+        }
+    }
+
+
+    /**
+     * Liefert den Wert des Flags {@code inland}, wie er zuletzt aus der DB
+     * gelesen bzw. in die DB geschrieben wurde.
+     *
+     * @return Gespeicherter Wert des Flags {@code inland}
+     */
+    boolean isInlandGespeichert() {
+
+        return inlandGespeichert;
+    }
+
+
+    /**
+     * Liefert den Text der Schlagzeile, wie er zuletzt aus der DB gelesen bzw.
+     * in die DB geschrieben wurde.
+     *
+     * @return Gespeicherter Text; {@code null}, wenn die Schlagzeile noch nicht
+     *         gespeichert wurde
+     */
+    String getSchlagzeileGespeichert() {
+
+        return schlagzeileGespeichert;
+    }
+
+
+    /**
+     * Merkt sich den aktuellen Wert des Flags {@code inland} und den aktuellen
+     * Text als gespeicherten Stand; wird von {@link SchlagzeilenEntityListener}
+     * nach INSERT und UPDATE aufgerufen.
+     */
+    void merkeGespeichertenStand() {
+
+        inlandGespeichert      = inland;
+        schlagzeileGespeichert = getSchlagzeile();
+    }
+
+
+    /**
+     * Ersetzt nach dem Laden aus der DB den Text durch die kanonische
+     * String-Instanz, damit nicht jede geladene Entity eine eigene Kopie
+     * desselben Texts im Heap hält.
+     */
+    @PostLoad
+    private void nachLaden() {
+
+        if ( schlagzeile != null ) {
+
+            schlagzeile = SchlagzeilenWoerterbuch.kanonisch( schlagzeile );
+        }
+
+        merkeGespeichertenStand();
     }
 
 
@@ -159,7 +317,7 @@ public class SchlagzeilenEntity {
     @Override
     public int hashCode() {
 
-        return Objects.hash( schlagzeile, inland );
+        return Objects.hash( getSchlagzeile(), inland );
     }
 
 
@@ -183,7 +341,7 @@ public class SchlagzeilenEntity {
 
         if ( obj instanceof SchlagzeilenEntity anderes ) {
 
-            return Objects.equals( schlagzeile, anderes.schlagzeile ) &&
+            return Objects.equals( getSchlagzeile(), anderes.getSchlagzeile() ) &&
                    inland == anderes.inland;
         } else {
 
@@ -0,0 +1,180 @@
+package de.eldecker.dhbw.spring.badnews.db;
+
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+
+
+/**
+ * JPA-Entity-Listener für {@link SchlagzeilenEntity}, der Schreibzugriffe
+ * an alle Beans mit Interface {@link SchlagzeilenBeobachter} weiterreicht.
+ * <br><br>
+ *
+ * Hibernate erzeugt diese Klasse über den Spring-Container, deshalb
+ * funktioniert <i>Dependency Injection</i>. Die Beobachter werden über
+ * einen {@code ObjectProvider} erst beim jeweiligen Ereignis aufgelöst,
+ * weil die Beobachter selbst vom Repository (und damit von der
+ * {@code EntityManagerFactory}) abhängen.
+ * <br><br>
+ *
+ * Ein Fehler in einem Beobachter wird nur geloggt: Die Transaktion ist zu
+ * diesem Zeitpunkt schon committet, der Aufrufer soll also keine Exception
+ * bekommen, und die übrigen Beobachter sollen trotzdem aktualisiert werden.
+ * Beobachter, die dabei inkonsistent werden können, müssen sich selbst
+ * reparieren (siehe z.B. {@code SchlagzeilenShards}).
+ * <br><br>
+ *
+ * Außerdem wird hier im kompakten Speichermodus vor dem Schreiben der Text
+ * von Schlagzeilen aus dem {@link SchlagzeilenWoerterbuch} entfernt.
+ */
+@Component
+public class SchlagzeilenEntityListener {
+
+    private final static Logger LOG = LoggerFactory.getLogger( SchlagzeilenEntityListener.class );
+
+    /** Liefert alle Beans, die über Schreibzugriffe informiert werden wollen. */
+    private final ObjectProvider<SchlagzeilenBeobachter> _beobachterProvider;
+
+    /**
+     * Kompakter Speichermodus: Schlagzeilen aus dem Wörterbuch werden nur als
+     * Codes für Ereignis und Ort gespeichert, die Text-Spalte bleibt leer.
+     */
+    private final boolean _kompakt;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    public SchlagzeilenEntityListener( ObjectProvider<SchlagzeilenBeobachter> beobachterProvider,
+                                       @Value( "${badnews.speicherung.kompakt:false}" ) boolean kompakt ) {
+
+        _beobachterProvider = beobachterProvider;
+        _kompakt            = kompakt;
+    }
+
+
+    /**
+     * Callback-Methode vor dem INSERT oder UPDATE einer Schlagzeile.
+     *
+     * @param entity Zu speichernde Schlagzeile
+     */
+    @PrePersist
+    @PreUpdate
+    public void vorSpeichern( SchlagzeilenEntity entity ) {
+
+        if ( _kompakt ) {
+
+            entity.nurCodesSpeichern();
+        }
+    }
+
+
+    /**
+     * Callback-Methode nach dem INSERT einer Schlagzeile.
+     *
+     * @param entity Gespeicherte Schlagzeile
+     */
+    @PostPersist
+    public void nachEinfuegen( SchlagzeilenEntity entity ) {
+
+        entity.merkeGespeichertenStand();
+
+        benachrichtigen( entity, SchlagzeilenBeobachter::nachEinfuegen );
+    }
+
+
+    /**
+     * Callback-Methode nach dem UPDATE einer Schlagzeile.
+     *
+     * @param entity Geänderte Schlagzeile
+     */
+    @PostUpdate
+    public void nachAenderung( SchlagzeilenEntity entity ) {
+
+        final boolean inlandVorher      = entity.isInlandGespeichert();
+        final String  schlagzeileVorher = entity.getSchlagzeileGespeichert();
+        entity.merkeGespeichertenStand();
+
+        benachrichtigen( entity, ( beobachter, e ) -> beobachter.nachAenderung( e, inlandVorher, schlagzeileVorher ) );
+    }
+
+
+    /**
+     * Callback-Methode nach dem DELETE einer Schlagzeile.
+     *
+     * @param entity Gelöschte Schlagzeile
+     */
+    @PostRemove
+    public void nachLoeschen( SchlagzeilenEntity entity ) {
+
+        benachrichtigen( entity, SchlagzeilenBeobachter::nachLoeschen );
+    }
+
+
+    /**
+     * Ruft {@code aufruf} für alle Beobachter in der mit {@code @Order}
+     * festgelegten Reihenfolge auf (siehe {@link SchlagzeilenBeobachter}).
+     * Wenn eine Transaktion aktiv ist, dann erst nach deren Commit, damit bei
+     * einem Rollback keine Phantom-Einträge in den Beobachtern landen.
+     *
+     * @param entity Betroffene Schlagzeile
+     *
+     * @param aufruf Methode, die für jeden Beobachter aufgerufen werden soll
+     */
+    private void benachrichtigen( SchlagzeilenEntity entity,
+                                  BiConsumer<SchlagzeilenBeobachter, SchlagzeilenEntity> aufruf ) {
+
+        final Runnable runnable =
+                () -> _beobachterProvider.orderedStream()
+                                         .forEach( beobachter -> benachrichtige( beobachter, entity, aufruf ) );
+
+        if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronization() {
+
+                @Override
+                public void afterCommit() {
+
+                    runnable.run();
+                }
+            });
+
+        } else {
+
+            runnable.run();
+        }
+    }
+
+
+    /**
+     * Ruft {@code aufruf} für einen Beobachter auf; eine Exception wird
+     * geloggt und nicht weitergeworfen.
+     */
+    private static void benachrichtige( SchlagzeilenBeobachter beobachter,
+                                        SchlagzeilenEntity entity,
+                                        BiConsumer<SchlagzeilenBeobachter, SchlagzeilenEntity> aufruf ) {
+
+        try {
+
+            aufruf.accept( beobachter, entity );
+        }
+        catch ( RuntimeException ex ) {
+
+            LOG.error( "Fehler in Beobachter {} für Schlagzeile mit ID={}.",
+                       beobachter.getClass().getSimpleName(), entity.getId(), ex );
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+package de.eldecker.dhbw.spring.badnews.db;
+
+import java.util.function.Consumer;
+
+
+/**
+ * Fragment-Interface für {@link SchlagzeilenRepo} mit Methoden, die sich nicht
+ * als Derived Query oder JPQL-Annotation ausdrücken lassen, weil direkt mit
+ * dem {@code EntityManager} gearbeitet werden muss. Die Implementierung
+ * befindet sich in Klasse {@link SchlagzeilenExportRepoImpl} und wird von
+ * <i>Spring Data JPA</i> anhand des Namenssuffix {@code Impl} gefunden.
+ */
+public interface SchlagzeilenExportRepo {
+
+    /**
+     * Liest alle Schlagzeilen aufsteigend sortiert nach ID als Stream aus der DB
+     * und übergibt sie einzeln an {@code verbraucher}. Die Schlagzeilen werden
+     * also nicht alle auf einmal in den Speicher geladen; damit auch der
+     * Persistenz-Kontext nicht anwächst, wird dieser regelmäßig geleert.
+     *
+     * @param fetchSize Anzahl Zeilen, die der JDBC-Treiber pro Roundtrip lesen soll
+     *
+     * @param leerenNach Nach dieser Anzahl von Schlagzeilen wird der Persistenz-Kontext
+     *                   geleert
+     *
+     * @param verbraucher Wird für jede Schlagzeile aufgerufen; die Entity darf nach dem
+     *                    Aufruf nicht mehr verwendet werden
+     *
+     * @return Anzahl der exportierten Schlagzeilen
+     */
+    long exportiereAlle( int fetchSize, int leerenNach, Consumer<SchlagzeilenEntity> verbraucher );
+
+}
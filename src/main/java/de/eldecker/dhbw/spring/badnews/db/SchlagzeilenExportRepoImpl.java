@@ -0,0 +1,58 @@
+package de.eldecker.dhbw.spring.badnews.db;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+
+/**
+ * Implementierung von Fragment-Interface {@link SchlagzeilenExportRepo}.
+ */
+public class SchlagzeilenExportRepoImpl implements SchlagzeilenExportRepo {
+
+    /** Wird von Spring injiziert; Proxy, der an den EntityManager der aktuellen Transaktion delegiert. */
+    @PersistenceContext
+    private EntityManager _entityManager;
+
+
+    /**
+     * Siehe {@link SchlagzeilenExportRepo#exportiereAlle(int, int, Consumer)}.
+     */
+    @Override
+    @Transactional( readOnly = true )
+    public long exportiereAlle( int fetchSize, int leerenNach, Consumer<SchlagzeilenEntity> verbraucher ) {
+
+        long anzahl = 0;
+
+        try ( Stream<SchlagzeilenEntity> stream =
+                _entityManager.createQuery( "SELECT s FROM SchlagzeilenEntity s ORDER BY s.id",
+                                            SchlagzeilenEntity.class )
+                              .setHint( HINT_FETCH_SIZE, fetchSize )
+                              .setHint( HINT_READ_ONLY , true      )
+                              .getResultStream() ) {
+
+            final Iterator<SchlagzeilenEntity> iterator = stream.iterator();
+            while ( iterator.hasNext() ) {
+
+                verbraucher.accept( iterator.next() );
+                anzahl++;
+
+                if ( anzahl % leerenNach == 0 ) {
+
+                    _entityManager.clear(); // bisher gelesene Entities freigeben
+                }
+            }
+        }
+
+        return anzahl;
+    }
+
+}
@@ -1,11 +1,15 @@
 package de.eldecker.dhbw.spring.badnews.db;
 
 import de.eldecker.dhbw.spring.badnews.model.AnzahlByKategorie;
+import de.eldecker.dhbw.spring.badnews.model.SchlagzeilenText;
 
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -21,8 +25,38 @@ import org.springframework.data.repository.query.Param;
  * Da für die Anwendung eine Migration auf eine NoSQL-Datenbank
  * sehr unwahrscheinlich ist, können wir als Super-Interface
  * {@code JpaRepository} verwenden.
+ * <br><br>
+ *
+ * Methoden aus Fragment-Interface {@link SchlagzeilenExportRepo} sind
+ * manuell implementiert.
  */
-public interface SchlagzeilenRepo extends JpaRepository<SchlagzeilenEntity, Long> {
+public interface SchlagzeilenRepo extends JpaRepository<SchlagzeilenEntity, Long>,
+                                          SchlagzeilenExportRepo {
+
+    /**
+     * JPQL-Ausdruck für das {@code LIKE}-Muster zu Parameter {@code :suchstring}:
+     * Die Platzhalter-Zeichen {@code %} und {@code _} (und das Escape-Zeichen)
+     * werden maskiert, damit der Suchstring wie beim Trigramm-Index und bei
+     * den Shards als normaler Teilstring gesucht wird; muss mit
+     * {@code ESCAPE '\'} verwendet werden, siehe {@code LikeMuster}.
+     */
+    String SUCHMUSTER =
+            "lower(concat('%', replace(replace(replace(:suchstring, '\\', '\\\\'), '%', '\\%'), '_', '\\_'), '%'))";
+
+    /**
+     * JPQL-Bedingung für die Teilstring-Suche mit Parameter {@code :suchstring}.
+     * Schlagzeilen, die im kompakten Speichermodus nur als Codes gespeichert
+     * sind, werden über die Wörterbuch-Tabellen gefunden; die Unterabfrage
+     * wird nur für Zeilen ohne Text ausgewertet.
+     */
+    String SUCHBEDINGUNG =
+            "( lower(s.schlagzeile) LIKE " + SUCHMUSTER + " ESCAPE '\\' " +
+            "  OR ( s.schlagzeile IS NULL AND EXISTS ( " +
+            "         SELECT 1 FROM EreignisEntity e, OrtEntity o " +
+            "         WHERE e.code = s.ereignisCode AND o.code = s.ortCode " +
+            "           AND lower(concat(e.bezeichnung, ' in ', o.bezeichnung)) " +
+            "               LIKE " + SUCHMUSTER + " ESCAPE '\\' ) ) )";
+
 
     /**
      * Query-Methode mit JPQL-Query zum Zählen der Anzahl der
@@ -51,9 +85,135 @@ public interface SchlagzeilenRepo extends JpaRepository<SchlagzeilenEntity, Long
      *         und zugehörigen Meta-Informationen wie Gesamtzahl der Seiten
      */
     @Query( "SELECT s FROM SchlagzeilenEntity s " +
-            "WHERE lower(s.schlagzeile) LIKE lower(concat('%', :suchstring, '%'))" )
+            "WHERE " + SUCHBEDINGUNG )
     Page<SchlagzeilenEntity> sucheSchlagzeilen( @Param("suchstring") String suchstring,
                                                 Pageable pageable );
 
+
+    /**
+     * Liefert eine Seite mit Schlagzeilen, ohne die Gesamtzahl zu ermitteln.
+     * Im Gegensatz zu {@code findAll(Pageable)} wird also keine zusätzliche
+     * {@code SELECT COUNT(*)}-Query ausgeführt; um festzustellen, ob es eine
+     * weitere Seite gibt, wird nur ein Datensatz mehr als angefordert geladen.
+     *
+     * @param pageable Objekt zur Steuerung der Paginierung (Anzahl Datensätze
+     *                 pro Seite, Nummer der Seite und Sortier-Reihenfolge)
+     *
+     * @return "Scheibe" mit Schlagzeilen, ohne Gesamtzahl der Seiten
+     */
+    Slice<SchlagzeilenEntity> findAllBy( Pageable pageable );
+
+
+    /**
+     * Liefert einen Block von Schlagzeilen ab einer beliebigen Position
+     * (sortiert nach ID), ohne dass die Position ein Vielfaches der Blockgröße
+     * sein muss wie bei {@code PageRequest}. Wird für den ersten Block einer
+     * großen Seite verwendet, deren Rest beim Rendern nachgeladen wird.
+     *
+     * @param offset Anzahl der zu überspringenden Schlagzeilen
+     *
+     * @param anzahl Max. Anzahl der zurückgelieferten Schlagzeilen
+     *
+     * @return Schlagzeilen aufsteigend sortiert nach ID
+     */
+    @Query( "SELECT s FROM SchlagzeilenEntity s " +
+            "ORDER BY s.id ASC " +
+            "LIMIT :anzahl OFFSET :offset" )
+    List<SchlagzeilenEntity> findeAbPosition( @Param("offset") long offset,
+                                              @Param("anzahl") int anzahl );
+
+
+    /**
+     * Keyset-Paginierung vorwärts: Liefert die ersten Schlagzeilen mit einer
+     * ID größer als {@code id}. Im Gegensatz zu {@code OFFSET} kann die DB
+     * hierfür direkt im Index des Primärschlüssels positionieren (Index Seek),
+     * die Laufzeit hängt also nicht davon ab, wie "tief" die Seite ist.
+     *
+     * @param id ID der letzten Schlagzeile auf der vorherigen Seite
+     *
+     * @param limit Max. Anzahl der zurückgelieferten Schlagzeilen
+     *
+     * @return Schlagzeilen aufsteigend sortiert nach ID
+     */
+    List<SchlagzeilenEntity> findByIdGreaterThanOrderByIdAsc( Long id, Limit limit );
+
+
+    /**
+     * Keyset-Paginierung rückwärts: Liefert die letzten Schlagzeilen mit einer
+     * ID kleiner als {@code id}.
+     *
+     * @param id ID der ersten Schlagzeile auf der nachfolgenden Seite
+     *
+     * @param limit Max. Anzahl der zurückgelieferten Schlagzeilen
+     *
+     * @return Schlagzeilen <b>absteigend</b> sortiert nach ID
+     */
+    List<SchlagzeilenEntity> findByIdLessThanOrderByIdDesc( Long id, Limit limit );
+
+
+    /**
+     * Textsuche mit Keyset-Paginierung vorwärts, siehe auch
+     * {@link #sucheSchlagzeilen(String, Pageable)}.
+     *
+     * @param suchstring Teilstring, der in Schlagzeilen enthalten sein muss
+     *                   (Groß-/Kleinschreibung wird ignoriert)
+     *
+     * @param nachId Nur Schlagzeilen mit ID größer als dieser Wert
+     *
+     * @param limit Max. Anzahl der zurückgelieferten Schlagzeilen
+     *
+     * @return Gefundene Schlagzeilen aufsteigend sortiert nach ID
+     */
+    @Query( "SELECT s FROM SchlagzeilenEntity s " +
+            "WHERE s.id > :nachId AND " + SUCHBEDINGUNG + " " +
+            "ORDER BY s.id ASC" )
+    List<SchlagzeilenEntity> sucheSchlagzeilenNach( @Param("suchstring") String suchstring,
+                                                    @Param("nachId") Long nachId,
+                                                    Limit limit );
+
+
+    /**
+     * Textsuche mit Keyset-Paginierung rückwärts.
+     *
+     * @param suchstring Teilstring, der in Schlagzeilen enthalten sein muss
+     *                   (Groß-/Kleinschreibung wird ignoriert)
+     *
+     * @param vorId Nur Schlagzeilen mit ID kleiner als dieser Wert
+     *
+     * @param limit Max. Anzahl der zurückgelieferten Schlagzeilen
+     *
+     * @return Gefundene Schlagzeilen <b>absteigend</b> sortiert nach ID
+     */
+    @Query( "SELECT s FROM SchlagzeilenEntity s " +
+            "WHERE s.id < :vorId AND " + SUCHBEDINGUNG + " " +
+            "ORDER BY s.id DESC" )
+    List<SchlagzeilenEntity> sucheSchlagzeilenVor( @Param("suchstring") String suchstring,
+                                                   @Param("vorId") Long vorId,
+                                                   Limit limit );
+
+
+    /**
+     * Liefert ID, Text und Kategorie aller Schlagzeilen als Stream, aufsteigend
+     * sortiert nach ID. Wird für den Aufbau von In-Memory-Indexen und das
+     * Befüllen der Shards verwendet; da eine
+     * Projektion und keine Entities geliefert werden, wächst der
+     * Persistenz-Kontext beim Durchlaufen nicht an.
+     * <br><br>
+     *
+     * Für Schlagzeilen, die nur als Codes gespeichert sind, wird der Text
+     * über {@link SchlagzeilenWoerterbuch} ermittelt (ohne Join).
+     * <br><br>
+     *
+     * Der Stream muss innerhalb einer Transaktion konsumiert und danach
+     * geschlossen werden.
+     *
+     * @return Stream mit ID, Text und Kategorie aller Schlagzeilen
+     */
+    @Query( "SELECT new de.eldecker.dhbw.spring.badnews.model.SchlagzeilenText( " +
+            "         s.id, s.schlagzeile, s.ereignisCode, s.ortCode, s.inland ) " +
+            "FROM SchlagzeilenEntity s " +
+            "ORDER BY s.id" )
+    Stream<SchlagzeilenText> streameIdUndText();
+
 }
 
@@ -0,0 +1,190 @@
+package de.eldecker.dhbw.spring.badnews.db;
+
+import static de.eldecker.dhbw.spring.badnews.logik.SchlagzeilenErzeuger.EREIGNISSE_ARRAY;
+import static de.eldecker.dhbw.spring.badnews.logik.SchlagzeilenErzeuger.ORTE_DEUTSCHLAD_ARRAY;
+import static de.eldecker.dhbw.spring.badnews.logik.SchlagzeilenErzeuger.ORTE_NATIONEN_ARRAY;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Wörterbuch für die Kodierung von Schlagzeilen der Form "EREIGNIS in ORT"
+ * als zwei kleine Zahlen: Der Ereignis-Code ist der Index im Array
+ * {@code EREIGNISSE_ARRAY}, der Orts-Code ist der Index im Array
+ * {@code ORTE_DEUTSCHLAD_ARRAY} bzw. {@link #ORT_CODE_NATIONEN} plus
+ * Index im Array {@code ORTE_NATIONEN_ARRAY}.
+ * <br><br>
+ *
+ * Für jede der wenigen tausend möglichen Kombinationen gibt es genau eine
+ * (kanonische) String-Instanz, die von allen Entities mit dieser Schlagzeile
+ * geteilt wird. In der DB stehen die Texte zu den Codes in den Tabellen
+ * {@code Ereignisse} und {@code Orte} ({@link EreignisEntity}, {@link OrtEntity}).
+ */
+public class SchlagzeilenWoerterbuch {
+
+    /**
+     * Offset für die Orts-Codes von Nationen; die Orts-Codes für Deutschland
+     * beginnen bei 0. Durch den Offset bleiben die Codes der Nationen stabil,
+     * wenn ein Ort in Deutschland hinzukommt.
+     */
+    public static final short ORT_CODE_NATIONEN = 100;
+
+    /** Kanonische Schlagzeilen, Index 1: Ereignis-Code, Index 2: Orts-Code. */
+    private static final String[][] TEXTE = new String[ EREIGNISSE_ARRAY.length ]
+                                                      [ ORT_CODE_NATIONEN + ORTE_NATIONEN_ARRAY.length ];
+
+    /** Abbildung Text auf Codes für alle Schlagzeilen in {@link #TEXTE}. */
+    private static final Map<String, Kombination> KOMBINATIONEN = new HashMap<>();
+
+    static {
+
+        for ( short e = 0; e < EREIGNISSE_ARRAY.length; e++ ) {
+
+            for ( short o = 0; o < ORTE_DEUTSCHLAD_ARRAY.length; o++ ) {
+
+                eintragen( e, o, ORTE_DEUTSCHLAD_ARRAY[ o ] );
+            }
+            for ( short i = 0; i < ORTE_NATIONEN_ARRAY.length; i++ ) {
+
+                eintragen( e, (short) ( ORT_CODE_NATIONEN + i ), ORTE_NATIONEN_ARRAY[ i ] );
+            }
+        }
+    }
+
+
+    /**
+     * Codes und kanonischer Text einer Schlagzeile.
+     */
+    private record Kombination( short ereignisCode, short ortCode, String text ) {}
+
+
+    /**
+     * Dummy-Konstruktor, um Instanziierung dieser Klasse zu verhindern.
+     */
+    private SchlagzeilenWoerterbuch() {}
+
+
+    /**
+     * Erzeugt kanonischen Text für eine Kombination und trägt ihn ein.
+     */
+    private static void eintragen( short ereignisCode, short ortCode, String ort ) {
+
+        final String text = EREIGNISSE_ARRAY[ ereignisCode ] + " in " + ort;
+
+        TEXTE[ ereignisCode ][ ortCode ] = text;
+        KOMBINATIONEN.put( text, new Kombination( ereignisCode, ortCode, text ) );
+    }
+
+
+    /**
+     * Liefert den Text einer Schlagzeile zu den Codes.
+     *
+     * @param ereignisCode Code des Ereignisses, darf {@code null} sein
+     *
+     * @param ortCode Code des Orts, darf {@code null} sein
+     *
+     * @return Kanonische String-Instanz der Schlagzeile; {@code null}, wenn
+     *         einer der Codes {@code null} oder unbekannt ist
+     */
+    public static String text( Short ereignisCode, Short ortCode ) {
+
+        if ( ereignisCode == null || ortCode == null ) { return null; }
+
+        if ( ereignisCode < 0 || ereignisCode >= TEXTE.length       ||
+             ortCode      < 0 || ortCode      >= TEXTE[ 0 ].length ) {
+
+            return null;
+        }
+
+        return TEXTE[ ereignisCode ][ ortCode ];
+    }
+
+
+    /**
+     * Liefert die kanonische String-Instanz für eine Schlagzeile.
+     *
+     * @param schlagzeile Text der Schlagzeile
+     *
+     * @return Kanonische Instanz mit demselben Text; wenn die Schlagzeile
+     *         nicht im Wörterbuch enthalten ist, dann {@code schlagzeile}
+     */
+    public static String kanonisch( String schlagzeile ) {
+
+        final Kombination kombination = KOMBINATIONEN.get( schlagzeile );
+
+        return kombination == null ? schlagzeile : kombination.text();
+    }
+
+
+    /**
+     * Liefert den Ereignis-Code für eine Schlagzeile.
+     *
+     * @param schlagzeile Text der Schlagzeile
+     *
+     * @return Ereignis-Code oder {@code null}, wenn die Schlagzeile nicht im
+     *         Wörterbuch enthalten ist
+     */
+    public static Short ereignisCode( String schlagzeile ) {
+
+        final Kombination kombination = schlagzeile == null ? null : KOMBINATIONEN.get( schlagzeile );
+
+        return kombination == null ? null : kombination.ereignisCode();
+    }
+
+
+    /**
+     * Liefert den Orts-Code für eine Schlagzeile.
+     *
+     * @param schlagzeile Text der Schlagzeile
+     *
+     * @return Orts-Code oder {@code null}, wenn die Schlagzeile nicht im
+     *         Wörterbuch enthalten ist
+     */
+    public static Short ortCode( String schlagzeile ) {
+
+        final Kombination kombination = schlagzeile == null ? null : KOMBINATIONEN.get( schlagzeile );
+
+        return kombination == null ? null : kombination.ortCode();
+    }
+
+
+    /**
+     * Liefert den Orts-Code für einen Ort in Deutschland.
+     *
+     * @param index Index im Array {@code ORTE_DEUTSCHLAD_ARRAY}
+     *
+     * @return Orts-Code
+     */
+    public static short ortCodeInland( int index ) {
+
+        return (short) index;
+    }
+
+
+    /**
+     * Liefert den Orts-Code für eine Nation.
+     *
+     * @param index Index im Array {@code ORTE_NATIONEN_ARRAY}
+     *
+     * @return Orts-Code
+     */
+    public static short ortCodeNation( int index ) {
+
+        return (short) ( ORT_CODE_NATIONEN + index );
+    }
+
+
+    /**
+     * Abfrage, ob ein Orts-Code für einen Ort in Deutschland steht.
+     *
+     * @param ortCode Orts-Code
+     *
+     * @return {@code true} für Ort in Deutschland, sonst {@code false}
+     */
+    public static boolean istInland( short ortCode ) {
+
+        return ortCode < ORT_CODE_NATIONEN;
+    }
+
+}
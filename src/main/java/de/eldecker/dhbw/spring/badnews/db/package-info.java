@@ -1,5 +1,10 @@
 /**
  * Paket für Persistenz (Datenbankschicht). Es wird "Spring Data JPA" verwendet,
- * also wird die Klasse {@code EntityManager} nicht verwendet.
+ * also wird die Klasse {@code EntityManager} nur in der Implementierung
+ * des Fragment-Interfaces {@code SchlagzeilenExportRepo} direkt verwendet.
+ * <br><br>
+ *
+ * Die Klasse {@code SchlagzeilenWoerterbuch} bildet Schlagzeilen auf Codes
+ * für Ereignis und Ort ab (Tabellen {@code Ereignisse} und {@code Orte}).
  */
 package de.eldecker.dhbw.spring.badnews.db;
\ No newline at end of file
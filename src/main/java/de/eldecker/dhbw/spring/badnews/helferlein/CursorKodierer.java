@@ -0,0 +1,95 @@
+package de.eldecker.dhbw.spring.badnews.helferlein;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Base64;
+
+
+/**
+ * Diese Klasse enthält Methoden zum Kodieren und Dekodieren der Cursor
+ * für die Keyset-Paginierung (auch "Seek-Paginierung" genannt). Ein Cursor
+ * enthält die ID der letzten bzw. ersten Schlagzeile einer Seite, ist für
+ * den Client aber ein undurchsichtiger ("opaker") String, damit sich das
+ * Format später ändern kann.
+ * <br><br>
+ *
+ * Beispiel: ID 4711 wird kodiert als {@code aWQ6NDcxMQ}.
+ * <br><br>
+ *
+ * Beim Dekodieren werden nur IDs von {@link #MIN_ID} bis {@link #MAX_ID}
+ * akzeptiert, weil bei der Keyset-Paginierung mit {@code id + 1} bzw.
+ * {@code id - 1} weitergerechnet wird; die Cursor, die die Anwendung selbst
+ * erzeugt, liegen immer in diesem Bereich.
+ */
+public class CursorKodierer {
+
+    /** Kleinste zulässige ID in einem Cursor. */
+    public static final long MIN_ID = 1L;
+
+    /** Größte zulässige ID in einem Cursor, damit {@code id + 1} nicht überläuft. */
+    public static final long MAX_ID = Long.MAX_VALUE - 1;
+
+    /** Präfix im Klartext des Cursors, dient als Format-Kennung. */
+    private static final String PRAEFIX = "id:";
+
+    /** Base64-Kodierer für URL-sichere Strings ohne Padding-Zeichen. */
+    private static final Base64.Encoder KODIERER = Base64.getUrlEncoder().withoutPadding();
+
+    /** Base64-Dekodierer passend zu {@link #KODIERER}. */
+    private static final Base64.Decoder DEKODIERER = Base64.getUrlDecoder();
+
+
+    /**
+     * Dummy-Konstruktor, um Instanziierung dieser Klasse zu verhindern.
+     */
+    private CursorKodierer() {}
+
+
+    /**
+     * Erzeugt Cursor für eine ID.
+     *
+     * @param id ID (Primärschlüssel) einer Schlagzeile
+     *
+     * @return Opaker Cursor-String, kann ohne weitere Kodierung als
+     *         URL-Parameter verwendet werden
+     */
+    public static String kodiere( long id ) {
+
+        return KODIERER.encodeToString( ( PRAEFIX + id ).getBytes( UTF_8 ) );
+    }
+
+
+    /**
+     * Liest die ID aus einem Cursor-String aus.
+     *
+     * @param cursor Von {@link #kodiere(long)} erzeugter Cursor
+     *
+     * @return ID, die im Cursor kodiert ist, im Bereich {@link #MIN_ID} bis {@link #MAX_ID}
+     *
+     * @throws SchlagzeilenException Cursor ist ungültig oder ID liegt außerhalb des Bereichs
+     */
+    public static long dekodiere( String cursor ) throws SchlagzeilenException {
+
+        try {
+
+            final String klartext = new String( DEKODIERER.decode( cursor.trim() ), UTF_8 );
+            if ( !klartext.startsWith( PRAEFIX ) ) {
+
+                throw new SchlagzeilenException( "Ungültiger Cursor übergeben: " + cursor );
+            }
+
+            final long id = Long.parseLong( klartext.substring( PRAEFIX.length() ) );
+            if ( id < MIN_ID || id > MAX_ID ) {
+
+                throw new SchlagzeilenException( "Ungültige ID im Cursor übergeben: " + id );
+            }
+
+            return id;
+
+        } catch ( IllegalArgumentException ex ) { // auch NumberFormatException
+
+            throw new SchlagzeilenException( "Ungültiger Cursor übergeben: " + cursor, ex );
+        }
+    }
+
+}
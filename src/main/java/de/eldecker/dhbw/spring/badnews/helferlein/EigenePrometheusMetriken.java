@@ -1,12 +1,22 @@
 package de.eldecker.dhbw.spring.badnews.helferlein;
 
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.zaxxer.hikari.HikariDataSource;
+
 import de.eldecker.dhbw.spring.badnews.web.SucheRestController;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 
 
 /**
@@ -24,6 +34,9 @@ import io.micrometer.core.instrument.Timer;
 @Component
 public class EigenePrometheusMetriken {
 
+    /** Registry, in der auch später erzeugte Metriken (z.B. für Caches) registriert werden. */
+    private final MeterRegistry _meterRegistry;
+
     /** 
      * Zähler für Metrik mit Gesamtanzahl der Suchvorgänge, siehe {@link SucheRestController}.
      * Technischer Name der Metrik (z.B. für PromQL-Abfrage): 
@@ -59,6 +72,70 @@ public class EigenePrometheusMetriken {
      */
     private final Timer _timeDatenerzeugung;
     
+    /**
+     * Timer für die Dauer einer Textsuche über alle Shards (Scatter-Gather,
+     * ohne Laden der Entities), siehe {@code SchlagzeilenShards}. Technischer
+     * Name der Metrik: {@code badnews_shards_suche_seconds}
+     */
+    private final Timer _timerShardSuche;
+    
+    /**
+     * Aktueller Durchsatz der Datenerzeugung in Zeilen pro Sekunde, als Bitmuster
+     * eines {@code double}-Werts gespeichert (es gibt kein {@code AtomicDouble}).
+     * Wird über eine Gauge-Metrik mit technischem Namen 
+     * {@code badnews_datenerzeugung_zeilen_pro_sekunde} bereitgestellt.
+     */
+    private final AtomicLong _datenerzeugungZeilenProSekunde = new AtomicLong( Double.doubleToLongBits( 0 ) );
+    
+    /**
+     * Zähler für die Anzahl der {@code SELECT COUNT(*)}-Queries, die bei der
+     * Anzeige der Schlagzeilenliste eingespart wurden, weil die Gesamtzahl
+     * der Schlagzeilen aus dem Speicher gelesen wurde oder gar nicht benötigt
+     * wurde. Technischer Name der Metrik: 
+     * {@code badnews_count_queries_vermieden_total}
+     */
+    private final Counter _counterVermiedeneCountQueries;
+    
+    /**
+     * Abweichung des Inlands-Zählers der materialisierten Statistik von der
+     * {@code GROUP BY}-Query (DB minus Zähler) bei der letzten Konsistenz-Prüfung.
+     * Technischer Name der Metrik: {@code badnews_statistik_abweichung{kategorie="inland"}}
+     */
+    private final AtomicLong _statistikAbweichungInland = new AtomicLong( 0 );
+    
+    /**
+     * Wie {@link #_statistikAbweichungInland}, aber für Auslands-Schlagzeilen:
+     * {@code badnews_statistik_abweichung{kategorie="ausland"}}
+     */
+    private final AtomicLong _statistikAbweichungAusland = new AtomicLong( 0 );
+    
+    /**
+     * Verteilung der Gesamtzahl der Treffer pro Suchanfrage (nur Suche mit
+     * Seitennummer, bei Keyset-Paginierung ist die Gesamtzahl nicht bekannt).
+     * Technischer Name der Metrik: {@code badnews_suche_treffer_gesamt}
+     */
+    private final DistributionSummary _summaryTrefferGesamt;
+    
+    /**
+     * Verteilung der Anzahl der Treffer auf der zurückgelieferten Seite, also
+     * der Anzahl der zu ladenden und zu serialisierenden Schlagzeilen.
+     * Technischer Name der Metrik: {@code badnews_suche_treffer_seite}
+     */
+    private final DistributionSummary _summaryTrefferSeite;
+    
+    /**
+     * Zähler für Schlagzeilen, die der Live-Ticker einem langsamen Abonnenten
+     * nicht mehr schicken konnte, weil sie im Ringpuffer schon überschrieben
+     * waren. Technischer Name der Metrik: {@code badnews_live_verworfen_total}
+     */
+    private final Counter _counterLiveVerworfen;
+    
+    /**
+     * Timer für Erzeugen und Speichern eines Micro-Batches durch den
+     * Live-Generator. Technischer Name der Metrik: {@code badnews_live_batch_seconds}
+     */
+    private final Timer _timerLiveBatch;
+    
     
     /**
      * Konstruktor für Erzeugung der {@code Meter}-Objekte.
@@ -66,6 +143,8 @@ public class EigenePrometheusMetriken {
     @Autowired
     public EigenePrometheusMetriken( MeterRegistry meterRegistry ) {
         
+        _meterRegistry = meterRegistry;
+        
         _counterSuchvorgaenge = 
                 Counter.builder( "badnews_suchvorgaenge" )
                        .description( "Anzahl der Suchvorgänge (egal ob erfolgreich oder nicht)" )
@@ -77,6 +156,54 @@ public class EigenePrometheusMetriken {
         		Timer.builder( "badnews_datenerzeugung" )
         		     .description( "Dauer Datenerzeugung" )
                      .register( meterRegistry );        
+        
+        _timerShardSuche = 
+                Timer.builder( "badnews_shards_suche" )
+                     .description( "Dauer Textsuche über alle Shards" )
+                     .register( meterRegistry );
+        
+        Gauge.builder( "badnews_datenerzeugung_zeilen_pro_sekunde", 
+                       _datenerzeugungZeilenProSekunde, 
+                       wert -> Double.longBitsToDouble( wert.get() ) )
+             .description( "Durchsatz Datenerzeugung (gespeicherte Zeilen pro Sekunde)" )
+             .register( meterRegistry );
+        
+        _counterVermiedeneCountQueries = 
+                Counter.builder( "badnews_count_queries_vermieden" )
+                       .description( "Anzahl der eingesparten COUNT-Queries für Paginierung" )
+                       .register( meterRegistry );
+        
+        Gauge.builder( "badnews_statistik_abweichung", _statistikAbweichungInland, AtomicLong::get )
+             .description( "Abweichung der Statistik-Zähler von der DB bei letzter Prüfung" )
+             .tags( "kategorie", "inland" )
+             .register( meterRegistry );
+        
+        Gauge.builder( "badnews_statistik_abweichung", _statistikAbweichungAusland, AtomicLong::get )
+             .description( "Abweichung der Statistik-Zähler von der DB bei letzter Prüfung" )
+             .tags( "kategorie", "ausland" )
+             .register( meterRegistry );
+        
+        _summaryTrefferGesamt = 
+                DistributionSummary.builder( "badnews_suche_treffer_gesamt" )
+                                   .description( "Gesamtzahl der Treffer pro Suchanfrage" )
+                                   .serviceLevelObjectives( 1, 10, 100, 1_000, 10_000, 100_000 )
+                                   .register( meterRegistry );
+        
+        _summaryTrefferSeite = 
+                DistributionSummary.builder( "badnews_suche_treffer_seite" )
+                                   .description( "Anzahl der Treffer auf der zurückgelieferten Seite" )
+                                   .serviceLevelObjectives( 1, 10, 50, 100, 500 )
+                                   .register( meterRegistry );
+        
+        _counterLiveVerworfen = 
+                Counter.builder( "badnews_live_verworfen" )
+                       .description( "Anzahl der für langsame Abonnenten übersprungenen Schlagzeilen im Live-Ticker" )
+                       .register( meterRegistry );
+        
+        _timerLiveBatch = 
+                Timer.builder( "badnews_live_batch" )
+                     .description( "Dauer Erzeugen und Speichern eines Micro-Batches für den Live-Ticker" )
+                     .register( meterRegistry );
     }
     
     
@@ -90,6 +217,284 @@ public class EigenePrometheusMetriken {
     }
     
     
+    /**
+     * Setzt den aktuellen Durchsatz der Datenerzeugung.
+     * 
+     * @param zeilenProSekunde Gespeicherte Zeilen pro Sekunde
+     */
+    public void setDatenerzeugungZeilenProSekunde( double zeilenProSekunde ) {
+        
+        _datenerzeugungZeilenProSekunde.set( Double.doubleToLongBits( zeilenProSekunde ) );
+    }
+    
+    
+    /**
+     * Methode wird aufgerufen, wenn für die Paginierung keine COUNT-Query
+     * ausgeführt werden musste.
+     */
+    public void erhoeheAnzahlVermiedeneCountQueries() {
+        
+        _counterVermiedeneCountQueries.increment();
+    }
+    
+    
+    /**
+     * Zählt eine beendete Suche über die reaktive Such-API. Technischer Name
+     * der Metrik: {@code badnews_reaktiv_suche_total{ende="..."}}
+     * 
+     * @param ende {@code komplett}, {@code abgebrochen} (z.B. Client hat die
+     *             Verbindung getrennt) oder {@code fehler}
+     */
+    public void erfasseReaktiveSuche( String ende ) {
+        
+        Counter.builder( "badnews_reaktiv_suche" )
+               .description( "Anzahl beendeter Suchen über die reaktive Such-API" )
+               .tags( "ende", ende )
+               .register( _meterRegistry )
+               .increment();
+    }
+    
+    
+    /**
+     * Registriert die Gauges für den Fortschritt des Imports beim Start.
+     * Technische Namen der Metriken:
+     * <pre>
+     * badnews_import_zeilen_gespeichert
+     * badnews_import_zeilen_gesamt
+     * badnews_import_rest_sekunden
+     * </pre>
+     * Der Durchsatz steht in {@code badnews_datenerzeugung_zeilen_pro_sekunde}.
+     * 
+     * @param anzahlGespeichert Liefert die Anzahl der bisher gespeicherten Zeilen
+     * 
+     * @param anzahlGesamt Liefert die Anzahl der zu importierenden Zeilen
+     * 
+     * @param restSekunden Liefert die geschätzte Restdauer in Sekunden
+     */
+    public void registriereDatenImport( Supplier<Number> anzahlGespeichert, 
+                                        Supplier<Number> anzahlGesamt, 
+                                        Supplier<Number> restSekunden ) {
+        
+        Gauge.builder( "badnews_import_zeilen_gespeichert", anzahlGespeichert )
+             .description( "Anzahl der beim Import bisher gespeicherten Schlagzeilen" )
+             .register( _meterRegistry );
+        
+        Gauge.builder( "badnews_import_zeilen_gesamt", anzahlGesamt )
+             .description( "Anzahl der zu importierenden Schlagzeilen (0 = kein Import)" )
+             .register( _meterRegistry );
+        
+        Gauge.builder( "badnews_import_rest_sekunden", restSekunden )
+             .description( "Geschätzte Restdauer des Imports in Sekunden" )
+             .register( _meterRegistry );
+    }
+    
+    
+    /**
+     * Zählt eine Suche, die keine eigene Query ausgeführt, sondern auf eine
+     * laufende gleiche Suche gewartet hat (siehe {@code SchlagzeilenSuche}).
+     * Technischer Name der Metrik: {@code badnews_suche_zusammengefasst_total{ergebnis="..."}}
+     * <br><br>
+     * 
+     * PromQL-Query für Anzahl eingesparter Query-Ausführungen in den letzten 5 Minuten:
+     * <pre>increase(badnews_suche_zusammengefasst_total{ergebnis="ergebnis"}[5m])</pre>
+     * 
+     * @param ergebnis {@code ergebnis} (Ergebnis übernommen), {@code fehler}
+     *                 (laufende Suche mit Exception gescheitert),
+     *                 {@code neuer_versuch} (laufende Suche wurde abgebrochen)
+     *                 oder {@code zeitueberschreitung} (max. Wartezeit abgelaufen)
+     */
+    public void erfasseZusammengefassteSuche( String ergebnis ) {
+        
+        Counter.builder( "badnews_suche_zusammengefasst" )
+               .description( "Anzahl der Suchen, die auf eine laufende gleiche Suche gewartet haben" )
+               .tags( "ergebnis", ergebnis )
+               .register( _meterRegistry )
+               .increment();
+    }
+    
+    
+    /**
+     * Registriert die Gauges für den Live-Ticker. Technische Namen der Metriken:
+     * <pre>
+     * badnews_live_abonnenten
+     * badnews_live_rueckstand_max
+     * </pre>
+     * 
+     * @param anzahlAbonnenten Liefert die aktuelle Anzahl der Abonnenten
+     * 
+     * @param maxRueckstand Liefert den größten Rückstand (Anzahl noch nicht
+     *                      gelesener Schlagzeilen) aller Abonnenten
+     */
+    public void registriereLiveTicker( Supplier<Number> anzahlAbonnenten, Supplier<Number> maxRueckstand ) {
+        
+        Gauge.builder( "badnews_live_abonnenten", anzahlAbonnenten )
+             .description( "Anzahl der Abonnenten des Live-Tickers" )
+             .register( _meterRegistry );
+        
+        Gauge.builder( "badnews_live_rueckstand_max", maxRueckstand )
+             .description( "Größter Rückstand eines Abonnenten des Live-Tickers (Anzahl Schlagzeilen)" )
+             .register( _meterRegistry );
+    }
+    
+    
+    /**
+     * Erhöht den Zähler für Schlagzeilen, die ein langsamer Abonnent des
+     * Live-Tickers übersprungen hat.
+     * 
+     * @param anzahl Anzahl übersprungener Schlagzeilen
+     */
+    public void erhoeheAnzahlLiveVerworfen( long anzahl ) {
+        
+        _counterLiveVerworfen.increment( anzahl );
+    }
+    
+    
+    /**
+     * Registriert Metriken für einen Caffeine-Cache, der mit {@code recordStats()}
+     * erzeugt wurde. Technische Namen der Metriken (Tag {@code cache} mit Name
+     * des Caches):
+     * <pre>
+     * cache_gets_total{cache="...",result="hit"}
+     * cache_gets_total{cache="...",result="miss"}
+     * cache_evictions_total{cache="..."}
+     * cache_size{cache="..."}
+     * </pre>
+     * 
+     * PromQL-Query für Trefferquote in den letzten 5 Minuten:
+     * <pre>rate(cache_gets_total{result="hit"}[5m]) / rate(cache_gets_total[5m])</pre>
+     * 
+     * @param name Name des Caches
+     * 
+     * @param cache Cache-Objekt
+     */
+    public void registriereCache( String name, Cache<?, ?> cache ) {
+        
+        CaffeineCacheMetrics.monitor( _meterRegistry, cache, name );
+    }
+    
+    
+    /**
+     * Setzt die bei der letzten Konsistenz-Prüfung festgestellte Abweichung
+     * der Statistik-Zähler von der DB.
+     * 
+     * @param abweichungInland Abweichung für Inlands-Schlagzeilen (DB minus Zähler)
+     * 
+     * @param abweichungAusland Abweichung für Auslands-Schlagzeilen (DB minus Zähler)
+     */
+    public void setStatistikAbweichung( long abweichungInland, long abweichungAusland ) {
+        
+        _statistikAbweichungInland.set ( abweichungInland  );
+        _statistikAbweichungAusland.set( abweichungAusland );
+    }
+    
+    
+    /**
+     * Erfasst die Größe des Ergebnisses einer Suchanfrage.
+     * 
+     * @param anzahlGesamt Gesamtzahl der Treffer; negativer Wert, wenn nicht bekannt
+     *                     (Keyset-Paginierung), dann wird nur {@code anzahlSeite} erfasst
+     * 
+     * @param anzahlSeite Anzahl der Treffer auf der Seite
+     */
+    public void erfasseSuchergebnis( long anzahlGesamt, int anzahlSeite ) {
+        
+        if ( anzahlGesamt >= 0 ) { _summaryTrefferGesamt.record( anzahlGesamt ); }
+        
+        _summaryTrefferSeite.record( anzahlSeite );
+    }
+    
+    
+    /**
+     * Erfasst die Anzahl der Bytes, die für einen Request auf dem Heap allokiert
+     * wurden (Metrik {@code badnews_request_allokation_bytes}), siehe
+     * {@code AllokationsInterceptor}.
+     * <br><br>
+     * 
+     * PromQL-Query für durchschnittliche Allokation pro Request und Endpunkt:
+     * <pre>rate(badnews_request_allokation_bytes_sum[5m]) / rate(badnews_request_allokation_bytes_count[5m])</pre>
+     * 
+     * @param endpunkt URL-Muster des Endpunkts
+     * 
+     * @param bytes Allokierte Bytes
+     */
+    public void erfasseAllokation( String endpunkt, long bytes ) {
+        
+        DistributionSummary.builder( "badnews_request_allokation" )
+                           .description( "Auf dem Heap allokierte Bytes pro Request" )
+                           .baseUnit( "bytes" )
+                           .tags( "endpunkt", endpunkt )
+                           .register( _meterRegistry )
+                           .record( bytes );
+    }
+    
+    
+    /**
+     * Führt eine Phase eines Requests aus und misst ihre Dauer mit dem Timer
+     * {@code badnews_request_phase_seconds}. Tag {@code endpunkt} enthält das
+     * URL-Muster (wie bei {@code http_server_requests_seconds}), Tag {@code phase}
+     * einen der Werte {@code db} (Laden der Daten, ggf. aus Cache), {@code mapping}
+     * (Umwandlung Entities in Objekte für REST-Antwort) oder {@code render}
+     * (Thymeleaf-Template, siehe {@code RenderZeitInterceptor}).
+     * <br><br>
+     * 
+     * PromQL-Query für Anteil der Phasen an der Antwortzeit eines Endpunkts:
+     * <pre>sum by (phase) (rate(badnews_request_phase_seconds_sum{endpunkt="/app/schlagzeilen"}[5m]))</pre>
+     * 
+     * @param endpunkt URL-Muster des Endpunkts, z.B. {@code /app/schlagzeilen}
+     * 
+     * @param phase Name der Phase
+     * 
+     * @param aufgabe Code der Phase
+     * 
+     * @return Rückgabewert von {@code aufgabe}
+     */
+    public <T> T messePhase( String endpunkt, String phase, Supplier<T> aufgabe ) {
+        
+        return getTimerFuerPhase( endpunkt, phase ).record( aufgabe );
+    }
+    
+    
+    /**
+     * Liefert den Timer für eine Phase eines Requests, siehe
+     * {@link #messePhase(String, String, Supplier)}. Micrometer liefert für
+     * dieselben Tags immer dasselbe Timer-Objekt zurück.
+     * 
+     * @param endpunkt URL-Muster des Endpunkts
+     * 
+     * @param phase Name der Phase
+     * 
+     * @return Timer mit Histogramm-Buckets für SLO-Auswertung
+     */
+    public Timer getTimerFuerPhase( String endpunkt, String phase ) {
+        
+        return Timer.builder( "badnews_request_phase" )
+                    .description( "Dauer einer Phase (DB, Mapping, Rendern) eines Requests" )
+                    .tags( "endpunkt", endpunkt, 
+                           "phase"   , phase     )
+                    .serviceLevelObjectives( Duration.ofMillis(   1 ), 
+                                             Duration.ofMillis(   5 ),
+                                             Duration.ofMillis(  10 ), 
+                                             Duration.ofMillis(  50 ), 
+                                             Duration.ofMillis( 100 ), 
+                                             Duration.ofMillis( 500 ) )
+                    .register( _meterRegistry );
+    }
+    
+    
+    /**
+     * Registriert Metriken für einen Connection-Pool, der nicht als Bean
+     * angelegt wurde (z.B. Shards); für die Haupt-DataSource erledigt das
+     * Spring Boot. Wichtigste Metrik ist die Wartezeit auf eine Verbindung:
+     * {@code hikaricp_connections_acquire_seconds{pool="..."}}
+     * 
+     * @param dataSource Connection-Pool, muss vor der ersten Verbindung registriert werden
+     */
+    public void registriereConnectionPool( HikariDataSource dataSource ) {
+        
+        dataSource.setMetricRegistry( _meterRegistry );
+    }
+    
+    
     /**
      * Getter für Timer, mit dem Dauer der Datenerzeugung gemessen werden kann.
      * 
@@ -100,4 +505,27 @@ public class EigenePrometheusMetriken {
     	return _timeDatenerzeugung;
     }
     
+    
+    /**
+     * Getter für Timer, mit dem Dauer der Textsuche über alle Shards gemessen wird.
+     * 
+     * @return Timer für Messung Dauer Shard-Suche
+     */
+    public Timer getTimerFuerShardSuche() {
+        
+        return _timerShardSuche;
+    }
+    
+    
+    /**
+     * Getter für Timer, mit dem die Dauer eines Micro-Batches des
+     * Live-Generators gemessen wird.
+     * 
+     * @return Timer für Messung Dauer Micro-Batch
+     */
+    public Timer getTimerFuerLiveBatch() {
+        
+        return _timerLiveBatch;
+    }
+    
 }
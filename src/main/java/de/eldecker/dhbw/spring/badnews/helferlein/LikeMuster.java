@@ -0,0 +1,58 @@
+package de.eldecker.dhbw.spring.badnews.helferlein;
+
+
+/**
+ * Diese Klasse enthält Methoden zum Erzeugen von Mustern für {@code LIKE}
+ * in SQL-Queries, die direkt über JDBC bzw. R2DBC ausgeführt werden. Die
+ * Platzhalter-Zeichen {@code %} und {@code _} im Suchstring werden maskiert,
+ * damit er wie beim Trigramm-Index als normaler Teilstring gesucht wird; die
+ * Query muss dafür {@code LIKE ? ESCAPE '\'} verwenden.
+ * <br><br>
+ *
+ * Beispiel: Suchstring {@code 50%_} ergibt Muster {@code %50\%\_%}.
+ * <br><br>
+ *
+ * Für die JPQL-Queries in {@code SchlagzeilenRepo} erfolgt dieselbe
+ * Maskierung in der Query selbst, siehe {@code SchlagzeilenRepo.SUCHMUSTER}.
+ */
+public class LikeMuster {
+
+    /** Escape-Zeichen, muss zur Angabe {@code ESCAPE '\'} in der Query passen. */
+    public static final char ESCAPE_ZEICHEN = '\\';
+
+
+    /**
+     * Dummy-Konstruktor, um Instanziierung dieser Klasse zu verhindern.
+     */
+    private LikeMuster() {}
+
+
+    /**
+     * Erzeugt Muster für die Suche nach einem Teilstring.
+     *
+     * @param suchstring Suchstring, darf Platzhalter-Zeichen enthalten
+     *
+     * @return Muster mit maskiertem Suchstring und {@code %} am Anfang und Ende
+     */
+    public static String teilstring( String suchstring ) {
+
+        return "%" + maskiere( suchstring ) + "%";
+    }
+
+
+    /**
+     * Maskiert Escape-Zeichen und Platzhalter-Zeichen von {@code LIKE}.
+     *
+     * @param text Beliebiger Text
+     *
+     * @return Text, in dem vor jedem {@code \}, {@code %} und {@code _} ein
+     *         {@code \} steht
+     */
+    public static String maskiere( String text ) {
+
+        return text.replace( "\\", "\\\\" )
+                   .replace( "%" , "\\%"  )
+                   .replace( "_" , "\\_"  );
+    }
+
+}
@@ -0,0 +1,189 @@
+package de.eldecker.dhbw.spring.badnews.logik;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import de.eldecker.dhbw.spring.badnews.helferlein.EigenePrometheusMetriken;
+
+
+/**
+ * Fortschritt der Arbeiten, die {@link DatenImporterApplicationRunner} beim
+ * Start im Hintergrund ausführt, als Gauges und als Health-Indikator
+ * {@code datenImport}: Zuerst werden die Indizes aus der DB aufgebaut (Phase
+ * {@code indizes}), danach werden ggf. Schlagzeilen importiert (Phase
+ * {@code import}). Solange das läuft, ist der Status {@code OUT_OF_SERVICE}
+ * (mit Phase und beim Import mit Anzahl gespeicherter Zeilen, Durchsatz und
+ * geschätzter Restdauer als Details), bei Fehler {@code DOWN}, sonst
+ * {@code UP}. Da der Indikator in der Readiness-Gruppe ist, meldet
+ * {@code /actuator/health/readiness} erst danach "bereit".
+ * <br><br>
+ *
+ * Der Zustand "läuft" gilt schon ab Erzeugung der Bean, damit auch
+ * Anfragen zwischen Start von Tomcat und Aufruf des
+ * {@code ApplicationRunner} mit Status-Code 503 beantwortet werden.
+ */
+@Component( "datenImport" )
+public class DatenImportFortschritt implements HealthIndicator {
+
+    /** Phase der Arbeiten beim Start. */
+    private enum Phase { INDIZES, IMPORT }
+
+    /** Aktuelle Phase, wird nur ausgewertet solange {@link #_laeuft} gesetzt ist. */
+    private volatile Phase _phase = Phase.INDIZES;
+
+    /** Anzahl der zu importierenden Zeilen; 0, wenn kein Import läuft oder lief. */
+    private volatile long _anzahlGesamt = 0;
+
+    /** Anzahl der schon gespeicherten Zeilen. */
+    private final AtomicLong _anzahlGespeichert = new AtomicLong( 0 );
+
+    /** Startzeitpunkt der aktuellen Phase von {@code System.nanoTime()}. */
+    private volatile long _startZeit = System.nanoTime();
+
+    /** {@code true}, solange Indizes aufgebaut werden oder der Import läuft. */
+    private volatile boolean _laeuft = true;
+
+    /** Exception, mit der der Import abgebrochen ist, sonst {@code null}. */
+    private volatile Throwable _fehler = null;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>, registriert auch die Gauges.
+     */
+    public DatenImportFortschritt( EigenePrometheusMetriken eigeneMetriken ) {
+
+        eigeneMetriken.registriereDatenImport( () -> _anzahlGespeichert.get(),
+                                               () -> _anzahlGesamt,
+                                               this::restSekunden );
+    }
+
+
+    /**
+     * Import beginnt (nach dem Aufbau der Indizes).
+     *
+     * @param anzahlGesamt Anzahl der zu importierenden Zeilen
+     */
+    void gestartet( long anzahlGesamt ) {
+
+        _anzahlGesamt = anzahlGesamt;
+        _anzahlGespeichert.set( 0 );
+        _startZeit = System.nanoTime();
+        _fehler    = null;
+        _phase     = Phase.IMPORT;
+        _laeuft    = true;
+    }
+
+
+    /**
+     * Ein Block von Zeilen wurde gespeichert.
+     *
+     * @param anzahl Anzahl der Zeilen im Block
+     *
+     * @return Anzahl aller bisher gespeicherten Zeilen
+     */
+    long gespeichert( long anzahl ) {
+
+        return _anzahlGespeichert.addAndGet( anzahl );
+    }
+
+
+    /**
+     * Aufbau der Indizes und ggf. Import sind beendet.
+     *
+     * @param fehler Exception, mit der abgebrochen wurde, oder {@code null}
+     *               bei Erfolg
+     */
+    void beendet( Throwable fehler ) {
+
+        _fehler = fehler;
+        _laeuft = false;
+    }
+
+
+    /**
+     * Abfrage, ob gerade Indizes aufgebaut werden oder importiert wird; dann
+     * sind noch nicht alle Daten da.
+     *
+     * @return {@code true}, solange Aufbau oder Import laufen
+     */
+    public boolean isLaeuft() {
+
+        return _laeuft;
+    }
+
+
+    /**
+     * Exception, mit der Aufbau der Indizes oder Import abgebrochen sind.
+     *
+     * @return Exception oder {@code null}, wenn (noch) kein Fehler aufgetreten ist
+     */
+    public Throwable getFehler() {
+
+        return _fehler;
+    }
+
+
+    /**
+     * Bisheriger Durchsatz des Imports.
+     *
+     * @return Gespeicherte Zeilen pro Sekunde seit Beginn des Imports
+     */
+    public double zeilenProSekunde() {
+
+        final double sekunden = ( System.nanoTime() - _startZeit ) / 1_000_000_000.0;
+
+        return sekunden > 0 ? _anzahlGespeichert.get() / sekunden : 0;
+    }
+
+
+    /**
+     * Geschätzte Restdauer des Imports beim bisherigen Durchsatz.
+     *
+     * @return Sekunden bis zum Ende; 0, wenn kein Import läuft; -1, wenn noch
+     *         nicht abschätzbar
+     */
+    public double restSekunden() {
+
+        if ( !_laeuft ) { return 0; }
+
+        final double zeilenProSekunde = zeilenProSekunde();
+
+        return zeilenProSekunde > 0 ? ( _anzahlGesamt - _anzahlGespeichert.get() ) / zeilenProSekunde : -1;
+    }
+
+
+    /**
+     * Status für Health-Endpunkt.
+     *
+     * @return {@code OUT_OF_SERVICE} während des Imports, {@code DOWN} nach
+     *         Fehler, sonst {@code UP}
+     */
+    @Override
+    public Health health() {
+
+        final Health.Builder builder = _laeuft         ? Health.outOfService() :
+                                       _fehler != null ? Health.down().withException( _fehler )
+                                                       : Health.up();
+        if ( _anzahlGesamt > 0 ) {
+
+            builder.withDetail( "zeilenGesamt"     , _anzahlGesamt            )
+                   .withDetail( "zeilenGespeichert", _anzahlGespeichert.get() );
+        }
+        if ( _laeuft ) {
+
+            builder.withDetail( "phase", _phase.name().toLowerCase( Locale.ROOT ) );
+        }
+        if ( _laeuft && _phase == Phase.IMPORT ) {
+
+            builder.withDetail( "zeilenProSekunde", (long) zeilenProSekunde() )
+                   .withDetail( "restSekunden"    , (long) restSekunden()     );
+        }
+
+        return builder.build();
+    }
+
+}
@@ -1,30 +1,59 @@
 package de.eldecker.dhbw.spring.badnews.logik;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
+
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenBeobachter;
 import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
 import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenRepo;
 import de.eldecker.dhbw.spring.badnews.helferlein.EigenePrometheusMetriken;
+import jakarta.annotation.PreDestroy;
 
 
 /**
- * Wenn die Tabelle mit den Schlagzeilen leer ist, dann sorgt die
- * Bean dieser Klasse dafür unmittelbar nach dem Start der Anwendung
- * dafür, dass eine bestimmte Anzahl an Schlagzeilen erzeugt wird.
+ * Wenn die Tabelle mit den Schlagzeilen weniger als eine bestimmte Anzahl
+ * Schlagzeilen enthält, dann sorgt die Bean dieser Klasse unmittelbar nach
+ * dem Start der Anwendung dafür, dass bis zu dieser Anzahl Schlagzeilen
+ * erzeugt werden. Bei leerer Tabelle ist das der vollständige Import; ein
+ * Import, der beim Herunterfahren abgebrochen wurde, wird so beim nächsten
+ * Start fortgesetzt.
+ * <br><br>
+ *
+ * Die Anzahl kann mit Property {@code badnews.import.anzahl} konfiguriert
+ * werden. Auch für sehr viele Schlagzeilen (z.B. 10 Mio.) wird nur wenig
+ * Speicher benötigt, weil die Schlagzeilen in Blöcken ("Chunks") erzeugt
+ * und jeweils in einer eigenen Transaktion gespeichert werden; da
+ * {@code hibernate.jdbc.batch_size} gesetzt ist, werden die INSERTs eines
+ * Blocks als JDBC-Batch an die DB geschickt.
+ * <br><br>
+ *
+ * Vor dem Import werden im selben Hintergrund-Thread alle
+ * {@link SchlagzeilenBeobachter} (Indizes, Zähler, Shards) aus der DB
+ * aufgebaut. Beides läuft in einem eigenen Thread, damit die Anwendung auch
+ * bei großer DB sofort Anfragen annimmt (statische Seiten, Actuator). Den
+ * Fortschritt und die Readiness meldet {@link DatenImportFortschritt};
+ * Endpunkte, die die Daten brauchen, antworten bis zum Ende mit
+ * Status-Code 503 (siehe {@code DatenImportInterceptor}).
  */
 @Component
 public class DatenImporterApplicationRunner implements ApplicationRunner {
 
     private final static Logger LOG = LoggerFactory.getLogger( DatenImporterApplicationRunner.class );
 
-    /** Anzahl der Schlagzeilen die in eine ganz leere Schlagzeilentabelle einzufügen ist. */
+    /** Default-Wert für Anzahl der Schlagzeilen die in eine ganz leere Schlagzeilentabelle einzufügen ist. */
     public static final int ANZAHL_SCHLAGZEILEN = 5_000;
 
     /** Repo-Bean für Zugriff auf Tabelle mit den Schlagzeilen. */
@@ -36,24 +65,73 @@ public class DatenImporterApplicationRunner implements ApplicationRunner {
     /** Bean für Messung Dauer für Datenerzeugung. */
     private EigenePrometheusMetriken _prometheusMetriken;
 
+    /** Für eigene Transaktion pro Block; Persistenz-Kontext wird nach jedem Block geschlossen. */
+    private TransactionTemplate _transactionTemplate;
+
+    /** Anzahl der Schlagzeilen, bis zu der die Tabelle beim Start aufgefüllt wird. */
+    private int _anzahlSchlagzeilen;
+
+    /** Anzahl der Schlagzeilen, die in einer Transaktion gespeichert werden. */
+    private int _chunkGroesse;
+
+    /** Fortschritt des Imports für Gauges und Health-Endpunkt. */
+    private DatenImportFortschritt _fortschritt;
+
+    /** Liefert alle Beans, die beim Start aus der DB aufgebaut werden. */
+    private ObjectProvider<SchlagzeilenBeobachter> _beobachterProvider;
+
+    /** Thread für den Import im Hintergrund. */
+    private final ExecutorService _executor =
+            Executors.newSingleThreadExecutor( Thread.ofPlatform().name( "daten-import" ).factory() );
+
+    /** Wird beim Herunterfahren gesetzt, dann endet der Import nach dem aktuellen Block. */
+    private volatile boolean _abbrechen = false;
+
 
     /**
      * Konstruktor für <i>Dependency Injection</i>.
      */
     public DatenImporterApplicationRunner( SchlagzeilenRepo         schlagzeilenRepo,
                                            SchlagzeilenErzeuger     schlagzeilenErzeuger,
-                                           EigenePrometheusMetriken prometheusMetriken 
+                                           EigenePrometheusMetriken prometheusMetriken,
+                                           TransactionTemplate      transactionTemplate,
+                                           DatenImportFortschritt   fortschritt,
+                                           ObjectProvider<SchlagzeilenBeobachter> beobachterProvider,
+                                           @Value( "${badnews.import.anzahl:" + ANZAHL_SCHLAGZEILEN + "}" ) 
+                                           int anzahlSchlagzeilen,
+                                           @Value( "${badnews.import.chunk-groesse:1000}" ) 
+                                           int chunkGroesse
                                          ) {
 
         _schlagzeilenRepo     = schlagzeilenRepo;
         _schlagzeilenErzeuger = schlagzeilenErzeuger;
         _prometheusMetriken   = prometheusMetriken;
+        _transactionTemplate  = transactionTemplate;
+        _anzahlSchlagzeilen   = anzahlSchlagzeilen;
+        _chunkGroesse         = chunkGroesse;
+        _fortschritt          = fortschritt;
+        _beobachterProvider   = beobachterProvider;
+    }
+
+
+    /**
+     * Laufenden Import beim Herunterfahren der Anwendung abbrechen. Der Thread
+     * wird nicht unterbrochen, sondern beendet den Import nach dem aktuellen
+     * Block (Commit), bevor die DataSource geschlossen wird.
+     */
+    @PreDestroy
+    public void beenden() throws InterruptedException {
+
+        _abbrechen = true;
+        _executor.shutdown();
+        _executor.awaitTermination( 30, SECONDS );
     }
 
 
     /**
      * Diese Methode wird unmittelbar nach dem Start der Anwendung
-     * ausgeführt.
+     * ausgeführt; Aufbau der Indizes und ggf. Import werden im Hintergrund
+     * gestartet und die Methode kehrt sofort zurück.
      *
      * @param args Kommandozeilenargumente, werden nicht ausgewertet
      *
@@ -62,30 +140,113 @@ public class DatenImporterApplicationRunner implements ApplicationRunner {
     @Override
     public void run( ApplicationArguments args ) throws Exception {
 
-        final int anzahlSchlagzeilen = (int) _schlagzeilenRepo.count(); // Methode aus Interface CrudRepository
-        if ( anzahlSchlagzeilen > 0 ) {
+        _executor.submit( this::startImHintergrund );
+        _executor.shutdown(); // Thread endet nach dem Import
+    }
+
+
+    /**
+     * Baut im Hintergrund-Thread alle Beobachter auf, führt dann ggf. den
+     * Import aus und meldet das Ende an {@link DatenImportFortschritt}.
+     */
+    private void startImHintergrund() {
+
+        try {
+
+            final long startZeit = System.currentTimeMillis();
+            _beobachterProvider.orderedStream().forEach( SchlagzeilenBeobachter::aufbauen );
+            LOG.info( "Indizes in {} ms aufgebaut.", System.currentTimeMillis() - startZeit );
+
+            final long anzahlVorhanden = _schlagzeilenRepo.count(); // Methode aus Interface CrudRepository
+            final long anzahlFehlend   = _anzahlSchlagzeilen - anzahlVorhanden;
+            if ( anzahlFehlend <= 0 ) {
+
+                LOG.info( "Datenbank enthält schon {} Schlagzeilen, es werden keine neuen hinzugefügt.",
+                          anzahlVorhanden );
+
+            } else {
+
+                if ( anzahlVorhanden == 0 ) {
+
+                    LOG.warn( "Datenbank enthält überhaupt keine Schlagzeilen, werde {} Schlagzeilen erzeugen.",
+                              anzahlFehlend );
+                } else {
 
-            LOG.info( "Datenbank enthält schon {} Schlagzeilen, es werden keine neuen hinzugefügt.",
-                      anzahlSchlagzeilen );
-        } else {
+                    LOG.warn( "Datenbank enthält nur {} von {} Schlagzeilen (Import abgebrochen?), " +
+                              "werde {} Schlagzeilen ergänzen.", anzahlVorhanden, _anzahlSchlagzeilen, anzahlFehlend );
+                }
 
-            LOG.warn( "Datenbank enthält überhaupt keine Schlagzeilen, werde {} Schlagzeilen erzeugen.",
-                      ANZAHL_SCHLAGZEILEN );
+                _fortschritt.gestartet( anzahlFehlend );
+                _prometheusMetriken.getTimerFuerDatenerzeugung().record( () -> massenImport( (int) anzahlFehlend ) );
+            }
+            _fortschritt.beendet( null );
+        }
+        catch ( RuntimeException ex ) {
+
+            LOG.error( "Aufbau der Indizes oder Import der Schlagzeilen abgebrochen.", ex );
+            _fortschritt.beendet( ex );
+        }
+    }
+
+
+    /**
+     * Erzeugt Schlagzeilen und speichert sie blockweise in der DB. Nach jedem
+     * Block wird der Durchsatz (Zeilen pro Sekunde) als Metrik aktualisiert.
+     *
+     * @param anzahl Anzahl der zu erzeugenden Schlagzeilen
+     */
+    private void massenImport( int anzahl ) {
+
+        final long startZeit = System.nanoTime();
+        
+        int anzahlGespeichert = 0;
+        while ( anzahlGespeichert < anzahl ) {
+
+            if ( _abbrechen ) {
+
+                throw new IllegalStateException( "Import beim Herunterfahren nach " + anzahlGespeichert + " von " +
+                                                 anzahl + " Schlagzeilen abgebrochen, " +
+                                                 "wird beim nächsten Start fortgesetzt." );
+            }
+
+            final int chunkGroesse = Math.min( _chunkGroesse, anzahl - anzahlGespeichert );
 
-            _prometheusMetriken.getTimerFuerDatenerzeugung().record(
-            		
-            		() -> {
-            			
-                        final List<SchlagzeilenEntity> schlagzeilenListe =
-                                _schlagzeilenErzeuger.erzeugeZufallsSchlagzeilen( ANZAHL_SCHLAGZEILEN );
+            // Sequentiell: Erzeugung ist gegenüber dem Speichern vernachlässigbar, siehe README_Benchmarks.md
+            final List<SchlagzeilenEntity> chunk = 
+                    _schlagzeilenErzeuger.erzeugeZufallsSchlagzeilen( chunkGroesse );
 
-                        _schlagzeilenRepo.saveAll( schlagzeilenListe ); // Batch-Operation
+            // Commit am Ende der Transaktion: Flush als JDBC-Batch, danach wird Persistenz-Kontext geschlossen
+            _transactionTemplate.executeWithoutResult( status -> _schlagzeilenRepo.saveAll( chunk ) );
 
-                        LOG.warn( "{} zufällige Schlagzeilen erzeugt und in DB gespeichert.", 
-                        		  ANZAHL_SCHLAGZEILEN );             			
-            		}
-            );            
+            anzahlGespeichert += chunkGroesse;
+            _fortschritt.gespeichert( chunkGroesse );
+
+            final double zeilenProSekunde = zeilenProSekunde( anzahlGespeichert, startZeit );
+            _prometheusMetriken.setDatenerzeugungZeilenProSekunde( zeilenProSekunde );
+
+            LOG.debug( "{} von {} Schlagzeilen gespeichert ({} Zeilen/s).",
+                       anzahlGespeichert, anzahl, (long) zeilenProSekunde );
         }
+
+        LOG.warn( "{} zufällige Schlagzeilen erzeugt und in DB gespeichert ({} Zeilen/s).", 
+                  anzahlGespeichert, (long) zeilenProSekunde( anzahlGespeichert, startZeit ) );
+    }
+
+
+    /**
+     * Berechnet Durchsatz seit Beginn des Imports.
+     *
+     * @param anzahl Anzahl der bisher gespeicherten Schlagzeilen
+     *
+     * @param startZeit Startzeitpunkt des Imports von {@code System.nanoTime()}
+     *
+     * @return Gespeicherte Zeilen pro Sekunde
+     */
+    private static double zeilenProSekunde( long anzahl, long startZeit ) {
+
+        final double sekunden = ( System.nanoTime() - startZeit ) / 1_000_000_000.0;
+
+        return sekunden > 0 ? anzahl / sekunden : 0;
     }
 
 }
@@ -0,0 +1,134 @@
+package de.eldecker.dhbw.spring.badnews.logik;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenBeobachter;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
+
+
+/**
+ * Bean mit globaler Versionsnummer der Schlagzeilen-Daten: Die Nummer wird
+ * bei jedem Schreibzugriff (INSERT, UPDATE, DELETE) erhöht. Caches, deren
+ * Einträge von vielen Schlagzeilen abhängen (z.B. Suchergebnisse), nehmen die
+ * Versionsnummer in ihren Schlüssel auf; nach einem Schreibzugriff werden
+ * die alten Einträge also nicht mehr gefunden und nach und nach verdrängt.
+ * <br><br>
+ *
+ * Die Versionsnummer wird erst erhöht, nachdem alle Indizes und Caches den
+ * Schreibzugriff verarbeitet haben (siehe
+ * {@link SchlagzeilenBeobachter#REIHENFOLGE_VERSION}); wer die neue
+ * Versionsnummer liest, sieht also auch die aktualisierten Indizes.
+ * <br><br>
+ *
+ * Außerdem wird der Zeitpunkt des letzten Schreibzugriffs gemerkt, er wird
+ * zusammen mit der Versionsnummer für Conditional GET (Header {@code ETag}
+ * und {@code Last-Modified}) verwendet, siehe {@code BedingteAnfrageInterceptor}.
+ */
+@Component
+@Order( SchlagzeilenBeobachter.REIHENFOLGE_VERSION )
+public class DatenVersion implements SchlagzeilenBeobachter {
+
+    /** Aktuelle Versionsnummer, beginnt beim Start mit 0. */
+    private final AtomicLong _version = new AtomicLong( 0 );
+
+    /**
+     * Zeitpunkt (Epoch-Millisekunden) des Starts der Anwendung; da die
+     * Versionsnummer nach jedem Neustart wieder bei 0 beginnt, muss dieser
+     * Wert zusätzlich in einen ETag aufgenommen werden.
+     */
+    private final long _startZeitpunkt = System.currentTimeMillis();
+
+    /** Zeitpunkt (Epoch-Millisekunden) des letzten Schreibzugriffs, bis dahin Start der Anwendung. */
+    private volatile long _letzteAenderung = _startZeitpunkt;
+
+
+    /**
+     * Getter für aktuelle Versionsnummer.
+     *
+     * @return Versionsnummer, ändert sich bei jedem Schreibzugriff
+     */
+    public long getVersion() {
+
+        return _version.get();
+    }
+
+
+    /**
+     * Getter für Startzeitpunkt der Anwendung.
+     *
+     * @return Epoch-Millisekunden
+     */
+    public long getStartZeitpunkt() {
+
+        return _startZeitpunkt;
+    }
+
+
+    /**
+     * Getter für Zeitpunkt des letzten Schreibzugriffs.
+     *
+     * @return Epoch-Millisekunden; Start der Anwendung, wenn es noch keinen
+     *         Schreibzugriff gab
+     */
+    public long getLetzteAenderung() {
+
+        return _letzteAenderung;
+    }
+
+
+    /**
+     * Zeitpunkt des letzten Schreibzugriffs aktualisieren und danach
+     * Versionsnummer erhöhen, damit ein Leser, der die neue Versionsnummer
+     * sieht, auch den neuen Zeitpunkt sieht.
+     * <br><br>
+     *
+     * Wird außer von den Beobachter-Methoden auch aufgerufen, wenn Daten im
+     * Speicher ohne Schreibzugriff korrigiert werden (z.B. von
+     * {@link StatistikZaehler#pruefen()}), und zwar erst nach der Korrektur.
+     */
+    public void erhoeheVersion() {
+
+        _letzteAenderung = Math.max( _letzteAenderung, System.currentTimeMillis() );
+        _version.incrementAndGet();
+    }
+
+
+    /**
+     * Versionsnummer erhöhen.
+     *
+     * @param entity Neue Schlagzeile
+     */
+    @Override
+    public void nachEinfuegen( SchlagzeilenEntity entity ) {
+
+        erhoeheVersion();
+    }
+
+
+    /**
+     * Versionsnummer erhöhen.
+     *
+     * @param entity Geänderte Schlagzeile
+     */
+    @Override
+    public void nachAenderung( SchlagzeilenEntity entity ) {
+
+        erhoeheVersion();
+    }
+
+
+    /**
+     * Versionsnummer erhöhen.
+     *
+     * @param entity Gelöschte Schlagzeile
+     */
+    @Override
+    public void nachLoeschen( SchlagzeilenEntity entity ) {
+
+        erhoeheVersion();
+    }
+
+}
@@ -0,0 +1,438 @@
+package de.eldecker.dhbw.spring.badnews.logik;
+
+import static de.eldecker.dhbw.spring.badnews.db.SchlagzeilenWoerterbuch.ORT_CODE_NATIONEN;
+import static de.eldecker.dhbw.spring.badnews.logik.SchlagzeilenErzeuger.EREIGNISSE_ARRAY;
+import static de.eldecker.dhbw.spring.badnews.logik.SchlagzeilenErzeuger.ORTE_DEUTSCHLAD_ARRAY;
+import static de.eldecker.dhbw.spring.badnews.logik.SchlagzeilenErzeuger.ORTE_NATIONEN_ARRAY;
+import static java.util.Locale.GERMAN;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenBeobachter;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenRepo;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenWoerterbuch;
+import de.eldecker.dhbw.spring.badnews.helferlein.SchlagzeilenException;
+import de.eldecker.dhbw.spring.badnews.model.FacettenStatistik;
+import de.eldecker.dhbw.spring.badnews.model.SchlagzeilenText;
+
+
+/**
+ * Bitmap-Index für die Facetten-Statistik: Für jedes Ereignis, jeden Ort und
+ * für die Inlands-Schlagzeilen gibt es eine komprimierte Bitmap
+ * ({@link RoaringBitmap}) mit den IDs der Schlagzeilen. Anzahlen pro Facette
+ * und die IDs der Treffer für eine Kombination von Filtern (z.B. Ereignis
+ * "Erdbeben" UND Inland) werden mit UND/ODER-Verknüpfungen der Bitmaps
+ * berechnet, ohne {@code GROUP BY}-Query über die ganze Tabelle.
+ * <br><br>
+ *
+ * Mehrere Werte für dieselbe Facette werden mit ODER verknüpft, verschiedene
+ * Facetten mit UND. Schlagzeilen, die nicht im {@link SchlagzeilenWoerterbuch}
+ * enthalten sind, haben kein Ereignis und keinen Ort; sie werden nur ohne
+ * Filter für Ereignis und Ort gezählt.
+ * <br><br>
+ *
+ * Der Index wird beim Start aus der DB aufgebaut und danach als
+ * {@link SchlagzeilenBeobachter} bei jedem Schreibzugriff aktualisiert. Die
+ * IDs werden als {@code int} gespeichert (wie in der REST-Antwort der Suche).
+ */
+@Component
+@Order( SchlagzeilenBeobachter.REIHENFOLGE_INDEX )
+public class FacettenIndex implements SchlagzeilenBeobachter {
+
+    private final static Logger LOG = LoggerFactory.getLogger( FacettenIndex.class );
+
+    /** Schlüssel: Ereignis in Kleinbuchstaben, Wert: Ereignis-Code. */
+    private static final Map<String, Short> EREIGNIS_CODES = new HashMap<>();
+
+    /** Schlüssel: Ort in Kleinbuchstaben, Wert: Orts-Code. */
+    private static final Map<String, Short> ORT_CODES = new HashMap<>();
+
+    static {
+
+        for ( short e = 0; e < EREIGNISSE_ARRAY.length; e++ ) {
+
+            EREIGNIS_CODES.put( EREIGNISSE_ARRAY[ e ].toLowerCase( GERMAN ), e );
+        }
+        for ( int i = 0; i < ORTE_DEUTSCHLAD_ARRAY.length; i++ ) {
+
+            ORT_CODES.put( ORTE_DEUTSCHLAD_ARRAY[ i ].toLowerCase( GERMAN ),
+                           SchlagzeilenWoerterbuch.ortCodeInland( i ) );
+        }
+        for ( int i = 0; i < ORTE_NATIONEN_ARRAY.length; i++ ) {
+
+            ORT_CODES.put( ORTE_NATIONEN_ARRAY[ i ].toLowerCase( GERMAN ),
+                           SchlagzeilenWoerterbuch.ortCodeNation( i ) );
+        }
+    }
+
+    /** Repo-Bean für Zugriff auf Tabelle mit Schlagzeilen. */
+    private final SchlagzeilenRepo _repo;
+
+    /** Für Transaktion, in der beim Aufbau der Stream mit allen Schlagzeilen gelesen wird. */
+    private final TransactionTemplate _transactionTemplate;
+
+    /** IDs aller Schlagzeilen. */
+    private final RoaringBitmap _alle = new RoaringBitmap();
+
+    /** IDs der Inlands-Schlagzeilen. */
+    private final RoaringBitmap _inland = new RoaringBitmap();
+
+    /** IDs pro Ereignis, Index ist der Ereignis-Code. */
+    private final RoaringBitmap[] _nachEreignis = new RoaringBitmap[ EREIGNISSE_ARRAY.length ];
+
+    /** IDs pro Ort, Index ist der Orts-Code (Codes zwischen Inland und Nationen bleiben leer). */
+    private final RoaringBitmap[] _nachOrt = new RoaringBitmap[ ORT_CODE_NATIONEN + ORTE_NATIONEN_ARRAY.length ];
+
+    /** Die Bitmaps sind nicht thread-safe; Abfragen können parallel laufen. */
+    private final ReadWriteLock _lock = new ReentrantReadWriteLock();
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    public FacettenIndex( SchlagzeilenRepo repo, TransactionTemplate transactionTemplate ) {
+
+        _repo                = repo;
+        _transactionTemplate = transactionTemplate;
+
+        for ( int i = 0; i < _nachEreignis.length; i++ ) { _nachEreignis[ i ] = new RoaringBitmap(); }
+        for ( int i = 0; i < _nachOrt.length     ; i++ ) { _nachOrt[ i ]      = new RoaringBitmap(); }
+    }
+
+
+    /**
+     * Baut den Index aus allen Schlagzeilen in der DB auf; die Codes werden
+     * über das {@link SchlagzeilenWoerterbuch} aus dem Text ermittelt. Da die
+     * IDs aufsteigend gelesen werden, werden die Bitmaps nur am Ende erweitert.
+     */
+    @Override
+    public void aufbauen() {
+
+        final long startZeit = System.currentTimeMillis();
+
+        _lock.writeLock().lock();
+        try {
+
+            _transactionTemplate.executeWithoutResult( status -> {
+
+                try ( Stream<SchlagzeilenText> stream = _repo.streameIdUndText() ) {
+
+                    stream.forEach( st -> hinzufuegen( st.id(),
+                                                       SchlagzeilenWoerterbuch.ereignisCode( st.schlagzeile() ),
+                                                       SchlagzeilenWoerterbuch.ortCode( st.schlagzeile() ),
+                                                       st.inland() ) );
+                }
+            });
+
+            long bytes = _alle.getSizeInBytes() + _inland.getSizeInBytes();
+            for ( RoaringBitmap bitmap : _nachEreignis ) { bitmap.runOptimize(); bytes += bitmap.getSizeInBytes(); }
+            for ( RoaringBitmap bitmap : _nachOrt      ) { bitmap.runOptimize(); bytes += bitmap.getSizeInBytes(); }
+
+            LOG.info( "Facetten-Index für {} Schlagzeilen in {} ms aufgebaut, {} KiB.",
+                      _alle.getLongCardinality(), System.currentTimeMillis() - startZeit, bytes / 1024 );
+
+        } finally {
+
+            _lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Berechnet die Facetten-Statistik für eine Kombination von Filtern.
+     *
+     * @param ereignisse Filter für Ereignisse (ODER-verknüpft), leere Liste
+     *                   für alle Ereignisse; Groß-/Kleinschreibung egal
+     *
+     * @param orte Filter für Orte (ODER-verknüpft), leere Liste für alle Orte
+     *
+     * @param inland {@code true} nur Inland, {@code false} nur Ausland,
+     *               {@code null} beides
+     *
+     * @param nachId Es werden nur IDs größer als dieser Wert zurückgegeben
+     *               (zum Blättern); {@code null} für erste Treffer
+     *
+     * @param anzahlIds Max. Anzahl zurückgegebener IDs
+     *
+     * @return Anzahlen und IDs der Treffer
+     *
+     * @throws SchlagzeilenException Unbekanntes Ereignis oder unbekannter Ort
+     */
+    public FacettenStatistik abfragen( List<String> ereignisse, List<String> orte, Boolean inland,
+                                       Long nachId, int anzahlIds ) throws SchlagzeilenException {
+
+        final List<Short> ereignisCodes = zuCodes( ereignisse, EREIGNIS_CODES, "Ereignis" );
+        final List<Short> ortCodes      = zuCodes( orte      , ORT_CODES     , "Ort"      );
+
+        _lock.readLock().lock();
+        try {
+
+            final RoaringBitmap filterEreignis = vereinige( ereignisCodes, _nachEreignis );
+            final RoaringBitmap filterOrt      = vereinige( ortCodes     , _nachOrt      );
+            final RoaringBitmap filterInland   = inland == null ? null
+                                                                : inland ? _inland
+                                                                         : RoaringBitmap.andNot( _alle, _inland );
+
+            final RoaringBitmap ohneEreignis = schneide( filterOrt     , filterInland );
+            final RoaringBitmap ohneOrt      = schneide( filterEreignis, filterInland );
+            final RoaringBitmap ohneInland   = schneide( filterEreignis, filterOrt    );
+            final RoaringBitmap treffer      = schneide( ohneInland    , filterInland );
+
+            final Map<String, Long> anzahlNachEreignis = new HashMap<>();
+            for ( int e = 0; e < EREIGNISSE_ARRAY.length; e++ ) {
+
+                anzahlNachEreignis.put( EREIGNISSE_ARRAY[ e ],
+                                        (long) RoaringBitmap.andCardinality( ohneEreignis, _nachEreignis[ e ] ) );
+            }
+
+            final Map<String, Long> anzahlNachOrt = new HashMap<>();
+            for ( int i = 0; i < ORTE_DEUTSCHLAD_ARRAY.length; i++ ) {
+
+                anzahlNachOrt.put( ORTE_DEUTSCHLAD_ARRAY[ i ],
+                                   (long) RoaringBitmap.andCardinality( ohneOrt, _nachOrt[ SchlagzeilenWoerterbuch.ortCodeInland( i ) ] ) );
+            }
+            for ( int i = 0; i < ORTE_NATIONEN_ARRAY.length; i++ ) {
+
+                anzahlNachOrt.put( ORTE_NATIONEN_ARRAY[ i ],
+                                   (long) RoaringBitmap.andCardinality( ohneOrt, _nachOrt[ SchlagzeilenWoerterbuch.ortCodeNation( i ) ] ) );
+            }
+
+            final long anzahlInland  = RoaringBitmap.andCardinality( ohneInland, _inland );
+            final long anzahlAusland = ohneInland.getLongCardinality() - anzahlInland;
+
+            return new FacettenStatistik( treffer.getLongCardinality(),
+                                          anzahlInland,
+                                          anzahlAusland,
+                                          sortiere( anzahlNachEreignis ),
+                                          sortiere( anzahlNachOrt ),
+                                          ersteIds( treffer, nachId, anzahlIds ) );
+        } finally {
+
+            _lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Neue Schlagzeile in Bitmaps eintragen.
+     *
+     * @param entity Neue Schlagzeile
+     */
+    @Override
+    public void nachEinfuegen( SchlagzeilenEntity entity ) {
+
+        _lock.writeLock().lock();
+        try {
+
+            hinzufuegen( entity.getId(), entity.getEreignisCode(), entity.getOrtCode(), entity.isInland() );
+
+        } finally {
+
+            _lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Geänderte Schlagzeile aus allen Bitmaps für Ereignis und Ort entfernen
+     * (die alten Codes sind nicht bekannt) und neu eintragen.
+     *
+     * @param entity Geänderte Schlagzeile
+     */
+    @Override
+    public void nachAenderung( SchlagzeilenEntity entity ) {
+
+        if ( entity.getId() == null ) { return; }
+
+        final int id = Math.toIntExact( entity.getId() );
+
+        _lock.writeLock().lock();
+        try {
+
+            for ( RoaringBitmap bitmap : _nachEreignis ) { bitmap.remove( id ); }
+            for ( RoaringBitmap bitmap : _nachOrt      ) { bitmap.remove( id ); }
+            _inland.remove( id );
+
+            hinzufuegen( entity.getId(), entity.getEreignisCode(), entity.getOrtCode(), entity.isInland() );
+
+        } finally {
+
+            _lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Gelöschte Schlagzeile aus Bitmaps entfernen.
+     *
+     * @param entity Gelöschte Schlagzeile
+     */
+    @Override
+    public void nachLoeschen( SchlagzeilenEntity entity ) {
+
+        if ( entity.getId() == null ) { return; }
+
+        final int id = Math.toIntExact( entity.getId() );
+
+        _lock.writeLock().lock();
+        try {
+
+            _alle.remove( id );
+            _inland.remove( id );
+
+            if ( entity.getEreignisCode() != null ) { _nachEreignis[ entity.getEreignisCode() ].remove( id ); }
+            if ( entity.getOrtCode()      != null ) { _nachOrt[ entity.getOrtCode() ].remove( id );           }
+
+        } finally {
+
+            _lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Schlagzeile in Bitmaps eintragen. Aufrufer muss Schreib-Lock halten.
+     *
+     * @param id ID der Schlagzeile; bei {@code null} wird nichts eingetragen
+     *
+     * @param ereignisCode Ereignis-Code oder {@code null}
+     *
+     * @param ortCode Orts-Code oder {@code null}
+     *
+     * @param inland {@code true} für Inlands-Schlagzeile
+     */
+    private void hinzufuegen( Long id, Short ereignisCode, Short ortCode, boolean inland ) {
+
+        if ( id == null ) { return; }
+
+        final int idInt = Math.toIntExact( id );
+
+        _alle.add( idInt );
+        if ( inland               ) { _inland.add( idInt );                       }
+        if ( ereignisCode != null ) { _nachEreignis[ ereignisCode ].add( idInt ); }
+        if ( ortCode      != null ) { _nachOrt[ ortCode ].add( idInt );           }
+    }
+
+
+    /**
+     * Wandelt Namen von Ereignissen oder Orten in Codes um.
+     *
+     * @param namen Namen aus Request, darf {@code null} sein
+     *
+     * @param codes Abbildung Name in Kleinbuchstaben auf Code
+     *
+     * @param facette Name der Facette für Fehlermeldung
+     *
+     * @return Codes, leere Liste für "kein Filter"
+     *
+     * @throws SchlagzeilenException Unbekannter Name
+     */
+    private static List<Short> zuCodes( List<String> namen, Map<String, Short> codes, String facette )
+            throws SchlagzeilenException {
+
+        final List<Short> ergebnis = new ArrayList<>();
+        if ( namen == null ) { return ergebnis; }
+
+        for ( String name : namen ) {
+
+            final Short code = codes.get( name.trim().toLowerCase( GERMAN ) );
+            if ( code == null ) {
+
+                throw new SchlagzeilenException( facette + " unbekannt: " + name );
+            }
+            ergebnis.add( code );
+        }
+
+        return ergebnis;
+    }
+
+
+    /**
+     * ODER-Verknüpfung der Bitmaps für die Codes einer Facette.
+     *
+     * @return Vereinigung, {@code null} wenn {@code codes} leer ist (kein Filter)
+     */
+    private static RoaringBitmap vereinige( List<Short> codes, RoaringBitmap[] bitmaps ) {
+
+        if ( codes.isEmpty() ) { return null; }
+
+        final RoaringBitmap ergebnis = new RoaringBitmap();
+        for ( short code : codes ) {
+
+            ergebnis.or( bitmaps[ code ] );
+        }
+
+        return ergebnis;
+    }
+
+
+    /**
+     * UND-Verknüpfung von zwei Filtern; {@code null} steht für "kein Filter".
+     * Das Ergebnis darf nicht verändert werden, weil es eine der Bitmaps des
+     * Index sein kann.
+     *
+     * @return Schnittmenge; {@link #_alle}, wenn beide Filter {@code null} sind
+     */
+    private RoaringBitmap schneide( RoaringBitmap filter1, RoaringBitmap filter2 ) {
+
+        if ( filter1 == null && filter2 == null ) { return _alle;   }
+        if ( filter1 == null                    ) { return filter2; }
+        if ( filter2 == null                    ) { return filter1; }
+
+        return RoaringBitmap.and( filter1, filter2 );
+    }
+
+
+    /**
+     * Liefert die ersten IDs einer Bitmap nach einer Start-ID.
+     */
+    private static List<Long> ersteIds( RoaringBitmap treffer, Long nachId, int anzahl ) {
+
+        final PeekableIntIterator iterator = treffer.getIntIterator();
+        if ( nachId != null ) {
+
+            iterator.advanceIfNeeded( (int) Math.min( nachId + 1, Integer.MAX_VALUE ) );
+        }
+
+        final List<Long> ids = new ArrayList<>( Math.min( anzahl, 1024 ) );
+        while ( iterator.hasNext() && ids.size() < anzahl ) {
+
+            ids.add( (long) iterator.next() );
+        }
+
+        return ids;
+    }
+
+
+    /**
+     * Sortiert die Anzahlen absteigend und entfernt Einträge mit Anzahl 0.
+     */
+    private static Map<String, Long> sortiere( Map<String, Long> anzahlen ) {
+
+        final Map<String, Long> ergebnis = new LinkedHashMap<>();
+        anzahlen.entrySet().stream()
+                .filter( eintrag -> eintrag.getValue() > 0 )
+                .sorted( Map.Entry.<String, Long>comparingByValue().reversed()
+                                  .thenComparing( Map.Entry.comparingByKey() ) )
+                .forEach( eintrag -> ergebnis.put( eintrag.getKey(), eintrag.getValue() ) );
+
+        return ergebnis;
+    }
+
+}
@@ -0,0 +1,260 @@
+package de.eldecker.dhbw.spring.badnews.logik;
+
+import static de.eldecker.dhbw.spring.badnews.helferlein.CursorKodierer.MAX_ID;
+import static de.eldecker.dhbw.spring.badnews.helferlein.CursorKodierer.MIN_ID;
+import static de.eldecker.dhbw.spring.badnews.helferlein.CursorKodierer.kodiere;
+import static java.util.Comparator.comparing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenRepo;
+import de.eldecker.dhbw.spring.badnews.model.KeysetSeite;
+
+
+/**
+ * Service-Bean für Keyset-Paginierung (Seek-Paginierung): Statt einer
+ * Seitennummer wird die ID der letzten (bzw. ersten) Schlagzeile der zuvor
+ * angezeigten Seite übergeben, und die DB positioniert direkt über den Index
+ * des Primärschlüssels. Die Antwortzeit hängt damit nicht davon ab, wie weit
+ * hinten die Seite liegt, und es wird keine COUNT-Query benötigt.
+ * <br><br>
+ *
+ * Um festzustellen, ob es eine weitere Seite in Blätterrichtung gibt, wird
+ * jeweils eine Schlagzeile mehr als angefordert geladen.
+ */
+@Service
+public class KeysetPaginierung {
+
+    /** Repo-Bean für Zugriff auf Tabelle mit Schlagzeilen. */
+    private final SchlagzeilenRepo _repo;
+
+    /** In-Memory-Index für Teilstring-Suche. */
+    private final TrigrammIndex _trigrammIndex;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    public KeysetPaginierung( SchlagzeilenRepo repo,
+                              TrigrammIndex trigrammIndex ) {
+
+        _repo          = repo;
+        _trigrammIndex = trigrammIndex;
+    }
+
+
+    /**
+     * Seite mit allen Schlagzeilen (ohne Suchbegriff) laden.
+     *
+     * @param nachId ID der letzten Schlagzeile der vorherigen Seite (vorwärts blättern)
+     *               oder {@code null}
+     *
+     * @param vorId ID der ersten Schlagzeile der nachfolgenden Seite (rückwärts blättern)
+     *              oder {@code null}; wenn beide IDs {@code null} sind, dann wird die
+     *              erste Seite geliefert
+     *
+     * @param anzahl Anzahl Schlagzeilen pro Seite
+     *
+     * @return Seite mit Schlagzeilen und Cursor für die Nachbarseiten
+     */
+    public KeysetSeite liste( Long nachId, Long vorId, int anzahl ) {
+
+        final Limit limit = Limit.of( anzahl + 1 );
+
+        if ( vorId != null ) {
+
+            final List<SchlagzeilenEntity> geladen = _repo.findByIdLessThanOrderByIdDesc( vorId, limit );
+
+            return baueSeiteRueckwaerts( geladen, vorId, anzahl );
+        }
+
+        final long abId = nachId == null ? 0L : nachId;
+
+        final List<SchlagzeilenEntity> geladen = _repo.findByIdGreaterThanOrderByIdAsc( abId, limit );
+
+        return baueSeiteVorwaerts( geladen, nachId, anzahl );
+    }
+
+
+    /**
+     * Textsuche mit Keyset-Paginierung; Parameter {@code nachId} und {@code vorId}
+     * wie bei {@link #liste(Long, Long, int)}. Wenn der {@link TrigrammIndex}
+     * aufgebaut ist, dann werden die Treffer-IDs per Binärsuche im Index
+     * ermittelt, sonst per JPQL-Query.
+     *
+     * @param suchstring Teilstring, der in Schlagzeilen enthalten sein muss
+     *
+     * @param nachId Cursor-ID für vorwärts blättern oder {@code null}
+     *
+     * @param vorId Cursor-ID für rückwärts blättern oder {@code null}
+     *
+     * @param anzahl Anzahl Schlagzeilen pro Seite
+     *
+     * @return Seite mit gefundenen Schlagzeilen und Cursor für die Nachbarseiten
+     */
+    public KeysetSeite suche( String suchstring, Long nachId, Long vorId, int anzahl ) {
+
+        if ( _trigrammIndex.isAufgebaut() ) {
+
+            return sucheMitIndex( suchstring, nachId, vorId, anzahl );
+        }
+
+        final Limit limit = Limit.of( anzahl + 1 );
+
+        if ( vorId != null ) {
+
+            final List<SchlagzeilenEntity> geladen = _repo.sucheSchlagzeilenVor( suchstring, vorId, limit );
+
+            return baueSeiteRueckwaerts( geladen, vorId, anzahl );
+        }
+
+        final long abId = nachId == null ? 0L : nachId;
+
+        final List<SchlagzeilenEntity> geladen = _repo.sucheSchlagzeilenNach( suchstring, abId, limit );
+
+        return baueSeiteVorwaerts( geladen, nachId, anzahl );
+    }
+
+
+    /**
+     * Keyset-Suche über den Trigramm-Index: Position des Cursors wird per
+     * Binärsuche im sortierten Array der Treffer-IDs bestimmt.
+     */
+    private KeysetSeite sucheMitIndex( String suchstring, Long nachId, Long vorId, int anzahl ) {
+
+        final long[] trefferIds = _trigrammIndex.suche( suchstring );
+
+        if ( vorId != null ) {
+
+            final int bisPos = einfuegePosition( trefferIds, vorId ); // exklusiv
+            final int vonPos = Math.max( 0, bisPos - anzahl - 1 );
+
+            final List<Long> ids = new ArrayList<>();
+            for ( int i = bisPos - 1; i >= vonPos; i-- ) { ids.add( trefferIds[ i ] ); }
+
+            final List<SchlagzeilenEntity> geladen = ladeNachIds( ids );
+            Collections.reverse( geladen ); // absteigend wie bei DB-Query
+
+            return baueSeiteRueckwaerts( geladen, vorId, anzahl );
+        }
+
+        final int vonPos = nachId == null ? 0 : einfuegePosition( trefferIds, nachId + 1 );
+        final int bisPos = (int) Math.min( (long) vonPos + anzahl + 1, trefferIds.length );
+
+        final List<Long> ids = new ArrayList<>();
+        for ( int i = vonPos; i < bisPos; i++ ) { ids.add( trefferIds[ i ] ); }
+
+        return baueSeiteVorwaerts( ladeNachIds( ids ), nachId, anzahl );
+    }
+
+
+    /**
+     * Erzeugt Seite aus Schlagzeilen, die vorwärts (aufsteigend) geladen wurden.
+     *
+     * @param geladen Bis zu {@code anzahl + 1} Schlagzeilen, aufsteigend sortiert
+     *
+     * @param nachId Cursor-ID der Anfrage, {@code null} für erste Seite
+     *
+     * @param anzahl Anzahl Schlagzeilen pro Seite
+     *
+     * @return Seite mit Cursor für Nachbarseiten
+     */
+    private static KeysetSeite baueSeiteVorwaerts( List<SchlagzeilenEntity> geladen, Long nachId, int anzahl ) {
+
+        final boolean hatNaechste = geladen.size() > anzahl;
+        final List<SchlagzeilenEntity> inhalt = hatNaechste ? geladen.subList( 0, anzahl ) : geladen;
+
+        String cursorVorherige = null;
+        if ( nachId != null ) {
+
+            cursorVorherige = inhalt.isEmpty() ? kodiereImBereich( nachId + 1 )
+                                               : kodiere( inhalt.get( 0 ).getId() );
+        }
+
+        final String cursorNaechste = hatNaechste ? kodiere( inhalt.get( inhalt.size() - 1 ).getId() )
+                                                  : null;
+
+        return new KeysetSeite( List.copyOf( inhalt ), cursorVorherige, cursorNaechste );
+    }
+
+
+    /**
+     * Erzeugt Seite aus Schlagzeilen, die rückwärts (absteigend) geladen wurden.
+     *
+     * @param geladen Bis zu {@code anzahl + 1} Schlagzeilen, absteigend sortiert
+     *
+     * @param vorId Cursor-ID der Anfrage
+     *
+     * @param anzahl Anzahl Schlagzeilen pro Seite
+     *
+     * @return Seite (aufsteigend sortiert) mit Cursor für Nachbarseiten
+     */
+    private static KeysetSeite baueSeiteRueckwaerts( List<SchlagzeilenEntity> geladen, long vorId, int anzahl ) {
+
+        final boolean hatVorherige = geladen.size() > anzahl;
+
+        final List<SchlagzeilenEntity> inhalt =
+                new ArrayList<>( hatVorherige ? geladen.subList( 0, anzahl ) : geladen );
+        Collections.reverse( inhalt );
+
+        final String cursorVorherige = hatVorherige ? kodiere( inhalt.get( 0 ).getId() ) : null;
+
+        final String cursorNaechste = inhalt.isEmpty() ? kodiereImBereich( vorId - 1 )
+                                                       : kodiere( inhalt.get( inhalt.size() - 1 ).getId() );
+
+        return new KeysetSeite( List.copyOf( inhalt ), cursorVorherige, cursorNaechste );
+    }
+
+
+    /**
+     * Cursor für eine berechnete ID (Cursor-ID der Anfrage {@code +1} bzw.
+     * {@code -1}) erzeugen. Die Cursor-ID der Anfrage liegt schon im Bereich von
+     * {@code CursorKodierer}; nur bei einem (von Hand erzeugten) Cursor genau an
+     * der Grenze des Bereichs kann die berechnete ID außerhalb liegen.
+     *
+     * @param id Berechnete ID
+     *
+     * @return Cursor oder {@code null}, wenn {@code id} außerhalb des Bereichs liegt,
+     *         den {@code CursorKodierer.dekodiere()} akzeptiert
+     */
+    private static String kodiereImBereich( long id ) {
+
+        return id < MIN_ID || id > MAX_ID ? null : kodiere( id );
+    }
+
+
+    /**
+     * Lädt Schlagzeilen für eine Liste von IDs.
+     *
+     * @param ids IDs der zu ladenden Schlagzeilen
+     *
+     * @return Schlagzeilen aufsteigend sortiert nach ID
+     */
+    private List<SchlagzeilenEntity> ladeNachIds( List<Long> ids ) {
+
+        final List<SchlagzeilenEntity> entities = new ArrayList<>( _repo.findAllById( ids ) );
+        entities.sort( comparing( SchlagzeilenEntity::getId ) );
+
+        return entities;
+    }
+
+
+    /**
+     * Liefert Index des ersten Elements in {@code sortiert}, das größer oder gleich
+     * {@code id} ist.
+     */
+    private static int einfuegePosition( long[] sortiert, long id ) {
+
+        final int pos = Arrays.binarySearch( sortiert, id );
+
+        return pos >= 0 ? pos : -pos - 1;
+    }
+
+}
@@ -0,0 +1,116 @@
+package de.eldecker.dhbw.spring.badnews.logik;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenRepo;
+import de.eldecker.dhbw.spring.badnews.helferlein.EigenePrometheusMetriken;
+
+
+/**
+ * Simuliert einen Nachrichten-Ticker: Im Hintergrund werden laufend neue
+ * Schlagzeilen erzeugt, {@code badnews.live.rate} Stück pro Sekunde (auch
+ * Bruchteile, z.B. {@code 0.5}). Gespeichert wird nicht jede Schlagzeile
+ * einzeln, sondern alle {@code badnews.live.intervall} die bis dahin
+ * fälligen als Micro-Batch in einer Transaktion (JDBC-Batch). Nach dem
+ * Commit verteilt {@link LiveTicker} die Schlagzeilen an die Abonnenten.
+ * <br><br>
+ *
+ * Der Generator startet erst, wenn {@link DatenImporterApplicationRunner}
+ * die Indizes aufgebaut und ggf. den Import beendet hat, damit der Import
+ * die Anzahl vorhandener Schlagzeilen richtig bestimmt und keine
+ * Schlagzeile vor dem Aufbau der Indizes gemeldet wird.
+ * Mit Rate {@code 0} ist der Generator aus.
+ */
+@Component
+public class LiveGenerator {
+
+    private final static Logger LOG = LoggerFactory.getLogger( LiveGenerator.class );
+
+    /** Repo-Bean für Zugriff auf Tabelle mit den Schlagzeilen. */
+    private final SchlagzeilenRepo _repo;
+
+    /** Service-Bean zur Erzeugung von zufälligen Negativschlagzeilen. */
+    private final SchlagzeilenErzeuger _erzeuger;
+
+    /** Für eine Transaktion pro Micro-Batch. */
+    private final TransactionTemplate _transactionTemplate;
+
+    /** Bean, um Messwerte für eigene Metriken zu erheben. */
+    private final EigenePrometheusMetriken _eigeneMetriken;
+
+    /** Fortschritt von Aufbau der Indizes und Import beim Start. */
+    private final DatenImportFortschritt _fortschritt;
+
+    /** Anzahl Schlagzeilen, die pro Intervall fällig werden. */
+    private final double _anzahlProIntervall;
+
+    /** Fällige, aber noch nicht erzeugte Schlagzeilen (Bruchteil aus vorigen Intervallen). */
+    private double _faellig = 0;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    public LiveGenerator( SchlagzeilenRepo         repo,
+                          SchlagzeilenErzeuger     erzeuger,
+                          TransactionTemplate      transactionTemplate,
+                          EigenePrometheusMetriken eigeneMetriken,
+                          DatenImportFortschritt   fortschritt,
+                          @Value( "${badnews.live.rate:0}"         ) double   rate,
+                          @Value( "${badnews.live.intervall:PT1S}" ) Duration intervall ) {
+
+        _repo                = repo;
+        _erzeuger            = erzeuger;
+        _transactionTemplate = transactionTemplate;
+        _eigeneMetriken      = eigeneMetriken;
+        _fortschritt         = fortschritt;
+        _anzahlProIntervall  = Math.max( 0, rate ) * intervall.toNanos() / 1_000_000_000.0;
+
+        if ( rate > 0 ) {
+
+            LOG.info( "Live-Generator erzeugt {} Schlagzeilen/s, Micro-Batch alle {}.", rate, intervall );
+
+        } else {
+
+            LOG.info( "Live-Generator ist deaktiviert." );
+        }
+    }
+
+
+    /**
+     * Erzeugt die im letzten Intervall fällig gewordenen Schlagzeilen und
+     * speichert sie in einer Transaktion; wird nur vom Scheduler-Thread
+     * aufgerufen.
+     */
+    @Scheduled( fixedRateString = "${badnews.live.intervall:PT1S}" )
+    public void erzeugen() {
+
+        if ( _fortschritt.isLaeuft() || _anzahlProIntervall == 0 ) { return; }
+
+        _faellig += _anzahlProIntervall;
+
+        final int anzahl = (int) _faellig;
+        if ( anzahl == 0 ) { return; }
+
+        _faellig -= anzahl;
+
+        _eigeneMetriken.getTimerFuerLiveBatch().record( () -> {
+
+            final List<SchlagzeilenEntity> batch = _erzeuger.erzeugeZufallsSchlagzeilen( anzahl );
+
+            _transactionTemplate.executeWithoutResult( status -> _repo.saveAll( batch ) );
+        });
+
+        LOG.debug( "Live-Generator hat {} Schlagzeilen gespeichert.", anzahl );
+    }
+
+}
@@ -0,0 +1,345 @@
+package de.eldecker.dhbw.spring.badnews.logik;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenBeobachter;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
+import de.eldecker.dhbw.spring.badnews.helferlein.EigenePrometheusMetriken;
+import de.eldecker.dhbw.spring.badnews.model.Schlagzeile;
+
+
+/**
+ * Verteilt neu gespeicherte Schlagzeilen an beliebig viele Abonnenten (z.B.
+ * Server-Sent Events, siehe {@code LiveRestController}).
+ * <br><br>
+ *
+ * Neue Schlagzeilen werden in einen Ringpuffer mit fester Größe geschrieben;
+ * jede Schlagzeile bekommt eine fortlaufende Nummer. Schreiben ist lock-frei:
+ * Ein Schreiber reserviert eine Nummer mit {@code getAndIncrement()}, legt den
+ * Eintrag in den Slot und weckt die wartenden Abonnenten mit {@code unpark()}.
+ * Er wartet nie auf einen Abonnenten.
+ * <br><br>
+ *
+ * Jeder Abonnent hat einen eigenen virtuellen Thread, der ab seiner Position
+ * liest und an den Client sendet. Ein langsamer Client bremst also nur seinen
+ * eigenen Thread. Wenn ein Abonnent um mehr als die Puffergröße zurückliegt,
+ * dann wurden seine nächsten Einträge schon überschrieben: Er springt zum
+ * ältesten noch vorhandenen Eintrag, die übersprungenen Schlagzeilen werden
+ * als verworfen gezählt und dem Client gemeldet.
+ * <br><br>
+ *
+ * Während Aufbau der Indizes oder Import beim Start laufen, wird nichts in den
+ * Ringpuffer geschrieben: Die importierten Schlagzeilen sind keine "neuen"
+ * Schlagzeilen und würden den Puffer nur laufend überschreiben, sodass alle
+ * Abonnenten fast nur verworfene Einträge gemeldet bekämen.
+ */
+@Component
+@Order( SchlagzeilenBeobachter.REIHENFOLGE_BENACHRICHTIGUNG )
+public class LiveTicker implements SchlagzeilenBeobachter {
+
+    private final static Logger LOG = LoggerFactory.getLogger( LiveTicker.class );
+
+    /**
+     * Eintrag im Ringpuffer; an der Nummer erkennt ein Leser, ob der Slot noch
+     * nicht oder schon neu beschrieben wurde.
+     */
+    private record Eintrag( long nummer, Schlagzeile schlagzeile ) {}
+
+
+    /**
+     * Callback, über das ein Abonnent die Schlagzeilen bekommt; wird nur vom
+     * Thread des Abonnenten aufgerufen und darf blockieren.
+     */
+    public interface Empfaenger {
+
+        /**
+         * Neue Schlagzeilen senden.
+         *
+         * @param ersteNummer Nummer der ersten Schlagzeile in {@code schlagzeilen},
+         *                    die weiteren sind fortlaufend nummeriert
+         *
+         * @param schlagzeilen Neue Schlagzeilen, nicht leer
+         *
+         * @param anzahlVerworfen Anzahl der Schlagzeilen, die unmittelbar vor
+         *                        {@code schlagzeilen} übersprungen wurden
+         *
+         * @throws IOException Client nicht mehr erreichbar, Abonnement wird beendet
+         */
+        void senden( long ersteNummer, List<Schlagzeile> schlagzeilen, long anzahlVerworfen ) throws IOException;
+
+        /**
+         * Lebenszeichen senden, wenn es länger keine neue Schlagzeile gab; so
+         * werden getrennte Verbindungen auch ohne neue Schlagzeilen erkannt.
+         *
+         * @throws IOException Client nicht mehr erreichbar, Abonnement wird beendet
+         */
+        void heartbeat() throws IOException;
+    }
+
+
+    /**
+     * Ein Abonnent mit Leseposition.
+     */
+    public final class Abonnement {
+
+        /** Der Thread, der liest und sendet. */
+        private volatile Thread _thread;
+
+        /** Nummer der nächsten zu lesenden Schlagzeile. */
+        private volatile long _naechsteNummer;
+
+        /** {@code false}, sobald das Abonnement beendet werden soll. */
+        private volatile boolean _aktiv = true;
+
+        /** {@code true}, solange der Thread geparkt ist oder gleich parkt. */
+        private volatile boolean _wartet = false;
+
+
+        private Abonnement( long naechsteNummer ) {
+
+            _naechsteNummer = naechsteNummer;
+        }
+
+
+        /**
+         * Abonnement beenden, z.B. wenn der Client die Verbindung getrennt hat;
+         * darf von jedem Thread aufgerufen werden.
+         */
+        public void beenden() {
+
+            _aktiv = false;
+            LockSupport.unpark( _thread );
+        }
+
+
+        /**
+         * Anzahl der Schlagzeilen, die schon geschrieben, aber von diesem
+         * Abonnenten noch nicht gelesen wurden.
+         */
+        long rueckstand() {
+
+            return Math.max( 0, _schreibNummer.get() - _naechsteNummer );
+        }
+    }
+
+
+    /** Ringpuffer, Länge ist Zweierpotenz. */
+    private final AtomicReferenceArray<Eintrag> _puffer;
+
+    /** Bitmaske für Umrechnung Nummer in Index im Ringpuffer. */
+    private final int _maske;
+
+    /** Nummer, die der nächste Schreiber bekommt. */
+    private final AtomicLong _schreibNummer = new AtomicLong( 0 );
+
+    /** Aktive Abonnements. */
+    private final Set<Abonnement> _abonnements = ConcurrentHashMap.newKeySet();
+
+    /** Max. Wartezeit ohne neue Schlagzeile, danach wird Heartbeat gesendet. */
+    private final long _heartbeatNanos;
+
+    /** Bean, um Messwerte für eigene Metriken zu erheben. */
+    private final EigenePrometheusMetriken _eigeneMetriken;
+
+    /** Fortschritt von Aufbau der Indizes und Import beim Start. */
+    private final DatenImportFortschritt _fortschritt;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>, registriert auch die
+     * Gauges für Anzahl Abonnenten und max. Rückstand.
+     */
+    public LiveTicker( @Value( "${badnews.live.puffer-groesse:1024}" ) int pufferGroesse,
+                       @Value( "${badnews.live.heartbeat:PT15S}"     ) Duration heartbeat,
+                       EigenePrometheusMetriken eigeneMetriken,
+                       DatenImportFortschritt   fortschritt ) {
+
+        final int groesse = Integer.highestOneBit( Math.max( 2, pufferGroesse - 1 ) ) << 1;
+
+        _puffer         = new AtomicReferenceArray<>( groesse );
+        _maske          = groesse - 1;
+        _heartbeatNanos = heartbeat.toNanos();
+        _eigeneMetriken = eigeneMetriken;
+        _fortschritt    = fortschritt;
+
+        _eigeneMetriken.registriereLiveTicker( _abonnements::size, this::maxRueckstand );
+
+        LOG.info( "Live-Ticker mit Ringpuffer für {} Schlagzeilen eingerichtet.", groesse );
+    }
+
+
+    /**
+     * Neue Schlagzeile in den Ringpuffer schreiben und Abonnenten wecken;
+     * während des Imports beim Start wird nichts geschrieben.
+     *
+     * @param entity Neu gespeicherte Schlagzeile
+     */
+    @Override
+    public void nachEinfuegen( SchlagzeilenEntity entity ) {
+
+        if ( _fortschritt.isLaeuft() ) { return; }
+
+        final long nummer = _schreibNummer.getAndIncrement();
+
+        _puffer.set( (int) ( nummer & _maske ),
+                     new Eintrag( nummer, new Schlagzeile( entity.getId().intValue(), entity.getSchlagzeile() ) ) );
+
+        for ( Abonnement abonnement : _abonnements ) {
+
+            if ( abonnement._wartet ) {
+
+                abonnement._wartet = false;
+                LockSupport.unpark( abonnement._thread );
+            }
+        }
+    }
+
+
+    /**
+     * Neues Abonnement anlegen und virtuellen Thread dafür starten.
+     *
+     * @param letzteNummer Nummer der letzten Schlagzeile, die der Client schon
+     *                     hat (z.B. aus Header {@code Last-Event-ID} bei
+     *                     Wiederverbindung), oder {@code null} für "nur neue
+     *                     Schlagzeilen"
+     *
+     * @param empfaenger Callback zum Senden
+     *
+     * @return Abonnement, zum Beenden
+     */
+    public Abonnement abonnieren( Long letzteNummer, Empfaenger empfaenger ) {
+
+        final long aktuell = _schreibNummer.get();
+        final long start   = letzteNummer == null ? aktuell
+                                                  : Math.clamp( letzteNummer + 1, Math.max( 0, aktuell - _puffer.length() ), aktuell );
+
+        final Abonnement abonnement = new Abonnement( start );
+
+        abonnement._thread = Thread.ofVirtual()
+                                   .name( "live-abonnent" )
+                                   .unstarted( () -> lesen( abonnement, empfaenger ) );
+        _abonnements.add( abonnement );
+        abonnement._thread.start();
+
+        return abonnement;
+    }
+
+
+    /**
+     * Schleife im Thread eines Abonnenten: Liest ab seiner Position alle schon
+     * geschriebenen Einträge und sendet sie; wenn es nichts zu lesen gibt, wird
+     * bis zum nächsten Schreiben (oder Heartbeat) geparkt.
+     */
+    private void lesen( Abonnement abonnement, Empfaenger empfaenger ) {
+
+        final List<Schlagzeile> schlagzeilen = new ArrayList<>();
+        try {
+
+            long letzteAktivitaet = System.nanoTime();
+            while ( abonnement._aktiv ) {
+
+                long       naechste  = abonnement._naechsteNummer;
+                final long ende      = _schreibNummer.get();
+                long       verworfen = 0;
+
+                if ( ende - naechste > _puffer.length() ) { // überholt
+
+                    verworfen = ende - _puffer.length() - naechste;
+                    naechste  = ende - _puffer.length();
+                }
+
+                long ersteNummer = naechste;
+                schlagzeilen.clear();
+                while ( naechste < ende ) {
+
+                    final Eintrag eintrag = _puffer.get( (int) ( naechste & _maske ) );
+                    if ( eintrag == null || eintrag.nummer() < naechste ) { // Schreiber noch nicht fertig
+
+                        break;
+                    }
+                    if ( eintrag.nummer() > naechste ) { // beim Lesen überholt
+
+                        verworfen++;
+                        naechste++;
+                        if ( schlagzeilen.isEmpty() ) { ersteNummer = naechste; }
+                        continue;
+                    }
+                    schlagzeilen.add( eintrag.schlagzeile() );
+                    naechste++;
+                }
+                abonnement._naechsteNummer = naechste;
+
+                if ( verworfen > 0 ) {
+
+                    _eigeneMetriken.erhoeheAnzahlLiveVerworfen( verworfen );
+                }
+
+                if ( !schlagzeilen.isEmpty() ) {
+
+                    empfaenger.senden( ersteNummer, schlagzeilen, verworfen );
+                    letzteAktivitaet = System.nanoTime();
+
+                } else if ( System.nanoTime() - letzteAktivitaet >= _heartbeatNanos ) {
+
+                    empfaenger.heartbeat();
+                    letzteAktivitaet = System.nanoTime();
+
+                } else if ( naechste < ende ) { // Schreiber ist gleich fertig
+
+                    Thread.yield();
+
+                } else {
+
+                    // erst Flag setzen, dann Nummer prüfen: Schreiber sieht das Flag oder wir die neue Nummer
+                    abonnement._wartet = true;
+                    if ( _schreibNummer.get() == ende ) {
+
+                        LockSupport.parkNanos( this, _heartbeatNanos );
+                    }
+                    abonnement._wartet = false;
+                }
+            }
+        }
+        catch ( IOException ex ) {
+
+            LOG.debug( "Abonnent des Live-Tickers nicht mehr erreichbar: {}", ex.getMessage() );
+        }
+        catch ( RuntimeException ex ) {
+
+            LOG.warn( "Fehler beim Senden an Abonnent des Live-Tickers.", ex );
+        }
+        finally {
+
+            _abonnements.remove( abonnement );
+        }
+    }
+
+
+    /**
+     * Größter Rückstand aller Abonnenten, für Gauge.
+     */
+    private long maxRueckstand() {
+
+        long max = 0;
+        for ( Abonnement abonnement : _abonnements ) {
+
+            max = Math.max( max, abonnement.rueckstand() );
+        }
+        return max;
+    }
+
+}
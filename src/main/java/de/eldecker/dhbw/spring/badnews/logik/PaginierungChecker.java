@@ -7,6 +7,7 @@ import static java.util.Locale.GERMANY;
 import java.text.NumberFormat;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.ui.Model;
 
@@ -61,6 +62,33 @@ public class PaginierungChecker {
     }
 
 
+    /**
+     * Überprüfung von Query zurückgegebenem Slice; da es keine Gesamtzahl
+     * der Seiten gibt, kann nur überprüft werden, ob die Seite Schlagzeilen
+     * enthält.
+     *
+     * @param ergebnisSlice von Query zurückgelieferter Slice
+     *
+     * @param seite von Nutzer als URL-Parameter übergebene Seiten-Nr
+     *
+     * @throws SchlagzeilenException Wenn {@code ergebnisSlice} eine leere Liste
+     *                               von Schlagzeilen enthält, also {@code seite}
+     *                               zu groß ist.
+     */
+    public void checkErgebnisSlice( Slice<SchlagzeilenEntity> ergebnisSlice, int seite )
+            throws SchlagzeilenException  {
+
+        if ( ergebnisSlice.getContent().isEmpty() ) {
+
+            final String fehlertext =
+                    format( "Seite Nr. %s angefordert, aber diese Seite enthält keine Schlagzeilen.",
+                            ZAHLENFORMATIERER.format( seite ) );
+
+            throw new SchlagzeilenException( fehlertext );
+        }
+    }
+
+
     /**
      * Diese Methode überprüft die als URL-Parameter übergebenen Werte für
      * die Seite und die Anzahl der Schlagzeile pro Seite.
@@ -68,7 +96,7 @@ public class PaginierungChecker {
      * liegt, dann wird eine {@code SchlagzeilenException} geworfen. 
      * <br><br>
      *
-     * Siehe Doku zu Methode {@link ThymeleafController#liste(Model, int, int)}  
+     * Siehe Doku zu Methode {@link ThymeleafController#liste(Model, int, int, String, String)}  
      * für zulässige Werte für diese beiden URL-Parameter.
      *
      * @param seite Seite (1-basiert), als URL-Parameter-Wert erhalten
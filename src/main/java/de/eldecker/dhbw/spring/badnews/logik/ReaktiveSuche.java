@@ -0,0 +1,189 @@
+package de.eldecker.dhbw.spring.badnews.logik;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenWoerterbuch;
+import de.eldecker.dhbw.spring.badnews.helferlein.EigenePrometheusMetriken;
+import de.eldecker.dhbw.spring.badnews.helferlein.LikeMuster;
+import de.eldecker.dhbw.spring.badnews.helferlein.SchlagzeilenException;
+import de.eldecker.dhbw.spring.badnews.model.Schlagzeile;
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Readable;
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+
+/**
+ * Service-Bean für die reaktive Suche: Die Treffer werden mit R2DBC aus der
+ * DB gelesen und als {@link Flux} geliefert, sobald sie gefunden werden, und
+ * nur so schnell, wie der Client sie abnimmt (Backpressure). Bricht der
+ * Client ab, dann wird die Subscription gekündigt und damit die Query
+ * beendet und die Verbindung geschlossen.
+ * <br><br>
+ *
+ * Die Verbindung geht auf dieselbe H2-Datenbank wie die JDBC-DataSource (die
+ * URL wird aus {@code spring.datasource.url} abgeleitet). Die Query wird mit
+ * {@code LAZY_QUERY_EXECUTION} ausgeführt, damit H2 die Zeilen erst bei Bedarf
+ * erzeugt, statt zuerst alle Treffer zu sammeln.
+ * <br><br>
+ *
+ * Die {@link ConnectionFactory} ist absichtlich keine Bean, sonst würde
+ * Spring Boot die JDBC-DataSource (und damit JPA) nicht mehr konfigurieren.
+ * <br><br>
+ *
+ * H2 läuft im selben Prozess und arbeitet im Thread, der die Zeilen anfordert;
+ * R2DBC ist hier also nicht wirklich nicht-blockierend. Damit die Event-Loop
+ * von Netty nicht blockiert wird, laufen Subscription und alle Anforderungen
+ * ({@code request(n)}) auf einem eigenen Scheduler mit begrenzter Anzahl
+ * Threads ({@code badnews.reaktiv.db-threads}); weitere Suchen warten dort
+ * in einer Warteschlange, ohne einen Thread zu belegen.
+ */
+@Service
+public class ReaktiveSuche {
+
+    private final static Logger LOG = LoggerFactory.getLogger( ReaktiveSuche.class );
+
+    /** Präfix von {@code spring.datasource.url} für H2. */
+    private static final String PRAEFIX_JDBC_H2 = "jdbc:h2:";
+
+    /**
+     * SQL-Query mit derselben Bedingung wie {@code SchlagzeilenRepo.SUCHBEDINGUNG};
+     * Parameter ist das Muster von {@link LikeMuster#teilstring(String)}.
+     */
+    private static final String SQL_SUCHE =
+            "SELECT s.id, s.schlagzeile, s.ereignis_code, s.ort_code FROM Schlagzeilen s " +
+            "WHERE lower(s.schlagzeile) LIKE lower($1) ESCAPE '\\' " +
+            "   OR ( s.schlagzeile IS NULL AND EXISTS ( " +
+            "          SELECT 1 FROM Ereignisse e, Orte o " +
+            "          WHERE e.code = s.ereignis_code AND o.code = s.ort_code " +
+            "            AND lower(e.bezeichnung || ' in ' || o.bezeichnung) LIKE lower($1) ESCAPE '\\' ) ) " +
+            "ORDER BY s.id";
+
+    /** Verbindungen zur H2-Datenbank, keine Bean (siehe Klassenkommentar). */
+    private final ConnectionFactory _connectionFactory;
+
+    /** Scheduler, auf dem H2 die Zeilen erzeugt. */
+    private final Scheduler _scheduler;
+
+    /** Anzahl Zeilen, die auf einmal von der DB angefordert werden. */
+    private final int _prefetch;
+
+    /** Bean, um Messwerte für eigene Metriken zu erheben. */
+    private final EigenePrometheusMetriken _eigeneMetriken;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>, erzeugt auch die
+     * {@link ConnectionFactory} und den Scheduler.
+     *
+     * @throws SchlagzeilenException {@code spring.datasource.url} ist keine H2-URL
+     */
+    public ReaktiveSuche( @Value( "${spring.datasource.url}"           ) String jdbcUrl,
+                          @Value( "${spring.datasource.username:sa}"   ) String benutzer,
+                          @Value( "${spring.datasource.password:}"     ) String passwort,
+                          @Value( "${badnews.reaktiv.db-threads:4}"    ) int anzahlThreads,
+                          @Value( "${badnews.reaktiv.prefetch:32}"     ) int prefetch,
+                          EigenePrometheusMetriken eigeneMetriken ) throws SchlagzeilenException {
+
+        if ( !jdbcUrl.startsWith( PRAEFIX_JDBC_H2 ) ) {
+
+            throw new SchlagzeilenException( "Reaktive Suche nur mit H2 möglich, URL: " + jdbcUrl );
+        }
+
+        final H2ConnectionConfiguration konfiguration =
+                H2ConnectionConfiguration.builder()
+                                         .url( jdbcUrl.substring( PRAEFIX_JDBC_H2.length() ) +
+                                               ";LAZY_QUERY_EXECUTION=TRUE" )
+                                         .username( benutzer )
+                                         .password( passwort )
+                                         .build();
+
+        _connectionFactory = new H2ConnectionFactory( konfiguration );
+        _scheduler         = Schedulers.newBoundedElastic( anzahlThreads, Integer.MAX_VALUE, "reaktiv-suche" );
+        _prefetch          = prefetch;
+        _eigeneMetriken    = eigeneMetriken;
+
+        LOG.info( "Reaktive Suche mit {} DB-Threads eingerichtet.", anzahlThreads );
+    }
+
+
+    /**
+     * Scheduler beim Herunterfahren der Anwendung beenden.
+     */
+    @PreDestroy
+    public void beenden() {
+
+        _scheduler.dispose();
+    }
+
+
+    /**
+     * Sucht alle Schlagzeilen, die den Suchbegriff enthalten (ohne Beachtung
+     * der Groß-/Kleinschreibung), aufsteigend sortiert nach ID. Erst mit der
+     * Subscription wird eine Verbindung geöffnet und die Query ausgeführt.
+     *
+     * @param suchstring Suchbegriff, schon getrimmt und geprüft
+     *
+     * @param max Max. Anzahl Treffer (mind. 1); wird die Anzahl erreicht, dann
+     *            wird die Query beendet und die Suche als vollständig gezählt
+     *            (nicht als Abbruch)
+     *
+     * @return Treffer; die Verbindung wird bei Ende, Fehler und Abbruch geschlossen
+     */
+    public Flux<Schlagzeile> suche( String suchstring, long max ) {
+
+        final Flux<Schlagzeile> treffer =
+                Flux.usingWhen( Mono.from( _connectionFactory.create() ),
+                                verbindung -> Flux.from( verbindung.createStatement( SQL_SUCHE )
+                                                                   .bind( "$1", LikeMuster.teilstring( suchstring ) )
+                                                                   .execute() )
+                                                  .concatMap( ergebnis -> ergebnis.map( ReaktiveSuche::zuSchlagzeile ) ),
+                                Connection::close );
+
+        return treffer.limitRate( _prefetch )
+                      .subscribeOn( _scheduler ) // auch request(n) läuft auf dem Scheduler
+                      .take( max )               // vor doFinally: Ende bei max ist ON_COMPLETE, nicht CANCEL
+                      .doFinally( this::erfasseEnde );
+    }
+
+
+    /**
+     * Erzeugt aus einer Zeile des Ergebnisses ein Objekt für die Antwort; im
+     * kompakten Speichermodus kommt der Text aus dem {@link SchlagzeilenWoerterbuch}.
+     */
+    private static Schlagzeile zuSchlagzeile( Readable zeile ) {
+
+        final long   id   = zeile.get( "id", Long.class );
+        final String text = zeile.get( "schlagzeile", String.class );
+
+        return new Schlagzeile( (int) id,
+                                text != null ? text
+                                             : SchlagzeilenWoerterbuch.text( zeile.get( "ereignis_code", Short.class ),
+                                                                             zeile.get( "ort_code"     , Short.class ) ) );
+    }
+
+
+    /**
+     * Art des Endes einer Suche als Metrik erfassen.
+     */
+    private void erfasseEnde( SignalType signal ) {
+
+        switch ( signal ) {
+
+            case ON_COMPLETE -> _eigeneMetriken.erfasseReaktiveSuche( "komplett" );
+            case CANCEL      -> _eigeneMetriken.erfasseReaktiveSuche( "abgebrochen" );
+            default          -> _eigeneMetriken.erfasseReaktiveSuche( "fehler" );
+        }
+    }
+
+}
@@ -0,0 +1,253 @@
+package de.eldecker.dhbw.spring.badnews.logik;
+
+import static de.eldecker.dhbw.spring.badnews.helferlein.SortierReihenfolgeKonstanten.SORT_ID_ASC;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
+import de.eldecker.dhbw.spring.badnews.helferlein.EigenePrometheusMetriken;
+import de.eldecker.dhbw.spring.badnews.helferlein.SchlagzeilenException;
+import de.eldecker.dhbw.spring.badnews.logik.SchlagzeilenSuche.Suchauftrag;
+import de.eldecker.dhbw.spring.badnews.model.BatchSuchanfrage;
+import jakarta.annotation.PreDestroy;
+
+
+/**
+ * Service-Bean für die Batch-Suche: Mehrere Suchen mit jeweils eigener Seite
+ * und Anzahl werden mit einem Aufruf beantwortet. Ungültige Suchen (z.B.
+ * Suchbegriff mit weniger als drei Zeichen) werden als Fehler für diese eine
+ * Suche gemeldet, die anderen Suchen werden trotzdem ausgeführt.
+ * <br><br>
+ *
+ * Die gültigen Suchen werden auf einem Thread-Pool mit fester Größe
+ * ({@code badnews.suche.batch.threads}) parallel mit
+ * {@link SchlagzeilenSuche#suche(String, PageRequest)} ausgeführt; die Größe
+ * begrenzt auch die Anzahl der gleichzeitig belegten DB-Verbindungen. Ist die
+ * Warteschlange des Pools voll, dann führt der aufrufende Thread die Suche
+ * selbst aus. Wenn sonst jede Suche einen eigenen Scan der Tabelle auslösen
+ * würde, dann werden stattdessen alle Suchen mit einem Scan beantwortet,
+ * siehe {@link SchlagzeilenSuche#sucheMitEinemScan(List)}.
+ */
+@Service
+public class SchlagzeilenBatchSuche {
+
+    private final static Logger LOG = LoggerFactory.getLogger( SchlagzeilenBatchSuche.class );
+
+    /** Kapazität der Warteschlange des Thread-Pools. */
+    private static final int KAPAZITAET_WARTESCHLANGE = 256;
+
+    /** Service-Bean für einzelne Suchen. */
+    private final SchlagzeilenSuche _suche;
+
+    /** Service-Bean für Prüfung von Seite und Anzahl. */
+    private final PaginierungChecker _checker;
+
+    /** Bean, um Messwerte für eigene Metriken zu erheben. */
+    private final EigenePrometheusMetriken _eigeneMetriken;
+
+    /** Thread-Pool für parallele Ausführung der Suchen. */
+    private final ThreadPoolExecutor _executor;
+
+    /** Max. Dauer für alle Suchen einer Batch-Suche. */
+    private final Duration _timeout;
+
+
+    /**
+     * Ergebnis einer einzelnen Suche innerhalb der Batch-Suche; genau eines
+     * der beiden Felder ist gesetzt.
+     *
+     * @param seite Gefundene Schlagzeilen mit Gesamtzahl der Treffer
+     *
+     * @param fehler Fehlermeldung
+     */
+    public record Teilergebnis( Page<SchlagzeilenEntity> seite, String fehler ) {}
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>, erzeugt auch den Thread-Pool.
+     */
+    public SchlagzeilenBatchSuche( SchlagzeilenSuche suche,
+                                   PaginierungChecker checker,
+                                   EigenePrometheusMetriken eigeneMetriken,
+                                   @Value( "${badnews.suche.batch.threads:4}" ) int anzahlThreads,
+                                   @Value( "${badnews.suche.batch.timeout:PT10S}" ) Duration timeout ) {
+
+        _suche          = suche;
+        _checker        = checker;
+        _eigeneMetriken = eigeneMetriken;
+        _timeout        = timeout;
+
+        _executor = new ThreadPoolExecutor( anzahlThreads, anzahlThreads, 0L, TimeUnit.MILLISECONDS,
+                                            new ArrayBlockingQueue<>( KAPAZITAET_WARTESCHLANGE ),
+                                            Thread.ofPlatform().name( "batch-suche-", 1 ).daemon().factory(),
+                                            new ThreadPoolExecutor.CallerRunsPolicy() );
+
+        LOG.info( "Thread-Pool für Batch-Suche mit {} Threads erzeugt.", anzahlThreads );
+    }
+
+
+    /**
+     * Thread-Pool beim Herunterfahren der Anwendung beenden.
+     */
+    @PreDestroy
+    public void beenden() {
+
+        _executor.shutdownNow();
+    }
+
+
+    /**
+     * Führt alle Suchen aus.
+     *
+     * @param anfragen Suchen; {@code seite} und {@code anzahl} dürfen
+     *                 {@code null} sein (Default-Werte 1 und 10)
+     *
+     * @return Ergebnisse in der Reihenfolge von {@code anfragen}
+     */
+    public List<Teilergebnis> suche( List<BatchSuchanfrage> anfragen ) {
+
+        final Teilergebnis[] ergebnisse = new Teilergebnis[ anfragen.size() ];
+
+        final List<Integer>     gueltigeIndizes = new ArrayList<>( anfragen.size() );
+        final List<Suchauftrag> auftraege       = new ArrayList<>( anfragen.size() );
+
+        for ( int i = 0; i < anfragen.size(); i++ ) {
+
+            try {
+
+                auftraege.add( pruefe( anfragen.get( i ) ) );
+                gueltigeIndizes.add( i );
+
+                _eigeneMetriken.erhoeheAnzahlSuchvorgaenge();
+            }
+            catch ( SchlagzeilenException ex ) {
+
+                ergebnisse[ i ] = new Teilergebnis( null, ex.getMessage() );
+            }
+        }
+
+        final List<Teilergebnis> teilergebnisse =
+                _suche.isEinzelScanGuenstiger( auftraege.size() ) ? sucheMitEinemScan( auftraege )
+                                                                  : sucheParallel( auftraege );
+
+        for ( int i = 0; i < gueltigeIndizes.size(); i++ ) {
+
+            ergebnisse[ gueltigeIndizes.get( i ) ] = teilergebnisse.get( i );
+        }
+
+        return List.of( ergebnisse );
+    }
+
+
+    /**
+     * Prüft eine Suche und wandelt sie in einen Suchauftrag um.
+     *
+     * @param anfrage Suche aus Request
+     *
+     * @return Suchauftrag mit getrimmtem Suchbegriff, sortiert nach aufsteigender ID
+     *
+     * @throws SchlagzeilenException Suchbegriff fehlt oder ist zu kurz, ungültige
+     *                               Seite oder Anzahl
+     */
+    private Suchauftrag pruefe( BatchSuchanfrage anfrage ) throws SchlagzeilenException {
+
+        final String queryTrimmed = anfrage.query() == null ? "" : anfrage.query().trim();
+        if ( queryTrimmed.length() < 3 ) {
+
+            throw new SchlagzeilenException( "Such-String muss mindestens drei Zeichen haben" );
+        }
+
+        final int seite  = anfrage.seite()  == null ? 1  : anfrage.seite();
+        final int anzahl = anfrage.anzahl() == null ? 10 : anfrage.anzahl();
+
+        _checker.checkeSeiteUndAnzahl( seite, anzahl ); // throws SchlagzeilenException
+
+        return new Suchauftrag( queryTrimmed, PageRequest.of( seite - 1, anzahl, SORT_ID_ASC ) );
+    }
+
+
+    /**
+     * Alle Suchen mit einem Scan beantworten; bei einem Fehler bekommen alle
+     * Suchen dieselbe Fehlermeldung.
+     */
+    private List<Teilergebnis> sucheMitEinemScan( List<Suchauftrag> auftraege ) {
+
+        try {
+
+            return _suche.sucheMitEinemScan( auftraege )
+                         .stream()
+                         .map( seite -> new Teilergebnis( seite, null ) )
+                         .toList();
+        }
+        catch ( RuntimeException ex ) {
+
+            LOG.error( "Fehler bei Batch-Suche mit einem Scan.", ex );
+
+            final Teilergebnis fehler = new Teilergebnis( null, "Fehler bei Suche: " + ex.getMessage() );
+
+            return auftraege.stream().map( auftrag -> fehler ).toList();
+        }
+    }
+
+
+    /**
+     * Alle Suchen parallel auf dem Thread-Pool ausführen; Suchen, die nach
+     * Ablauf von {@code badnews.suche.batch.timeout} (gerechnet ab Beginn der
+     * Batch-Suche) noch nicht fertig sind, werden abgebrochen.
+     */
+    private List<Teilergebnis> sucheParallel( List<Suchauftrag> auftraege ) {
+
+        final List<Future<Page<SchlagzeilenEntity>>> futures = new ArrayList<>( auftraege.size() );
+        for ( Suchauftrag auftrag : auftraege ) {
+
+            futures.add( _executor.submit( () -> _suche.suche( auftrag.suchstring(), auftrag.pageRequest() ) ) );
+        }
+
+        final long deadline = System.nanoTime() + _timeout.toNanos();
+
+        final List<Teilergebnis> ergebnisse = new ArrayList<>( auftraege.size() );
+        for ( Future<Page<SchlagzeilenEntity>> future : futures ) {
+
+            try {
+
+                final long rest = Math.max( 0, deadline - System.nanoTime() );
+                ergebnisse.add( new Teilergebnis( future.get( rest, NANOSECONDS ), null ) );
+            }
+            catch ( TimeoutException ex ) {
+
+                future.cancel( true );
+                ergebnisse.add( new Teilergebnis( null, "Zeitüberschreitung bei Suche" ) );
+            }
+            catch ( ExecutionException ex ) {
+
+                LOG.error( "Fehler bei Suche in Batch-Suche.", ex.getCause() );
+                ergebnisse.add( new Teilergebnis( null, "Fehler bei Suche: " + ex.getCause().getMessage() ) );
+            }
+            catch ( InterruptedException ex ) {
+
+                Thread.currentThread().interrupt();
+                future.cancel( true );
+                ergebnisse.add( new Teilergebnis( null, "Suche abgebrochen" ) );
+            }
+        }
+
+        return ergebnisse;
+    }
+
+}
@@ -0,0 +1,148 @@
+package de.eldecker.dhbw.spring.badnews.logik;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenBeobachter;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenRepo;
+import de.eldecker.dhbw.spring.badnews.helferlein.EigenePrometheusMetriken;
+
+
+/**
+ * Read-Through-Cache für einzelne Schlagzeilen, die über ihre ID geladen
+ * werden (Detailseite). Es wird <i>Caffeine</i> verwendet: Bei Erreichen der
+ * max. Anzahl Einträge wird nach der Strategie W-TinyLFU verdrängt, d.h.
+ * häufig abgerufene IDs bleiben im Cache, auch wenn zwischendurch viele
+ * andere IDs nur einmal abgerufen werden.
+ * <br><br>
+ *
+ * Auch für nicht vorhandene IDs wird ein (leerer) Eintrag gespeichert, aber
+ * mit einer kürzeren Lebensdauer. Als {@link SchlagzeilenBeobachter} werden
+ * Einträge bei jedem Schreibzugriff auf die betroffene ID entfernt.
+ */
+@Component
+@Order( SchlagzeilenBeobachter.REIHENFOLGE_INDEX )
+public class SchlagzeilenCache implements SchlagzeilenBeobachter {
+
+    private final static Logger LOG = LoggerFactory.getLogger( SchlagzeilenCache.class );
+
+    /** Repo-Bean für Zugriff auf Tabelle mit Schlagzeilen. */
+    private final SchlagzeilenRepo _repo;
+
+    /** Cache mit ID als Schlüssel; leeres {@code Optional} für nicht vorhandene ID. */
+    private final Cache<Long, Optional<SchlagzeilenEntity>> _cache;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>, erzeugt den Cache und
+     * registriert Metriken für ihn.
+     */
+    public SchlagzeilenCache( SchlagzeilenRepo repo,
+                              EigenePrometheusMetriken eigeneMetriken,
+                              @Value( "${badnews.cache.schlagzeilen.max-eintraege:10000}" ) long maxEintraege,
+                              @Value( "${badnews.cache.schlagzeilen.lebensdauer:PT10M}" ) Duration lebensdauer,
+                              @Value( "${badnews.cache.schlagzeilen.lebensdauer-fehlend:PT30S}" ) Duration lebensdauerFehlend ) {
+
+        _repo  = repo;
+        _cache = Caffeine.newBuilder()
+                         .maximumSize( maxEintraege )
+                         .expireAfter( new Lebensdauer( lebensdauer, lebensdauerFehlend ) )
+                         .recordStats()
+                         .build();
+
+        eigeneMetriken.registriereCache( "schlagzeilen", _cache );
+
+        LOG.info( "Cache für Schlagzeilen: max. {} Einträge, Lebensdauer {} (fehlende ID: {}).",
+                  maxEintraege, lebensdauer, lebensdauerFehlend );
+    }
+
+
+    /**
+     * Schlagzeile mit ID laden; wenn im Cache vorhanden, dann ohne DB-Zugriff.
+     *
+     * @param id ID der Schlagzeile
+     *
+     * @return Optional mit Schlagzeile, leer wenn es keine Schlagzeile mit
+     *         dieser ID gibt
+     */
+    public Optional<SchlagzeilenEntity> findeNachId( Long id ) {
+
+        return _cache.get( id, _repo::findById );
+    }
+
+
+    /**
+     * Eintrag entfernen, da evtl. ein leerer Eintrag für die ID existiert.
+     *
+     * @param entity Neue Schlagzeile
+     */
+    @Override
+    public void nachEinfuegen( SchlagzeilenEntity entity ) {
+
+        _cache.invalidate( entity.getId() );
+    }
+
+
+    /**
+     * Eintrag entfernen, damit beim nächsten Abruf der neue Zustand geladen wird.
+     *
+     * @param entity Geänderte Schlagzeile
+     */
+    @Override
+    public void nachAenderung( SchlagzeilenEntity entity ) {
+
+        _cache.invalidate( entity.getId() );
+    }
+
+
+    /**
+     * Eintrag entfernen.
+     *
+     * @param entity Gelöschte Schlagzeile
+     */
+    @Override
+    public void nachLoeschen( SchlagzeilenEntity entity ) {
+
+        _cache.invalidate( entity.getId() );
+    }
+
+
+    /**
+     * Lebensdauer eines Cache-Eintrags ab Erzeugung: Einträge für nicht
+     * vorhandene IDs verfallen früher, Lesezugriffe verlängern die
+     * Lebensdauer nicht.
+     */
+    private record Lebensdauer( Duration vorhanden, Duration fehlend )
+                   implements Expiry<Long, Optional<SchlagzeilenEntity>> {
+
+        @Override
+        public long expireAfterCreate( Long id, Optional<SchlagzeilenEntity> wert, long jetzt ) {
+
+            return wert.isPresent() ? vorhanden.toNanos() : fehlend.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate( Long id, Optional<SchlagzeilenEntity> wert, long jetzt, long restDauer ) {
+
+            return expireAfterCreate( id, wert, jetzt );
+        }
+
+        @Override
+        public long expireAfterRead( Long id, Optional<SchlagzeilenEntity> wert, long jetzt, long restDauer ) {
+
+            return restDauer;
+        }
+    }
+
+}
@@ -3,18 +3,33 @@ package de.eldecker.dhbw.spring.badnews.logik;
 import static java.util.Collections.emptyList;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenWoerterbuch;
 
 
 /**
  * Service-Bean, die zufällige (Negativ-)Schlagzeilen erzeugt.
+ * <br><br>
+ *
+ * Für sehr viele Schlagzeilen gibt es mit
+ * {@link #erzeugeZufallsSchlagzeilenParallel(int, long)} eine Variante,
+ * die die Erzeugung auf alle CPU-Kerne verteilt.
+ * <br><br>
+ *
+ * Die Indizes in den folgenden Arrays werden als Codes in der DB gespeichert
+ * (siehe {@link SchlagzeilenWoerterbuch}); neue Elemente dürfen deshalb nur
+ * am Ende angehängt werden, bestehende Elemente dürfen nicht umsortiert oder
+ * entfernt werden.
  */
 @Service
 public class SchlagzeilenErzeuger {
@@ -56,9 +71,16 @@ public class SchlagzeilenErzeuger {
 
 
     private final static Logger LOG = LoggerFactory.getLogger( SchlagzeilenErzeuger.class );
-    
-    /** Zufallsgenerator */
-    private final static Random _random = new Random();
+
+    /** Wahrscheinlichkeit für eine Inlandsnachricht. */
+    private static final double WAHRSCHEINLICHKEIT_INLAND = .3;
+
+    /**
+     * Anzahl der Schlagzeilen, die bei paralleler Erzeugung in einem Block mit
+     * einem eigenen Zufallsgenerator erzeugt werden. Da die Blockgröße fest
+     * ist, hängt das Ergebnis für einen Seed nicht von der Anzahl der Threads ab.
+     */
+    private static final int BLOCK_GROESSE = 16_384;
 
 
     /**
@@ -73,27 +95,17 @@ public class SchlagzeilenErzeuger {
 
 
     /**
-     * Methode gibt ein zufällig ausgewähltes Element aus dem als
-     * Argument übergebenen String-Array zurück.
+     * Methode gibt einen zufällig ausgewählten Index für das als
+     * Argument übergebene String-Array zurück.
      *
      * @param stringArray Array mit Strings, von dem einer zufällig
-     *                    ausgewählt werden soll
+     *                    ausgewählt werden soll; darf nicht leer sein
      *
-     * @return Zufällig ausgewählter String aus {@code stringArray};
-     *         leerer String, wenn {@code stringArray.length == 0}.
+     * @return Zufällig ausgewählter Index für {@code stringArray}
      */
-    private String getZufallsElement( String[] stringArray ) {
-
-        final int laenge = stringArray.length;
-        if ( laenge == 0) {
-
-            LOG.warn( "Soll zufälligen String aus Array mit 0 Elementen zurückgeben." );
-            return "";
-        }
-
-        int randomIndex = _random.nextInt( laenge );
+    private int getZufallsIndex( String[] stringArray ) {
 
-        return stringArray[ randomIndex ];
+        return ThreadLocalRandom.current().nextInt( stringArray.length );
     }
 
 
@@ -106,25 +118,22 @@ public class SchlagzeilenErzeuger {
      */
     public SchlagzeilenEntity erzeugeZufallsSchlagzeile() {
 
-        final String ereignis = getZufallsElement( EREIGNISSE_ARRAY );
+        final short ereignisCode = (short) getZufallsIndex( EREIGNISSE_ARRAY );
 
-        String  ort    = "";
-        boolean inland = false;
+        short ortCode = 0;
 
-        if ( _random.nextFloat() < .3 ) { // 30% Wahrscheinlichkeit für Inlandsnachricht
+        if ( ThreadLocalRandom.current().nextDouble() < WAHRSCHEINLICHKEIT_INLAND ) {
 
-            ort = getZufallsElement( ORTE_DEUTSCHLAD_ARRAY );
-            inland = true;
+            ortCode = SchlagzeilenWoerterbuch.ortCodeInland( getZufallsIndex( ORTE_DEUTSCHLAD_ARRAY ) );
 
         } else {
 
-            ort = getZufallsElement( ORTE_NATIONEN_ARRAY );
+            ortCode = SchlagzeilenWoerterbuch.ortCodeNation( getZufallsIndex( ORTE_NATIONEN_ARRAY ) );
         }
 
-        final String schlagzeile = String.format( "%s in %s", ereignis, ort );
-
+        // Text wird nicht neu erzeugt, sondern ist kanonische Instanz aus Wörterbuch
         final SchlagzeilenEntity ergebnisEntity =
-                                new SchlagzeilenEntity( schlagzeile, inland );
+                                new SchlagzeilenEntity( ereignisCode, ortCode );
 
         return ergebnisEntity;
     }
@@ -157,4 +166,78 @@ public class SchlagzeilenErzeuger {
         return ergebnisListe;
     }
 
+
+    /**
+     * Erzeugt {@code anzahl} zufällige Schlagzeilen parallel auf allen CPU-Kernen
+     * (Common Fork-Join-Pool). Die Schlagzeilen werden in Blöcken mit fester Größe
+     * erzeugt; jeder Block hat einen eigenen {@code SplittableRandom}, so dass
+     * sich die Threads keinen Zufallsgenerator teilen müssen.
+     * <br><br>
+     *
+     * Für denselben {@code seed} wird immer dieselbe Liste erzeugt, egal wie viele
+     * Threads verwendet werden.
+     *
+     * @param anzahl Anzahl der zu erzeugenden Schlagzeilen, muss echt-größer 0 sein.
+     *
+     * @param seed Startwert für die Zufallsgeneratoren
+     *
+     * @return Liste mit Schlagzeilen, kann leer sein aber nicht {@code null}
+     */
+    public List<SchlagzeilenEntity> erzeugeZufallsSchlagzeilenParallel( int anzahl, long seed ) {
+
+        if ( anzahl < 1 ) {
+
+            LOG.warn( "Erzeugung von {} Schlagzeilen angefordert.", anzahl );
+            return emptyList();
+        }
+
+        final int anzahlBloecke = ( anzahl + BLOCK_GROESSE - 1 ) / BLOCK_GROESSE;
+
+        // Zufallsgeneratoren sequentiell abspalten, damit Ergebnis reproduzierbar ist
+        final SplittableRandom wurzel = new SplittableRandom( seed );
+        final SplittableRandom[] zufallProBlock = new SplittableRandom[ anzahlBloecke ];
+        for ( int i = 0; i < anzahlBloecke; i++ ) {
+
+            zufallProBlock[ i ] = wurzel.split();
+        }
+
+        final SchlagzeilenEntity[] ergebnisArray = new SchlagzeilenEntity[ anzahl ];
+
+        IntStream.range( 0, anzahlBloecke ).parallel().forEach( block -> {
+
+            final SplittableRandom zufall = zufallProBlock[ block ];
+
+            final int von = block * BLOCK_GROESSE;
+            final int bis = Math.min( von + BLOCK_GROESSE, anzahl );
+            for ( int i = von; i < bis; i++ ) {
+
+                ergebnisArray[ i ] = erzeugeZufallsSchlagzeile( zufall );
+            }
+        });
+
+        return Arrays.asList( ergebnisArray );
+    }
+
+
+    /**
+     * Erzeugt eine zufällige Schlagzeile mit einem bestimmten Zufallsgenerator,
+     * siehe auch {@link #erzeugeZufallsSchlagzeile()}.
+     *
+     * @param zufall Zufallsgenerator, darf nur von einem Thread verwendet werden
+     *
+     * @return Zufällig erzeugte Schlagzeile
+     */
+    private static SchlagzeilenEntity erzeugeZufallsSchlagzeile( SplittableRandom zufall ) {
+
+        final short ereignisCode = (short) zufall.nextInt( EREIGNISSE_ARRAY.length );
+
+        final boolean inland = zufall.nextDouble() < WAHRSCHEINLICHKEIT_INLAND;
+
+        final short ortCode =
+                inland ? SchlagzeilenWoerterbuch.ortCodeInland( zufall.nextInt( ORTE_DEUTSCHLAD_ARRAY.length ) )
+                       : SchlagzeilenWoerterbuch.ortCodeNation( zufall.nextInt( ORTE_NATIONEN_ARRAY.length   ) );
+
+        return new SchlagzeilenEntity( ereignisCode, ortCode );
+    }
+
 }
@@ -0,0 +1,131 @@
+package de.eldecker.dhbw.spring.badnews.logik;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.springframework.data.domain.Limit;
+
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenRepo;
+
+
+/**
+ * Liste mit Schlagzeilen für eine große Seite, die erst beim Durchlaufen
+ * (also während das Thymeleaf-Template gerendert wird) blockweise von der
+ * DB nachgeladen wird. Damit kann der Anfang der Seite schon an den Client
+ * geschickt werden, bevor alle Schlagzeilen geladen sind (Thymeleaf schreibt
+ * mit {@code produce-partial-output-while-processing} direkt in den
+ * Antwort-Puffer).
+ * <br><br>
+ *
+ * Der erste Block wird vorab geladen (z.B. mit {@code OFFSET} für die
+ * angeforderte Seite), alle weiteren Blöcke mit Keyset-Paginierung ab der ID
+ * der letzten Schlagzeile des vorherigen Blocks. Voraussetzung ist also
+ * Sortierung nach aufsteigender ID.
+ * <br><br>
+ *
+ * Die Liste kann nur einmal durchlaufen werden.
+ */
+public class SchlagzeilenNachlader implements Iterable<SchlagzeilenEntity> {
+
+    /** Repo-Bean für Nachladen der weiteren Blöcke. */
+    private final SchlagzeilenRepo _repo;
+
+    /** Bereits geladener erster Block. */
+    private final List<SchlagzeilenEntity> _ersterBlock;
+
+    /** Anzahl Schlagzeilen auf der ganzen Seite (inkl. erster Block). */
+    private final int _anzahlGesamt;
+
+    /** Anzahl Schlagzeilen pro nachgeladenem Block. */
+    private final int _blockGroesse;
+
+    /** Verhindert, dass die Liste mehrfach durchlaufen wird. */
+    private boolean _durchlaufen = false;
+
+
+    /**
+     * Konstruktor.
+     *
+     * @param repo Repo-Bean für Nachladen
+     *
+     * @param ersterBlock Erste Schlagzeilen der Seite, aufsteigend sortiert nach ID
+     *
+     * @param anzahlGesamt Max. Anzahl Schlagzeilen auf der Seite
+     *
+     * @param blockGroesse Anzahl Schlagzeilen pro nachgeladenem Block
+     */
+    public SchlagzeilenNachlader( SchlagzeilenRepo repo,
+                                  List<SchlagzeilenEntity> ersterBlock,
+                                  int anzahlGesamt,
+                                  int blockGroesse ) {
+
+        _repo         = repo;
+        _ersterBlock  = ersterBlock;
+        _anzahlGesamt = anzahlGesamt;
+        _blockGroesse = blockGroesse;
+    }
+
+
+    /**
+     * Liefert Iterator, der bei Bedarf den nächsten Block lädt.
+     *
+     * @return Iterator über alle Schlagzeilen der Seite
+     *
+     * @throws IllegalStateException Liste wurde schon einmal durchlaufen
+     */
+    @Override
+    public Iterator<SchlagzeilenEntity> iterator() {
+
+        if ( _durchlaufen ) {
+
+            throw new IllegalStateException( "Nachgeladene Liste kann nur einmal durchlaufen werden." );
+        }
+        _durchlaufen = true;
+
+        return new Iterator<>() {
+
+            private List<SchlagzeilenEntity> _block = _ersterBlock;
+
+            private int _indexImBlock = 0;
+
+            private int _anzahlGeliefert = 0;
+
+            /** Letzter Block war kürzer als angefordert, also gibt es keine weiteren Schlagzeilen. */
+            private boolean _ende = _ersterBlock.size() < Math.min( _blockGroesse, _anzahlGesamt );
+
+
+            @Override
+            public boolean hasNext() {
+
+                if ( _anzahlGeliefert >= _anzahlGesamt ) { return false; }
+
+                if ( _indexImBlock < _block.size() ) { return true; }
+
+                if ( _ende ) { return false; }
+
+                final int  anzahlNaechsterBlock = Math.min( _blockGroesse, _anzahlGesamt - _anzahlGeliefert );
+                final Long letzteId             = _block.get( _block.size() - 1 ).getId();
+
+                _block        = _repo.findByIdGreaterThanOrderByIdAsc( letzteId, Limit.of( anzahlNaechsterBlock ) );
+                _indexImBlock = 0;
+                _ende         = _block.size() < anzahlNaechsterBlock;
+
+                return !_block.isEmpty();
+            }
+
+
+            @Override
+            public SchlagzeilenEntity next() {
+
+                if ( !hasNext() ) { throw new NoSuchElementException(); }
+
+                _anzahlGeliefert++;
+
+                return _block.get( _indexImBlock++ );
+            }
+        };
+    }
+
+}
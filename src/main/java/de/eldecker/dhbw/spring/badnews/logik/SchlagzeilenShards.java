@@ -0,0 +1,684 @@
+package de.eldecker.dhbw.spring.badnews.logik;
+
+import static java.util.Locale.GERMAN;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenBeobachter;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenRepo;
+import de.eldecker.dhbw.spring.badnews.helferlein.EigenePrometheusMetriken;
+import de.eldecker.dhbw.spring.badnews.helferlein.LikeMuster;
+import de.eldecker.dhbw.spring.badnews.model.SchlagzeilenText;
+import jakarta.annotation.PreDestroy;
+
+
+/**
+ * Optionaler Shard-Modus: Die Schlagzeilen werden zusätzlich auf mehrere
+ * H2-Datenbanken ("Shards") verteilt, damit Textsuche und Statistik-Query
+ * nicht mehr mit nur einem Thread über eine einzige Tabelle laufen. Jede
+ * Anfrage wird auf virtuellen Threads parallel an alle Shards geschickt
+ * ("Scatter"), die Teilergebnisse werden danach zusammengeführt ("Gather").
+ * <br><br>
+ *
+ * Die JPA-Datenbank bleibt führend: Die Shards enthalten nur ID, Text in
+ * Kleinbuchstaben und Kategorie, werden beim Start aus der DB befüllt und
+ * danach als {@link SchlagzeilenBeobachter} bei jedem Schreibzugriff
+ * aktualisiert. Die Entities für eine Ergebnisseite werden weiterhin aus der
+ * JPA-Datenbank geladen.
+ * <br><br>
+ *
+ * Schlägt das Schreiben in einen Shard fehl, dann wird der Shard als defekt
+ * markiert; bis er wieder repariert ist, liefert {@link #isAktiv()} den Wert
+ * {@code false}, Suche und Statistik laufen also wieder über die JPA-DB.
+ * {@link #reparieren()} baut defekte Shards regelmäßig neu auf. Damit dabei
+ * kein gleichzeitiger Schreibzugriff verloren geht, hält der Neuaufbau die
+ * Sperre des Shards, die auch jeder Schreibzugriff auf den Shard nimmt.
+ * <br><br>
+ *
+ * Konfiguration:
+ * <ul>
+ *   <li>{@code badnews.shards.anzahl}: Anzahl der Shards, {@code 0} schaltet
+ *       den Modus ab (Default)</li>
+ *   <li>{@code badnews.shards.verteilung}: {@code id} verteilt nach Rest der
+ *       Division der ID durch die Anzahl der Shards, {@code inland} legt alle
+ *       Inlands-Schlagzeilen in Shard 0 und verteilt die Auslands-Schlagzeilen
+ *       nach ID auf die übrigen Shards</li>
+ *   <li>{@code badnews.shards.url}: JDBC-URL mit Platzhalter {@code %d} für
+ *       die Nummer des Shards</li>
+ *   <li>{@code badnews.shards.reparatur-intervall}: Abstand der Prüfung auf
+ *       defekte Shards</li>
+ * </ul>
+ */
+@Component
+@Order( SchlagzeilenBeobachter.REIHENFOLGE_INDEX )
+public class SchlagzeilenShards implements SchlagzeilenBeobachter {
+
+    private final static Logger LOG = LoggerFactory.getLogger( SchlagzeilenShards.class );
+
+    /** Anzahl Zeilen pro JDBC-Batch beim Befüllen der Shards. */
+    private static final int BATCH_GROESSE = 1000;
+
+    /** Leeres Ergebnis-Array, damit nicht jedes Mal ein neues Objekt erzeugt wird. */
+    private static final long[] KEINE_TREFFER = new long[ 0 ];
+
+    /** SQL für Befüllen eines leeren Shards. */
+    private static final String SQL_INSERT = "INSERT INTO SCHLAGZEILEN ( ID, TEXT_KLEIN, INLAND ) VALUES ( ?, ?, ? )";
+
+    /** SQL für Schreiben einer Zeile, die es im Shard schon geben kann. */
+    private static final String SQL_MERGE = "MERGE INTO SCHLAGZEILEN ( ID, TEXT_KLEIN, INLAND ) KEY ( ID ) VALUES ( ?, ?, ? )";
+
+    /** SQL für Löschen einer Zeile. */
+    private static final String SQL_DELETE = "DELETE FROM SCHLAGZEILEN WHERE ID = ?";
+
+    /** Strategie für die Zuordnung einer Schlagzeile zu einem Shard. */
+    private enum Verteilung { ID, INLAND }
+
+    /** Repo-Bean für Zugriff auf Tabelle mit Schlagzeilen (führende DB). */
+    private final SchlagzeilenRepo _repo;
+
+    /** Für Transaktion, in der beim Befüllen der Stream mit allen Schlagzeilen gelesen wird. */
+    private final TransactionTemplate _transactionTemplate;
+
+    /** Bean, um Messwerte für eigene Metriken zu erheben. */
+    private final EigenePrometheusMetriken _eigeneMetriken;
+
+    /** Anzahl der Shards, {@code 0} für deaktiviert. */
+    private final int _anzahlShards;
+
+    /** Strategie für die Zuordnung zu einem Shard. */
+    private final Verteilung _verteilung;
+
+    /** JDBC-URL mit Platzhalter {@code %d} für Nummer des Shards. */
+    private final String _urlMuster;
+
+    /** Nutzername für die Shard-Datenbanken. */
+    private final String _nutzername;
+
+    /** Passwort für die Shard-Datenbanken. */
+    private final String _passwort;
+
+    /** Connection-Pools der Shards, Index ist Nummer des Shards. */
+    private final List<HikariDataSource> _dataSources = new ArrayList<>();
+
+    /** JDBC-Templates der Shards, Index ist Nummer des Shards. */
+    private final List<JdbcTemplate> _shards = new ArrayList<>();
+
+    /** Sperre pro Shard für Schreibzugriffe und Neuaufbau, Index ist Nummer des Shards. */
+    private final List<ReentrantLock> _sperren = new ArrayList<>();
+
+    /** Nummern der Shards, bei denen ein Schreibzugriff fehlgeschlagen ist. */
+    private final Set<Integer> _defekteShards = ConcurrentHashMap.newKeySet();
+
+    /** Für jede Teil-Anfrage an einen Shard wird ein neuer virtueller Thread gestartet. */
+    private ExecutorService _executor;
+
+    /** Wird erst nach erfolgreichem Befüllen aller Shards auf {@code true} gesetzt. */
+    private volatile boolean _aktiv = false;
+
+
+    /**
+     * Ergebnis einer Textsuche über alle Shards.
+     *
+     * @param seitenIds IDs der Treffer auf der angeforderten Seite, aufsteigend sortiert
+     *
+     * @param anzahlTreffer Gesamtzahl der Treffer in allen Shards
+     */
+    public record Treffer( long[] seitenIds, long anzahlTreffer ) {}
+
+
+    /**
+     * Teilergebnis der Textsuche in einem Shard.
+     *
+     * @param ids Aufsteigend sortierte IDs der ersten Treffer im Shard
+     *
+     * @param anzahlTreffer Anzahl aller Treffer im Shard
+     */
+    private record TeilTreffer( long[] ids, long anzahlTreffer ) {}
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    public SchlagzeilenShards( SchlagzeilenRepo repo,
+                               TransactionTemplate transactionTemplate,
+                               EigenePrometheusMetriken eigeneMetriken,
+                               @Value( "${badnews.shards.anzahl:0}" ) int anzahlShards,
+                               @Value( "${badnews.shards.verteilung:id}" ) String verteilung,
+                               @Value( "${badnews.shards.url:jdbc:h2:mem:badnews-shard-%d;DB_CLOSE_DELAY=-1}" ) String urlMuster,
+                               @Value( "${spring.datasource.username}" ) String nutzername,
+                               @Value( "${spring.datasource.password}" ) String passwort ) {
+
+        _repo                = repo;
+        _transactionTemplate = transactionTemplate;
+        _eigeneMetriken      = eigeneMetriken;
+        _anzahlShards        = anzahlShards;
+        _verteilung          = Verteilung.valueOf( verteilung.trim().toUpperCase( GERMAN ) );
+        _urlMuster           = urlMuster;
+        _nutzername          = nutzername;
+        _passwort            = passwort;
+    }
+
+
+    /**
+     * Legt in jedem Shard die Tabelle an (bzw. leert sie) und befüllt die
+     * Shards mit allen Schlagzeilen aus der DB.
+     */
+    @Override
+    public void aufbauen() {
+
+        if ( _anzahlShards <= 0 ) {
+
+            LOG.info( "Shard-Modus ist deaktiviert." );
+            return;
+        }
+
+        final long startZeit = System.currentTimeMillis();
+
+        for ( int i = 0; i < _anzahlShards; i++ ) {
+
+            final HikariDataSource dataSource =
+                    DataSourceBuilder.create()
+                                     .type( HikariDataSource.class )
+                                     .url( String.format( _urlMuster, i ) )
+                                     .username( _nutzername )
+                                     .password( _passwort )
+                                     .build();
+            dataSource.setPoolName( "shard-" + i );
+            _eigeneMetriken.registriereConnectionPool( dataSource );
+            _dataSources.add( dataSource );
+
+            final JdbcTemplate jdbcTemplate = new JdbcTemplate( dataSource );
+            leereTabelle( jdbcTemplate );
+            _shards.add( jdbcTemplate );
+            _sperren.add( new ReentrantLock() );
+        }
+
+        _executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        final List<List<Object[]>> batches = new ArrayList<>( _anzahlShards );
+        for ( int i = 0; i < _anzahlShards; i++ ) { batches.add( new ArrayList<>( BATCH_GROESSE ) ); }
+
+        final long[] anzahlZeilen = new long[ 1 ];
+
+        _transactionTemplate.executeWithoutResult( status -> {
+
+            try ( Stream<SchlagzeilenText> stream = _repo.streameIdUndText() ) {
+
+                stream.forEach( st -> {
+
+                    final int shard = shardNummer( st.id(), st.inland() );
+                    final List<Object[]> batch = batches.get( shard );
+                    batch.add( zeile( st.id(), st.schlagzeile(), st.inland() ) );
+                    if ( batch.size() == BATCH_GROESSE ) {
+
+                        schreibeBatch( shard, SQL_INSERT, batch );
+                    }
+                    anzahlZeilen[ 0 ]++;
+                });
+            }
+        });
+
+        for ( int i = 0; i < _anzahlShards; i++ ) { schreibeBatch( i, SQL_INSERT, batches.get( i ) ); }
+
+        _aktiv = true;
+
+        LOG.info( "{} Shards (Verteilung nach {}) mit {} Schlagzeilen in {} ms befüllt.",
+                  _anzahlShards, _verteilung, anzahlZeilen[ 0 ], System.currentTimeMillis() - startZeit );
+    }
+
+
+    /**
+     * Virtuelle Threads beenden und Connection-Pools schließen.
+     */
+    @PreDestroy
+    public void schliessen() {
+
+        _aktiv = false;
+
+        if ( _executor != null ) { _executor.close(); }
+
+        _dataSources.forEach( HikariDataSource::close );
+    }
+
+
+    /**
+     * Abfrage, ob Suche und Statistik über die Shards beantwortet werden können.
+     *
+     * @return {@code true} gdw. der Shard-Modus aktiviert ist, die Shards
+     *         befüllt wurden und kein Shard defekt ist
+     */
+    public boolean isAktiv() {
+
+        return _aktiv && _defekteShards.isEmpty();
+    }
+
+
+    /**
+     * Baut alle Shards neu auf, bei denen ein Schreibzugriff fehlgeschlagen
+     * ist. Schreibzugriffe auf einen Shard warten, solange er neu aufgebaut
+     * wird, und werden danach noch einmal angewendet (MERGE und DELETE sind
+     * idempotent); so geht auch ein Schreibzugriff nicht verloren, dessen
+     * Commit während des Neuaufbaus stattfindet.
+     */
+    @Scheduled( fixedDelayString = "${badnews.shards.reparatur-intervall:PT30S}" )
+    public void reparieren() {
+
+        if ( !_aktiv ) { return; }
+
+        for ( Integer shard : _defekteShards ) {
+
+            final long startZeit = System.currentTimeMillis();
+
+            final ReentrantLock sperre = _sperren.get( shard );
+            sperre.lock();
+            try {
+
+                final long anzahlZeilen = neuAufbauen( shard );
+                _defekteShards.remove( shard );
+
+                LOG.warn( "Shard {} mit {} Schlagzeilen in {} ms neu aufgebaut.",
+                          shard, anzahlZeilen, System.currentTimeMillis() - startZeit );
+            }
+            catch ( RuntimeException ex ) {
+
+                LOG.error( "Neuaufbau von Shard {} fehlgeschlagen, nächster Versuch im nächsten Intervall.", shard, ex );
+            }
+            finally {
+
+                sperre.unlock();
+            }
+        }
+    }
+
+
+    /**
+     * Textsuche in allen Shards parallel. Jeder Shard liefert die Anzahl
+     * seiner Treffer und die ersten {@code offset + anzahl} Treffer-IDs in
+     * aufsteigender Reihenfolge; diese Listen werden danach gemischt
+     * (k-Wege-Merge), so dass das Ergebnis dieselbe Seite wie bei Sortierung
+     * mit {@code SORT_ID_ASC} über die ganze Tabelle ist.
+     *
+     * @param suchstring Teilstring, der in Schlagzeilen enthalten sein muss
+     *                   (Groß-/Kleinschreibung wird ignoriert)
+     *
+     * @param offset Anzahl der Treffer vor der angeforderten Seite
+     *
+     * @param anzahl Anzahl Treffer pro Seite
+     *
+     * @return IDs der Treffer auf der Seite und Gesamtzahl der Treffer
+     */
+    public Treffer suche( String suchstring, long offset, int anzahl ) {
+
+        final String likeMuster = LikeMuster.teilstring( suchstring.toLowerCase( GERMAN ) );
+        final int    limit      = (int) Math.min( offset + anzahl, Integer.MAX_VALUE );
+
+        final List<TeilTreffer> teilErgebnisse =
+                _eigeneMetriken.getTimerFuerShardSuche().record( () ->
+                        anAlleShards( shard -> sucheInShard( shard, likeMuster, limit ) ) );
+
+        long anzahlTreffer = 0;
+        for ( TeilTreffer teil : teilErgebnisse ) { anzahlTreffer += teil.anzahlTreffer(); }
+
+        if ( offset >= anzahlTreffer ) {
+
+            return new Treffer( KEINE_TREFFER, anzahlTreffer );
+        }
+
+        final long[] seitenIds = new long[ (int) Math.min( anzahl, anzahlTreffer - offset ) ];
+
+        // k-Wege-Merge; bei wenigen Shards ist lineare Suche nach kleinstem Kopf schneller als ein Heap
+        final int[] position = new int[ teilErgebnisse.size() ];
+        for ( long i = 0; i < offset + seitenIds.length; i++ ) {
+
+            int  shardMin = -1;
+            long idMin    = Long.MAX_VALUE;
+            for ( int s = 0; s < position.length; s++ ) {
+
+                final long[] ids = teilErgebnisse.get( s ).ids();
+                if ( position[ s ] < ids.length && ids[ position[ s ] ] < idMin ) {
+
+                    shardMin = s;
+                    idMin    = ids[ position[ s ] ];
+                }
+            }
+            position[ shardMin ]++;
+
+            if ( i >= offset ) { seitenIds[ (int) ( i - offset ) ] = idMin; }
+        }
+
+        return new Treffer( seitenIds, anzahlTreffer );
+    }
+
+
+    /**
+     * Statistik-Query ({@code GROUP BY}) in allen Shards parallel, die
+     * Ergebnisse werden aufsummiert.
+     *
+     * @return Array mit Anzahl Inlands-Schlagzeilen (Index 0) und
+     *         Auslands-Schlagzeilen (Index 1) in allen Shards
+     */
+    public long[] zaehleInlandAusland() {
+
+        final List<long[]> teilErgebnisse = anAlleShards( shard -> {
+
+            final long[] anzahl = new long[ 2 ];
+            shard.query( "SELECT INLAND, COUNT(*) FROM SCHLAGZEILEN GROUP BY INLAND",
+                         rs -> { anzahl[ rs.getBoolean( 1 ) ? 0 : 1 ] = rs.getLong( 2 ); } );
+            return anzahl;
+        });
+
+        final long[] ergebnis = new long[ 2 ];
+        for ( long[] teil : teilErgebnisse ) {
+
+            ergebnis[ 0 ] += teil[ 0 ];
+            ergebnis[ 1 ] += teil[ 1 ];
+        }
+
+        return ergebnis;
+    }
+
+
+    /**
+     * Neu gespeicherte Schlagzeile in ihren Shard schreiben.
+     *
+     * @param entity Neue Schlagzeile
+     */
+    @Override
+    public void nachEinfuegen( SchlagzeilenEntity entity ) {
+
+        if ( !_aktiv ) { return; }
+
+        speichern( entity );
+    }
+
+
+    /**
+     * Geänderte Schlagzeile im Shard überschreiben; bei Verteilung nach
+     * Kategorie und geänderter Kategorie wird sie in einen anderen Shard
+     * verschoben.
+     *
+     * @param entity Geänderte Schlagzeile
+     *
+     * @param inlandVorher Wert des Flags {@code inland} vor der Änderung
+     */
+    @Override
+    public void nachAenderung( SchlagzeilenEntity entity, boolean inlandVorher ) {
+
+        if ( !_aktiv ) { return; }
+
+        final int shardVorher = shardNummer( entity.getId(), inlandVorher );
+        if ( shardVorher != shardNummer( entity.getId(), entity.isInland() ) ) {
+
+            schreibe( shardVorher, SQL_DELETE, entity.getId() );
+        }
+
+        speichern( entity );
+    }
+
+
+    /**
+     * Gelöschte Schlagzeile aus ihrem Shard entfernen.
+     *
+     * @param entity Gelöschte Schlagzeile
+     */
+    @Override
+    public void nachLoeschen( SchlagzeilenEntity entity ) {
+
+        if ( !_aktiv ) { return; }
+
+        schreibe( shardNummer( entity.getId(), entity.isInland() ), SQL_DELETE, entity.getId() );
+    }
+
+
+    /**
+     * Führt eine Aufgabe für jeden Shard auf einem eigenen virtuellen Thread
+     * aus und wartet auf alle Ergebnisse.
+     *
+     * @param aufgabe Aufgabe, die mit dem JDBC-Template eines Shards ausgeführt wird
+     *
+     * @return Ergebnisse in der Reihenfolge der Shards
+     */
+    private <T> List<T> anAlleShards( Function<JdbcTemplate, T> aufgabe ) {
+
+        final List<Future<T>> futures = new ArrayList<>( _shards.size() );
+        for ( JdbcTemplate shard : _shards ) {
+
+            futures.add( _executor.submit( () -> aufgabe.apply( shard ) ) );
+        }
+
+        final List<T> ergebnisse = new ArrayList<>( futures.size() );
+        try {
+
+            for ( Future<T> future : futures ) { ergebnisse.add( future.get() ); }
+
+        } catch ( InterruptedException ex ) {
+
+            Thread.currentThread().interrupt();
+            futures.forEach( f -> f.cancel( true ) );
+            throw new IllegalStateException( "Warten auf Shards wurde unterbrochen", ex );
+
+        } catch ( ExecutionException ex ) {
+
+            futures.forEach( f -> f.cancel( true ) );
+            if ( ex.getCause() instanceof RuntimeException rex ) { throw rex; }
+            throw new IllegalStateException( "Fehler bei Anfrage an Shard", ex.getCause() );
+        }
+
+        return ergebnisse;
+    }
+
+
+    /**
+     * Textsuche in einem Shard mit nur einem Scan: Alle Treffer werden in
+     * ID-Reihenfolge durchlaufen und gezählt, die IDs aber nur für die ersten
+     * {@code limit} Treffer gespeichert.
+     */
+    private static TeilTreffer sucheInShard( JdbcTemplate shard, String likeMuster, int limit ) {
+
+        final TrefferSammler sammler = new TrefferSammler( limit );
+
+        shard.query( "SELECT ID FROM SCHLAGZEILEN WHERE TEXT_KLEIN LIKE ? ESCAPE '\\' ORDER BY ID",
+                     sammler, likeMuster );
+
+        return sammler.ergebnis();
+    }
+
+
+    /**
+     * Schreibt eine Schlagzeile mit {@code MERGE} in ihren Shard (INSERT oder UPDATE).
+     */
+    private void speichern( SchlagzeilenEntity entity ) {
+
+        schreibe( shardNummer( entity.getId(), entity.isInland() ),
+                  SQL_MERGE, zeile( entity.getId(), entity.getSchlagzeile(), entity.isInland() ) );
+    }
+
+
+    /**
+     * Führt einen Schreibzugriff auf einen Shard unter dessen Sperre aus; bei
+     * einem Fehler wird der Shard als defekt markiert und die Exception
+     * weitergeworfen.
+     */
+    private void schreibe( int shard, String sql, Object... parameter ) {
+
+        final ReentrantLock sperre = _sperren.get( shard );
+        sperre.lock();
+        try {
+
+            _shards.get( shard ).update( sql, parameter );
+        }
+        catch ( RuntimeException ex ) {
+
+            if ( _defekteShards.add( shard ) ) {
+
+                LOG.warn( "Shard {} als defekt markiert, wird neu aufgebaut.", shard );
+            }
+            throw ex;
+        }
+        finally {
+
+            sperre.unlock();
+        }
+    }
+
+
+    /**
+     * Leert einen Shard und befüllt ihn mit allen Schlagzeilen aus der DB,
+     * die zu ihm gehören; Aufrufer muss die Sperre des Shards halten.
+     *
+     * @return Anzahl der Zeilen im Shard
+     */
+    private long neuAufbauen( int shard ) {
+
+        leereTabelle( _shards.get( shard ) );
+
+        final List<Object[]> batch = new ArrayList<>( BATCH_GROESSE );
+        final long[] anzahlZeilen = new long[ 1 ];
+
+        _transactionTemplate.executeWithoutResult( status -> {
+
+            try ( Stream<SchlagzeilenText> stream = _repo.streameIdUndText() ) {
+
+                stream.filter( st -> shardNummer( st.id(), st.inland() ) == shard )
+                      .forEach( st -> {
+
+                          batch.add( zeile( st.id(), st.schlagzeile(), st.inland() ) );
+                          if ( batch.size() == BATCH_GROESSE ) {
+
+                              schreibeBatch( shard, SQL_INSERT, batch );
+                          }
+                          anzahlZeilen[ 0 ]++;
+                      });
+            }
+        });
+        schreibeBatch( shard, SQL_INSERT, batch );
+
+        return anzahlZeilen[ 0 ];
+    }
+
+
+    /**
+     * Legt die Tabelle in einem Shard an, wenn es sie noch nicht gibt, bzw. leert sie.
+     */
+    private static void leereTabelle( JdbcTemplate shard ) {
+
+        shard.execute( "CREATE TABLE IF NOT EXISTS SCHLAGZEILEN ( " +
+                       "  ID         BIGINT PRIMARY KEY, " +
+                       "  TEXT_KLEIN VARCHAR(255), " +
+                       "  INLAND     BOOLEAN NOT NULL )" );
+        shard.execute( "TRUNCATE TABLE SCHLAGZEILEN" );
+    }
+
+
+    /**
+     * Schreibt die gesammelten Zeilen als JDBC-Batch in einen Shard und leert die Liste.
+     */
+    private void schreibeBatch( int shard, String sql, List<Object[]> batch ) {
+
+        if ( batch.isEmpty() ) { return; }
+
+        _shards.get( shard ).batchUpdate( sql, batch );
+        batch.clear();
+    }
+
+
+    /**
+     * Parameter für eine Zeile in der Shard-Tabelle.
+     */
+    private static Object[] zeile( Long id, String schlagzeile, boolean inland ) {
+
+        final String textKlein = schlagzeile == null ? null : schlagzeile.toLowerCase( GERMAN );
+
+        return new Object[] { id, textKlein, inland };
+    }
+
+
+    /**
+     * Bestimmt den Shard für eine Schlagzeile.
+     *
+     * @param id ID der Schlagzeile
+     *
+     * @param inland Kategorie der Schlagzeile
+     *
+     * @return Nummer des Shards (0-basiert)
+     */
+    private int shardNummer( long id, boolean inland ) {
+
+        if ( _verteilung == Verteilung.INLAND && _anzahlShards > 1 ) {
+
+            return inland ? 0 : 1 + (int) Math.floorMod( id, (long) ( _anzahlShards - 1 ) );
+        }
+
+        return (int) Math.floorMod( id, (long) _anzahlShards );
+    }
+
+
+    /**
+     * Zählt alle Zeilen des Ergebnisses einer Textsuche in einem Shard und
+     * merkt sich die IDs der ersten {@code limit} Zeilen.
+     */
+    private static class TrefferSammler implements RowCallbackHandler {
+
+        private final int _limit;
+
+        private long[] _ids;
+
+        private long _anzahl = 0;
+
+
+        TrefferSammler( int limit ) {
+
+            _limit = limit;
+            _ids   = new long[ Math.min( limit, BATCH_GROESSE ) ];
+        }
+
+
+        @Override
+        public void processRow( ResultSet rs ) throws SQLException {
+
+            if ( _anzahl < _limit ) {
+
+                if ( _anzahl == _ids.length ) {
+
+                    _ids = Arrays.copyOf( _ids, (int) Math.min( _limit, 2L * _ids.length ) );
+                }
+                _ids[ (int) _anzahl ] = rs.getLong( 1 );
+            }
+            _anzahl++;
+        }
+
+
+        TeilTreffer ergebnis() {
+
+            return new TeilTreffer( Arrays.copyOf( _ids, (int) Math.min( _anzahl, _limit ) ), _anzahl );
+        }
+    }
+
+}
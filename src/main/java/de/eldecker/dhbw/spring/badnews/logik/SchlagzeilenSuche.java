@@ -0,0 +1,628 @@
+package de.eldecker.dhbw.spring.badnews.logik;
+
+import static de.eldecker.dhbw.spring.badnews.helferlein.SortierReihenfolgeKonstanten.SORT_ID_ASC;
+import static java.util.Locale.GERMAN;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenRepo;
+import de.eldecker.dhbw.spring.badnews.helferlein.EigenePrometheusMetriken;
+import de.eldecker.dhbw.spring.badnews.model.SchlagzeilenText;
+
+
+/**
+ * Service-Bean für die Textsuche nach Schlagzeilen. Wenn der
+ * {@link TrigrammIndex} aktiviert und aufgebaut ist, dann wird die Suche
+ * über diesen Index beantwortet; sonst, wenn der Shard-Modus aktiv ist, über
+ * {@link SchlagzeilenShards}, und ansonsten mit der JPQL-Query
+ * {@link SchlagzeilenRepo#sucheSchlagzeilen(String, org.springframework.data.domain.Pageable)}.
+ * <br><br>
+ *
+ * Für jede Kombination aus Suchbegriff (in Kleinbuchstaben), Seite und
+ * Sortierung werden die IDs der Treffer auf der Seite und die Gesamtzahl der
+ * Treffer in einem Cache gespeichert. Im Schlüssel ist auch die
+ * {@link DatenVersion} enthalten, so dass nach einem Schreibzugriff keine
+ * veralteten Ergebnisse geliefert werden. Der Cache hat ein Budget in Bytes;
+ * bei Überschreitung werden Einträge nach der Strategie W-TinyLFU verdrängt.
+ * <br><br>
+ *
+ * Gleichzeitige Suchen mit demselben Schlüssel, die nicht im Cache sind,
+ * werden zusammengefasst ("Single-Flight"): Nur die erste Suche führt die
+ * Query aus, die anderen warten auf deren Ergebnis (IDs und Gesamtzahl) und
+ * laden danach nur noch die Entities der Seite. Scheitert die erste Suche mit
+ * einer Exception, dann bekommt jeder Wartende eine eigene Exception mit dieser
+ * als Ursache; wurde sie abgebrochen (Thread unterbrochen, z.B. Timeout der
+ * Batch-Suche), dann versucht es einer der Wartenden selbst. Gewartet wird
+ * höchstens {@code badnews.suche.zusammenfassen-timeout}, damit eine hängende
+ * Query nicht beliebig viele Threads blockiert.
+ * <br><br>
+ *
+ * Für mehrere Suchbegriffe auf einmal (Batch-Suche) gibt es mit
+ * {@link #sucheMitEinemScan(List)} eine Variante, die alle Suchbegriffe bei
+ * nur einem Durchlauf über die Tabelle prüft; das lohnt sich nur, wenn sonst
+ * jeder Suchbegriff einen eigenen Scan mit der JPQL-Query auslösen würde,
+ * siehe {@link #isEinzelScanGuenstiger(int)}.
+ */
+@Service
+public class SchlagzeilenSuche {
+
+    private final static Logger LOG = LoggerFactory.getLogger( SchlagzeilenSuche.class );
+
+    /** Geschätzte Größe eines Cache-Eintrags in Bytes ohne die IDs und den Suchbegriff. */
+    private static final int BYTES_PRO_EINTRAG = 128;
+
+    /** Repo-Bean für Zugriff auf Tabelle mit Schlagzeilen. */
+    private final SchlagzeilenRepo _repo;
+
+    /** In-Memory-Index für Teilstring-Suche. */
+    private final TrigrammIndex _trigrammIndex;
+
+    /** Shards für parallele Suche (optional). */
+    private final SchlagzeilenShards _shards;
+
+    /** Globale Versionsnummer der Daten für Schlüssel im Cache. */
+    private final DatenVersion _datenVersion;
+
+    /** Für Transaktion, in der der Stream für {@link #sucheMitEinemScan(List)} gelesen wird. */
+    private final TransactionTemplate _transactionTemplate;
+
+    /** Cache mit Suchergebnissen (nur IDs, keine Entities). */
+    private final Cache<Suchschluessel, Suchergebnis> _cache;
+
+    /** Laufende Suchen, auf deren Ergebnis gleiche Suchen warten können. */
+    private final Map<Suchschluessel, CompletableFuture<Suchergebnis>> _laufendeSuchen = new ConcurrentHashMap<>();
+
+    /** Gleichzeitige gleiche Suchen zusammenfassen? */
+    private final boolean _zusammenfassen;
+
+    /** Max. Wartezeit auf eine laufende gleiche Suche in Nanosekunden. */
+    private final long _wartezeitNanos;
+
+    /** Bean, um Messwerte für eigene Metriken zu erheben. */
+    private final EigenePrometheusMetriken _eigeneMetriken;
+
+    /**
+     * Mindestanzahl nicht gecachter Suchbegriffe, ab der eine Batch-Suche
+     * ohne Trigramm-Index und Shards mit einem Scan beantwortet wird.
+     */
+    private final int _einzelScanAb;
+
+
+    /**
+     * Schlüssel für Suchergebnis im Cache.
+     *
+     * @param suchstring Suchbegriff in Kleinbuchstaben
+     *
+     * @param seite Nummer der Seite (0-basiert)
+     *
+     * @param anzahl Anzahl Treffer pro Seite
+     *
+     * @param sortierung Sortierung als String
+     *
+     * @param version Version der Daten, für die das Ergebnis ermittelt wurde
+     */
+    private record Suchschluessel( String suchstring, int seite, int anzahl,
+                                   String sortierung, long version ) {}
+
+
+    /**
+     * Suchergebnis im Cache.
+     *
+     * @param seitenIds IDs der Treffer auf der Seite in der Reihenfolge der Sortierung
+     *
+     * @param anzahlTreffer Gesamtzahl der Treffer
+     */
+    private record Suchergebnis( long[] seitenIds, long anzahlTreffer ) {}
+
+
+    /**
+     * Einzelne Suche innerhalb einer Batch-Suche.
+     *
+     * @param suchstring Suchbegriff mit mindestens drei Zeichen
+     *
+     * @param pageRequest Angeforderte Seite, sortiert nach aufsteigender ID
+     */
+    public record Suchauftrag( String suchstring, PageRequest pageRequest ) {}
+
+
+    /**
+     * Zustand einer Suche während des Scans in {@link #sucheMitEinemScan(List)}.
+     */
+    private static final class ScanZustand {
+
+        /** Suchbegriff in Kleinbuchstaben. */
+        final String suchstringKlein;
+
+        /** Index des ersten Treffers der angeforderten Seite. */
+        final long offset;
+
+        /** IDs der Treffer auf der Seite. */
+        final long[] seitenIds;
+
+        /** Anzahl der schon in {@link #seitenIds} eingetragenen IDs. */
+        int anzahlSeite = 0;
+
+        /** Anzahl aller bisher gefundenen Treffer. */
+        long anzahlTreffer = 0;
+
+        ScanZustand( String suchstringKlein, PageRequest pageRequest ) {
+
+            this.suchstringKlein = suchstringKlein;
+            this.offset          = pageRequest.getOffset();
+            this.seitenIds       = new long[ pageRequest.getPageSize() ];
+        }
+
+        /** Treffer zählen und ID merken, wenn er auf der angeforderten Seite liegt. */
+        void treffer( long id ) {
+
+            if ( anzahlTreffer >= offset && anzahlSeite < seitenIds.length ) {
+
+                seitenIds[ anzahlSeite++ ] = id;
+            }
+            anzahlTreffer++;
+        }
+    }
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>, erzeugt auch den Cache.
+     */
+    public SchlagzeilenSuche( SchlagzeilenRepo repo,
+                              TrigrammIndex trigrammIndex,
+                              SchlagzeilenShards shards,
+                              DatenVersion datenVersion,
+                              TransactionTemplate transactionTemplate,
+                              EigenePrometheusMetriken eigeneMetriken,
+                              @Value( "${badnews.suche.cache.max-bytes:16777216}" ) long maxBytes,
+                              @Value( "${badnews.suche.batch.einzel-scan-ab:2}" ) int einzelScanAb,
+                              @Value( "${badnews.suche.zusammenfassen:true}" ) boolean zusammenfassen,
+                              @Value( "${badnews.suche.zusammenfassen-timeout:PT30S}" ) Duration wartezeit ) {
+
+        _repo                = repo;
+        _trigrammIndex       = trigrammIndex;
+        _shards              = shards;
+        _datenVersion        = datenVersion;
+        _transactionTemplate = transactionTemplate;
+        _einzelScanAb        = einzelScanAb;
+        _zusammenfassen      = zusammenfassen;
+        _wartezeitNanos      = wartezeit.toNanos();
+        _eigeneMetriken      = eigeneMetriken;
+
+        _cache = Caffeine.newBuilder()
+                         .maximumWeight( maxBytes )
+                         .weigher( ( Suchschluessel schluessel, Suchergebnis ergebnis ) ->
+                                        BYTES_PRO_EINTRAG +
+                                        2 * schluessel.suchstring().length() +
+                                        8 * ergebnis.seitenIds().length )
+                         .recordStats()
+                         .build();
+
+        eigeneMetriken.registriereCache( "suchergebnisse", _cache );
+
+        LOG.info( "Cache für Suchergebnisse mit Budget {} Bytes erzeugt.", maxBytes );
+    }
+
+
+    /**
+     * Textsuche nach Schlagzeilen.
+     *
+     * @param suchstring Teilstring, der in Schlagzeilen enthalten sein muss
+     *                   (Groß-/Kleinschreibung wird ignoriert); mindestens
+     *                   drei Zeichen
+     *
+     * @param pageRequest Anzahl Datensätze pro Seite und Nummer der Seite;
+     *                    bei Suche über Trigramm-Index oder Shards wird
+     *                    immer nach aufsteigender ID sortiert
+     *
+     * @return "Seite" von gefundenen Schlagzeilen mit Gesamtzahl der Treffer
+     */
+    public Page<SchlagzeilenEntity> suche( String suchstring, PageRequest pageRequest ) {
+
+        // Version vor der Suche lesen: Ergebnis, das parallel zu einem Schreibzugriff
+        // ermittelt wird, landet höchstens unter der alten Version im Cache
+        final Suchschluessel schluessel = erzeugeSchluessel( suchstring, pageRequest, _datenVersion.getVersion() );
+
+        final Suchergebnis ergebnisCache = _cache.getIfPresent( schluessel );
+        if ( ergebnisCache != null ) {
+
+            return new PageImpl<>( ladeInReihenfolge( ergebnisCache.seitenIds() ),
+                                   pageRequest,
+                                   ergebnisCache.anzahlTreffer() );
+        }
+
+        if ( !_zusammenfassen ) {
+
+            return sucheAlsErste( suchstring, pageRequest, schluessel, new CompletableFuture<>() );
+        }
+
+        while ( true ) {
+
+            final CompletableFuture<Suchergebnis> eigene   = new CompletableFuture<>();
+            final CompletableFuture<Suchergebnis> laufende = _laufendeSuchen.putIfAbsent( schluessel, eigene );
+            if ( laufende == null ) {
+
+                return sucheAlsErste( suchstring, pageRequest, schluessel, eigene );
+            }
+
+            final Suchergebnis ergebnis = warteAufLaufendeSuche( laufende );
+            if ( ergebnis != null ) {
+
+                return new PageImpl<>( ladeInReihenfolge( ergebnis.seitenIds() ),
+                                       pageRequest,
+                                       ergebnis.anzahlTreffer() );
+            }
+            // erste Suche wurde abgebrochen: neuer Versuch, ggf. als erste Suche
+        }
+    }
+
+
+    /**
+     * Führt die Suche aus, legt das Ergebnis in den Cache und gibt es an die
+     * wartenden gleichen Suchen weiter.
+     *
+     * @param future Wird aus {@link #_laufendeSuchen} entfernt (falls enthalten)
+     *               und danach mit dem Ergebnis abgeschlossen, bei Fehler mit
+     *               der Exception und bei Abbruch mit {@code cancel()}; in
+     *               dieser Reihenfolge, damit Wartende bei neuem Versuch nicht
+     *               wieder dasselbe abgebrochene Future finden
+     */
+    private Page<SchlagzeilenEntity> sucheAlsErste( String suchstring, PageRequest pageRequest,
+                                                    Suchschluessel schluessel,
+                                                    CompletableFuture<Suchergebnis> future ) {
+        try {
+
+            final Page<SchlagzeilenEntity> ergebnisPage = sucheOhneCache( suchstring, pageRequest );
+
+            final long[] seitenIds = ergebnisPage.getContent()
+                                                 .stream()
+                                                 .mapToLong( SchlagzeilenEntity::getId )
+                                                 .toArray();
+
+            final Suchergebnis ergebnis = new Suchergebnis( seitenIds, ergebnisPage.getTotalElements() );
+
+            _cache.put( schluessel, ergebnis );
+            _laufendeSuchen.remove( schluessel, future );
+            future.complete( ergebnis );
+
+            return ergebnisPage;
+        }
+        catch ( RuntimeException | Error ex ) {
+
+            _laufendeSuchen.remove( schluessel, future );
+
+            if ( Thread.currentThread().isInterrupted() ) {
+
+                future.cancel( false ); // Abbruch gilt nur für diesen Thread, nicht für die Wartenden
+
+            } else {
+
+                future.completeExceptionally( ex );
+            }
+            throw ex;
+        }
+    }
+
+
+    /**
+     * Wartet auf das Ergebnis einer laufenden gleichen Suche.
+     *
+     * @param laufende Future der laufenden Suche
+     *
+     * @return Ergebnis, oder {@code null}, wenn die laufende Suche abgebrochen
+     *         wurde und neu versucht werden muss
+     *
+     * @throws CancellationException Dieser Thread wurde beim Warten unterbrochen
+     *
+     * @throws IllegalStateException Laufende Suche ist mit Exception (als Ursache
+     *                               angehängt) gescheitert oder nicht innerhalb
+     *                               der max. Wartezeit fertig geworden; die
+     *                               Exception wird für jeden Wartenden neu
+     *                               erzeugt, damit nicht mehrere Threads
+     *                               dieselbe Instanz werfen (Stacktrace,
+     *                               {@code addSuppressed()})
+     */
+    private Suchergebnis warteAufLaufendeSuche( CompletableFuture<Suchergebnis> laufende ) {
+
+        try {
+
+            final Suchergebnis ergebnis = laufende.get( _wartezeitNanos, NANOSECONDS );
+            _eigeneMetriken.erfasseZusammengefassteSuche( "ergebnis" );
+
+            return ergebnis;
+        }
+        catch ( CancellationException ex ) {
+
+            _eigeneMetriken.erfasseZusammengefassteSuche( "neuer_versuch" );
+            return null;
+        }
+        catch ( ExecutionException ex ) {
+
+            _eigeneMetriken.erfasseZusammengefassteSuche( "fehler" );
+
+            throw new IllegalStateException( "Gleiche laufende Suche ist fehlgeschlagen: " + ex.getCause().getMessage(),
+                                             ex.getCause() );
+        }
+        catch ( TimeoutException ex ) {
+
+            _eigeneMetriken.erfasseZusammengefassteSuche( "zeitueberschreitung" );
+
+            throw new IllegalStateException( "Zeitüberschreitung beim Warten auf gleiche laufende Suche." );
+        }
+        catch ( InterruptedException ex ) {
+
+            Thread.currentThread().interrupt();
+            throw new CancellationException( "Warten auf gleiche laufende Suche wurde unterbrochen." );
+        }
+    }
+
+
+    /**
+     * Erzeugt Schlüssel für Cache.
+     *
+     * @param suchstring Suchbegriff
+     *
+     * @param pageRequest Angeforderte Seite
+     *
+     * @param version Version der Daten vor der Suche
+     *
+     * @return Schlüssel mit Suchbegriff in Kleinbuchstaben
+     */
+    private static Suchschluessel erzeugeSchluessel( String suchstring, PageRequest pageRequest, long version ) {
+
+        return new Suchschluessel( suchstring.toLowerCase( GERMAN ),
+                                   pageRequest.getPageNumber(),
+                                   pageRequest.getPageSize(),
+                                   pageRequest.getSort().toString(),
+                                   version );
+    }
+
+
+    /**
+     * Prüft, ob sich für eine Batch-Suche ein gemeinsamer Scan lohnt: Das ist
+     * nur der Fall, wenn weder Trigramm-Index noch Shards aktiv sind (jeder
+     * Suchbegriff also einen Scan mit der JPQL-Query bedeuten würde) und
+     * mindestens {@code badnews.suche.batch.einzel-scan-ab} Suchbegriffe
+     * gesucht werden.
+     *
+     * @param anzahlSuchbegriffe Anzahl der Suchbegriffe in der Batch-Suche
+     *
+     * @return {@code true}, wenn {@link #sucheMitEinemScan(List)} verwendet
+     *         werden sollte
+     */
+    public boolean isEinzelScanGuenstiger( int anzahlSuchbegriffe ) {
+
+        return !_trigrammIndex.isAufgebaut() && !_shards.isAktiv() &&
+               anzahlSuchbegriffe >= _einzelScanAb;
+    }
+
+
+    /**
+     * Beantwortet mehrere Suchen mit nur einem Durchlauf über alle Schlagzeilen
+     * (statt einer JPQL-Query mit {@code LIKE} pro Suchbegriff); Suchen, deren
+     * Ergebnis im Cache ist, werden nicht geprüft. Danach werden die Entities
+     * für die Seiten aller Suchen mit einer Query geladen.
+     * <br><br>
+     *
+     * Das Ergebnis ist identisch mit dem von {@link #suche(String, PageRequest)}
+     * mit Sortierung nach aufsteigender ID.
+     *
+     * @param auftraege Suchen, alle mit Sortierung nach aufsteigender ID
+     *
+     * @return Ergebnisse in der Reihenfolge von {@code auftraege}
+     */
+    public List<Page<SchlagzeilenEntity>> sucheMitEinemScan( List<Suchauftrag> auftraege ) {
+
+        final long version = _datenVersion.getVersion();
+
+        final Suchschluessel[] schluessel = new Suchschluessel[ auftraege.size() ];
+        final Suchergebnis[]   ergebnisse = new Suchergebnis[ auftraege.size() ];
+        final ScanZustand[]    zustaende  = new ScanZustand[ auftraege.size() ];
+
+        final List<ScanZustand> zuScannen = new ArrayList<>( auftraege.size() );
+        for ( int i = 0; i < auftraege.size(); i++ ) {
+
+            final Suchauftrag auftrag = auftraege.get( i );
+            if ( !SORT_ID_ASC.equals( auftrag.pageRequest().getSort() ) ) {
+
+                throw new IllegalArgumentException( "Scan-Suche nur mit Sortierung nach aufsteigender ID möglich." );
+            }
+
+            schluessel[ i ] = erzeugeSchluessel( auftrag.suchstring(), auftrag.pageRequest(), version );
+            ergebnisse[ i ] = _cache.getIfPresent( schluessel[ i ] );
+            if ( ergebnisse[ i ] == null ) {
+
+                zustaende[ i ] = new ScanZustand( schluessel[ i ].suchstring(), auftrag.pageRequest() );
+                zuScannen.add( zustaende[ i ] );
+            }
+        }
+
+        if ( !zuScannen.isEmpty() ) {
+
+            scanne( zuScannen );
+
+            for ( int i = 0; i < auftraege.size(); i++ ) {
+
+                if ( zustaende[ i ] != null ) {
+
+                    final ScanZustand zustand = zustaende[ i ];
+                    final long[] seitenIds = new long[ zustand.anzahlSeite ];
+                    System.arraycopy( zustand.seitenIds, 0, seitenIds, 0, zustand.anzahlSeite );
+
+                    ergebnisse[ i ] = new Suchergebnis( seitenIds, zustand.anzahlTreffer );
+                    _cache.put( schluessel[ i ], ergebnisse[ i ] );
+                }
+            }
+        }
+
+        final List<Long> alleIds = new ArrayList<>();
+        for ( Suchergebnis ergebnis : ergebnisse ) {
+
+            for ( long id : ergebnis.seitenIds() ) { alleIds.add( id ); }
+        }
+        final Map<Long, SchlagzeilenEntity> nachId = new HashMap<>( alleIds.size() * 2 );
+        for ( SchlagzeilenEntity entity : _repo.findAllById( alleIds ) ) {
+
+            nachId.put( entity.getId(), entity );
+        }
+
+        final List<Page<SchlagzeilenEntity>> seiten = new ArrayList<>( auftraege.size() );
+        for ( int i = 0; i < auftraege.size(); i++ ) {
+
+            final List<SchlagzeilenEntity> seitenInhalt = new ArrayList<>( ergebnisse[ i ].seitenIds().length );
+            for ( long id : ergebnisse[ i ].seitenIds() ) {
+
+                final SchlagzeilenEntity entity = nachId.get( id );
+                if ( entity != null ) { seitenInhalt.add( entity ); }
+            }
+
+            seiten.add( new PageImpl<>( seitenInhalt, auftraege.get( i ).pageRequest(),
+                                        ergebnisse[ i ].anzahlTreffer() ) );
+        }
+
+        return seiten;
+    }
+
+
+    /**
+     * Durchläuft alle Schlagzeilen aufsteigend nach ID und prüft jeden Text
+     * gegen alle Suchbegriffe.
+     *
+     * @param zustaende Zustände der Suchen, werden aktualisiert
+     */
+    private void scanne( List<ScanZustand> zustaende ) {
+
+        final ScanZustand[] array = zustaende.toArray( ScanZustand[]::new );
+
+        _transactionTemplate.executeWithoutResult( status -> {
+
+            try ( Stream<SchlagzeilenText> stream = _repo.streameIdUndText() ) {
+
+                stream.forEach( st -> {
+
+                    if ( st.schlagzeile() == null ) { return; }
+
+                    final String textKlein = st.schlagzeile().toLowerCase( GERMAN );
+                    for ( ScanZustand zustand : array ) {
+
+                        if ( textKlein.contains( zustand.suchstringKlein ) ) {
+
+                            zustand.treffer( st.id() );
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+
+    /**
+     * Textsuche über Trigramm-Index, Shards oder JPQL-Query, ohne Cache.
+     */
+    private Page<SchlagzeilenEntity> sucheOhneCache( String suchstring, PageRequest pageRequest ) {
+
+        if ( !_trigrammIndex.isAufgebaut() ) {
+
+            if ( _shards.isAktiv() ) {
+
+                final SchlagzeilenShards.Treffer treffer =
+                        _shards.suche( suchstring, pageRequest.getOffset(), pageRequest.getPageSize() );
+
+                return new PageImpl<>( ladeInReihenfolge( treffer.seitenIds() ),
+                                       pageRequest,
+                                       treffer.anzahlTreffer() );
+            }
+
+            return _repo.sucheSchlagzeilen( suchstring, pageRequest );
+        }
+
+        final long[] trefferIds = _trigrammIndex.suche( suchstring );
+
+        final List<SchlagzeilenEntity> seitenInhalt = ladeSeite( trefferIds, pageRequest );
+
+        return new PageImpl<>( seitenInhalt, pageRequest, trefferIds.length );
+    }
+
+
+    /**
+     * Lädt die Entities für die angeforderte Seite aus einem sortierten
+     * Array mit allen Treffer-IDs.
+     *
+     * @param trefferIds Aufsteigend sortierte IDs aller Treffer
+     *
+     * @param pageRequest Angeforderte Seite
+     *
+     * @return Entities der Seite, aufsteigend sortiert nach ID; leere Liste,
+     *         wenn Seite hinter letztem Treffer liegt
+     */
+    private List<SchlagzeilenEntity> ladeSeite( long[] trefferIds, PageRequest pageRequest ) {
+
+        final long vonIndex = pageRequest.getOffset();
+        if ( vonIndex >= trefferIds.length ) {
+
+            return List.of();
+        }
+
+        final int bisIndex = (int) Math.min( vonIndex + pageRequest.getPageSize(), trefferIds.length );
+
+        final long[] seitenIds = new long[ bisIndex - (int) vonIndex ];
+        System.arraycopy( trefferIds, (int) vonIndex, seitenIds, 0, seitenIds.length );
+
+        return ladeInReihenfolge( seitenIds );
+    }
+
+
+    /**
+     * Lädt Entities für IDs mit einer Query und bringt sie in die Reihenfolge
+     * der IDs.
+     *
+     * @param ids IDs der zu ladenden Schlagzeilen
+     *
+     * @return Entities in Reihenfolge von {@code ids}; IDs, zu denen es
+     *         (inzwischen) keine Schlagzeile mehr gibt, werden übersprungen
+     */
+    private List<SchlagzeilenEntity> ladeInReihenfolge( long[] ids ) {
+
+        final List<Long> idListe = new ArrayList<>( ids.length );
+        for ( long id : ids ) { idListe.add( id ); }
+
+        final Map<Long, SchlagzeilenEntity> nachId = new HashMap<>( ids.length * 2 );
+        for ( SchlagzeilenEntity entity : _repo.findAllById( idListe ) ) {
+
+            nachId.put( entity.getId(), entity );
+        }
+
+        final List<SchlagzeilenEntity> ergebnisListe = new ArrayList<>( ids.length );
+        for ( long id : ids ) {
+
+            final SchlagzeilenEntity entity = nachId.get( id );
+            if ( entity != null ) { ergebnisListe.add( entity ); }
+        }
+
+        return ergebnisListe;
+    }
+
+}
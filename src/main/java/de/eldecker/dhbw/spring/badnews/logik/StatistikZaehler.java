@@ -0,0 +1,266 @@
+package de.eldecker.dhbw.spring.badnews.logik;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenBeobachter;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenRepo;
+import de.eldecker.dhbw.spring.badnews.helferlein.EigenePrometheusMetriken;
+import de.eldecker.dhbw.spring.badnews.model.AnzahlByKategorie;
+
+
+/**
+ * Bean hält die Anzahl der Inlands- und Auslands-Schlagzeilen im Speicher vor
+ * ("materialisierte Statistik"), damit für die Statistik-Seite nicht bei jedem
+ * Aufruf eine {@code GROUP BY}-Query über die ganze Tabelle ausgeführt werden
+ * muss. Die Summe beider Zähler ersetzt außerdem die {@code COUNT}-Query für
+ * die Paginierung der Schlagzeilenliste. Die Zähler werden beim Start aus der DB gelesen und danach als
+ * {@link SchlagzeilenBeobachter} bei jedem INSERT, UPDATE und DELETE angepasst.
+ * <br><br>
+ *
+ * Die Methode {@link #pruefen()} vergleicht die Zähler regelmäßig mit der
+ * echten {@code GROUP BY}-Query; die Abweichung wird als Metrik bereitgestellt.
+ * Wird bei zwei Prüfungen hintereinander dieselbe Abweichung festgestellt, dann
+ * werden die Zähler korrigiert (eine einmalige Abweichung kann auch durch eine
+ * Transaktion entstehen, deren Commit die Beobachter noch nicht erreicht hat).
+ * Nach einer Korrektur wird die {@link DatenVersion} erhöht, damit Clients
+ * mit {@code ETag} die korrigierte Statistik bekommen und kein 304.
+ * Im Shard-Modus wird die {@code GROUP BY}-Query parallel in allen Shards
+ * ausgeführt, siehe {@link SchlagzeilenShards#zaehleInlandAusland()}.
+ */
+@Component
+@Order( SchlagzeilenBeobachter.REIHENFOLGE_INDEX )
+public class StatistikZaehler implements SchlagzeilenBeobachter {
+
+    private final static Logger LOG = LoggerFactory.getLogger( StatistikZaehler.class );
+
+    /** Repo-Bean für Zugriff auf Tabelle mit Schlagzeilen. */
+    private final SchlagzeilenRepo _repo;
+
+    /** Shards für parallele {@code GROUP BY}-Query (optional). */
+    private final SchlagzeilenShards _shards;
+
+    /** Bean, um Messwerte für eigene Metriken zu erheben. */
+    private final EigenePrometheusMetriken _eigeneMetriken;
+
+    /** Globale Versionsnummer, wird nach Korrektur der Zähler erhöht. */
+    private final DatenVersion _datenVersion;
+
+    /** Aktuelle Anzahl der Inlands-Schlagzeilen. */
+    private final AtomicLong _anzahlInland = new AtomicLong( 0 );
+
+    /** Aktuelle Anzahl der Auslands-Schlagzeilen. */
+    private final AtomicLong _anzahlAusland = new AtomicLong( 0 );
+
+    /** Bei letzter Prüfung festgestellte Abweichung für Inland (DB minus Zähler). */
+    private long _letzteAbweichungInland = 0;
+
+    /** Bei letzter Prüfung festgestellte Abweichung für Ausland (DB minus Zähler). */
+    private long _letzteAbweichungAusland = 0;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    public StatistikZaehler( SchlagzeilenRepo repo,
+                             SchlagzeilenShards shards,
+                             EigenePrometheusMetriken eigeneMetriken,
+                             DatenVersion datenVersion ) {
+
+        _repo           = repo;
+        _shards         = shards;
+        _eigeneMetriken = eigeneMetriken;
+        _datenVersion   = datenVersion;
+    }
+
+
+    /**
+     * Zähler einmalig beim Start mit {@code GROUP BY}-Query initialisieren.
+     */
+    @Override
+    public void aufbauen() {
+
+        final long[] anzahlDb = zaehleInDb();
+
+        _anzahlInland.set ( anzahlDb[ 0 ] );
+        _anzahlAusland.set( anzahlDb[ 1 ] );
+
+        LOG.info( "Statistik initialisiert: {} Inlands- und {} Auslands-Schlagzeilen.",
+                  anzahlDb[ 0 ], anzahlDb[ 1 ] );
+    }
+
+
+    /**
+     * Liefert die Statistik ohne DB-Zugriff.
+     *
+     * @return Liste mit je einem Element für Inland und Ausland; Kategorien
+     *         ohne Schlagzeilen sind (wie beim Ergebnis der {@code GROUP BY}-Query)
+     *         nicht enthalten
+     */
+    public List<AnzahlByKategorie> getStatistik() {
+
+        final List<AnzahlByKategorie> ergebnisListe = new ArrayList<>( 2 );
+
+        final long anzahlInland  = _anzahlInland.get();
+        final long anzahlAusland = _anzahlAusland.get();
+
+        if ( anzahlInland  > 0 ) { ergebnisListe.add( new AnzahlByKategorie( true , anzahlInland  ) ); }
+        if ( anzahlAusland > 0 ) { ergebnisListe.add( new AnzahlByKategorie( false, anzahlAusland ) ); }
+
+        return ergebnisListe;
+    }
+
+
+    /**
+     * Liefert die Gesamtzahl der Schlagzeilen ohne DB-Zugriff, z.B. für
+     * die Anzahl der Seiten bei der Paginierung. Abweichungen von der DB
+     * werden wie bei der Statistik von {@link #pruefen()} korrigiert.
+     *
+     * @return Summe der Inlands- und Auslands-Schlagzeilen
+     */
+    public long getAnzahlGesamt() {
+
+        return _anzahlInland.get() + _anzahlAusland.get();
+    }
+
+
+    /**
+     * Zähler für Kategorie der neuen Schlagzeile um 1 erhöhen.
+     *
+     * @param entity Neue Schlagzeile
+     */
+    @Override
+    public void nachEinfuegen( SchlagzeilenEntity entity ) {
+
+        zaehler( entity.isInland() ).incrementAndGet();
+    }
+
+
+    /**
+     * Zähler anpassen, wenn sich die Kategorie der Schlagzeile geändert hat.
+     *
+     * @param entity Geänderte Schlagzeile
+     *
+     * @param inlandVorher Wert des Flags {@code inland} vor der Änderung
+     */
+    @Override
+    public void nachAenderung( SchlagzeilenEntity entity, boolean inlandVorher ) {
+
+        if ( entity.isInland() != inlandVorher ) {
+
+            zaehler( inlandVorher       ).decrementAndGet();
+            zaehler( entity.isInland() ).incrementAndGet();
+        }
+    }
+
+
+    /**
+     * Zähler für Kategorie der gelöschten Schlagzeile um 1 verringern.
+     *
+     * @param entity Gelöschte Schlagzeile
+     */
+    @Override
+    public void nachLoeschen( SchlagzeilenEntity entity ) {
+
+        zaehler( entity.isInland() ).decrementAndGet();
+    }
+
+
+    /**
+     * Konsistenz-Prüfung: Vergleicht die Zähler mit dem Ergebnis der
+     * {@code GROUP BY}-Query. Wenn sich die Zähler während der Query geändert
+     * haben, dann wird die Prüfung übersprungen, weil das Ergebnis nicht
+     * vergleichbar ist.
+     */
+    @Scheduled( initialDelayString = "${badnews.statistik.pruefung-intervall:PT5M}",
+                fixedDelayString   = "${badnews.statistik.pruefung-intervall:PT5M}" )
+    public synchronized void pruefen() {
+
+        final long inlandVorher  = _anzahlInland.get();
+        final long auslandVorher = _anzahlAusland.get();
+
+        final long[] anzahlDb = zaehleInDb();
+
+        if ( inlandVorher != _anzahlInland.get() || auslandVorher != _anzahlAusland.get() ) {
+
+            LOG.debug( "Konsistenz-Prüfung der Statistik übersprungen, weil gerade geschrieben wird." );
+            return;
+        }
+
+        final long abweichungInland  = anzahlDb[ 0 ] - inlandVorher;
+        final long abweichungAusland = anzahlDb[ 1 ] - auslandVorher;
+
+        _eigeneMetriken.setStatistikAbweichung( abweichungInland, abweichungAusland );
+
+        if ( abweichungInland == 0 && abweichungAusland == 0 ) {
+
+            _letzteAbweichungInland  = 0;
+            _letzteAbweichungAusland = 0;
+            return;
+        }
+
+        LOG.warn( "Statistik weicht von DB ab: Inland {}, Ausland {}.",
+                  abweichungInland, abweichungAusland );
+
+        if ( abweichungInland  == _letzteAbweichungInland &&
+             abweichungAusland == _letzteAbweichungAusland ) {
+
+            _anzahlInland.addAndGet ( abweichungInland  );
+            _anzahlAusland.addAndGet( abweichungAusland );
+
+            _letzteAbweichungInland  = 0;
+            _letzteAbweichungAusland = 0;
+
+            _datenVersion.erhoeheVersion(); // sonst bekämen Clients mit altem ETag weiter 304
+
+            LOG.warn( "Statistik wurde korrigiert." );
+
+        } else {
+
+            _letzteAbweichungInland  = abweichungInland;
+            _letzteAbweichungAusland = abweichungAusland;
+        }
+    }
+
+
+    /**
+     * Führt die {@code GROUP BY}-Query aus (im Shard-Modus in allen Shards).
+     *
+     * @return Array mit Anzahl Inlands-Schlagzeilen (Index 0) und
+     *         Auslands-Schlagzeilen (Index 1) in der DB
+     */
+    private long[] zaehleInDb() {
+
+        if ( _shards.isAktiv() ) {
+
+            return _shards.zaehleInlandAusland();
+        }
+
+        final long[] ergebnis = new long[ 2 ];
+
+        for ( AnzahlByKategorie abk : _repo.zaehleSchlagzeilenInlandAusland() ) {
+
+            ergebnis[ abk.inland() ? 0 : 1 ] = abk.anzahl();
+        }
+
+        return ergebnis;
+    }
+
+
+    /**
+     * Liefert den Zähler für eine Kategorie.
+     */
+    private AtomicLong zaehler( boolean inland ) {
+
+        return inland ? _anzahlInland : _anzahlAusland;
+    }
+
+}
@@ -0,0 +1,583 @@
+package de.eldecker.dhbw.spring.badnews.logik;
+
+import static java.util.Locale.GERMAN;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenBeobachter;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenRepo;
+import de.eldecker.dhbw.spring.badnews.model.SchlagzeilenText;
+
+
+/**
+ * In-Memory-Index über alle Trigramme (Teilstrings mit drei Zeichen) der
+ * Schlagzeilen. Für jedes Trigramm gibt es eine aufsteigend sortierte
+ * Liste der IDs der Schlagzeilen, die dieses Trigramm enthalten
+ * ("Posting-Liste").
+ * <br><br>
+ *
+ * Bei einer Suche werden die Posting-Listen aller Trigramme des Suchstrings
+ * geschnitten; die so ermittelten Kandidaten werden danach noch gegen den
+ * Text der Schlagzeile geprüft, weil das Vorkommen aller Trigramme noch
+ * nicht bedeutet, dass der ganze Suchstring enthalten ist. Damit wird
+ * für die Suche weder ein Full Table Scan noch eine COUNT-Query benötigt.
+ * Für diese Prüfung wird pro ID nur die Nummer des Texts gespeichert (4 Bytes
+ * in einem Array, siehe {@link TextNummern}); jeder der wenigen tausend
+ * verschiedenen Texte ist nur einmal im Index.
+ * <br><br>
+ *
+ * Beim Löschen oder Ändern einer Schlagzeile bleibt ihre ID in den
+ * Posting-Listen der nicht mehr enthaltenen Trigramme zunächst stehen (die
+ * Prüfung der Kandidaten filtert sie aus); eine Liste wird erst aufgeräumt,
+ * wenn mehr als die Hälfte ihrer Einträge veraltet ist. Sonst müsste bei
+ * Trigrammen wie " in", die in fast jeder Schlagzeile vorkommen, bei jedem
+ * Löschen das ganze Array verschoben werden.
+ * <br><br>
+ *
+ * Der Index wird beim Start der Anwendung aus der DB aufgebaut und danach
+ * als {@link SchlagzeilenBeobachter} bei jedem Schreibzugriff aktualisiert.
+ * Wenn Property {@code badnews.suche.trigramm-index} den Wert {@code false}
+ * hat, dann wird der Index nicht aufgebaut.
+ */
+@Component
+@Order( SchlagzeilenBeobachter.REIHENFOLGE_INDEX )
+public class TrigrammIndex implements SchlagzeilenBeobachter {
+
+    private final static Logger LOG = LoggerFactory.getLogger( TrigrammIndex.class );
+
+    /** Leeres Ergebnis-Array, damit nicht jedes Mal ein neues Objekt erzeugt wird. */
+    private static final long[] KEINE_TREFFER = new long[ 0 ];
+
+    /** Repo-Bean für Zugriff auf Tabelle mit Schlagzeilen. */
+    private final SchlagzeilenRepo _repo;
+
+    /** Für Transaktion, in der beim Aufbau des Index der Stream mit allen Schlagzeilen gelesen wird. */
+    private final TransactionTemplate _transactionTemplate;
+
+    /** Index ist nur aktiv, wenn dieses Flag {@code true} ist. */
+    private final boolean _aktiv;
+
+    /** Schlüssel: Trigramm kodiert als {@code long}, Wert: Posting-Liste mit IDs. */
+    private final Map<Long, PostingListe> _postingListen = new HashMap<>();
+
+    /** Nummer des Texts für jede ID im Index (für Prüfung der Kandidaten); 0 für "nicht im Index". */
+    private final TextNummern _textNummern = new TextNummern();
+
+    /**
+     * Texte in Kleinbuchstaben, Index ist die Text-Nummer; Element 0 ist nicht
+     * belegt. Ein Text bleibt auch dann in der Liste, wenn keine Schlagzeile
+     * ihn mehr hat; es gibt nur wenige tausend verschiedene Texte.
+     */
+    private final List<String> _texte = new ArrayList<>( List.of( "" ) );
+
+    /** Schlüssel: Text in Kleinbuchstaben, Wert: Index in {@link #_texte}. */
+    private final Map<String, Integer> _textNummerFuerText = new HashMap<>();
+
+    /** Anzahl der Schlagzeilen im Index. */
+    private long _anzahlSchlagzeilen = 0;
+
+    /** Schützt alle Datenstrukturen des Index; Suchen können parallel laufen. */
+    private final ReadWriteLock _lock = new ReentrantReadWriteLock();
+
+    /** Wird erst nach erfolgreichem Aufbau des Index auf {@code true} gesetzt. */
+    private volatile boolean _aufgebaut = false;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    public TrigrammIndex( SchlagzeilenRepo repo,
+                          TransactionTemplate transactionTemplate,
+                          @Value( "${badnews.suche.trigramm-index:true}" ) boolean aktiv ) {
+
+        _repo                = repo;
+        _transactionTemplate = transactionTemplate;
+        _aktiv               = aktiv;
+    }
+
+
+    /**
+     * Baut den Index aus allen Schlagzeilen in der DB auf.
+     */
+    @Override
+    public void aufbauen() {
+
+        if ( !_aktiv ) {
+
+            LOG.info( "Trigramm-Index ist deaktiviert, Suche erfolgt mit JPQL-Query." );
+            return;
+        }
+
+        final long startZeit = System.currentTimeMillis();
+
+        _lock.writeLock().lock();
+        try {
+
+            _transactionTemplate.executeWithoutResult( status -> {
+
+                try ( Stream<SchlagzeilenText> stream = _repo.streameIdUndText() ) {
+
+                    stream.forEach( st -> hinzufuegen( st.id(), st.schlagzeile() ) );
+                }
+            });
+
+            _aufgebaut = true;
+
+        } finally {
+
+            _lock.writeLock().unlock();
+        }
+
+        LOG.info( "Trigramm-Index für {} Schlagzeilen mit {} Trigrammen in {} ms aufgebaut.",
+                  _anzahlSchlagzeilen, _postingListen.size(), System.currentTimeMillis() - startZeit );
+    }
+
+
+    /**
+     * Abfrage, ob der Index für Suchanfragen verwendet werden kann.
+     *
+     * @return {@code true} gdw. der Index aktiviert ist und aufgebaut wurde
+     */
+    public boolean isAufgebaut() {
+
+        return _aufgebaut;
+    }
+
+
+    /**
+     * Sucht alle Schlagzeilen, die {@code suchstring} als Teilstring enthalten
+     * (Groß-/Kleinschreibung wird ignoriert).
+     *
+     * @param suchstring Suchstring mit mindestens drei Zeichen
+     *
+     * @return Aufsteigend sortiertes Array mit den IDs aller Treffer, also
+     *         in derselben Reihenfolge wie bei Sortierung mit
+     *         {@code SORT_ID_ASC}; die Länge des Arrays ist die Gesamtzahl
+     *         der Treffer. Leeres Array, wenn {@code suchstring} kürzer als
+     *         drei Zeichen ist.
+     */
+    public long[] suche( String suchstring ) {
+
+        final String suchstringKlein = suchstring.toLowerCase( GERMAN );
+        final Set<Long> trigramme = zerlegeInTrigramme( suchstringKlein );
+        if ( trigramme.isEmpty() ) {
+
+            return KEINE_TREFFER;
+        }
+
+        _lock.readLock().lock();
+        try {
+
+            final List<PostingListe> listen = new ArrayList<>( trigramme.size() );
+            for ( Long trigramm : trigramme ) {
+
+                final PostingListe liste = _postingListen.get( trigramm );
+                if ( liste == null ) {
+
+                    return KEINE_TREFFER; // Trigramm kommt in keiner Schlagzeile vor
+                }
+                listen.add( liste );
+            }
+
+            // mit kürzester Liste beginnen, damit möglichst wenige Kandidaten geprüft werden
+            listen.sort( ( a, b ) -> Integer.compare( a.groesse(), b.groesse() ) );
+
+            final PostingListe kuerzesteListe = listen.get( 0 );
+            final long[] ergebnis = new long[ kuerzesteListe.groesse() ];
+            int anzahlTreffer = 0;
+
+            kandidatenSchleife:
+            for ( int i = 0; i < kuerzesteListe.groesse(); i++ ) {
+
+                final long id = kuerzesteListe.get( i );
+                for ( int j = 1; j < listen.size(); j++ ) {
+
+                    if ( !listen.get( j ).enthaelt( id ) ) { continue kandidatenSchleife; }
+                }
+
+                final int textNummer = _textNummern.get( id ); // 0: gelöscht, Eintrag veraltet
+                if ( textNummer != 0 && _texte.get( textNummer ).contains( suchstringKlein ) ) {
+
+                    ergebnis[ anzahlTreffer++ ] = id;
+                }
+            }
+
+            return Arrays.copyOf( ergebnis, anzahlTreffer );
+
+        } finally {
+
+            _lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Neu gespeicherte Schlagzeile in Index aufnehmen.
+     *
+     * @param entity Neue Schlagzeile
+     */
+    @Override
+    public void nachEinfuegen( SchlagzeilenEntity entity ) {
+
+        if ( !_aktiv ) { return; }
+
+        _lock.writeLock().lock();
+        try {
+
+            hinzufuegen( entity.getId(), entity.getSchlagzeile() );
+
+        } finally {
+
+            _lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Geänderte Schlagzeile mit neuem Text im Index ablegen.
+     *
+     * @param entity Geänderte Schlagzeile
+     */
+    @Override
+    public void nachAenderung( SchlagzeilenEntity entity ) {
+
+        if ( !_aktiv ) { return; }
+
+        _lock.writeLock().lock();
+        try {
+
+            hinzufuegen( entity.getId(), entity.getSchlagzeile() );
+
+        } finally {
+
+            _lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Gelöschte Schlagzeile aus Index entfernen.
+     *
+     * @param entity Gelöschte Schlagzeile
+     */
+    @Override
+    public void nachLoeschen( SchlagzeilenEntity entity ) {
+
+        if ( !_aktiv ) { return; }
+
+        _lock.writeLock().lock();
+        try {
+
+            entfernen( entity.getId() );
+
+        } finally {
+
+            _lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Nimmt eine Schlagzeile in den Index auf oder ändert ihren Text im Index;
+     * ein erneuter Aufruf mit derselben ID und demselben Text ändert den Index
+     * nicht. Aufrufer muss Schreib-Lock halten.
+     *
+     * @param id ID der Schlagzeile
+     *
+     * @param schlagzeile Text der Schlagzeile
+     */
+    private void hinzufuegen( Long id, String schlagzeile ) {
+
+        if ( id == null || schlagzeile == null ) { return; }
+
+        final String textKlein  = schlagzeile.toLowerCase( GERMAN );
+        final int    nummerAlt  = _textNummern.get( id );
+        final int    nummerNeu  = _textNummerFuerText.computeIfAbsent( textKlein, t -> {
+
+            _texte.add( t );
+            return _texte.size() - 1;
+        });
+        if ( nummerNeu == nummerAlt ) { return; }
+
+        // vor dem Anpassen der Posting-Listen, weil beim Aufräumen die aktuelle Nummer geprüft wird
+        _textNummern.set( id, nummerNeu );
+        if ( nummerAlt == 0 ) { _anzahlSchlagzeilen++; }
+
+        final Set<Long> trigrammeAlt = nummerAlt == 0 ? Set.of() : zerlegeInTrigramme( _texte.get( nummerAlt ) );
+        final Set<Long> trigrammeNeu = zerlegeInTrigramme( textKlein );
+
+        for ( Long trigramm : trigrammeAlt ) {
+
+            if ( !trigrammeNeu.contains( trigramm ) ) { alsVeraltetZaehlen( trigramm ); }
+        }
+        for ( Long trigramm : trigrammeNeu ) {
+
+            if ( trigrammeAlt.contains( trigramm ) ) { continue; }
+
+            final PostingListe liste = _postingListen.computeIfAbsent( trigramm, t -> new PostingListe() );
+            if ( !liste.hinzufuegen( id ) ) {
+
+                liste.wiederGueltig(); // veralteter Eintrag von früherem Text dieser ID
+            }
+        }
+    }
+
+
+    /**
+     * Entfernt eine Schlagzeile aus dem Index; die Einträge in den
+     * Posting-Listen werden nur als veraltet gezählt. Aufrufer muss
+     * Schreib-Lock halten.
+     *
+     * @param id ID der Schlagzeile
+     */
+    private void entfernen( Long id ) {
+
+        final int nummer = _textNummern.get( id );
+        if ( nummer == 0 ) { return; }
+
+        _textNummern.set( id, 0 );
+        _anzahlSchlagzeilen--;
+
+        for ( Long trigramm : zerlegeInTrigramme( _texte.get( nummer ) ) ) {
+
+            alsVeraltetZaehlen( trigramm );
+        }
+    }
+
+
+    /**
+     * Zählt in der Posting-Liste eines Trigramms einen Eintrag als veraltet
+     * und räumt die Liste auf, wenn mehr als die Hälfte veraltet ist: Es
+     * bleiben nur die IDs, deren aktueller Text das Trigramm enthält. Aufrufer
+     * muss Schreib-Lock halten.
+     *
+     * @param trigramm Trigramm, das die Schlagzeile nicht mehr enthält
+     */
+    private void alsVeraltetZaehlen( Long trigramm ) {
+
+        final PostingListe liste = _postingListen.get( trigramm );
+        if ( liste == null || !liste.veraltet() ) { return; }
+
+        final String trigrammText = new String( new char[] { (char) ( trigramm >>> 32 ),
+                                                             (char) ( trigramm >>> 16 ),
+                                                             (char) ( trigramm.longValue() ) } );
+        liste.aufraeumen( id -> {
+
+            final int nummer = _textNummern.get( id );
+            return nummer != 0 && _texte.get( nummer ).contains( trigrammText );
+        });
+
+        if ( liste.groesse() == 0 ) { _postingListen.remove( trigramm ); }
+    }
+
+
+    /**
+     * Zerlegt einen String in alle (verschiedenen) Trigramme. Jedes Trigramm
+     * wird in einem {@code long} kodiert (16 Bit pro Zeichen).
+     *
+     * @param text String in Kleinbuchstaben
+     *
+     * @return Menge der Trigramme, leer wenn {@code text} kürzer als drei Zeichen
+     */
+    private static Set<Long> zerlegeInTrigramme( String text ) {
+
+        final Set<Long> ergebnis = new HashSet<>();
+        for ( int i = 0; i + 3 <= text.length(); i++ ) {
+
+            final long trigramm = ( (long) text.charAt( i     ) << 32 ) |
+                                  ( (long) text.charAt( i + 1 ) << 16 ) |
+                                    (long) text.charAt( i + 2 );
+            ergebnis.add( trigramm );
+        }
+
+        return ergebnis;
+    }
+
+
+    /**
+     * Aufsteigend sortierte Liste von IDs ohne Duplikate, intern als
+     * {@code long}-Array gespeichert (kein Boxing). Enthält auch veraltete
+     * Einträge, bis die Liste aufgeräumt wird.
+     */
+    private static class PostingListe {
+
+        private long[] _werte = new long[ 4 ];
+
+        private int _groesse = 0;
+
+        /** Anzahl der Einträge, deren Schlagzeile das Trigramm nicht mehr enthält. */
+        private int _anzahlVeraltet = 0;
+
+
+        int groesse() {
+
+            return _groesse;
+        }
+
+
+        long get( int index ) {
+
+            return _werte[ index ];
+        }
+
+
+        boolean enthaelt( long id ) {
+
+            return Arrays.binarySearch( _werte, 0, _groesse, id ) >= 0;
+        }
+
+
+        /**
+         * @return {@code false}, wenn die ID schon enthalten war
+         */
+        boolean hinzufuegen( long id ) {
+
+            // Normalfall: neue IDs sind größer als alle bisherigen (Sequenz)
+            if ( _groesse == 0 || id > _werte[ _groesse - 1 ] ) {
+
+                if ( _groesse == _werte.length ) { _werte = Arrays.copyOf( _werte, _groesse * 2 ); }
+                _werte[ _groesse++ ] = id;
+                return true;
+            }
+
+            final int pos = Arrays.binarySearch( _werte, 0, _groesse, id );
+            if ( pos >= 0 ) { return false; } // schon enthalten
+
+            final int einfuegePos = -pos - 1;
+            if ( _groesse == _werte.length ) { _werte = Arrays.copyOf( _werte, _groesse * 2 ); }
+            System.arraycopy( _werte, einfuegePos, _werte, einfuegePos + 1, _groesse - einfuegePos );
+            _werte[ einfuegePos ] = id;
+            _groesse++;
+
+            return true;
+        }
+
+
+        /**
+         * Zählt einen Eintrag als veraltet; er bleibt bis zum Aufräumen in der Liste.
+         *
+         * @return {@code true}, wenn mehr als die Hälfte der Einträge veraltet
+         *         ist und die Liste aufgeräumt werden soll
+         */
+        boolean veraltet() {
+
+            _anzahlVeraltet++;
+
+            return _anzahlVeraltet * 2 > _groesse;
+        }
+
+
+        /**
+         * Ein veralteter Eintrag gilt wieder, weil der Text der Schlagzeile
+         * das Trigramm wieder enthält.
+         */
+        void wiederGueltig() {
+
+            _anzahlVeraltet--;
+        }
+
+
+        /**
+         * Entfernt alle veralteten Einträge in einem Durchlauf.
+         *
+         * @param gueltig Liefert für jede ID, ob der Eintrag noch gilt
+         */
+        void aufraeumen( LongPredicate gueltig ) {
+
+            int neueGroesse = 0;
+            for ( int i = 0; i < _groesse; i++ ) {
+
+                if ( gueltig.test( _werte[ i ] ) ) { _werte[ neueGroesse++ ] = _werte[ i ]; }
+            }
+            _groesse        = neueGroesse;
+            _anzahlVeraltet = 0;
+
+            if ( _werte.length > 4 && _groesse < _werte.length / 4 ) {
+
+                _werte = Arrays.copyOf( _werte, Math.max( 4, _groesse * 2 ) );
+            }
+        }
+    }
+
+
+    /**
+     * Text-Nummer für jede ID, in Seiten zu je 4096 IDs als {@code int}-Array
+     * gespeichert, also ca. 4 Bytes pro Schlagzeile statt eines Map-Eintrags
+     * mit {@code Long}-Schlüssel (ca. 75 Bytes). Da die IDs aus einer Sequenz
+     * kommen, sind die Seiten dicht belegt; eine Seite ohne belegte ID wird
+     * wieder freigegeben.
+     */
+    private static class TextNummern {
+
+        private static final int BITS_SEITE = 12;
+
+        private static final int MASKE_SEITE = ( 1 << BITS_SEITE ) - 1;
+
+        /** Schlüssel: Seitennummer (ID ohne die unteren Bits). */
+        private final Map<Long, Seite> _seiten = new HashMap<>();
+
+
+        private static class Seite {
+
+            private final int[] _nummern = new int[ MASKE_SEITE + 1 ];
+
+            /** Anzahl der Elemente ungleich 0 in {@link #_nummern}. */
+            private int _anzahlBelegt = 0;
+        }
+
+
+        /**
+         * @return Text-Nummer oder 0, wenn die ID nicht im Index ist
+         */
+        int get( long id ) {
+
+            final Seite seite = _seiten.get( id >> BITS_SEITE );
+
+            return seite == null ? 0 : seite._nummern[ (int) ( id & MASKE_SEITE ) ];
+        }
+
+
+        /**
+         * @param nummer Text-Nummer oder 0, um die ID zu entfernen
+         */
+        void set( long id, int nummer ) {
+
+            final long seitenNummer = id >> BITS_SEITE;
+            final int  index        = (int) ( id & MASKE_SEITE );
+
+            Seite seite = _seiten.get( seitenNummer );
+            if ( seite == null ) {
+
+                if ( nummer == 0 ) { return; }
+
+                seite = new Seite();
+                _seiten.put( seitenNummer, seite );
+            }
+
+            if ( seite._nummern[ index ] == 0 && nummer != 0 ) { seite._anzahlBelegt++; }
+            if ( seite._nummern[ index ] != 0 && nummer == 0 ) { seite._anzahlBelegt--; }
+            seite._nummern[ index ] = nummer;
+
+            if ( seite._anzahlBelegt == 0 ) { _seiten.remove( seitenNummer ); }
+        }
+    }
+
+}
@@ -0,0 +1,457 @@
+package de.eldecker.dhbw.spring.badnews.logik;
+
+import static java.util.Locale.GERMAN;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenBeobachter;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenRepo;
+import de.eldecker.dhbw.spring.badnews.model.SchlagzeilenText;
+import de.eldecker.dhbw.spring.badnews.model.Vorschlag;
+
+
+/**
+ * In-Memory-Trie (Präfixbaum) für die Autovervollständigung von Suchbegriffen.
+ * Die Begriffe sind die Ereignisse und Orte aus {@link SchlagzeilenErzeuger}
+ * (auch mehrteilige wie "Bosnien und Herzegowina") sowie alle durch Leerzeichen
+ * getrennten Wörter der gespeicherten Schlagzeilen. Die Häufigkeit eines
+ * Begriffs ist die Anzahl seiner Vorkommen in den Schlagzeilen; Begriffe aus
+ * den Arrays, die (noch) in keiner Schlagzeile vorkommen, haben Häufigkeit 0.
+ * <br><br>
+ *
+ * Jeder Knoten speichert die {@link #MAX_VORSCHLAEGE} häufigsten Begriffe in
+ * seinem Teilbaum. Eine Abfrage muss also nur dem Präfix folgen und diese
+ * Liste kopieren; die Dauer hängt nur von der Länge des Präfix ab, nicht von
+ * der Anzahl der Schlagzeilen. Auf die DB wird dabei nicht zugegriffen.
+ * <br><br>
+ *
+ * Der Trie wird beim Start der Anwendung aus der DB aufgebaut und danach als
+ * {@link SchlagzeilenBeobachter} bei jedem Schreibzugriff aktualisiert; dabei
+ * werden die Top-Listen nur entlang des Pfads des geänderten Begriffs angepasst.
+ * Die Texte der Schlagzeilen werden nicht pro ID gespeichert: Bei UPDATE
+ * liefert der {@link de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntityListener}
+ * den alten Text mit, bei DELETE enthält die Entity noch den gespeicherten Text.
+ */
+@Component
+@Order( SchlagzeilenBeobachter.REIHENFOLGE_INDEX )
+public class VorschlagsTrie implements SchlagzeilenBeobachter {
+
+    private final static Logger LOG = LoggerFactory.getLogger( VorschlagsTrie.class );
+
+    /** Max. Anzahl Vorschläge pro Abfrage (und Länge der Top-Liste pro Knoten). */
+    public static final int MAX_VORSCHLAEGE = 10;
+
+    /** Mehrteilige Begriffe aus den Arrays, deren Vorkommen per Teilstring gezählt werden. */
+    private static final List<String> MEHRTEILIGE_BEGRIFFE =
+            Stream.of( SchlagzeilenErzeuger.EREIGNISSE_ARRAY,
+                       SchlagzeilenErzeuger.ORTE_DEUTSCHLAD_ARRAY,
+                       SchlagzeilenErzeuger.ORTE_NATIONEN_ARRAY )
+                  .flatMap( Arrays::stream )
+                  .filter( begriff -> begriff.contains( " " ) )
+                  .toList();
+
+    /** Sortierung der Top-Listen: Häufigkeit absteigend, dann alphabetisch. */
+    private static final Comparator<Knoten> REIHENFOLGE =
+            Comparator.comparingLong( ( Knoten k ) -> -k._haeufigkeit )
+                      .thenComparing( k -> k._schluessel );
+
+    /** Repo-Bean für Zugriff auf Tabelle mit Schlagzeilen. */
+    private final SchlagzeilenRepo _repo;
+
+    /** Für Transaktion, in der beim Aufbau der Stream mit allen Schlagzeilen gelesen wird. */
+    private final TransactionTemplate _transactionTemplate;
+
+    /** Wurzel des Trie (leeres Präfix). */
+    private final Knoten _wurzel = new Knoten( null, "" );
+
+    /** Schützt alle Datenstrukturen; Abfragen können parallel laufen. */
+    private final ReadWriteLock _lock = new ReentrantReadWriteLock();
+
+
+    /**
+     * Knoten im Trie; ein Knoten steht für einen Begriff, wenn {@link #_text}
+     * gesetzt ist.
+     */
+    private static final class Knoten {
+
+        /** Elternknoten, {@code null} für Wurzel. */
+        final Knoten _eltern;
+
+        /** Begriff in Kleinbuchstaben (= Pfad von der Wurzel), für Sortierung. */
+        final String _schluessel;
+
+        /** Kindknoten nach nächstem Zeichen. */
+        final Map<Character, Knoten> _kinder = new HashMap<>( 4 );
+
+        /** Begriff in der Schreibweise für die Anzeige; {@code null}, wenn Knoten kein Begriff ist. */
+        String _text = null;
+
+        /** Anzahl Vorkommen des Begriffs in den Schlagzeilen. */
+        long _haeufigkeit = 0;
+
+        /** Häufigste Begriffe im Teilbaum (inkl. dieses Knotens), sortiert nach {@link #REIHENFOLGE}. */
+        Knoten[] _top = new Knoten[ 0 ];
+
+        Knoten( Knoten eltern, String schluessel ) {
+
+            _eltern     = eltern;
+            _schluessel = schluessel;
+        }
+    }
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    public VorschlagsTrie( SchlagzeilenRepo repo, TransactionTemplate transactionTemplate ) {
+
+        _repo                = repo;
+        _transactionTemplate = transactionTemplate;
+    }
+
+
+    /**
+     * Baut den Trie aus den Arrays mit Ereignissen und Orten und allen
+     * Schlagzeilen in der DB auf. Zuerst werden nur die Häufigkeiten gezählt,
+     * die Top-Listen werden danach einmal von den Blättern zur Wurzel berechnet.
+     */
+    @Override
+    public void aufbauen() {
+
+        final long startZeit = System.currentTimeMillis();
+
+        final long anzahlSchlagzeilen;
+        _lock.writeLock().lock();
+        try {
+
+            Stream.of( SchlagzeilenErzeuger.EREIGNISSE_ARRAY,
+                       SchlagzeilenErzeuger.ORTE_DEUTSCHLAD_ARRAY,
+                       SchlagzeilenErzeuger.ORTE_NATIONEN_ARRAY )
+                  .flatMap( Arrays::stream )
+                  .forEach( begriff -> {
+
+                      knotenFuer( begriff, begriff );
+                      for ( String wort : begriff.split( " " ) ) { knotenFuer( wort, wort ); }
+                  });
+
+            anzahlSchlagzeilen = _transactionTemplate.execute( status -> {
+
+                try ( Stream<SchlagzeilenText> stream = _repo.streameIdUndText() ) {
+
+                    return stream.map( SchlagzeilenText::schlagzeile )
+                                 .filter( Objects::nonNull )
+                                 .mapToLong( text -> { zaehle( text, +1, false ); return 1; } )
+                                 .sum();
+                }
+            });
+
+            berechneTopListen( _wurzel );
+
+        } finally {
+
+            _lock.writeLock().unlock();
+        }
+
+        LOG.info( "Trie für Vorschläge mit {} Schlagzeilen in {} ms aufgebaut.",
+                  anzahlSchlagzeilen, System.currentTimeMillis() - startZeit );
+    }
+
+
+    /**
+     * Liefert die häufigsten Begriffe, die mit {@code praefix} beginnen.
+     *
+     * @param praefix Anfang des Begriffs, Groß-/Kleinschreibung wird ignoriert
+     *
+     * @param anzahl Max. Anzahl Vorschläge, wird auf {@link #MAX_VORSCHLAEGE}
+     *               begrenzt
+     *
+     * @return Vorschläge, absteigend sortiert nach Häufigkeit; leere Liste, wenn
+     *         {@code praefix} leer ist oder kein Begriff damit beginnt
+     */
+    public List<Vorschlag> vorschlaege( String praefix, int anzahl ) {
+
+        final String praefixKlein = praefix.toLowerCase( GERMAN );
+        if ( praefixKlein.isEmpty() ) {
+
+            return List.of();
+        }
+
+        _lock.readLock().lock();
+        try {
+
+            Knoten knoten = _wurzel;
+            for ( int i = 0; i < praefixKlein.length() && knoten != null; i++ ) {
+
+                knoten = knoten._kinder.get( praefixKlein.charAt( i ) );
+            }
+            if ( knoten == null ) {
+
+                return List.of();
+            }
+
+            final int n = Math.min( Math.min( anzahl, MAX_VORSCHLAEGE ), knoten._top.length );
+
+            final List<Vorschlag> ergebnis = new ArrayList<>( n );
+            for ( int i = 0; i < n; i++ ) {
+
+                ergebnis.add( new Vorschlag( knoten._top[ i ]._text, knoten._top[ i ]._haeufigkeit ) );
+            }
+
+            return ergebnis;
+
+        } finally {
+
+            _lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Begriffe der neuen Schlagzeile zählen.
+     *
+     * @param entity Neue Schlagzeile
+     */
+    @Override
+    public void nachEinfuegen( SchlagzeilenEntity entity ) {
+
+        _lock.writeLock().lock();
+        try {
+
+            if ( entity.getSchlagzeile() != null ) {
+
+                zaehle( entity.getSchlagzeile(), +1, true );
+            }
+
+        } finally {
+
+            _lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Begriffe des alten Texts abziehen und die des neuen Texts zählen; bei
+     * unverändertem Text (z.B. nur Flag {@code inland} geändert) passiert nichts.
+     *
+     * @param entity Geänderte Schlagzeile
+     *
+     * @param inlandVorher Wird nicht ausgewertet
+     *
+     * @param schlagzeileVorher Text vor der Änderung
+     */
+    @Override
+    public void nachAenderung( SchlagzeilenEntity entity, boolean inlandVorher, String schlagzeileVorher ) {
+
+        final String schlagzeileNeu = entity.getSchlagzeile();
+        if ( Objects.equals( schlagzeileVorher, schlagzeileNeu ) ) { return; }
+
+        _lock.writeLock().lock();
+        try {
+
+            if ( schlagzeileVorher != null ) {
+
+                zaehle( schlagzeileVorher, -1, true );
+            }
+            if ( schlagzeileNeu != null ) {
+
+                zaehle( schlagzeileNeu, +1, true );
+            }
+
+        } finally {
+
+            _lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Begriffe der gelöschten Schlagzeile abziehen.
+     *
+     * @param entity Gelöschte Schlagzeile
+     */
+    @Override
+    public void nachLoeschen( SchlagzeilenEntity entity ) {
+
+        _lock.writeLock().lock();
+        try {
+
+            if ( entity.getSchlagzeile() != null ) {
+
+                zaehle( entity.getSchlagzeile(), -1, true );
+            }
+
+        } finally {
+
+            _lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Ändert die Häufigkeit aller Begriffe einer Schlagzeile. Aufrufer muss
+     * Schreib-Lock halten.
+     *
+     * @param text Text der Schlagzeile
+     *
+     * @param delta {@code +1} für neue, {@code -1} für entfernte Schlagzeile
+     *
+     * @param topListenAnpassen {@code false} beim Aufbau, da die Top-Listen
+     *                          danach einmal komplett berechnet werden
+     */
+    private void zaehle( String text, int delta, boolean topListenAnpassen ) {
+
+        for ( String wort : text.split( " " ) ) {
+
+            aendereHaeufigkeit( knotenFuer( wort, wort ), delta, topListenAnpassen );
+        }
+        for ( String begriff : MEHRTEILIGE_BEGRIFFE ) {
+
+            if ( text.contains( begriff ) ) {
+
+                aendereHaeufigkeit( knotenFuer( begriff, begriff ), delta, topListenAnpassen );
+            }
+        }
+    }
+
+
+    /**
+     * Liefert den Knoten für einen Begriff und legt ihn (und ggf. fehlende
+     * Knoten auf dem Pfad) an. Aufrufer muss Schreib-Lock halten.
+     *
+     * @param schreibweise Begriff in Schreibweise für Anzeige, wird nur bei
+     *                     neuem Begriff übernommen
+     *
+     * @param begriff Begriff
+     *
+     * @return Knoten für Begriff
+     */
+    private Knoten knotenFuer( String schreibweise, String begriff ) {
+
+        final String schluessel = begriff.toLowerCase( GERMAN );
+
+        Knoten knoten = _wurzel;
+        for ( int i = 0; i < schluessel.length(); i++ ) {
+
+            final Knoten eltern = knoten;
+            final int    laenge = i + 1;
+            knoten = knoten._kinder.computeIfAbsent( schluessel.charAt( i ),
+                                                     c -> new Knoten( eltern, schluessel.substring( 0, laenge ) ) );
+        }
+        if ( knoten._text == null ) {
+
+            knoten._text = schreibweise;
+        }
+
+        return knoten;
+    }
+
+
+    /**
+     * Ändert die Häufigkeit eines Begriffs und passt die Top-Listen auf dem
+     * Pfad zur Wurzel an. Ist der Begriff in der Top-Liste eines Knotens nicht
+     * enthalten (und kommt auch nicht neu hinein), dann gilt das auch für alle
+     * Vorfahren, die Anpassung kann dann abgebrochen werden.
+     *
+     * @param knoten Knoten des Begriffs
+     *
+     * @param delta Änderung der Häufigkeit
+     *
+     * @param topListenAnpassen {@code false}, um nur die Häufigkeit zu ändern
+     */
+    private void aendereHaeufigkeit( Knoten knoten, int delta, boolean topListenAnpassen ) {
+
+        knoten._haeufigkeit = Math.max( 0, knoten._haeufigkeit + delta );
+        if ( !topListenAnpassen ) { return; }
+
+        final Knoten begriff = knoten;
+        for ( Knoten k = knoten; k != null; k = k._eltern ) {
+
+            final boolean enthalten = Arrays.asList( k._top ).contains( begriff );
+
+            if ( delta > 0 ) {
+
+                if ( enthalten ) {
+
+                    Arrays.sort( k._top, REIHENFOLGE );
+
+                } else if ( k._top.length < MAX_VORSCHLAEGE ||
+                            REIHENFOLGE.compare( begriff, k._top[ k._top.length - 1 ] ) < 0 ) {
+
+                    final Knoten[] neu = Arrays.copyOf( k._top, Math.min( k._top.length + 1, MAX_VORSCHLAEGE ) );
+                    neu[ neu.length - 1 ] = begriff;
+                    Arrays.sort( neu, REIHENFOLGE );
+                    k._top = neu;
+
+                } else {
+
+                    return;
+                }
+
+            } else {
+
+                if ( !enthalten ) { return; }
+
+                // Begriff kann durch einen anderen aus dem Teilbaum verdrängt werden
+                k._top = mischeTopListe( k );
+            }
+        }
+    }
+
+
+    /**
+     * Berechnet die Top-Listen aller Knoten im Teilbaum (Post-Order).
+     *
+     * @param knoten Wurzel des Teilbaums
+     */
+    private void berechneTopListen( Knoten knoten ) {
+
+        for ( Knoten kind : knoten._kinder.values() ) {
+
+            berechneTopListen( kind );
+        }
+        knoten._top = mischeTopListe( knoten );
+    }
+
+
+    /**
+     * Top-Liste eines Knotens aus eigenem Begriff und Top-Listen der Kinder
+     * berechnen; die Top-Listen der Kinder müssen aktuell sein.
+     *
+     * @param knoten Knoten
+     *
+     * @return Neue Top-Liste
+     */
+    private static Knoten[] mischeTopListe( Knoten knoten ) {
+
+        final List<Knoten> kandidaten = new ArrayList<>();
+        if ( knoten._text != null ) {
+
+            kandidaten.add( knoten );
+        }
+        for ( Knoten kind : knoten._kinder.values() ) {
+
+            kandidaten.addAll( Arrays.asList( kind._top ) );
+        }
+        kandidaten.sort( REIHENFOLGE );
+
+        return kandidaten.subList( 0, Math.min( MAX_VORSCHLAEGE, kandidaten.size() ) )
+                         .toArray( Knoten[]::new );
+    }
+
+}
@@ -0,0 +1,83 @@
+package de.eldecker.dhbw.spring.badnews.logik;
+
+import static de.eldecker.dhbw.spring.badnews.db.SchlagzeilenWoerterbuch.ortCodeInland;
+import static de.eldecker.dhbw.spring.badnews.db.SchlagzeilenWoerterbuch.ortCodeNation;
+import static de.eldecker.dhbw.spring.badnews.logik.SchlagzeilenErzeuger.EREIGNISSE_ARRAY;
+import static de.eldecker.dhbw.spring.badnews.logik.SchlagzeilenErzeuger.ORTE_DEUTSCHLAD_ARRAY;
+import static de.eldecker.dhbw.spring.badnews.logik.SchlagzeilenErzeuger.ORTE_NATIONEN_ARRAY;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import de.eldecker.dhbw.spring.badnews.db.EreignisEntity;
+import de.eldecker.dhbw.spring.badnews.db.EreignisRepo;
+import de.eldecker.dhbw.spring.badnews.db.OrtEntity;
+import de.eldecker.dhbw.spring.badnews.db.OrtRepo;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenWoerterbuch;
+import jakarta.annotation.PostConstruct;
+
+
+/**
+ * Bean gleicht beim Start die Wörterbuch-Tabellen {@code Ereignisse} und
+ * {@code Orte} mit den Arrays in {@link SchlagzeilenErzeuger} ab, damit
+ * Schlagzeilen, die nur als Codes gespeichert sind, auch per SQL
+ * gesucht werden können (siehe {@link SchlagzeilenWoerterbuch}).
+ */
+@Component
+public class WoerterbuchAbgleich {
+
+    private final static Logger LOG = LoggerFactory.getLogger( WoerterbuchAbgleich.class );
+
+    /** Repo-Bean für Tabelle mit Ereignissen. */
+    private final EreignisRepo _ereignisRepo;
+
+    /** Repo-Bean für Tabelle mit Orten. */
+    private final OrtRepo _ortRepo;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    public WoerterbuchAbgleich( EreignisRepo ereignisRepo,
+                                OrtRepo      ortRepo ) {
+
+        _ereignisRepo = ereignisRepo;
+        _ortRepo      = ortRepo;
+    }
+
+
+    /**
+     * Schreibt alle Ereignisse und Orte in die DB; bestehende Einträge mit
+     * unverändertem Text werden dabei nicht geändert.
+     */
+    @PostConstruct
+    public void abgleichen() {
+
+        final List<EreignisEntity> ereignisse = new ArrayList<>( EREIGNISSE_ARRAY.length );
+        for ( short i = 0; i < EREIGNISSE_ARRAY.length; i++ ) {
+
+            ereignisse.add( new EreignisEntity( i, EREIGNISSE_ARRAY[ i ] ) );
+        }
+
+        final List<OrtEntity> orte = new ArrayList<>( ORTE_DEUTSCHLAD_ARRAY.length + ORTE_NATIONEN_ARRAY.length );
+        for ( int i = 0; i < ORTE_DEUTSCHLAD_ARRAY.length; i++ ) {
+
+            orte.add( new OrtEntity( ortCodeInland( i ), ORTE_DEUTSCHLAD_ARRAY[ i ], true ) );
+        }
+        for ( int i = 0; i < ORTE_NATIONEN_ARRAY.length; i++ ) {
+
+            orte.add( new OrtEntity( ortCodeNation( i ), ORTE_NATIONEN_ARRAY[ i ], false ) );
+        }
+
+        _ereignisRepo.saveAll( ereignisse );
+        _ortRepo.saveAll( orte );
+
+        LOG.info( "Wörterbuch mit {} Ereignissen und {} Orten abgeglichen.",
+                  ereignisse.size(), orte.size() );
+    }
+
+}
@@ -0,0 +1,21 @@
+package de.eldecker.dhbw.spring.badnews.model;
+
+
+/**
+ * Objekte dieser Record-Klasse werden aus dem JSON-Body des REST-Endpunkts
+ * für die Batch-Suche deserialisiert; jedes Objekt steht für eine Suche.
+ *
+ * @param id Optionaler Schlüssel für das Ergebnis in der Antwort; wenn nicht
+ *           gesetzt, dann wird {@code query} als Schlüssel verwendet
+ *
+ * @param query Suchbegriff, mindestens drei Zeichen (nach trimmen)
+ *
+ * @param seite 1-basierte Nummer der Ergebnis-Seite, Default-Wert 1
+ *
+ * @param anzahl Anzahl Treffer pro Seite (1 bis 500), Default-Wert 10
+ */
+public record BatchSuchanfrage( String  id,
+                                String  query,
+                                Integer seite,
+                                Integer anzahl ) {
+}
@@ -0,0 +1,43 @@
+package de.eldecker.dhbw.spring.badnews.model;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+
+/**
+ * Objekte dieser Record-Klasse werden als Ergebnis einer einzelnen Suche in
+ * der Antwort des REST-Endpunkts für die Batch-Suche serialisiert. Bei einem
+ * Fehler ist nur {@code fehler} gesetzt, sonst alle anderen Felder; Felder
+ * mit Wert {@code null} werden nicht serialisiert.
+ *
+ * @param anzahlTrefferGesamt Gesamtzahl der Treffer
+ *
+ * @param anzahlTrefferSeite Anzahl Treffer auf der angeforderten Seite
+ *
+ * @param anzahlSeiten Anzahl Seiten
+ *
+ * @param schlagzeilen Treffer auf der angeforderten Seite
+ *
+ * @param fehler Fehlermeldung, wenn die Suche nicht ausgeführt werden konnte
+ */
+@JsonInclude( JsonInclude.Include.NON_NULL )
+public record BatchSuchergebnis( Long              anzahlTrefferGesamt,
+                                 Integer           anzahlTrefferSeite,
+                                 Integer           anzahlSeiten,
+                                 List<Schlagzeile> schlagzeilen,
+                                 String            fehler ) {
+
+    /**
+     * Erzeugt Ergebnis für fehlgeschlagene Suche.
+     *
+     * @param fehler Fehlermeldung
+     *
+     * @return Ergebnis, in dem nur {@code fehler} gesetzt ist
+     */
+    public static BatchSuchergebnis fehler( String fehler ) {
+
+        return new BatchSuchergebnis( null, null, null, null, fehler );
+    }
+
+}
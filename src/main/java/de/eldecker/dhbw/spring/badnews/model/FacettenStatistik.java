@@ -0,0 +1,38 @@
+package de.eldecker.dhbw.spring.badnews.model;
+
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Objekte dieser Record-Klasse werden als Ergebnis einer Facetten-Statistik
+ * nach JSON serialisiert bzw. auf der Seite mit der Facetten-Statistik
+ * angezeigt.
+ * <br><br>
+ *
+ * Die Anzahlen einer Facette (z.B. pro Ereignis) berücksichtigen die Filter
+ * der anderen Facetten, aber nicht den Filter der eigenen Facette; so sieht
+ * man auch bei gefiltertem Ereignis, wie viele Treffer andere Ereignisse
+ * hätten.
+ *
+ * @param anzahlTreffer Anzahl Schlagzeilen, die alle Filter erfüllen
+ *
+ * @param anzahlInland Anzahl Inlands-Schlagzeilen (Filter für Ereignis und Ort)
+ *
+ * @param anzahlAusland Anzahl Auslands-Schlagzeilen (Filter für Ereignis und Ort)
+ *
+ * @param anzahlNachEreignis Anzahl pro Ereignis (Filter für Ort und Inland),
+ *                           absteigend sortiert, ohne Ereignisse mit Anzahl 0
+ *
+ * @param anzahlNachOrt Anzahl pro Ort (Filter für Ereignis und Inland),
+ *                      absteigend sortiert, ohne Orte mit Anzahl 0
+ *
+ * @param ids Aufsteigend sortierte IDs der ersten Treffer
+ */
+public record FacettenStatistik( long              anzahlTreffer,
+                                 long              anzahlInland,
+                                 long              anzahlAusland,
+                                 Map<String, Long> anzahlNachEreignis,
+                                 Map<String, Long> anzahlNachOrt,
+                                 List<Long>        ids ) {
+}
@@ -0,0 +1,24 @@
+package de.eldecker.dhbw.spring.badnews.model;
+
+import java.util.List;
+
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
+
+
+/**
+ * Record-Klasse für eine Seite mit Schlagzeilen bei Keyset-Paginierung.
+ * Im Gegensatz zu einer {@code Page} gibt es keine Seitennummer und keine
+ * Gesamtzahl, dafür aber die Cursor für die vorherige und die nächste Seite.
+ *
+ * @param schlagzeilen Schlagzeilen auf der Seite, aufsteigend sortiert nach ID
+ *
+ * @param cursorVorherige Cursor für die vorherige Seite (URL-Parameter {@code vor}),
+ *                        {@code null} wenn es keine vorherige Seite gibt
+ *
+ * @param cursorNaechste Cursor für die nächste Seite (URL-Parameter {@code nach}),
+ *                       {@code null} wenn es keine nächste Seite gibt
+ */
+public record KeysetSeite( List<SchlagzeilenEntity> schlagzeilen,
+                           String                   cursorVorherige,
+                           String                   cursorNaechste ) {
+}
@@ -0,0 +1,17 @@
+package de.eldecker.dhbw.spring.badnews.model;
+
+
+/**
+ * Objekte dieser Record-Klasse werden beim Export aller Schlagzeilen
+ * als eine Zeile im Format NDJSON (ein JSON-Objekt pro Zeile) serialisiert.
+ *
+ * @param id Nummer/Primärschlüssel der Schlagzeile
+ *
+ * @param schlagzeile Text der Schlagzeile
+ *
+ * @param inland {@code true} für Inlands-Schlagzeile, sonst {@code false}
+ */
+public record SchlagzeileExport( long    id,
+                                 String  schlagzeile,
+                                 boolean inland ) {
+}
@@ -0,0 +1,45 @@
+package de.eldecker.dhbw.spring.badnews.model;
+
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenRepo;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenWoerterbuch;
+
+
+/**
+ * Record-Klasse für Projektion auf ID, Text und Kategorie einer Schlagzeile, siehe
+ * Query-Methode {@link SchlagzeilenRepo#streameIdUndText()}. Im Gegensatz
+ * zu einer Entity wird ein solches Objekt nicht im Persistenz-Kontext
+ * verwaltet.
+ *
+ * @param id Primärschlüssel der Schlagzeile
+ *
+ * @param schlagzeile Text der Schlagzeile
+ *
+ * @param inland {@code true} für Inlands-Schlagzeile
+ */
+public record SchlagzeilenText( Long    id,
+                                String  schlagzeile,
+                                boolean inland ) {
+
+    /**
+     * Konstruktor für die Projektion mit Codes: Ist die Schlagzeile nur als
+     * Codes gespeichert (kompakter Speichermodus), dann wird der Text aus
+     * dem {@link SchlagzeilenWoerterbuch} genommen.
+     *
+     * @param id Primärschlüssel der Schlagzeile
+     *
+     * @param schlagzeile Text der Schlagzeile oder {@code null}
+     *
+     * @param ereignisCode Code des Ereignisses oder {@code null}
+     *
+     * @param ortCode Code des Orts oder {@code null}
+     *
+     * @param inland {@code true} für Inlands-Schlagzeile
+     */
+    public SchlagzeilenText( Long id, String schlagzeile, Short ereignisCode, Short ortCode, boolean inland ) {
+
+        this( id, schlagzeile != null ? schlagzeile
+                                      : SchlagzeilenWoerterbuch.text( ereignisCode, ortCode ),
+              inland );
+    }
+
+}
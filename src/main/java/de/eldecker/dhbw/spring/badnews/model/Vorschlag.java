@@ -0,0 +1,14 @@
+package de.eldecker.dhbw.spring.badnews.model;
+
+
+/**
+ * Objekte dieser Record-Klasse werden als Vorschlag für die Autovervollständigung
+ * eines Suchbegriffs nach JSON serialisiert.
+ *
+ * @param text Vorgeschlagener Begriff, z.B. "Erdbeben" oder "Bosnien und Herzegowina"
+ *
+ * @param haeufigkeit Anzahl Vorkommen des Begriffs in den Schlagzeilen
+ */
+public record Vorschlag( String text,
+                         long   haeufigkeit ) {
+}
@@ -0,0 +1,91 @@
+package de.eldecker.dhbw.spring.badnews.web;
+
+import static org.springframework.web.servlet.HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE;
+
+import java.lang.management.ManagementFactory;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import com.sun.management.ThreadMXBean;
+
+import de.eldecker.dhbw.spring.badnews.helferlein.EigenePrometheusMetriken;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+
+/**
+ * Interceptor, der misst, wie viele Bytes auf dem Heap der Request-Thread
+ * zwischen Aufruf der Controller-Methode und Ende des Renderns allokiert hat
+ * (Metrik {@code badnews_request_allokation_bytes}). Verwendet wird der
+ * Zähler, den die HotSpot-JVM pro Thread führt; die Abfrage kostet nur
+ * wenige Nanosekunden.
+ * <br><br>
+ *
+ * Allokationen in anderen Threads (z.B. Suche über Shards) werden nicht
+ * erfasst.
+ */
+@Component
+public class AllokationsInterceptor implements HandlerInterceptor {
+
+    /** Name des Request-Attributs mit Stand des Allokations-Zählers bei Start. */
+    private static final String ATTRIBUT_START = AllokationsInterceptor.class.getName() + ".start";
+
+    /** Bean, um Messwerte für eigene Metriken zu erheben. */
+    private final EigenePrometheusMetriken _eigeneMetriken;
+
+    /** Zugriff auf Allokations-Zähler; {@code null}, wenn von JVM nicht unterstützt. */
+    private final ThreadMXBean _threadMXBean;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    public AllokationsInterceptor( EigenePrometheusMetriken eigeneMetriken ) {
+
+        _eigeneMetriken = eigeneMetriken;
+
+        if ( ManagementFactory.getThreadMXBean() instanceof ThreadMXBean bean &&
+             bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled() ) {
+
+            _threadMXBean = bean;
+
+        } else {
+
+            _threadMXBean = null;
+        }
+    }
+
+
+    /**
+     * Stand des Allokations-Zählers merken.
+     */
+    @Override
+    public boolean preHandle( HttpServletRequest request, HttpServletResponse response, Object handler ) {
+
+        if ( _threadMXBean != null ) {
+
+            request.setAttribute( ATTRIBUT_START, _threadMXBean.getCurrentThreadAllocatedBytes() );
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Differenz zum gemerkten Stand als Allokation des Requests erfassen.
+     */
+    @Override
+    public void afterCompletion( HttpServletRequest request, HttpServletResponse response,
+                                 Object handler, Exception ex ) {
+
+        if ( request.getAttribute( ATTRIBUT_START ) instanceof Long start ) {
+
+            final Object endpunkt = request.getAttribute( BEST_MATCHING_PATTERN_ATTRIBUTE );
+
+            _eigeneMetriken.erfasseAllokation( endpunkt != null ? endpunkt.toString() : "UNKNOWN",
+                                               _threadMXBean.getCurrentThreadAllocatedBytes() - start );
+        }
+    }
+
+}
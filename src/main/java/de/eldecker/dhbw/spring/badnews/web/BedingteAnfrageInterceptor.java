@@ -0,0 +1,104 @@
+package de.eldecker.dhbw.spring.badnews.web;
+
+import static java.lang.String.format;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import de.eldecker.dhbw.spring.badnews.logik.DatenVersion;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+
+/**
+ * Interceptor für <i>Conditional GET</i>: Die Antworten der registrierten
+ * Endpunkte hängen (für dieselbe URL) nur vom Inhalt der Tabelle mit den
+ * Schlagzeilen ab. Es wird deshalb aus der {@link DatenVersion} ein starker
+ * {@code ETag} und der Header {@code Last-Modified} erzeugt. Wenn der Client
+ * (oder ein CDN) mit {@code If-None-Match} bzw. {@code If-Modified-Since}
+ * eine noch aktuelle Version angibt, dann wird sofort mit Status-Code 304
+ * geantwortet, ohne dass die Controller-Methode aufgerufen wird (also ohne
+ * DB-Zugriff und ohne Rendern eines Templates).
+ * <br><br>
+ *
+ * Die Versionsnummer wird vor dem Aufruf der Controller-Methode gelesen. Bei
+ * einem gleichzeitigen Schreibzugriff kann die Antwort also schon neuere
+ * Daten enthalten als der {@code ETag} angibt; beim nächsten Request wird
+ * dann einfach noch einmal die vollständige Antwort geschickt.
+ * <br><br>
+ *
+ * Der umgekehrte Fall (ältere Daten als der {@code ETag} angibt) darf nicht
+ * auftreten, weil sonst alle folgenden Requests mit {@code If-None-Match} bis
+ * zum nächsten Schreibzugriff ein veraltetes 304 bekämen. Das ist dadurch
+ * ausgeschlossen, dass {@link DatenVersion} die Versionsnummer erst erhöht,
+ * nachdem alle Indizes und Caches aktualisiert sind (siehe
+ * {@code SchlagzeilenBeobachter.REIHENFOLGE_VERSION}): Wer Version V liest,
+ * bekommt danach mindestens den Datenstand von V, auch aus dem Such-Cache.
+ * Korrigiert ein Index seine Daten ohne Schreibzugriff (z.B. die Zähler für
+ * {@code /app/statistik} in {@code StatistikZaehler.pruefen()}), dann muss er
+ * danach ebenfalls die Versionsnummer erhöhen.
+ * <br><br>
+ *
+ * Da {@code /api/v1/suche} je nach Header {@code Accept} verschiedene Formate
+ * liefert (JSON, CBOR, Binärformat), wird ein Hash-Wert dieses Headers an den
+ * {@code ETag} angehängt und {@code Vary: Accept} gesetzt; ein starker
+ * {@code ETag} darf nicht für verschiedene Repräsentationen gelten.
+ * <br><br>
+ *
+ * {@code Last-Modified} hat nur Sekunden-Auflösung; mehrere Schreibzugriffe
+ * in derselben Sekunde können deshalb nur über den {@code ETag} erkannt werden,
+ * der nach HTTP-Spezifikation Vorrang vor {@code If-Modified-Since} hat.
+ */
+@Component
+public class BedingteAnfrageInterceptor implements HandlerInterceptor {
+
+    /** Bean mit globaler Versionsnummer der Schlagzeilen-Daten. */
+    private final DatenVersion _datenVersion;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    public BedingteAnfrageInterceptor( DatenVersion datenVersion ) {
+
+        _datenVersion = datenVersion;
+    }
+
+
+    /**
+     * {@code ETag} und {@code Last-Modified} setzen und ggf. mit 304 antworten.
+     *
+     * @return {@code false}, wenn die Version beim Client noch aktuell ist und
+     *         deshalb die Controller-Methode nicht mehr aufgerufen werden soll
+     */
+    @Override
+    public boolean preHandle( HttpServletRequest request, HttpServletResponse response, Object handler ) {
+
+        final String methode = request.getMethod();
+        if ( !"GET".equals( methode ) && !"HEAD".equals( methode ) ) {
+
+            return true;
+        }
+
+        // Reihenfolge: Erst Versionsnummer, dann Zeitpunkt lesen, siehe DatenVersion
+        final long version         = _datenVersion.getVersion();
+        final long letzteAenderung = _datenVersion.getLetzteAenderung();
+
+        final String accept = request.getHeader( HttpHeaders.ACCEPT );
+
+        final String etag = format( "\"%s-%d%s\"",
+                                    Long.toString( _datenVersion.getStartZeitpunkt(), 36 ), version,
+                                    accept == null ? "" : "-" + Integer.toHexString( accept.hashCode() ) );
+
+        // Caches (Browser, CDN) sollen vor jeder Wiederverwendung nachfragen
+        response.setHeader( HttpHeaders.CACHE_CONTROL, "no-cache" );
+        response.setHeader( HttpHeaders.VARY, HttpHeaders.ACCEPT );
+
+        final ServletWebRequest webRequest = new ServletWebRequest( request, response );
+
+        return !webRequest.checkNotModified( etag, letzteAenderung );
+    }
+
+}
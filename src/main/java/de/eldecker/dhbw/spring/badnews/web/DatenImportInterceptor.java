@@ -0,0 +1,72 @@
+package de.eldecker.dhbw.spring.badnews.web;
+
+import static jakarta.servlet.http.HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import de.eldecker.dhbw.spring.badnews.logik.DatenImportFortschritt;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+
+/**
+ * Interceptor für Endpunkte, die die Schlagzeilen-Daten brauchen: Solange
+ * der Import beim Start noch läuft, wird sofort mit Status-Code 503 (Service
+ * Unavailable) und Header {@code Retry-After} (geschätzte Restdauer des
+ * Imports) geantwortet, statt unvollständige Daten auszuliefern. Statische
+ * Seiten und Actuator-Endpunkte sind nicht betroffen.
+ */
+@Component
+public class DatenImportInterceptor implements HandlerInterceptor {
+
+    /** Wert für {@code Retry-After} in Sekunden, solange die Restdauer nicht abschätzbar ist. */
+    private static final long RETRY_AFTER_UNBEKANNT = 5;
+
+    /** Fortschritt des Imports beim Start. */
+    private final DatenImportFortschritt _fortschritt;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    public DatenImportInterceptor( DatenImportFortschritt fortschritt ) {
+
+        _fortschritt = fortschritt;
+    }
+
+
+    /**
+     * Mit 503 antworten, solange der Import läuft.
+     *
+     * @return {@code false}, wenn der Import noch läuft und deshalb die
+     *         Controller-Methode nicht aufgerufen werden soll
+     */
+    @Override
+    public boolean preHandle( HttpServletRequest request, HttpServletResponse response, Object handler )
+            throws IOException {
+
+        if ( !_fortschritt.isLaeuft() ) {
+
+            return true;
+        }
+
+        final double restSekunden = _fortschritt.restSekunden();
+        final long   retryAfter   = restSekunden < 0 ? RETRY_AFTER_UNBEKANNT
+                                                     : Math.max( 1, (long) Math.ceil( restSekunden ) );
+
+        response.setStatus( SC_SERVICE_UNAVAILABLE );
+        response.setHeader( HttpHeaders.RETRY_AFTER, Long.toString( retryAfter ) );
+        response.setContentType( MediaType.TEXT_PLAIN_VALUE );
+        response.setCharacterEncoding( UTF_8 );
+        response.getWriter().write( "Schlagzeilen werden noch importiert, bitte später erneut versuchen." );
+
+        return false;
+    }
+
+}
@@ -0,0 +1,144 @@
+package de.eldecker.dhbw.spring.badnews.web;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenRepo;
+import de.eldecker.dhbw.spring.badnews.model.SchlagzeileExport;
+import jakarta.servlet.http.HttpServletResponse;
+import tools.jackson.databind.json.JsonMapper;
+
+
+/**
+ * REST-Controller mit Endpunkt für den Export aller Schlagzeilen.
+ */
+@RestController
+@RequestMapping( "/api/v1" )
+public class ExportRestController {
+
+    private final static Logger LOG = LoggerFactory.getLogger( ExportRestController.class );
+
+    /** Media-Type für "Newline Delimited JSON". */
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType( "application/x-ndjson" );
+
+    /** Repo-Bean für Zugriff auf Tabelle mit Schlagzeilen. */
+    private final SchlagzeilenRepo _repo;
+
+    /** Bean für Serialisierung einer Schlagzeile nach JSON. */
+    private final JsonMapper _jsonMapper;
+
+    /** Anzahl Zeilen, die der JDBC-Treiber pro Roundtrip lesen soll. */
+    private final int _fetchSize;
+
+    /** Nach dieser Anzahl von Schlagzeilen wird der Persistenz-Kontext geleert. */
+    private final int _leerenNach;
+
+    /** Max. Dauer des Exports in Millisekunden (Timeout für Servlet Async nur für diesen Endpunkt). */
+    private final long _timeoutMillis;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     *
+     * @throws IllegalArgumentException {@code badnews.export.leeren-nach} ist
+     *                                  kleiner als 1 oder Timeout nicht positiv;
+     *                                  die Anwendung startet dann nicht
+     */
+    @Autowired
+    public ExportRestController( SchlagzeilenRepo repo,
+                                 JsonMapper jsonMapper,
+                                 @Value( "${badnews.export.fetch-size:1000}"  ) int fetchSize,
+                                 @Value( "${badnews.export.leeren-nach:1000}" ) int leerenNach,
+                                 @Value( "${badnews.export.timeout:PT1H}"     ) Duration timeout ) {
+
+        if ( leerenNach < 1 ) {
+
+            throw new IllegalArgumentException( "badnews.export.leeren-nach muss mindestens 1 sein: " + leerenNach );
+        }
+        if ( timeout.isNegative() || timeout.isZero() ) {
+
+            throw new IllegalArgumentException( "badnews.export.timeout muss positiv sein: " + timeout );
+        }
+
+        _repo          = repo;
+        _jsonMapper    = jsonMapper;
+        _fetchSize     = fetchSize;
+        _leerenNach    = leerenNach;
+        _timeoutMillis = timeout.toMillis();
+    }
+
+
+    /**
+     * REST-Endpunkt für Export aller Schlagzeilen im Format NDJSON (ein JSON-Objekt
+     * pro Zeile), aufsteigend sortiert nach ID. Beispiel für eine Zeile:
+     * <pre>
+     * {"id":1,"schlagzeile":"Erdbeben in Bayern","inland":true}
+     * </pre>
+     *
+     * Die Schlagzeilen werden als Stream aus der DB gelesen und sofort in die
+     * Antwort geschrieben; der Speicherbedarf ist also unabhängig von der
+     * Anzahl der Schlagzeilen in der DB. Die Antwort wird in einem eigenen
+     * Thread (Servlet Async) erzeugt; der Timeout dafür gilt nur für diesen
+     * Endpunkt ({@code badnews.export.timeout}).
+     *
+     * @param response Antwort, in die direkt geschrieben wird
+     *
+     * @return Asynchrone Aufgabe, die die Antwort schreibt, Status-Code 200
+     */
+    @GetMapping( value = "/export.ndjson", produces = "application/x-ndjson" )
+    public WebAsyncTask<Void> exportNdjson( HttpServletResponse response ) {
+
+        final Callable<Void> aufgabe = () -> {
+
+            response.setContentType( APPLICATION_NDJSON.toString() );
+            response.setCharacterEncoding( UTF_8.name() );
+
+            final Writer writer = new BufferedWriter( new OutputStreamWriter( response.getOutputStream(), UTF_8 ) );
+
+            final long startZeit = System.currentTimeMillis();
+
+            final long anzahl =
+                    _repo.exportiereAlle( _fetchSize, _leerenNach, entity -> {
+
+                        final SchlagzeileExport export =
+                                new SchlagzeileExport( entity.getId(), entity.getSchlagzeile(), entity.isInland() );
+                        try {
+
+                            writer.write( _jsonMapper.writeValueAsString( export ) );
+                            writer.write( '\n' );
+                        }
+                        catch ( IOException ex ) {
+
+                            throw new UncheckedIOException( ex ); // z.B. Client hat Verbindung abgebrochen
+                        }
+                    });
+
+            writer.flush();
+
+            LOG.info( "{} Schlagzeilen in {} ms als NDJSON exportiert.",
+                      anzahl, System.currentTimeMillis() - startZeit );
+
+            return null;
+        };
+
+        return new WebAsyncTask<>( _timeoutMillis, aufgabe );
+    }
+
+}
@@ -0,0 +1,106 @@
+package de.eldecker.dhbw.spring.badnews.web;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import de.eldecker.dhbw.spring.badnews.logik.LiveTicker;
+import de.eldecker.dhbw.spring.badnews.model.Schlagzeile;
+
+
+/**
+ * REST-Controller mit Endpunkt für den Live-Ticker als Server-Sent Events.
+ */
+@RestController
+@RequestMapping( "/api/v1" )
+public class LiveRestController {
+
+    /** Verteilt neue Schlagzeilen an die Abonnenten. */
+    private final LiveTicker _liveTicker;
+
+    /** Max. Dauer einer Verbindung in Millisekunden. */
+    private final long _timeoutMillis;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    public LiveRestController( LiveTicker liveTicker,
+                               @Value( "${badnews.live.timeout:PT30M}" ) Duration timeout ) {
+
+        _liveTicker    = liveTicker;
+        _timeoutMillis = timeout.toMillis();
+    }
+
+
+    /**
+     * Endpunkt für Live-Ticker, Beispiel: {@code curl -N http://localhost:8080/api/v1/live}
+     * <br><br>
+     *
+     * Jede neu gespeicherte Schlagzeile wird als Event {@code schlagzeile} mit
+     * JSON-Objekt gesendet, die ID des Events ist die fortlaufende Nummer im
+     * Live-Ticker. Hat der Client Schlagzeilen verpasst, weil er zu langsam
+     * gelesen hat, dann kommt vorher ein Event {@code verworfen} mit deren
+     * Anzahl. Bei Wiederverbindung (z.B. durch {@code EventSource} im Browser)
+     * wird ab der Nummer im Header {@code Last-Event-ID} weitergesendet, soweit
+     * die Schlagzeilen noch im Ringpuffer sind. Nach {@code badnews.live.timeout}
+     * wird die Verbindung beendet, damit Abonnements von Clients, die nicht
+     * mehr lesen, nicht bestehen bleiben; {@code EventSource} verbindet sich
+     * dann neu.
+     *
+     * @param letzteEventId Optionaler Header {@code Last-Event-ID}
+     *
+     * @return Emitter, über den die Events asynchron gesendet werden
+     */
+    @GetMapping( value = "/live", produces = TEXT_EVENT_STREAM_VALUE )
+    public SseEmitter live( @RequestHeader( value = "Last-Event-ID", required = false ) Long letzteEventId ) {
+
+        final SseEmitter emitter = new SseEmitter( _timeoutMillis );
+
+        final LiveTicker.Abonnement abonnement =
+                _liveTicker.abonnieren( letzteEventId, new LiveTicker.Empfaenger() {
+
+                    @Override
+                    public void senden( long ersteNummer, List<Schlagzeile> schlagzeilen, long anzahlVerworfen )
+                            throws IOException {
+
+                        if ( anzahlVerworfen > 0 ) {
+
+                            emitter.send( SseEmitter.event().name( "verworfen" ).data( anzahlVerworfen ) );
+                        }
+
+                        long nummer = ersteNummer;
+                        for ( Schlagzeile schlagzeile : schlagzeilen ) {
+
+                            emitter.send( SseEmitter.event()
+                                                    .id( Long.toString( nummer++ ) )
+                                                    .name( "schlagzeile" )
+                                                    .data( schlagzeile, APPLICATION_JSON ) );
+                        }
+                    }
+
+                    @Override
+                    public void heartbeat() throws IOException {
+
+                        emitter.send( SseEmitter.event().comment( "" ) );
+                    }
+                });
+
+        emitter.onCompletion( abonnement::beenden );
+        emitter.onTimeout   ( () -> { abonnement.beenden(); emitter.complete(); } );
+        emitter.onError     ( ex -> abonnement.beenden() );
+
+        return emitter;
+    }
+
+}
@@ -0,0 +1,188 @@
+package de.eldecker.dhbw.spring.badnews.web;
+
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import de.eldecker.dhbw.spring.badnews.helferlein.EigenePrometheusMetriken;
+import de.eldecker.dhbw.spring.badnews.logik.DatenImportFortschritt;
+import de.eldecker.dhbw.spring.badnews.logik.ReaktiveSuche;
+import de.eldecker.dhbw.spring.badnews.model.Schlagzeile;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+
+/**
+ * Reaktive Such-API mit WebFlux auf einem eigenen Netty-Server (Port
+ * {@code badnews.reaktiv.port}) neben dem Tomcat mit Spring MVC. Spring Boot
+ * kann in einer Anwendung nur einen der beiden Web-Stacks automatisch
+ * konfigurieren, deshalb wird der Server hier mit einer funktionalen
+ * Router-Definition selbst gestartet.
+ * <br><br>
+ *
+ * Endpunkt {@code GET /api/v1/suche/stream?query=...&max=...}: Alle Treffer
+ * (bzw. die ersten {@code max} Treffer) werden als NDJSON gestreamt, mit
+ * {@code Accept: text/event-stream} als Server-Sent Events. Netty fordert beim
+ * Publisher nur so viele Treffer an, wie in den Sendepuffer passen; ein
+ * langsamer Client bremst also die Query, statt dass sich die Treffer im
+ * Speicher sammeln. Wird die Verbindung getrennt, dann wird die Query
+ * abgebrochen, siehe {@link ReaktiveSuche}.
+ * <br><br>
+ *
+ * Mit Port {@code -1} wird der Server nicht gestartet, mit Port {@code 0}
+ * auf einem zufälligen freien Port, siehe {@link #getPort()}.
+ */
+@Component
+public class ReaktiverSuchServer {
+
+    private final static Logger LOG = LoggerFactory.getLogger( ReaktiverSuchServer.class );
+
+    /** Service-Bean für reaktive Suche mit R2DBC. */
+    private final ReaktiveSuche _suche;
+
+    /** Bean, um Messwerte für eigene Metriken zu erheben. */
+    private final EigenePrometheusMetriken _eigeneMetriken;
+
+    /** Fortschritt des Imports beim Start; solange er läuft, wird mit 503 geantwortet. */
+    private final DatenImportFortschritt _importFortschritt;
+
+    /** Konfigurierter Port; {@code -1} für "nicht starten". */
+    private final int _port;
+
+    /** Laufender Server, {@code null} wenn nicht gestartet. */
+    private DisposableServer _server = null;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    public ReaktiverSuchServer( ReaktiveSuche suche,
+                                EigenePrometheusMetriken eigeneMetriken,
+                                DatenImportFortschritt importFortschritt,
+                                @Value( "${badnews.reaktiv.port:8081}" ) int port ) {
+
+        _suche             = suche;
+        _eigeneMetriken    = eigeneMetriken;
+        _importFortschritt = importFortschritt;
+        _port              = port;
+    }
+
+
+    /**
+     * Startet den Netty-Server mit den Routen der reaktiven Such-API.
+     */
+    @PostConstruct
+    public void starten() {
+
+        if ( _port < 0 ) {
+
+            LOG.info( "Reaktive Such-API ist deaktiviert." );
+            return;
+        }
+
+        final RouterFunction<ServerResponse> routen =
+                RouterFunctions.route()
+                               .GET( "/api/v1/suche/stream", this::sucheStream )
+                               .build();
+
+        final HttpHandler httpHandler = RouterFunctions.toHttpHandler( routen, HandlerStrategies.withDefaults() );
+
+        _server = HttpServer.create()
+                            .port( _port )
+                            .handle( new ReactorHttpHandlerAdapter( httpHandler ) )
+                            .bindNow();
+
+        LOG.info( "Reaktive Such-API gestartet auf Port {}.", _server.port() );
+    }
+
+
+    /**
+     * Stoppt den Netty-Server.
+     */
+    @PreDestroy
+    public void stoppen() {
+
+        if ( _server != null ) {
+
+            _server.disposeNow();
+        }
+    }
+
+
+    /**
+     * Tatsächlicher Port des Servers, z.B. wenn mit Port 0 gestartet.
+     *
+     * @return Port oder {@code -1}, wenn Server nicht läuft
+     */
+    public int getPort() {
+
+        return _server == null ? -1 : _server.port();
+    }
+
+
+    /**
+     * Handler für {@code GET /api/v1/suche/stream}.
+     *
+     * @param request Request mit Pflichtparameter {@code query} (mind. drei Zeichen
+     *                nach trimmen) und optionalem Parameter {@code max} (max.
+     *                Anzahl Treffer)
+     *
+     * @return Antwort mit Status-Code 200 und gestreamten Treffern; Status-Code 400
+     *         mit Fehlermeldung bei ungültigen Parametern; Status-Code 503, solange
+     *         der Import beim Start läuft
+     */
+    private Mono<ServerResponse> sucheStream( ServerRequest request ) {
+
+        if ( _importFortschritt.isLaeuft() ) {
+
+            return ServerResponse.status( SERVICE_UNAVAILABLE )
+                                 .bodyValue( "Schlagzeilen werden noch importiert, bitte später erneut versuchen." );
+        }
+
+        final String query = request.queryParam( "query" ).orElse( "" ).trim();
+        if ( query.length() < 3 ) {
+
+            return ServerResponse.badRequest().bodyValue( "Such-String muss mindestens drei Zeichen haben" );
+        }
+
+        final long max;
+        try {
+
+            max = Long.parseLong( request.queryParam( "max" ).orElse( Long.MAX_VALUE + "" ) );
+        }
+        catch ( NumberFormatException ex ) {
+
+            return ServerResponse.badRequest().bodyValue( "Ungültiger Wert für max" );
+        }
+        if ( max < 1 ) {
+
+            return ServerResponse.badRequest().bodyValue( "Ungültiger Wert für max: " + max );
+        }
+
+        _eigeneMetriken.erhoeheAnzahlSuchvorgaenge();
+
+        final MediaType mediaType = request.headers().accept().contains( TEXT_EVENT_STREAM ) ? TEXT_EVENT_STREAM
+                                                                                            : APPLICATION_NDJSON;
+
+        return ServerResponse.ok()
+                             .contentType( mediaType )
+                             .body( _suche.suche( query, max ), Schlagzeile.class );
+    }
+
+}
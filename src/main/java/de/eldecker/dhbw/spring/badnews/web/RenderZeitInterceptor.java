@@ -0,0 +1,77 @@
+package de.eldecker.dhbw.spring.badnews.web;
+
+import static org.springframework.web.servlet.HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import de.eldecker.dhbw.spring.badnews.helferlein.EigenePrometheusMetriken;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+
+/**
+ * Interceptor, der die Dauer für das Rendern von Thymeleaf-Templates misst:
+ * Das Rendern erfolgt nach {@link #postHandle(HttpServletRequest, HttpServletResponse, Object, ModelAndView) postHandle()}
+ * und vor {@link #afterCompletion(HttpServletRequest, HttpServletResponse, Object, Exception) afterCompletion()},
+ * also außerhalb der Controller-Methode. Die Dauer wird als Phase {@code render}
+ * von Timer {@code badnews_request_phase_seconds} erfasst, siehe
+ * {@link EigenePrometheusMetriken#messePhase(String, String, java.util.function.Supplier)}.
+ * <br><br>
+ *
+ * Seiten, die nach einer Exception von einem {@code @ExceptionHandler} erzeugt
+ * werden, werden nicht erfasst, weil dann {@code postHandle()} nicht aufgerufen wird.
+ */
+@Component
+public class RenderZeitInterceptor implements HandlerInterceptor {
+
+    /** Name des Request-Attributs mit Startzeit des Renderns. */
+    private static final String ATTRIBUT_STARTZEIT = RenderZeitInterceptor.class.getName() + ".startzeit";
+
+    /** Bean, um Messwerte für eigene Metriken zu erheben. */
+    private final EigenePrometheusMetriken _eigeneMetriken;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    public RenderZeitInterceptor( EigenePrometheusMetriken eigeneMetriken ) {
+
+        _eigeneMetriken = eigeneMetriken;
+    }
+
+
+    /**
+     * Startzeit merken, wenn die Controller-Methode einen View geliefert hat.
+     */
+    @Override
+    public void postHandle( HttpServletRequest request, HttpServletResponse response,
+                            Object handler, ModelAndView modelAndView ) {
+
+        if ( modelAndView != null && modelAndView.hasView() ) {
+
+            request.setAttribute( ATTRIBUT_STARTZEIT, System.nanoTime() );
+        }
+    }
+
+
+    /**
+     * Dauer seit {@code postHandle()} als Render-Zeit erfassen.
+     */
+    @Override
+    public void afterCompletion( HttpServletRequest request, HttpServletResponse response,
+                                 Object handler, Exception ex ) {
+
+        if ( request.getAttribute( ATTRIBUT_STARTZEIT ) instanceof Long startZeit ) {
+
+            final Object endpunkt = request.getAttribute( BEST_MATCHING_PATTERN_ATTRIBUTE );
+
+            _eigeneMetriken.getTimerFuerPhase( endpunkt != null ? endpunkt.toString() : "UNKNOWN", "render" )
+                           .record( System.nanoTime() - startZeit, TimeUnit.NANOSECONDS );
+        }
+    }
+
+}
@@ -0,0 +1,212 @@
+package de.eldecker.dhbw.spring.badnews.web;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import de.eldecker.dhbw.spring.badnews.model.Schlagzeile;
+
+
+/**
+ * Converter für eine Liste von {@link Schlagzeile}-Objekten in einem kompakten
+ * Binärformat mit Längen-Präfix, Media-Type {@value #MEDIA_TYPE_STRING}.
+ * Alle Zahlen sind <i>Big Endian</i> (wie bei {@link DataOutputStream}):
+ * <pre>
+ * int32  Anzahl Schlagzeilen
+ * pro Schlagzeile:
+ *   int32  ID
+ *   uint16 Länge des Texts in Bytes
+ *   byte[] Text als UTF-8
+ * </pre>
+ * Im Gegensatz zu JSON und CBOR gibt es keine Feldnamen und kein Escaping;
+ * ein Client kann die Antwort ohne Parser mit einer Schleife einlesen, siehe
+ * {@link #dekodiere(InputStream)}.
+ */
+public class SchlagzeilenBinaerConverter extends AbstractGenericHttpMessageConverter<List<Schlagzeile>> {
+
+    /** Media-Type als String, z.B. für Header {@code Accept}. */
+    public static final String MEDIA_TYPE_STRING = "application/x-badnews-schlagzeilen";
+
+    /** Media-Type für Content Negotiation. */
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType( MEDIA_TYPE_STRING );
+
+    /** Max. Länge eines Texts in Bytes, da die Länge mit zwei Bytes kodiert wird. */
+    private static final int MAX_LAENGE = 0xFFFF;
+
+
+    /**
+     * Konstruktor, registriert {@link #MEDIA_TYPE}.
+     */
+    public SchlagzeilenBinaerConverter() {
+
+        super( MEDIA_TYPE );
+    }
+
+
+    /**
+     * Nur Listen (bzw. Supertypen von Listen) mit Elementtyp {@link Schlagzeile}
+     * werden unterstützt.
+     */
+    @Override
+    protected boolean supports( Class<?> clazz ) {
+
+        return List.class.isAssignableFrom( clazz );
+    }
+
+
+    @Override
+    public boolean canRead( Type type, Class<?> contextClass, MediaType mediaType ) {
+
+        return istSchlagzeilenListe( type ) && canRead( mediaType );
+    }
+
+
+    @Override
+    public boolean canWrite( Type type, Class<?> clazz, MediaType mediaType ) {
+
+        return istSchlagzeilenListe( type ) && canWrite( mediaType );
+    }
+
+
+    /**
+     * Prüft den generischen Typ, da wegen <i>Type Erasure</i> anhand der
+     * Klasse allein nicht zwischen {@code List<Schlagzeile>} und anderen
+     * Listen unterschieden werden kann.
+     *
+     * @param type Deklarierter Typ, z.B. Rückgabetyp der Controller-Methode
+     *
+     * @return {@code true} gdw. {@code type} für {@code List<Schlagzeile>} steht
+     */
+    private static boolean istSchlagzeilenListe( Type type ) {
+
+        return type instanceof ParameterizedType pt &&
+               pt.getRawType() instanceof Class<?> raw && List.class.isAssignableFrom( raw ) &&
+               pt.getActualTypeArguments()[ 0 ] == Schlagzeile.class;
+    }
+
+
+    @Override
+    protected void writeInternal( List<Schlagzeile> schlagzeilen, Type type, HttpOutputMessage outputMessage )
+            throws IOException, HttpMessageNotWritableException {
+
+        outputMessage.getBody().write( kodiere( schlagzeilen ) );
+    }
+
+
+    @Override
+    public List<Schlagzeile> read( Type type, Class<?> contextClass, HttpInputMessage inputMessage )
+            throws IOException, HttpMessageNotReadableException {
+
+        return readInternal( null, inputMessage );
+    }
+
+
+    @Override
+    protected List<Schlagzeile> readInternal( Class<? extends List<Schlagzeile>> clazz,
+                                              HttpInputMessage inputMessage )
+            throws IOException, HttpMessageNotReadableException {
+
+        try {
+
+            return dekodiere( inputMessage.getBody() );
+        }
+        catch ( IOException | IllegalArgumentException ex ) {
+
+            throw new HttpMessageNotReadableException( "Ungültige Schlagzeilen im Binärformat: " +
+                                                       ex.getMessage(), ex, inputMessage );
+        }
+    }
+
+
+    /**
+     * Kodiert die Schlagzeilen im Binärformat. Es werden zuerst alle Texte
+     * nach UTF-8 umgewandelt, damit danach ein Puffer mit der exakten Größe
+     * angelegt und in einem Durchgang gefüllt werden kann.
+     *
+     * @param schlagzeilen Zu kodierende Schlagzeilen
+     *
+     * @return Byte-Array mit kodierten Schlagzeilen
+     *
+     * @throws HttpMessageNotWritableException Text einer Schlagzeile ist
+     *                                         länger als 65.535 Bytes
+     */
+    public static byte[] kodiere( List<Schlagzeile> schlagzeilen ) {
+
+        final int      anzahl = schlagzeilen.size();
+        final byte[][] texte  = new byte[ anzahl ][];
+
+        int groesse = Integer.BYTES;
+        for ( int i = 0; i < anzahl; i++ ) {
+
+            texte[ i ] = schlagzeilen.get( i ).schlagzeile().getBytes( UTF_8 );
+            if ( texte[ i ].length > MAX_LAENGE ) {
+
+                throw new HttpMessageNotWritableException( "Text von Schlagzeile " + schlagzeilen.get( i ).id() +
+                                                           " zu lang: " + texte[ i ].length + " Bytes" );
+            }
+            groesse += Integer.BYTES + Short.BYTES + texte[ i ].length;
+        }
+
+        final ByteBuffer puffer = ByteBuffer.allocate( groesse ); // Big Endian
+        puffer.putInt( anzahl );
+        for ( int i = 0; i < anzahl; i++ ) {
+
+            puffer.putInt( schlagzeilen.get( i ).id() );
+            puffer.putShort( (short) texte[ i ].length );
+            puffer.put( texte[ i ] );
+        }
+
+        return puffer.array();
+    }
+
+
+    /**
+     * Liest Schlagzeilen im Binärformat, z.B. auf Client-Seite.
+     *
+     * @param in Quelle, wird nicht geschlossen
+     *
+     * @return Gelesene Schlagzeilen
+     *
+     * @throws IOException Fehler beim Lesen, z.B. Daten zu kurz
+     *
+     * @throws IllegalArgumentException Negative Anzahl Schlagzeilen
+     */
+    public static List<Schlagzeile> dekodiere( InputStream in ) throws IOException {
+
+        final DataInputStream dis = new DataInputStream( in );
+
+        final int anzahl = dis.readInt();
+        if ( anzahl < 0 ) {
+
+            throw new IllegalArgumentException( "Negative Anzahl Schlagzeilen: " + anzahl );
+        }
+
+        final List<Schlagzeile> ergebnis = new ArrayList<>( Math.min( anzahl, 1024 ) );
+        for ( int i = 0; i < anzahl; i++ ) {
+
+            final int    id   = dis.readInt();
+            final byte[] text = new byte[ dis.readUnsignedShort() ];
+            dis.readFully( text );
+
+            ergebnis.add( new Schlagzeile( id, new String( text, UTF_8 ) ) );
+        }
+
+        return ergebnis;
+    }
+
+}
@@ -0,0 +1,115 @@
+package de.eldecker.dhbw.spring.badnews.web;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.OK;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import de.eldecker.dhbw.spring.badnews.helferlein.SchlagzeilenException;
+import de.eldecker.dhbw.spring.badnews.logik.FacettenIndex;
+import de.eldecker.dhbw.spring.badnews.model.FacettenStatistik;
+
+
+/**
+ * REST-Controller mit Endpunkt für die Facetten-Statistik (Anzahl nach
+ * Ereignis, Ort und Inland/Ausland).
+ */
+@RestController
+@RequestMapping( "/api/v1" )
+public class StatistikRestController {
+
+    private final static Logger LOG = LoggerFactory.getLogger( StatistikRestController.class );
+
+    /** Max. Anzahl IDs in einer Antwort. */
+    public static final int MAX_ANZAHL_IDS = 1000;
+
+    /** Bitmap-Index für Facetten-Statistik. */
+    private final FacettenIndex _facettenIndex;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public StatistikRestController( FacettenIndex facettenIndex ) {
+
+        _facettenIndex = facettenIndex;
+    }
+
+
+    /**
+     * Behandelt Exceptions der REST-Endpunkte in dieser Klasse: Fehlermeldung
+     * wird auf den Logger geschrieben und mit HTTP-Status-Code 400 (Bad Request)
+     * als REST-Antwort zurückgegeben.
+     *
+     * @param ex Exception, die bei Aufruf des REST-Endpunkt geworfen wurde
+     *
+     * @return String mit Fehlermeldung, HTTP-Status-Code 400 (Bad Request)
+     */
+    @ExceptionHandler( Exception.class )
+    public ResponseEntity<String> exceptionBehandeln( Exception ex ) {
+
+        final String fehlerText = "Fehler bei Statistik-Anfrage: " + ex.getMessage();
+        LOG.error( fehlerText );
+
+        return new ResponseEntity<>( fehlerText, BAD_REQUEST );
+    }
+
+
+    /**
+     * REST-Endpunkt für Facetten-Statistik, Beispiel:
+     * {@code GET /api/v1/statistik/facetten?ereignis=Erdbeben&ereignis=Brand&inland=true}
+     * liefert die Anzahl der Inlands-Schlagzeilen mit Erdbeben oder Brand, die
+     * Anzahlen pro Ereignis und pro Ort sowie die IDs der ersten Treffer.
+     * Die Werte werden mit {@link FacettenIndex} ohne DB-Zugriff berechnet.
+     *
+     * @param ereignisse Optionale Filter für Ereignis (Parameter mehrfach
+     *                   möglich, ODER-verknüpft)
+     *
+     * @param orte Optionale Filter für Ort (Parameter mehrfach möglich,
+     *             ODER-verknüpft)
+     *
+     * @param inland Optionaler Filter: {@code true} nur Inland, {@code false}
+     *               nur Ausland
+     *
+     * @param nach Optional: Nur IDs größer als dieser Wert zurückgeben (Blättern)
+     *
+     * @param anzahl Max. Anzahl IDs (Default-Wert: 100), zwischen 0 und
+     *               {@link #MAX_ANZAHL_IDS}
+     *
+     * @return Status-Code 200 mit Statistik; Status-Code 400 bei unbekanntem
+     *         Ereignis oder Ort oder ungültiger Anzahl
+     *
+     * @throws SchlagzeilenException Ungültiger Filter oder ungültige Anzahl
+     */
+    @GetMapping( "/statistik/facetten" )
+    public ResponseEntity<FacettenStatistik> facetten(
+            @RequestParam( value = "ereignis", required = false                        ) List<String> ereignisse,
+            @RequestParam( value = "ort"     , required = false                        ) List<String> orte,
+            @RequestParam( value = "inland"  , required = false                        ) Boolean inland,
+            @RequestParam( value = "nach"    , required = false                        ) Long nach,
+            @RequestParam( value = "anzahl"  , required = false, defaultValue = "100" ) int anzahl )
+          throws SchlagzeilenException {
+
+        if ( anzahl < 0 || anzahl > MAX_ANZAHL_IDS ) {
+
+            throw new SchlagzeilenException( "Anzahl IDs muss zwischen 0 und " + MAX_ANZAHL_IDS +
+                                             " liegen: " + anzahl );
+        }
+
+        final FacettenStatistik statistik = _facettenIndex.abfragen( ereignisse, orte, inland, nach, anzahl );
+
+        return new ResponseEntity<>( statistik, OK );
+    }
+
+}
@@ -1,33 +1,59 @@
 package de.eldecker.dhbw.spring.badnews.web;
 
+import static de.eldecker.dhbw.spring.badnews.helferlein.CursorKodierer.dekodiere;
 import static de.eldecker.dhbw.spring.badnews.helferlein.SortierReihenfolgeKonstanten.SORT_ID_ASC;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.OK;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
-import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenRepo;
 import de.eldecker.dhbw.spring.badnews.helferlein.EigenePrometheusMetriken;
 import de.eldecker.dhbw.spring.badnews.helferlein.SchlagzeilenException;
+import de.eldecker.dhbw.spring.badnews.logik.KeysetPaginierung;
+import de.eldecker.dhbw.spring.badnews.logik.SchlagzeilenBatchSuche;
+import de.eldecker.dhbw.spring.badnews.logik.SchlagzeilenBatchSuche.Teilergebnis;
+import de.eldecker.dhbw.spring.badnews.logik.SchlagzeilenSuche;
+import de.eldecker.dhbw.spring.badnews.logik.VorschlagsTrie;
+import de.eldecker.dhbw.spring.badnews.model.BatchSuchanfrage;
+import de.eldecker.dhbw.spring.badnews.model.BatchSuchergebnis;
+import de.eldecker.dhbw.spring.badnews.model.KeysetSeite;
 import de.eldecker.dhbw.spring.badnews.model.Schlagzeile;
+import de.eldecker.dhbw.spring.badnews.model.Vorschlag;
 
 
 /**
  * REST-Controller mit Endpunkt für die Suche nach Schlagzeilen.
+ * <br><br>
+ * 
+ * Die Dauer der Suche (Phase {@code db}) und der Umwandlung der Entities
+ * (Phase {@code mapping}) wird getrennt gemessen; die Differenz zur Dauer des
+ * ganzen Requests ist im Wesentlichen die Serialisierung.
+ * <br><br>
+ *
+ * Das Format der Antwort wird über den Header {@code Accept} ausgewählt:
+ * JSON (Default), CBOR ({@code application/cbor}) oder das kompakte
+ * Binärformat von {@link SchlagzeilenBinaerConverter}.
  */
 @RestController
 @RequestMapping( "/api/v1" )
@@ -35,9 +61,27 @@ public class SucheRestController {
     
     private final static Logger LOG = LoggerFactory.getLogger( SucheRestController.class );
     
+    /** URL-Muster des Such-Endpunkts für Tag {@code endpunkt} der Phasen-Metrik. */
+    private static final String ENDPUNKT_SUCHE = "/api/v1/suche";
     
-    /** Repo-Bean für Zugriff auf Tabelle mit Schlagzeilen. */
-    private SchlagzeilenRepo _repo;
+    /** URL-Muster des Endpunkts für Batch-Suche für Tag {@code endpunkt} der Phasen-Metrik. */
+    private static final String ENDPUNKT_BATCH = "/api/v1/suche/batch";
+    
+    
+    /** Service-Bean für Textsuche (über Trigramm-Index oder JPQL-Query). */
+    private SchlagzeilenSuche _suche;
+    
+    /** Service-Bean für Suche mit Keyset-Paginierung. */
+    private KeysetPaginierung _keysetPaginierung;
+    
+    /** Service-Bean für mehrere Suchen mit einem Request. */
+    private SchlagzeilenBatchSuche _batchSuche;
+    
+    /** In-Memory-Trie für Vorschläge zur Autovervollständigung. */
+    private VorschlagsTrie _vorschlagsTrie;
+    
+    /** Max. Anzahl Suchen in einem Request an den Endpunkt für Batch-Suche. */
+    private int _maxAnzahlBatch;
     
     /** 
      * Bean, um Messwerte für eigene Metriken zu erheben.
@@ -49,11 +93,19 @@ public class SucheRestController {
      * Konstruktor für <i>Dependency Injection</i>.
      */
     @Autowired
-    public SucheRestController( SchlagzeilenRepo repo, 
-                                EigenePrometheusMetriken eigeneMetrik ) {
+    public SucheRestController( SchlagzeilenSuche suche, 
+                                KeysetPaginierung keysetPaginierung,
+                                SchlagzeilenBatchSuche batchSuche,
+                                VorschlagsTrie vorschlagsTrie,
+                                EigenePrometheusMetriken eigeneMetrik,
+                                @Value( "${badnews.suche.batch.max-anzahl:100}" ) int maxAnzahlBatch ) {
         
-        _repo         = repo;
-        _eigeneMetriken = eigeneMetrik;
+        _suche             = suche;
+        _keysetPaginierung = keysetPaginierung;
+        _batchSuche        = batchSuche;
+        _vorschlagsTrie    = vorschlagsTrie;
+        _eigeneMetriken    = eigeneMetrik;
+        _maxAnzahlBatch    = maxAnzahlBatch;
     }
 
     
@@ -97,6 +149,15 @@ public class SucheRestController {
      * @param anzahl Anzahl Treffer pro Seite; es wird eine Exception geworfen,
      *               wenn Wert kleiner als 1 ist.
      * 
+     * @param nach Optionaler Cursor für Keyset-Paginierung (vorwärts blättern),
+     *             Wert aus Header-Feld "X-Cursor-Naechste" der vorherigen Antwort;
+     *             ein leerer Wert liefert die erste Seite. Wenn dieser Parameter
+     *             oder {@code vor} übergeben wird, dann wird {@code seite}
+     *             ignoriert, siehe {@link #sucheKeyset(String, int, String, String)}.
+     * 
+     * @param vor Optionaler Cursor für Keyset-Paginierung (rückwärts blättern),
+     *            Wert aus Header-Feld "X-Cursor-Vorherige" der vorherigen Antwort.
+     * 
      * @return Status-Code 200 wenn die Suche ausgeführt werden konnte
      *         (auch mit leerer Ergebnismenge); bei Fehler Status-Code
      *         400. Bei erfolgreicher Suche sind auch die von Methode
@@ -110,7 +171,9 @@ public class SucheRestController {
     public ResponseEntity<List<Schlagzeile>> suche( 
             @RequestParam( value = "query" , required = true                       ) String query, 
             @RequestParam( value = "seite" , required = false, defaultValue = "1"  ) int seite ,
-            @RequestParam( value = "anzahl", required = false, defaultValue = "10" ) int anzahl )                                                                                                                                                                                                                                                                           
+            @RequestParam( value = "anzahl", required = false, defaultValue = "10" ) int anzahl,
+            @RequestParam( value = "nach"  , required = false                      ) String nach,
+            @RequestParam( value = "vor"   , required = false                      ) String vor )
           throws SchlagzeilenException {
                      
         final String queryTrimmed = query.trim();
@@ -122,14 +185,252 @@ public class SucheRestController {
         
         _eigeneMetriken.erhoeheAnzahlSuchvorgaenge();
         
+        if ( nach != null || vor != null ) {
+            
+            return sucheKeyset( queryTrimmed, anzahl, nach, vor );
+        }
+        
         final PageRequest pageRequest = PageRequest.of( seite - 1, anzahl, SORT_ID_ASC );
                  
-        final Page<SchlagzeilenEntity> ergebnisPage = _repo.sucheSchlagzeilen( queryTrimmed, pageRequest ); 
+        final Page<SchlagzeilenEntity> ergebnisPage = 
+                _eigeneMetriken.messePhase( ENDPUNKT_SUCHE, "db", 
+                                            () -> _suche.suche( queryTrimmed, pageRequest ) );
+        
+        _eigeneMetriken.erfasseSuchergebnis( ergebnisPage.getTotalElements(), 
+                                             ergebnisPage.getNumberOfElements() );
+        
+        final List<Schlagzeile> ergebnisList = 
+                _eigeneMetriken.messePhase( ENDPUNKT_SUCHE, "mapping", 
+                                            () -> zuSchlagzeilen( ergebnisPage.getContent() ) );
+        
+        final HttpHeaders antwortHeader = erzeugeAntwortHeader( ergebnisPage );
+        
+        return new ResponseEntity<>( ergebnisList, antwortHeader, OK );
+    }
+    
+    
+    /**
+     * Suche mit Keyset-Paginierung, siehe Parameter {@code nach} und {@code vor}
+     * von Methode {@link #suche(String, int, int, String, String)}. Es wird keine
+     * Gesamtzahl der Treffer ermittelt, dafür werden die Cursor für die vorherige
+     * und nächste Seite in den Header-Feldern "X-Cursor-Vorherige" und
+     * "X-Cursor-Naechste" zurückgegeben (fehlen, wenn es keine solche Seite gibt).
+     * 
+     * @param queryTrimmed Suchbegriff mit mindestens drei Zeichen
+     * 
+     * @param anzahl Anzahl Treffer pro Seite
+     * 
+     * @param nach Cursor für vorwärts blättern, leerer String für erste Seite
+     * 
+     * @param vor Cursor für rückwärts blättern
+     * 
+     * @return Treffer und HTTP-Header mit Cursor
+     * 
+     * @throws SchlagzeilenException Ungültiger Cursor, beide Cursor übergeben
+     *                               oder ungültige Anzahl
+     */
+    private ResponseEntity<List<Schlagzeile>> sucheKeyset( String queryTrimmed, int anzahl, 
+                                                           String nach, String vor ) 
+            throws SchlagzeilenException {
         
-        final List<SchlagzeilenEntity> dbErgebnisList = ergebnisPage.getContent();
+        if ( nach != null && vor != null ) {
+            
+            throw new SchlagzeilenException( "Es darf nur einer der Parameter \"nach\" und \"vor\" übergeben werden" );
+        }
+        if ( anzahl < 1 ) {
+            
+            throw new SchlagzeilenException( "Ungültiger Wert für Anzahl Treffer pro Seite: " + anzahl );
+        }
+        
+        final Long nachId = nach == null || nach.isBlank() ? null : dekodiere( nach );
+        final Long vorId  = vor  == null || vor.isBlank()  ? null : dekodiere( vor  );
+        
+        final KeysetSeite keysetSeite = 
+                _eigeneMetriken.messePhase( ENDPUNKT_SUCHE, "db", 
+                                            () -> _keysetPaginierung.suche( queryTrimmed, nachId, vorId, anzahl ) );
+        
+        _eigeneMetriken.erfasseSuchergebnis( -1, keysetSeite.schlagzeilen().size() );
+        
+        final HttpHeaders antwortHeader = new HttpHeaders();
+        antwortHeader.set( "X-Anzahl-Treffer-Seite", keysetSeite.schlagzeilen().size() + "" );
+        if ( keysetSeite.cursorVorherige() != null ) {
+            
+            antwortHeader.set( "X-Cursor-Vorherige", keysetSeite.cursorVorherige() );
+        }
+        if ( keysetSeite.cursorNaechste() != null ) {
+            
+            antwortHeader.set( "X-Cursor-Naechste", keysetSeite.cursorNaechste() );
+        }
         
         final List<Schlagzeile> ergebnisList = 
-                dbErgebnisList.stream().map( entity -> {
+                _eigeneMetriken.messePhase( ENDPUNKT_SUCHE, "mapping", 
+                                            () -> zuSchlagzeilen( keysetSeite.schlagzeilen() ) );
+        
+        return new ResponseEntity<>( ergebnisList, antwortHeader, OK );
+    }
+    
+    
+    /**
+     * REST-Endpunkt für mehrere Suchen mit einem Request (z.B. für ein Dashboard,
+     * das viele Suchbegriffe überwacht). Beispiel für Request-Body:
+     * <pre>
+     *   [ { "query": "Erdbeben" },
+     *     { "id": "brand-2", "query": "Brand", "seite": 2, "anzahl": 50 },
+     *     { "query": "ab" } ]
+     * </pre>
+     * Die Antwort ist ein JSON-Objekt, das jedem Schlüssel ({@code id} bzw. der
+     * Suchbegriff, falls keine {@code id} angegeben ist) das Ergebnis mit den
+     * Gesamtzahlen (wie in den Header-Feldern von {@link #suche(String, int, int, String, String)})
+     * oder eine Fehlermeldung zuordnet:
+     * <pre>
+     *   { "Erdbeben": { "anzahlTrefferGesamt": 41, "anzahlTrefferSeite": 10, "anzahlSeiten": 5, "schlagzeilen": [ ... ] },
+     *     "brand-2" : { ... },
+     *     "ab"      : { "fehler": "Such-String muss mindestens drei Zeichen haben" } }
+     * </pre>
+     * Fehler bei einzelnen Suchen (auch ein mehrfach vergebener Schlüssel)
+     * führen also nicht zum Fehlschlagen des ganzen Requests. Die Suchen werden
+     * parallel ausgeführt, siehe {@link SchlagzeilenBatchSuche}.
+     * 
+     * @param anfragen Liste der Suchen, max. {@code badnews.suche.batch.max-anzahl}
+     * 
+     * @return Status-Code 200 mit Ergebnissen in der Reihenfolge der Anfragen;
+     *         Status-Code 400, wenn die Liste leer ist oder zu viele Suchen enthält
+     * 
+     * @throws SchlagzeilenException Liste leer oder zu lang
+     */
+    @PostMapping( "/suche/batch" )
+    public ResponseEntity<Map<String, BatchSuchergebnis>> sucheBatch( @RequestBody List<BatchSuchanfrage> anfragen ) 
+          throws SchlagzeilenException {
+        
+        if ( anfragen == null || anfragen.isEmpty() ) {
+            
+            throw new SchlagzeilenException( "Keine Suchen übergeben" );
+        }
+        if ( anfragen.size() > _maxAnzahlBatch ) {
+            
+            throw new SchlagzeilenException( "Zu viele Suchen übergeben: " + anfragen.size() + 
+                                             ", max. " + _maxAnzahlBatch );
+        }
+        
+        final Map<String, Integer> anzahlProSchluessel = new HashMap<>();
+        for ( BatchSuchanfrage anfrage : anfragen ) {
+            
+            anzahlProSchluessel.merge( schluessel( anfrage ), 1, Integer::sum );
+        }
+        
+        // Reihenfolge der Antwort wie in Request, auch für mehrfach vergebene Schlüssel
+        final Map<String, BatchSuchergebnis> antwort = new LinkedHashMap<>();
+        
+        final List<String>           schluessel = new ArrayList<>( anfragen.size() );
+        final List<BatchSuchanfrage> eindeutig  = new ArrayList<>( anfragen.size() );
+        for ( BatchSuchanfrage anfrage : anfragen ) {
+            
+            final String key = schluessel( anfrage );
+            if ( anzahlProSchluessel.get( key ) > 1 ) {
+                
+                antwort.put( key, BatchSuchergebnis.fehler( "Schlüssel \"" + key + "\" mehrfach vergeben" ) );
+                
+            } else {
+                
+                antwort.put( key, null ); // Platzhalter
+                schluessel.add( key );
+                eindeutig.add( anfrage );
+            }
+        }
+        
+        final List<Teilergebnis> teilergebnisse = 
+                _eigeneMetriken.messePhase( ENDPUNKT_BATCH, "db", () -> _batchSuche.suche( eindeutig ) );
+        
+        for ( int i = 0; i < eindeutig.size(); i++ ) {
+            
+            final Teilergebnis teilergebnis = teilergebnisse.get( i );
+            final String       key          = schluessel.get( i );
+            
+            if ( teilergebnis.fehler() != null ) {
+                
+                antwort.put( key, BatchSuchergebnis.fehler( teilergebnis.fehler() ) );
+                continue;
+            }
+            
+            final Page<SchlagzeilenEntity> page = teilergebnis.seite();
+            
+            _eigeneMetriken.erfasseSuchergebnis( page.getTotalElements(), page.getNumberOfElements() );
+            
+            final List<Schlagzeile> schlagzeilen = 
+                    _eigeneMetriken.messePhase( ENDPUNKT_BATCH, "mapping", () -> zuSchlagzeilen( page.getContent() ) );
+            
+            antwort.put( key, new BatchSuchergebnis( page.getTotalElements(), 
+                                                     page.getNumberOfElements(), 
+                                                     page.getTotalPages(), 
+                                                     schlagzeilen, 
+                                                     null ) );
+        }
+        
+        return new ResponseEntity<>( antwort, OK );
+    }
+    
+    
+    /**
+     * REST-Endpunkt für die Autovervollständigung von Suchbegriffen, z.B. liefert
+     * {@code GET /api/v1/vorschlaege?prefix=erd}
+     * <pre>
+     *   [ { "text": "Erdbeben", "haeufigkeit": 391 }, { "text": "Erdrutsch", "haeufigkeit": 377 } ]
+     * </pre>
+     * Die Vorschläge kommen aus dem {@link VorschlagsTrie}, es wird also nicht
+     * auf die DB zugegriffen.
+     * 
+     * @param prefix Anfang des Suchbegriffs; Leerzeichen am Anfang werden entfernt,
+     *               die Groß-/Kleinschreibung wird ignoriert
+     * 
+     * @param anzahl Max. Anzahl Vorschläge (Default-Wert: 10), muss zwischen 1 und
+     *               {@link VorschlagsTrie#MAX_VORSCHLAEGE} liegen
+     * 
+     * @return Status-Code 200 mit Vorschlägen, absteigend sortiert nach Häufigkeit
+     *         (leere Liste bei leerem Präfix)
+     * 
+     * @throws SchlagzeilenException Ungültiger Wert für {@code anzahl}
+     */
+    @GetMapping( "/vorschlaege" )
+    public ResponseEntity<List<Vorschlag>> vorschlaege( 
+            @RequestParam( value = "prefix", required = true                       ) String prefix,
+            @RequestParam( value = "anzahl", required = false, defaultValue = "10" ) int anzahl )
+          throws SchlagzeilenException {
+        
+        if ( anzahl < 1 || anzahl > VorschlagsTrie.MAX_VORSCHLAEGE ) {
+            
+            throw new SchlagzeilenException( "Anzahl Vorschläge muss zwischen 1 und " + 
+                                             VorschlagsTrie.MAX_VORSCHLAEGE + " liegen: " + anzahl );
+        }
+        
+        return new ResponseEntity<>( _vorschlagsTrie.vorschlaege( prefix.stripLeading(), anzahl ), OK );
+    }
+    
+    
+    /**
+     * Schlüssel für Ergebnis einer Suche in der Antwort der Batch-Suche.
+     * 
+     * @param anfrage Suche aus Request
+     * 
+     * @return {@code id} der Suche, wenn gesetzt; sonst der Suchbegriff
+     */
+    private static String schluessel( BatchSuchanfrage anfrage ) {
+        
+        return anfrage.id() != null ? anfrage.id() : String.valueOf( anfrage.query() );
+    }
+    
+    
+    /**
+     * Konvertiert Entities in Objekte für REST-Antwort. Die Methode ist
+     * {@code public}, damit sie im JMH-Benchmark {@code SchlagzeilenMappingBenchmark}
+     * aufgerufen werden kann.
+     * 
+     * @param dbErgebnisList Von DB geladene Schlagzeilen
+     * 
+     * @return Liste mit Schlagzeilen für Serialisierung nach JSON
+     */
+    public static List<Schlagzeile> zuSchlagzeilen( List<SchlagzeilenEntity> dbErgebnisList ) {
+        
+        return dbErgebnisList.stream().map( entity -> {
             
                     final int    idInt = (int) entity.getId().intValue();
                     final String text  =       entity.getSchlagzeile();
@@ -137,16 +438,11 @@ public class SucheRestController {
                     return new Schlagzeile( idInt, text );
             
         }).toList();
-
-        
-        final HttpHeaders antwortHeader = erzeugeAntwortHeader( ergebnisPage );
-        
-        return new ResponseEntity<>( ergebnisList, antwortHeader, OK );
     }
     
     
     /**
-     * Methode erzeugt HTTP-Header für Antwort REST-Methode {@link #suche(String, int, int)}.
+     * Methode erzeugt HTTP-Header für Antwort REST-Methode {@link #suche(String, int, int, String, String)}.
      * <br><br>
      * 
      * Beispiel für erzeugte Header:
@@ -1,16 +1,22 @@
 package de.eldecker.dhbw.spring.badnews.web;
 
+import static de.eldecker.dhbw.spring.badnews.helferlein.CursorKodierer.dekodiere;
 import static de.eldecker.dhbw.spring.badnews.helferlein.SortierReihenfolgeKonstanten.SORT_ID_ASC;
 import static java.lang.String.format;
 
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -22,15 +28,28 @@ import org.springframework.web.method.annotation.MethodArgumentTypeMismatchExcep
 
 import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
 import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenRepo;
+import de.eldecker.dhbw.spring.badnews.helferlein.EigenePrometheusMetriken;
 import de.eldecker.dhbw.spring.badnews.helferlein.SchlagzeilenException;
+import de.eldecker.dhbw.spring.badnews.logik.FacettenIndex;
+import de.eldecker.dhbw.spring.badnews.logik.KeysetPaginierung;
 import de.eldecker.dhbw.spring.badnews.logik.PaginierungChecker;
+import de.eldecker.dhbw.spring.badnews.logik.SchlagzeilenCache;
+import de.eldecker.dhbw.spring.badnews.logik.SchlagzeilenErzeuger;
+import de.eldecker.dhbw.spring.badnews.logik.SchlagzeilenNachlader;
+import de.eldecker.dhbw.spring.badnews.logik.StatistikZaehler;
 import de.eldecker.dhbw.spring.badnews.model.AnzahlByKategorie;
+import de.eldecker.dhbw.spring.badnews.model.FacettenStatistik;
+import de.eldecker.dhbw.spring.badnews.model.KeysetSeite;
 
 
 /**
  * Controller-Klasse für Thymeleaf-Templates. Jede Mapping-Methode
  * gibt den String mit dem Namen der Template-Datei (ohne Datei-Endung)
  * zurück, die angezeigt werden soll.
+ * <br><br>
+ *
+ * Die Dauer der DB-Zugriffe wird als Phase {@code db} gemessen, die Dauer
+ * für das Rendern der Templates misst {@link RenderZeitInterceptor}.
  */
 @Controller
 @RequestMapping( "/app/" )
@@ -44,15 +63,48 @@ public class ThymeleafController {
     /** Service-Bean für div. Checks im Zusammenhang mit der Paginierung. */
     private PaginierungChecker _checker;
 
+    /** Service-Bean für Keyset-Paginierung (Blättern mit Cursor statt Seitennummer). */
+    private KeysetPaginierung _keysetPaginierung;
+
+    /** Bean mit Anzahl Inlands-/Auslands-Schlagzeilen im Speicher, erspart GROUP-BY- und COUNT-Queries. */
+    private StatistikZaehler _statistikZaehler;
+
+    /** Bitmap-Index für Facetten-Statistik (Anzahl nach Ereignis und Ort). */
+    private FacettenIndex _facettenIndex;
+
+    /** Read-Through-Cache für einzelne Schlagzeilen. */
+    private SchlagzeilenCache _cache;
+
+    /** Bean, um Messwerte für eigene Metriken zu erheben. */
+    private EigenePrometheusMetriken _eigeneMetriken;
+
+    /**
+     * Seiten mit mehr Schlagzeilen als dieser Wert werden blockweise beim Rendern
+     * nachgeladen, siehe {@link SchlagzeilenNachlader}; 0 für immer ganze Seite laden.
+     */
+    private int _blockGroesse;
+
 
     /**
      * Konstruktor für <i>Dependency Injection</i>.
      */
     @Autowired
     public ThymeleafController( SchlagzeilenRepo repo,
-                                PaginierungChecker checker) {
-        _repo    = repo;
-        _checker = checker;
+                                PaginierungChecker checker,
+                                KeysetPaginierung keysetPaginierung,
+                                StatistikZaehler statistikZaehler,
+                                FacettenIndex facettenIndex,
+                                SchlagzeilenCache cache,
+                                EigenePrometheusMetriken eigeneMetriken,
+                                @Value( "${badnews.liste.block-groesse:0}" ) int blockGroesse ) {
+        _repo              = repo;
+        _checker           = checker;
+        _keysetPaginierung = keysetPaginierung;
+        _statistikZaehler  = statistikZaehler;
+        _facettenIndex     = facettenIndex;
+        _cache             = cache;
+        _eigeneMetriken    = eigeneMetriken;
+        _blockGroesse      = blockGroesse;
     }
 
 
@@ -98,6 +150,17 @@ public class ThymeleafController {
 
     /**
      * Eine Seite mit (einer Liste von) Schlagzeilen anzeigen.
+     * <br><br>
+     *
+     * Die Gesamtzahl der Seiten wird aus der im Speicher gehaltenen Anzahl
+     * der Schlagzeilen (siehe {@link StatistikZaehler#getAnzahlGesamt()}) berechnet, es
+     * wird also keine COUNT-Query ausgeführt.
+     * <br><br>
+     *
+     * Bei großen Seiten (mehr als {@code badnews.liste.block-groesse} Schlagzeilen)
+     * wird vorab nur der erste Block geladen, der Rest beim Rendern des Templates
+     * (siehe {@link SchlagzeilenNachlader}); die Dauer für das Nachladen ist dann
+     * in der Phase {@code render} enthalten.
      *
      * @param model Objekt, in dem die Werte für die Platzhalter in der Template-Datei
      *              definiert werden.
@@ -108,6 +171,13 @@ public class ThymeleafController {
      * @param anzahl Optionaler URL-Parameter für Anzahl Schlagzeilen auf einer Seite;
      *               Default-Wert: 10; zulässiger Bereich 1 bis 500.
      *
+     * @param nach Optionaler URL-Parameter mit Cursor für Keyset-Paginierung (vorwärts
+     *             blättern); leerer Wert für erste Seite. Wenn dieser Parameter oder
+     *             {@code vor} übergeben wird, dann wird {@code seite} ignoriert.
+     *
+     * @param vor Optionaler URL-Parameter mit Cursor für Keyset-Paginierung (rückwärts
+     *            blättern).
+     *
      * @return Name der Template-Datei "schlagzeilen-liste.html" ohne Datei-Endung.
      *
      * @throws SchlagzeilenException Ungültige {@code int]}-Werte für URL-Parameter übergeben,
@@ -120,33 +190,151 @@ public class ThymeleafController {
     @GetMapping( "/schlagzeilen" )
     public String liste( Model model,
                          @RequestParam( value = "seite" , required = false, defaultValue = "1"  ) int seite ,
-                         @RequestParam( value = "anzahl", required = false, defaultValue = "10" ) int anzahl )
+                         @RequestParam( value = "anzahl", required = false, defaultValue = "10" ) int anzahl,
+                         @RequestParam( value = "nach"  , required = false                      ) String nach,
+                         @RequestParam( value = "vor"   , required = false                      ) String vor )
             throws SchlagzeilenException {
 
         _checker.checkeSeiteUndAnzahl( seite, anzahl ); // throws SchlagzeilenException
 
+        if ( nach != null || vor != null ) {
+
+            return listeKeyset( model, anzahl, nach, vor );
+        }
 
         final PageRequest seitenRequest = PageRequest.of( seite - 1, anzahl, SORT_ID_ASC );
 
-        // *** eigentliche DB-Abfrage ***
-        final Page<SchlagzeilenEntity> ergebnisPage = _repo.findAll( seitenRequest );
+        final boolean nachladen = _blockGroesse > 0 && anzahl > _blockGroesse;
+
+        // *** eigentliche DB-Abfrage (ohne COUNT-Query), bei großer Seite nur erster Block ***
+        final List<SchlagzeilenEntity> geladenListe =
+                _eigeneMetriken.messePhase( "/app/schlagzeilen", "db",
+                                            () -> nachladen
+                                                  ? _repo.findeAbPosition( seitenRequest.getOffset(), _blockGroesse )
+                                                  : _repo.findAllBy( seitenRequest ).getContent() );
+        _eigeneMetriken.erhoeheAnzahlVermiedeneCountQueries();
+
+        final Page<SchlagzeilenEntity> ergebnisPage =
+                new PageImpl<>( geladenListe, seitenRequest, _statistikZaehler.getAnzahlGesamt() );
 
         _checker.checkErgebnisPage( ergebnisPage, seite );  // throws SchlagzeilenException
 
-        final List<SchlagzeilenEntity> schlagzeilenListe = ergebnisPage.getContent();
+        final Iterable<SchlagzeilenEntity> schlagzeilenListe =
+                nachladen ? new SchlagzeilenNachlader( _repo, geladenListe, anzahl, _blockGroesse )
+                          : geladenListe;
         final int maxSeite = ergebnisPage.getTotalPages();
 
         model.addAttribute( "schlagzeilenliste", schlagzeilenListe );
         model.addAttribute( "seiteNr"          , seite             );
         model.addAttribute( "maxSeite"         , maxSeite          );
         model.addAttribute( "anzahl"           , anzahl            );
+        model.addAttribute( "modus"            , "seite"           );
+
+        return "schlagzeilen-liste";
+    }
+
+
+    /**
+     * Variante von {@link #liste(Model, int, int, String, String)}, die die
+     * Gesamtzahl der Schlagzeilen überhaupt nicht benötigt: Es wird nur eine
+     * "Scheibe" (Slice) geladen; ob es eine nächste Seite gibt, wird daran
+     * erkannt, dass ein Datensatz mehr als angefordert geladen werden konnte.
+     * Auf der Seite wird deshalb keine max. Seitennummer angezeigt.
+     *
+     * @param model Objekt, in dem die Werte für die Platzhalter in der Template-Datei
+     *              definiert werden.
+     *
+     * @param seite Optionaler URL-Parameter für die Seitennummer, 1-basiert;
+     *              Default-Wert: 1, darf nicht 0 oder negativ sein.
+     *
+     * @param anzahl Optionaler URL-Parameter für Anzahl Schlagzeilen auf einer Seite;
+     *               Default-Wert: 10; zulässiger Bereich 1 bis 500.
+     *
+     * @return Name der Template-Datei "schlagzeilen-liste.html" ohne Datei-Endung.
+     *
+     * @throws SchlagzeilenException Ungültige {@code int]}-Werte für URL-Parameter übergeben
+     *                               oder Seite enthält keine Schlagzeilen
+     */
+    @GetMapping( "/schlagzeilen-slice" )
+    public String listeSlice( Model model,
+                              @RequestParam( value = "seite" , required = false, defaultValue = "1"  ) int seite ,
+                              @RequestParam( value = "anzahl", required = false, defaultValue = "10" ) int anzahl )
+            throws SchlagzeilenException {
+
+        _checker.checkeSeiteUndAnzahl( seite, anzahl ); // throws SchlagzeilenException
+
+        final PageRequest seitenRequest = PageRequest.of( seite - 1, anzahl, SORT_ID_ASC );
+
+        // *** eigentliche DB-Abfrage (ohne COUNT-Query) ***
+        final Slice<SchlagzeilenEntity> ergebnisSlice =
+                _eigeneMetriken.messePhase( "/app/schlagzeilen-slice", "db",
+                                            () -> _repo.findAllBy( seitenRequest ) );
+        _eigeneMetriken.erhoeheAnzahlVermiedeneCountQueries();
+
+        _checker.checkErgebnisSlice( ergebnisSlice, seite ); // throws SchlagzeilenException
+
+        model.addAttribute( "schlagzeilenliste", ergebnisSlice.getContent() );
+        model.addAttribute( "seiteNr"          , seite                      );
+        model.addAttribute( "hatNaechste"      , ergebnisSlice.hasNext()    );
+        model.addAttribute( "anzahl"           , anzahl                     );
+        model.addAttribute( "modus"            , "slice"                    );
 
         return "schlagzeilen-liste";
     }
 
 
     /**
-     * Einzelne Schlagzeile anzeigen.
+     * Seite mit Schlagzeilen für Keyset-Paginierung anzeigen; in diesem Modus
+     * gibt es keine Seitennummer und keine COUNT-Query. Die Cursor für die
+     * Nachbarseiten werden als Platzhalter "cursorVorherige" und "cursorNaechste"
+     * an das Template übergeben.
+     *
+     * @param model Objekt für die Platzhalter in der Template-Datei
+     *
+     * @param anzahl Anzahl Schlagzeilen auf einer Seite
+     *
+     * @param nach Cursor für vorwärts blättern, leer für erste Seite
+     *
+     * @param vor Cursor für rückwärts blättern
+     *
+     * @return Name der Template-Datei "schlagzeilen-liste.html" ohne Datei-Endung.
+     *
+     * @throws SchlagzeilenException Ungültiger Cursor, beide Cursor übergeben
+     *                               oder keine Schlagzeilen auf der Seite
+     */
+    private String listeKeyset( Model model, int anzahl, String nach, String vor )
+            throws SchlagzeilenException {
+
+        if ( nach != null && vor != null ) {
+
+            throw new SchlagzeilenException( "Es darf nur einer der URL-Parameter \"nach\" und \"vor\" übergeben werden." );
+        }
+
+        final Long nachId = nach == null || nach.isBlank() ? null : dekodiere( nach );
+        final Long vorId  = vor  == null || vor.isBlank()  ? null : dekodiere( vor  );
+
+        // *** eigentliche DB-Abfrage ***
+        final KeysetSeite keysetSeite =
+                _eigeneMetriken.messePhase( "/app/schlagzeilen", "db",
+                                            () -> _keysetPaginierung.liste( nachId, vorId, anzahl ) );
+
+        if ( keysetSeite.schlagzeilen().isEmpty() ) {
+
+            throw new SchlagzeilenException( "Leere Liste mit Schlagzeilen bekommen." );
+        }
+
+        model.addAttribute( "schlagzeilenliste", keysetSeite.schlagzeilen()    );
+        model.addAttribute( "cursorVorherige"  , keysetSeite.cursorVorherige() );
+        model.addAttribute( "cursorNaechste"   , keysetSeite.cursorNaechste()  );
+        model.addAttribute( "anzahl"           , anzahl                        );
+        model.addAttribute( "modus"            , "keyset"                      );
+
+        return "schlagzeilen-liste";
+    }
+
+
+    /**
+     * Einzelne Schlagzeile anzeigen; wird über {@link SchlagzeilenCache} geladen.
      *
      * @param id ID (Primärschlüssel) der Schlagzeile, die angezeigt werden soll.
      *
@@ -161,7 +349,9 @@ public class ThymeleafController {
     public String schlagzeile( @PathVariable("id") Long id,
                                Model model ) throws SchlagzeilenException {
 
-        final Optional<SchlagzeilenEntity> schlagzeileOptional = _repo.findById( id );
+        final Optional<SchlagzeilenEntity> schlagzeileOptional =
+                _eigeneMetriken.messePhase( "/app/schlagzeile/{id}", "db",
+                                            () -> _cache.findeNachId( id ) );
         if ( schlagzeileOptional.isEmpty() ) {
 
             final String text = format( "Keine Schlagzeile mit ID=%d gefunden.", id );
@@ -176,30 +366,19 @@ public class ThymeleafController {
 
     /**
      * Seite mit Statistik (Anzahl Inlands/Auslands-Schlagzeilen) anzeigen.
+     * Die Werte kommen ohne DB-Zugriff aus {@link StatistikZaehler}.
      *
      * @param model Objekt, in dem die Werte für die Platzhalter in der Template-Datei
      *              definiert werden.
      *
      * @return Name der Template-Datei "statistik.html" ohne Datei-Endung.
-     *
-     * @throws SchlagzeilenException Query hat mehr als zwei Ergebnisdatensätze
-     *                               zurückgeliefert
      */
     @GetMapping( "/statistik" )
-    public String statistik( Model model ) throws SchlagzeilenException {
-
-        final List<AnzahlByKategorie> anzByKategorieList =
-                                       		_repo.zaehleSchlagzeilenInlandAusland();
+    public String statistik( Model model ) {
 
-        final int listSize = anzByKategorieList.size();
-        if ( listSize > 2 ) {
+        final List<AnzahlByKategorie> anzByKategorieList = _statistikZaehler.getStatistik();
 
-            throw new SchlagzeilenException(
-                    "Mehr als zwei Einträge in Ergebnisliste für Statistik: " +
-                    listSize );
-        }
-
-        int summe = 0;
+        long summe = 0;
         for ( AnzahlByKategorie abk : anzByKategorieList ) {
 
             summe += abk.anzahl();
@@ -211,4 +390,58 @@ public class ThymeleafController {
         return "statistik";
     }
 
+
+    /**
+     * Seite mit Facetten-Statistik: Anzahl Schlagzeilen pro Ereignis, pro Ort
+     * und Inland/Ausland für eine Kombination von Filtern, dazu die ersten
+     * Treffer. Anzahlen und IDs der Treffer kommen aus {@link FacettenIndex},
+     * nur die Texte der angezeigten Treffer werden über den Primärschlüssel
+     * aus der DB geladen.
+     *
+     * @param ereignisse Optionale Filter für Ereignis (ODER-verknüpft)
+     *
+     * @param orte Optionale Filter für Ort (ODER-verknüpft)
+     *
+     * @param inland Optionaler Filter: {@code true} nur Inland, {@code false} nur Ausland
+     *
+     * @param anzahl Anzahl der angezeigten Treffer (Default-Wert: 20)
+     *
+     * @param model Objekt, in dem die Werte für die Platzhalter in der Template-Datei
+     *              definiert werden.
+     *
+     * @return Name der Template-Datei "statistik-facetten.html" ohne Datei-Endung.
+     *
+     * @throws SchlagzeilenException Unbekanntes Ereignis oder unbekannter Ort,
+     *                               ungültige Anzahl
+     */
+    @GetMapping( "/statistik/facetten" )
+    public String statistikFacetten( @RequestParam( value = "ereignis", required = false                       ) List<String> ereignisse,
+                                     @RequestParam( value = "ort"     , required = false                       ) List<String> orte,
+                                     @RequestParam( value = "inland"  , required = false                       ) Boolean inland,
+                                     @RequestParam( value = "anzahl"  , required = false, defaultValue = "20" ) int anzahl,
+                                     Model model ) throws SchlagzeilenException {
+
+        _checker.checkeSeiteUndAnzahl( 1, anzahl );
+
+        final FacettenStatistik statistik = _facettenIndex.abfragen( ereignisse, orte, inland, null, anzahl );
+
+        final List<SchlagzeilenEntity> schlagzeilenListe =
+                _eigeneMetriken.messePhase( "/app/statistik/facetten", "db",
+                                            () -> _repo.findAllById( statistik.ids() ) )
+                               .stream()
+                               .sorted( Comparator.comparing( SchlagzeilenEntity::getId ) )
+                               .toList();
+
+        model.addAttribute( "statistik"          , statistik                                             );
+        model.addAttribute( "alleEreignisse"     , Arrays.asList( SchlagzeilenErzeuger.EREIGNISSE_ARRAY ) );
+        model.addAttribute( "alleOrteInland"     , Arrays.asList( SchlagzeilenErzeuger.ORTE_DEUTSCHLAD_ARRAY ) );
+        model.addAttribute( "alleOrteAusland"    , Arrays.asList( SchlagzeilenErzeuger.ORTE_NATIONEN_ARRAY ) );
+        model.addAttribute( "gewaehlteEreignisse", ereignisse == null ? List.of() : ereignisse           );
+        model.addAttribute( "gewaehlteOrte"      , orte       == null ? List.of() : orte                 );
+        model.addAttribute( "inland"             , inland                                                );
+        model.addAttribute( "schlagzeilenliste"  , schlagzeilenListe                                     );
+
+        return "statistik-facetten";
+    }
+
 }
@@ -0,0 +1,84 @@
+package de.eldecker.dhbw.spring.badnews.web;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverters;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+
+/**
+ * Konfiguration für Spring MVC: Registriert {@link DatenImportInterceptor} für
+ * alle Seiten und REST-Endpunkte mit Schlagzeilen-Daten,
+ * {@link BedingteAnfrageInterceptor} für die Endpunkte, deren Antworten nur
+ * von den Schlagzeilen-Daten abhängen,
+ * {@link RenderZeitInterceptor} für die Seiten der Thymeleaf-Templates und
+ * {@link AllokationsInterceptor} für alle Seiten und REST-Endpunkte. Außerdem
+ * wird {@link SchlagzeilenBinaerConverter} für Content Negotiation registriert.
+ */
+@Configuration
+public class WebKonfiguration implements WebMvcConfigurer {
+
+    /** Interceptor, der während des Imports beim Start mit 503 antwortet. */
+    private final DatenImportInterceptor _datenImportInterceptor;
+
+    /** Interceptor für Conditional GET mit ETag und Last-Modified. */
+    private final BedingteAnfrageInterceptor _bedingteAnfrageInterceptor;
+
+    /** Interceptor für Messung der Render-Zeit. */
+    private final RenderZeitInterceptor _renderZeitInterceptor;
+
+    /** Interceptor für Messung der Allokation pro Request. */
+    private final AllokationsInterceptor _allokationsInterceptor;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    public WebKonfiguration( DatenImportInterceptor datenImportInterceptor,
+                             BedingteAnfrageInterceptor bedingteAnfrageInterceptor,
+                             RenderZeitInterceptor renderZeitInterceptor,
+                             AllokationsInterceptor allokationsInterceptor ) {
+
+        _datenImportInterceptor     = datenImportInterceptor;
+        _bedingteAnfrageInterceptor = bedingteAnfrageInterceptor;
+        _renderZeitInterceptor      = renderZeitInterceptor;
+        _allokationsInterceptor     = allokationsInterceptor;
+    }
+
+
+    /**
+     * Interceptor für Import als ersten registrieren (nicht für den Live-Ticker,
+     * der keine vorhandenen Daten braucht), dann Interceptor für Conditional GET, damit bei
+     * Antwort mit Status-Code 304 die anderen Interceptoren nicht mehr aufgerufen werden.
+     * Interceptor für Render-Zeit nur für Pfade unter {@code /app/} registrieren,
+     * Interceptor für Allokation auch für REST-Endpunkte unter {@code /api/}.
+     */
+    @Override
+    public void addInterceptors( InterceptorRegistry registry ) {
+
+        registry.addInterceptor( _datenImportInterceptor ).addPathPatterns( "/app/**", "/api/**" )
+                                                          .excludePathPatterns( "/api/v1/live" );
+        registry.addInterceptor( _bedingteAnfrageInterceptor ).addPathPatterns( "/app/schlagzeilen",
+                                                                               "/app/schlagzeile/*",
+                                                                               "/app/statistik",
+                                                                               "/app/statistik/facetten",
+                                                                               "/api/v1/statistik/facetten",
+                                                                               "/api/v1/suche" );
+        registry.addInterceptor( _renderZeitInterceptor  ).addPathPatterns( "/app/**" );
+        registry.addInterceptor( _allokationsInterceptor ).addPathPatterns( "/app/**", "/api/**" );
+    }
+
+
+    /**
+     * Converter für Binärformat mit Längen-Präfix am Ende der Liste anfügen,
+     * damit bei {@code Accept: *}{@code /*} (oder ohne Header {@code Accept})
+     * weiterhin JSON geliefert wird. CBOR wird von Spring automatisch registriert,
+     * weil {@code jackson-dataformat-cbor} auf dem Classpath ist.
+     */
+    @Override
+    public void configureMessageConverters( HttpMessageConverters.ServerBuilder builder ) {
+
+        builder.configureMessageConvertersList( liste -> liste.add( new SchlagzeilenBinaerConverter() ) );
+    }
+
+}
@@ -0,0 +1,33 @@
+"use strict";
+
+
+/** Max. Anzahl der angezeigten Schlagzeilen. */
+const MAX_EINTRAEGE = 100;
+
+const liste  = document.getElementById( "ticker" );
+const status = document.getElementById( "status" );
+
+/*
+ * Neue Schlagzeilen über Server-Sent Events empfangen und oben in Liste einfügen;
+ * EventSource verbindet sich nach Abbruch selbst neu und schickt dabei "Last-Event-ID" mit.
+ */
+const quelle = new EventSource( "/api/v1/live" );
+
+quelle.onopen  = () => status.textContent = "Verbunden, warte auf neue Schlagzeilen.";
+quelle.onerror = () => status.textContent = "Verbindung unterbrochen, verbinde neu ...";
+
+quelle.addEventListener( "schlagzeile", event => {
+
+    const schlagzeile = JSON.parse( event.data );
+
+    const eintrag = document.createElement( "li" );
+    eintrag.textContent = schlagzeile.schlagzeile + " (ID " + schlagzeile.id + ")";
+    liste.prepend( eintrag );
+
+    while ( liste.children.length > MAX_EINTRAEGE ) { liste.lastChild.remove(); }
+});
+
+quelle.addEventListener( "verworfen", event => {
+
+    status.textContent = event.data + " Schlagzeilen übersprungen (zu langsam gelesen).";
+});
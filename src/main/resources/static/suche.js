@@ -1,6 +1,74 @@
 "use strict";
 
 
+/** Wartezeit in ms nach letztem Tastendruck, bevor Vorschläge geholt werden. */
+const VORSCHLAEGE_VERZOEGERUNG_MS = 150;
+
+/** Timer für verzögertes Holen der Vorschläge. */
+let vorschlaegeTimer = null;
+
+
+/**
+ * Event-Handler für Eingabe im Textfeld: Nach kurzer Pause werden Vorschläge
+ * zur Autovervollständigung vom REST-Endpunkt geholt und in die Datalist
+ * geschrieben; so wird nicht für jeden Tastendruck ein Request geschickt.
+ */
+function onSuchbegriffEingabe() {
+
+    clearTimeout( vorschlaegeTimer );
+    vorschlaegeTimer = setTimeout( vorschlaegeHolen, VORSCHLAEGE_VERZOEGERUNG_MS );
+}
+
+
+/**
+ * Vorschläge für aktuellen Inhalt des Textfelds holen und darstellen;
+ * Fehler werden nur auf der Konsole ausgegeben, da die Vorschläge optional sind.
+ */
+function vorschlaegeHolen() {
+
+    const textfeld = document.getElementById( "suchbegriff" );
+    const datalist = document.getElementById( "vorschlaege" );
+    if ( !textfeld || !datalist ) {
+
+        console.error( "Interner Fehler: Textfeld oder Datalist für Vorschläge nicht gefunden." );
+        return;
+    }
+
+    const praefix = textfeld.value.trimStart();
+    if ( praefix.length === 0 ) {
+
+        datalist.innerHTML = "";
+        return;
+    }
+
+    fetch( "/api/v1/vorschlaege?prefix=" + encodeURIComponent( praefix ) )
+    .then( response => {
+
+        if ( !response.ok ) {
+
+            throw new Error( `REST-Endpunkt hat Fehlercode zurückgeliefert: ${response.status}` );
+        }
+        return response.json();
+    })
+    .then( vorschlagArray => {
+
+        if ( textfeld.value.trimStart() !== praefix ) { return; } // veraltete Antwort
+
+        datalist.innerHTML = "";
+        vorschlagArray.forEach( vorschlag => {
+
+            const option = document.createElement( "option" );
+            option.value = vorschlag.text;
+            datalist.appendChild( option );
+        });
+    })
+    .catch( (fehler) => {
+
+        console.error( "Fehler beim Holen der Vorschläge: " + fehler );
+    });
+}
+
+
 /**
  * Event-Handler-Funktion für Button zum Auslösen einer Suche.
  *
@@ -3,7 +3,7 @@ package de.eldecker.dhbw.spring.badnews;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest( properties = "badnews.reaktiv.port=0" )
 class BadNewsApplicationTests {
 
 	@Test
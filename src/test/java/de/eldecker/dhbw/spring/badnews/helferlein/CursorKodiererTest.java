@@ -0,0 +1,82 @@
+package de.eldecker.dhbw.spring.badnews.helferlein;
+
+import static de.eldecker.dhbw.spring.badnews.helferlein.CursorKodierer.MAX_ID;
+import static de.eldecker.dhbw.spring.badnews.helferlein.CursorKodierer.MIN_ID;
+import static de.eldecker.dhbw.spring.badnews.helferlein.CursorKodierer.dekodiere;
+import static de.eldecker.dhbw.spring.badnews.helferlein.CursorKodierer.kodiere;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Unit-Tests für {@link CursorKodierer}.
+ */
+class CursorKodiererTest {
+
+    @Test
+    void beispielAusDoku() throws SchlagzeilenException {
+
+        assertEquals( "aWQ6NDcxMQ", kodiere( 4711 ) );
+        assertEquals( 4711, dekodiere( "aWQ6NDcxMQ" ) );
+    }
+
+
+    @Test
+    void hinUndZurueck() throws SchlagzeilenException {
+
+        for ( long id : new long[] { MIN_ID, 2, 49, 50, 51, 1_000_000, Integer.MAX_VALUE + 1L, MAX_ID } ) {
+
+            assertEquals( id, dekodiere( kodiere( id ) ) );
+        }
+    }
+
+
+    @Test
+    void leerzeichenAmRandWerdenIgnoriert() throws SchlagzeilenException {
+
+        assertEquals( 4711, dekodiere( " aWQ6NDcxMQ\n" ) );
+    }
+
+
+    @Test
+    void ungueltigesBase64() {
+
+        assertThrows( SchlagzeilenException.class, () -> dekodiere( "%%%" ) );
+        assertThrows( SchlagzeilenException.class, () -> dekodiere( "aWQ6NDcxMQ+/" ) ); // nicht URL-sicher
+        assertThrows( SchlagzeilenException.class, () -> dekodiere( "a" ) );
+    }
+
+
+    @Test
+    void ungueltigerKlartext() {
+
+        assertThrows( SchlagzeilenException.class, () -> dekodiere( "" ) );
+        assertThrows( SchlagzeilenException.class, () -> dekodiere( base64( "4711" ) ) );
+        assertThrows( SchlagzeilenException.class, () -> dekodiere( base64( "nr:4711" ) ) );
+        assertThrows( SchlagzeilenException.class, () -> dekodiere( base64( "id:" ) ) );
+        assertThrows( SchlagzeilenException.class, () -> dekodiere( base64( "id:12x" ) ) );
+        assertThrows( SchlagzeilenException.class, () -> dekodiere( base64( "id:99999999999999999999" ) ) );
+    }
+
+
+    @Test
+    void idAusserhalbDesBereichs() {
+
+        assertThrows( SchlagzeilenException.class, () -> dekodiere( kodiere( 0 ) ) );
+        assertThrows( SchlagzeilenException.class, () -> dekodiere( kodiere( -1 ) ) );
+        assertThrows( SchlagzeilenException.class, () -> dekodiere( kodiere( Long.MIN_VALUE ) ) );
+        assertThrows( SchlagzeilenException.class, () -> dekodiere( kodiere( Long.MAX_VALUE ) ) );
+    }
+
+
+    private static String base64( String klartext ) {
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString( klartext.getBytes( UTF_8 ) );
+    }
+
+}
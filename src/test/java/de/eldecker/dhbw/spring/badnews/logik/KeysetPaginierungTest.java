@@ -0,0 +1,242 @@
+package de.eldecker.dhbw.spring.badnews.logik;
+
+import static de.eldecker.dhbw.spring.badnews.helferlein.CursorKodierer.MAX_ID;
+import static de.eldecker.dhbw.spring.badnews.helferlein.CursorKodierer.dekodiere;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenRepo;
+import de.eldecker.dhbw.spring.badnews.helferlein.SchlagzeilenException;
+import de.eldecker.dhbw.spring.badnews.model.KeysetSeite;
+
+
+/**
+ * Tests für {@link KeysetPaginierung}: Blättern vorwärts und rückwärts über
+ * alle Seiten muss genau alle Schlagzeilen (bzw. Treffer) in aufsteigender
+ * Reihenfolge liefern, mit Cursor nur dort, wo es eine Nachbarseite gibt.
+ * <br><br>
+ *
+ * Properties wie in {@link TrigrammIndexTest}, damit der Spring-Kontext
+ * wiederverwendet wird; die erwarteten IDs werden deshalb in jedem Test
+ * neu aus der DB gelesen.
+ */
+@SpringBootTest( properties = { "spring.datasource.url=jdbc:h2:mem:badnews-test;DB_CLOSE_DELAY=-1",
+                                "badnews.import.anzahl=3000",
+                                "badnews.reaktiv.port=-1",
+                                "logging.file.name=" } )
+class KeysetPaginierungTest {
+
+    /** Anzahl Schlagzeilen pro Seite; kein Teiler der Anzahl Schlagzeilen. */
+    private static final int ANZAHL = 70;
+
+    @Autowired
+    private KeysetPaginierung _paginierung;
+
+    @Autowired
+    private SchlagzeilenRepo _repo;
+
+    @Autowired
+    private DatenImportFortschritt _fortschritt;
+
+
+    @BeforeEach
+    void warteAufImport() throws InterruptedException {
+
+        TestDaten.warteAufImport( _fortschritt );
+    }
+
+
+    @Test
+    void ersteSeite() throws SchlagzeilenException {
+
+        final List<Long> alleIds = ids( _repo.findByIdGreaterThanOrderByIdAsc( 0L, Limit.unlimited() ) );
+
+        final KeysetSeite seite = _paginierung.liste( null, null, ANZAHL );
+
+        assertEquals( alleIds.subList( 0, ANZAHL ), ids( seite.schlagzeilen() ) );
+        assertNull( seite.cursorVorherige() );
+        assertEquals( alleIds.get( ANZAHL - 1 ), dekodiere( seite.cursorNaechste() ) );
+    }
+
+
+    @Test
+    void vorwaertsUndRueckwaertsUeberAlleSeiten() throws SchlagzeilenException {
+
+        final List<Long> alleIds = ids( _repo.findByIdGreaterThanOrderByIdAsc( 0L, Limit.unlimited() ) );
+
+        final List<KeysetSeite> seiten = blaettereVorwaerts( cursor -> _paginierung.liste( cursor, null, ANZAHL ) );
+        assertEquals( alleIds, alleIdsVorwaerts( seiten ) );
+
+        final KeysetSeite letzteSeite = seiten.get( seiten.size() - 1 );
+        assertNull( letzteSeite.cursorNaechste() );
+        assertEquals( alleIds.size() % ANZAHL, letzteSeite.schlagzeilen().size() );
+
+        final List<KeysetSeite> seitenRueckwaerts =
+                blaettereRueckwaerts( letzteSeite, cursor -> _paginierung.liste( null, cursor, ANZAHL ) );
+
+        // rückwärts geblätterte Seiten sind gegenüber den vorwärts geblätterten verschoben
+        assertEquals( alleIds.subList( 0, alleIds.size() - letzteSeite.schlagzeilen().size() ),
+                      alleIdsRueckwaerts( seitenRueckwaerts ) );
+        assertNull( seitenRueckwaerts.get( seitenRueckwaerts.size() - 1 ).cursorVorherige() );
+    }
+
+
+    @Test
+    void zurueckZurErstenSeite() throws SchlagzeilenException {
+
+        final KeysetSeite ersteSeite  = _paginierung.liste( null, null, ANZAHL );
+        final KeysetSeite zweiteSeite = _paginierung.liste( dekodiere( ersteSeite.cursorNaechste() ), null, ANZAHL );
+
+        final KeysetSeite zurueck = _paginierung.liste( null, dekodiere( zweiteSeite.cursorVorherige() ), ANZAHL );
+
+        assertEquals( ids( ersteSeite.schlagzeilen() ), ids( zurueck.schlagzeilen() ) );
+        assertNull( zurueck.cursorVorherige() );
+        assertEquals( ersteSeite.cursorNaechste(), zurueck.cursorNaechste() );
+    }
+
+
+    @Test
+    void sucheVorwaertsUndRueckwaertsWieJpql() throws SchlagzeilenException {
+
+        for ( String suchbegriff : List.of( "berg", "in der", "Ölkat", "xyz" ) ) {
+
+            final List<Long> trefferIds = ids( _repo.sucheSchlagzeilenNach( suchbegriff, 0L, Limit.unlimited() ) );
+
+            final List<KeysetSeite> seiten =
+                    blaettereVorwaerts( cursor -> _paginierung.suche( suchbegriff, cursor, null, 7 ) );
+            assertEquals( trefferIds, alleIdsVorwaerts( seiten ), suchbegriff );
+
+            if ( trefferIds.isEmpty() ) { continue; }
+
+            // rückwärts ab Cursor hinter dem letzten Treffer
+            final KeysetSeite hinterLetztem = _paginierung.suche( suchbegriff, trefferIds.get( trefferIds.size() - 1 ),
+                                                                  null, 7 );
+            assertTrue( hinterLetztem.schlagzeilen().isEmpty() );
+
+            final List<KeysetSeite> seitenRueckwaerts =
+                    blaettereRueckwaerts( hinterLetztem, cursor -> _paginierung.suche( suchbegriff, null, cursor, 7 ) );
+            assertEquals( trefferIds, alleIdsRueckwaerts( seitenRueckwaerts ), suchbegriff );
+        }
+    }
+
+
+    @Test
+    void leereSeiteHinterLetzterSchlagzeile() throws SchlagzeilenException {
+
+        final List<SchlagzeilenEntity> letzte = _repo.findByIdLessThanOrderByIdDesc( MAX_ID, Limit.of( ANZAHL ) );
+        final long letzteId = letzte.get( 0 ).getId();
+
+        final KeysetSeite leer = _paginierung.liste( letzteId, null, ANZAHL );
+        assertTrue( leer.schlagzeilen().isEmpty() );
+        assertNull( leer.cursorNaechste() );
+
+        final KeysetSeite zurueck = _paginierung.liste( null, dekodiere( leer.cursorVorherige() ), ANZAHL );
+        final List<Long> erwartet = ids( letzte );
+        Collections.reverse( erwartet );
+        assertEquals( erwartet, ids( zurueck.schlagzeilen() ) );
+    }
+
+
+    @Test
+    void cursorAnDenGrenzenDesBereichs() {
+
+        final KeysetSeite hinterMax = _paginierung.liste( MAX_ID, null, ANZAHL );
+        assertTrue( hinterMax.schlagzeilen().isEmpty() );
+        assertNull( hinterMax.cursorVorherige() );
+        assertNull( hinterMax.cursorNaechste() );
+
+        final KeysetSeite vorErster = _paginierung.liste( null, 1L, ANZAHL );
+        assertTrue( vorErster.schlagzeilen().isEmpty() );
+        assertNull( vorErster.cursorVorherige() );
+        assertNull( vorErster.cursorNaechste() );
+    }
+
+
+    /**
+     * Funktion, die für einen Cursor (ID) eine Seite lädt.
+     */
+    @FunctionalInterface
+    private interface SeitenLader {
+
+        KeysetSeite lade( Long cursor );
+    }
+
+
+    /**
+     * Blättert ab der ersten Seite vorwärts, bis es keinen Cursor {@code nach} mehr gibt.
+     */
+    private static List<KeysetSeite> blaettereVorwaerts( SeitenLader lader ) throws SchlagzeilenException {
+
+        final List<KeysetSeite> seiten = new ArrayList<>();
+
+        KeysetSeite seite = lader.lade( null );
+        seiten.add( seite );
+        assertNull( seite.cursorVorherige() );
+        while ( seite.cursorNaechste() != null ) {
+
+            seite = lader.lade( dekodiere( seite.cursorNaechste() ) );
+            seiten.add( seite );
+            assertNotNull( seite.cursorVorherige() );
+        }
+
+        return seiten;
+    }
+
+
+    /**
+     * Blättert ab {@code start} (nicht enthalten) rückwärts, bis es keinen Cursor {@code vor} mehr gibt.
+     */
+    private static List<KeysetSeite> blaettereRueckwaerts( KeysetSeite start, SeitenLader lader )
+            throws SchlagzeilenException {
+
+        final List<KeysetSeite> seiten = new ArrayList<>();
+
+        KeysetSeite seite = start;
+        while ( seite.cursorVorherige() != null ) {
+
+            seite = lader.lade( dekodiere( seite.cursorVorherige() ) );
+            seiten.add( seite );
+            assertNotNull( seite.cursorNaechste() );
+        }
+
+        return seiten;
+    }
+
+
+    private static List<Long> alleIdsVorwaerts( List<KeysetSeite> seiten ) {
+
+        final List<Long> ergebnis = new ArrayList<>();
+        for ( KeysetSeite seite : seiten ) { ergebnis.addAll( ids( seite.schlagzeilen() ) ); }
+
+        return ergebnis;
+    }
+
+
+    private static List<Long> alleIdsRueckwaerts( List<KeysetSeite> seiten ) {
+
+        final List<Long> ergebnis = new ArrayList<>();
+        for ( KeysetSeite seite : seiten.reversed() ) { ergebnis.addAll( ids( seite.schlagzeilen() ) ); }
+
+        return ergebnis;
+    }
+
+
+    private static List<Long> ids( List<SchlagzeilenEntity> schlagzeilen ) {
+
+        return new ArrayList<>( schlagzeilen.stream().map( SchlagzeilenEntity::getId ).toList() );
+    }
+
+}
@@ -0,0 +1,228 @@
+package de.eldecker.dhbw.spring.badnews.logik;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
+import de.eldecker.dhbw.spring.badnews.helferlein.EigenePrometheusMetriken;
+import de.eldecker.dhbw.spring.badnews.model.Schlagzeile;
+
+
+/**
+ * Unit-Tests für den Ringpuffer von {@link LiveTicker}: Wecken geparkter
+ * Abonnenten, Überholen eines langsamen Abonnenten, Wiederaufsetzen mit
+ * {@code Last-Event-ID} und kein Schreiben während des Imports.
+ * <br><br>
+ *
+ * Der Heartbeat ist so lang, dass ein Abonnent, der nicht geweckt wird, die
+ * Wartezeit von {@link #WARTEZEIT_SEKUNDEN} beim Empfangen überschreitet.
+ */
+class LiveTickerTest {
+
+    /** Puffergröße, klein damit Überholen schnell passiert. */
+    private static final int PUFFER_GROESSE = 8;
+
+    /** Max. Wartezeit auf ein Paket beim Abonnenten. */
+    private static final int WARTEZEIT_SEKUNDEN = 5;
+
+    /** Vom {@link SammelEmpfaenger} empfangene Schlagzeilen. */
+    private record Paket( long ersteNummer, List<Integer> ids, long anzahlVerworfen ) {}
+
+
+    /**
+     * Empfänger, der alle Pakete in eine Queue schreibt; wenn {@link #_sperre}
+     * gesetzt ist, blockiert das Senden des ersten Pakets bis zur Freigabe.
+     */
+    private static class SammelEmpfaenger implements LiveTicker.Empfaenger {
+
+        private final BlockingQueue<Paket> _pakete = new LinkedBlockingQueue<>();
+
+        private CountDownLatch _sperre = null;
+
+        @Override
+        public void senden( long ersteNummer, List<Schlagzeile> schlagzeilen, long anzahlVerworfen ) {
+
+            final List<Integer> ids = schlagzeilen.stream().map( Schlagzeile::id ).toList();
+            _pakete.add( new Paket( ersteNummer, ids, anzahlVerworfen ) );
+
+            if ( _sperre != null ) {
+
+                try {
+
+                    _sperre.await( WARTEZEIT_SEKUNDEN, TimeUnit.SECONDS );
+                }
+                catch ( InterruptedException ex ) {
+
+                    Thread.currentThread().interrupt();
+                }
+                _sperre = null;
+            }
+        }
+
+        @Override
+        public void heartbeat() {}
+
+        Paket naechstesPaket() throws InterruptedException {
+
+            return _pakete.poll( WARTEZEIT_SEKUNDEN, TimeUnit.SECONDS );
+        }
+    }
+
+
+    private EigenePrometheusMetriken _eigeneMetriken;
+
+    private DatenImportFortschritt _fortschritt;
+
+    private final List<LiveTicker.Abonnement> _abonnements = new ArrayList<>();
+
+    /** Objekt unter Test. */
+    private LiveTicker _liveTicker;
+
+
+    @BeforeEach
+    void erzeugeLiveTicker() {
+
+        _eigeneMetriken = mock( EigenePrometheusMetriken.class );
+        _fortschritt    = new DatenImportFortschritt( _eigeneMetriken );
+        _fortschritt.beendet( null );
+
+        _liveTicker = new LiveTicker( PUFFER_GROESSE, Duration.ofMinutes( 5 ), _eigeneMetriken, _fortschritt );
+    }
+
+
+    @AfterEach
+    void beendeAbonnements() {
+
+        _abonnements.forEach( LiveTicker.Abonnement::beenden );
+    }
+
+
+    @Test
+    void geparkterAbonnentWirdGeweckt() throws InterruptedException {
+
+        final SammelEmpfaenger empfaenger = abonnieren( null );
+
+        for ( int i = 0; i < 3; i++ ) {
+
+            Thread.sleep( 100 ); // Abonnent hat nichts zu lesen und parkt
+
+            einfuegen( 100 + i );
+
+            assertEquals( new Paket( i, List.of( 100 + i ), 0 ), empfaenger.naechstesPaket() );
+        }
+    }
+
+
+    @Test
+    void ueberholterAbonnentBekommtVerworfeneGemeldet() throws InterruptedException {
+
+        final SammelEmpfaenger empfaenger = new SammelEmpfaenger();
+        empfaenger._sperre = new CountDownLatch( 1 );
+        _abonnements.add( _liveTicker.abonnieren( null, empfaenger ) );
+
+        Thread.sleep( 100 );
+        einfuegen( 100 );
+        assertEquals( new Paket( 0, List.of( 100 ), 0 ), empfaenger.naechstesPaket() );
+
+        // Abonnent hängt beim Senden, Schreiber überholt ihn um mehr als die Puffergröße
+        for ( int i = 1; i <= 20; i++ ) {
+
+            einfuegen( 100 + i );
+        }
+        empfaenger._sperre.countDown();
+
+        // Nummern 1 bis 12 sind überschrieben, 13 bis 20 noch im Puffer
+        assertEquals( new Paket( 13, ids( 113, 120 ), 12 ), empfaenger.naechstesPaket() );
+        verify( _eigeneMetriken ).erhoeheAnzahlLiveVerworfen( 12 );
+    }
+
+
+    @Test
+    void wiederaufsetzenMitLetzterNummer() throws InterruptedException {
+
+        for ( int i = 0; i < 5; i++ ) {
+
+            einfuegen( 100 + i );
+        }
+
+        assertEquals( new Paket( 3, ids( 103, 104 ), 0 ), abonnieren( 2L ).naechstesPaket() );
+
+        for ( int i = 5; i < 20; i++ ) {
+
+            einfuegen( 100 + i );
+        }
+
+        // Nummer 1 ist nicht mehr im Puffer: ab ältestem vorhandenen Eintrag
+        assertEquals( new Paket( 12, ids( 112, 119 ), 0 ), abonnieren( 0L ).naechstesPaket() );
+
+        // Nummer aus der Zukunft, z.B. nach Neustart des Servers: nur neue Schlagzeilen
+        final SammelEmpfaenger empfaenger = abonnieren( 1_000L );
+        einfuegen( 120 );
+        assertEquals( new Paket( 20, List.of( 120 ), 0 ), empfaenger.naechstesPaket() );
+    }
+
+
+    @Test
+    void waehrendImportWirdNichtsVerteilt() throws InterruptedException {
+
+        _fortschritt.gestartet( 2 );
+
+        final SammelEmpfaenger empfaenger = abonnieren( -1L );
+        einfuegen( 100 );
+        einfuegen( 101 );
+
+        _fortschritt.beendet( null );
+        einfuegen( 102 );
+
+        assertEquals( new Paket( 0, List.of( 102 ), 0 ), empfaenger.naechstesPaket() );
+        assertNull( empfaenger._pakete.poll() );
+    }
+
+
+    private SammelEmpfaenger abonnieren( Long letzteNummer ) {
+
+        final SammelEmpfaenger empfaenger = new SammelEmpfaenger();
+        final LiveTicker.Abonnement abonnement = _liveTicker.abonnieren( letzteNummer, empfaenger );
+        assertNotNull( abonnement );
+        _abonnements.add( abonnement );
+
+        return empfaenger;
+    }
+
+
+    private void einfuegen( long id ) {
+
+        final SchlagzeilenEntity entity = new SchlagzeilenEntity( "Schlagzeile " + id, true );
+        ReflectionTestUtils.setField( entity, "id", id );
+
+        _liveTicker.nachEinfuegen( entity );
+    }
+
+
+    private static List<Integer> ids( int von, int bis ) {
+
+        final List<Integer> ids = new ArrayList<>();
+        for ( int id = von; id <= bis; id++ ) {
+
+            ids.add( id );
+        }
+        return ids;
+    }
+
+}
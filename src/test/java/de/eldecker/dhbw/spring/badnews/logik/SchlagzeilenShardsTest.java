@@ -0,0 +1,206 @@
+package de.eldecker.dhbw.spring.badnews.logik;
+
+import static de.eldecker.dhbw.spring.badnews.helferlein.SortierReihenfolgeKonstanten.SORT_ID_ASC;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenRepo;
+import de.eldecker.dhbw.spring.badnews.helferlein.EigenePrometheusMetriken;
+import de.eldecker.dhbw.spring.badnews.model.AnzahlByKategorie;
+
+
+/**
+ * Tests für {@link SchlagzeilenShards}: Die Suche über die Shards (k-Wege-Merge
+ * der Teilergebnisse) muss für jede Seite dieselben IDs und dieselbe
+ * Gesamtzahl wie die JPQL-Query liefern, für beide Verteilungen; ein Shard,
+ * bei dem ein Schreibzugriff fehlschlägt, muss als defekt erkannt und neu
+ * aufgebaut werden.
+ * <br><br>
+ *
+ * Die Shards sind eigene In-Memory-DBs und werden im Test aus der DB des
+ * Spring-Kontexts befüllt; die Properties sind dieselben wie in
+ * {@link KeysetPaginierungTest}, damit der Spring-Kontext wiederverwendet wird
+ * (dort ist der Shard-Modus abgeschaltet).
+ */
+@SpringBootTest( properties = { "spring.datasource.url=jdbc:h2:mem:badnews-test;DB_CLOSE_DELAY=-1",
+                                "badnews.import.anzahl=3000",
+                                "badnews.reaktiv.port=-1",
+                                "logging.file.name=" } )
+class SchlagzeilenShardsTest {
+
+    /** JDBC-URL der Shards im Test. */
+    private static final String URL_MUSTER = "jdbc:h2:mem:badnews-test-shard-%d;DB_CLOSE_DELAY=-1";
+
+    /** Suchbegriffe mit sehr vielen, einigen, wenigen und keinen Treffern. */
+    private static final List<String> SUCHBEGRIFFE = List.of( "in ", "erdbeben", "ÜBERFALL", "württ", "xyz" );
+
+    /** Anzahl Treffer pro Seite. */
+    private static final int ANZAHL = 25;
+
+    @Autowired
+    private SchlagzeilenRepo _repo;
+
+    @Autowired
+    private TransactionTemplate _transactionTemplate;
+
+    @Autowired
+    private EigenePrometheusMetriken _eigeneMetriken;
+
+    @Autowired
+    private DatenImportFortschritt _fortschritt;
+
+    @Value( "${spring.datasource.username}" )
+    private String _nutzername;
+
+    @Value( "${spring.datasource.password}" )
+    private String _passwort;
+
+    /** Objekt unter Test, wird in jedem Test selbst erzeugt. */
+    private SchlagzeilenShards _shards;
+
+
+    @BeforeEach
+    void warteAufImport() throws InterruptedException {
+
+        TestDaten.warteAufImport( _fortschritt );
+    }
+
+
+    @AfterEach
+    void schliesseShards() {
+
+        if ( _shards != null ) { _shards.schliessen(); }
+    }
+
+
+    @Test
+    void gleicheSeitenWieJpqlBeiVerteilungNachId() {
+
+        _shards = erzeugeShards( 3, "id" );
+
+        vergleicheMitJpql();
+    }
+
+
+    @Test
+    void gleicheSeitenWieJpqlBeiVerteilungNachInland() {
+
+        _shards = erzeugeShards( 3, "inland" );
+
+        vergleicheMitJpql();
+    }
+
+
+    @Test
+    void gleicheStatistikWieJpql() {
+
+        _shards = erzeugeShards( 2, "id" );
+
+        final List<AnzahlByKategorie> statistik = _repo.zaehleSchlagzeilenInlandAusland();
+
+        final long[] erwartet = new long[ 2 ];
+        statistik.forEach( a -> erwartet[ a.inland() ? 0 : 1 ] = a.anzahl() );
+
+        assertArrayEquals( erwartet, _shards.zaehleInlandAusland() );
+    }
+
+
+    @Test
+    void defekterShardWirdNeuAufgebaut() {
+
+        _shards = erzeugeShards( 3, "id" );
+        assertTrue( _shards.isAktiv() );
+
+        // Tabelle in Shard 1 weg: nächster Schreibzugriff auf Shard 1 schlägt fehl
+        shard( 1 ).execute( "DROP TABLE SCHLAGZEILEN" );
+
+        assertThrows( RuntimeException.class, () -> _shards.nachEinfuegen( schlagzeile( 1_000_000_000L ) ) );
+        assertFalse( _shards.isAktiv() );
+
+        // Schreibzugriff auf intakten Shard geht weiter
+        _shards.nachEinfuegen( schlagzeile( 1_000_000_002L ) );
+        _shards.nachLoeschen(  schlagzeile( 1_000_000_002L ) );
+
+        _shards.reparieren();
+
+        assertTrue( _shards.isAktiv() );
+        vergleicheMitJpql();
+    }
+
+
+    /**
+     * Vergleicht für alle Suchbegriffe erste, mittlere und letzte Seite sowie
+     * eine Seite hinter dem Ende mit der JPQL-Query.
+     */
+    private void vergleicheMitJpql() {
+
+        for ( String suchbegriff : SUCHBEGRIFFE ) {
+
+            final long anzahlTreffer = sucheMitJpql( suchbegriff, 0 ).getTotalElements();
+            final int  letzteSeite   = (int) Math.max( 0, ( anzahlTreffer - 1 ) / ANZAHL );
+
+            for ( int seite : new int[] { 0, letzteSeite / 2, letzteSeite, letzteSeite + 1 } ) {
+
+                final Page<SchlagzeilenEntity> erwartet = sucheMitJpql( suchbegriff, seite );
+                final SchlagzeilenShards.Treffer treffer = _shards.suche( suchbegriff, erwartet.getPageable().getOffset(), ANZAHL );
+
+                final String meldung = suchbegriff + ", Seite " + seite;
+                assertEquals( erwartet.getTotalElements(), treffer.anzahlTreffer(), meldung );
+                assertArrayEquals( erwartet.getContent().stream().mapToLong( SchlagzeilenEntity::getId ).toArray(),
+                                   treffer.seitenIds(), meldung );
+            }
+        }
+    }
+
+
+    private Page<SchlagzeilenEntity> sucheMitJpql( String suchbegriff, int seite ) {
+
+        return _repo.sucheSchlagzeilen( suchbegriff, PageRequest.of( seite, ANZAHL, SORT_ID_ASC ) );
+    }
+
+
+    private SchlagzeilenShards erzeugeShards( int anzahlShards, String verteilung ) {
+
+        final SchlagzeilenShards shards =
+                new SchlagzeilenShards( _repo, _transactionTemplate, _eigeneMetriken,
+                                        anzahlShards, verteilung, URL_MUSTER, _nutzername, _passwort );
+        shards.aufbauen();
+
+        return shards;
+    }
+
+
+    @SuppressWarnings( "unchecked" )
+    private JdbcTemplate shard( int nummer ) {
+
+        return ( (List<JdbcTemplate>) ReflectionTestUtils.getField( _shards, "_shards" ) ).get( nummer );
+    }
+
+
+    private static SchlagzeilenEntity schlagzeile( long id ) {
+
+        final SchlagzeilenEntity entity = new SchlagzeilenEntity( "Schlagzeile " + id, true );
+        ReflectionTestUtils.setField( entity, "id", id );
+
+        return entity;
+    }
+
+}
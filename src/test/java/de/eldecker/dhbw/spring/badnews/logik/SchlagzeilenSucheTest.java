@@ -0,0 +1,382 @@
+package de.eldecker.dhbw.spring.badnews.logik;
+
+import static de.eldecker.dhbw.spring.badnews.helferlein.SortierReihenfolgeKonstanten.SORT_ID_ASC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenRepo;
+import de.eldecker.dhbw.spring.badnews.helferlein.EigenePrometheusMetriken;
+
+
+/**
+ * Unit-Tests für das Zusammenfassen gleichzeitiger gleicher Suchen
+ * ("Single-Flight") in {@link SchlagzeilenSuche}. Das Repo ist ein Mock,
+ * dessen Suche blockiert, bis der Test sie freigibt; so ist sichergestellt,
+ * dass alle anderen Suchen auf die erste warten.
+ */
+class SchlagzeilenSucheTest {
+
+    /** Max. Wartezeit auf Threads. */
+    private static final long TIMEOUT_MS = 10_000;
+
+    /** Angeforderte Seite, für alle Suchen gleich. */
+    private static final PageRequest SEITE = PageRequest.of( 0, 10, SORT_ID_ASC );
+
+    /** Gesamtzahl Treffer, die der Mock meldet. */
+    private static final long ANZAHL_TREFFER = 42;
+
+    private SchlagzeilenRepo _repo;
+
+    private EigenePrometheusMetriken _eigeneMetriken;
+
+    /** Objekt unter Test. */
+    private SchlagzeilenSuche _suche;
+
+    /** Gibt die blockierte Suche im Repo-Mock frei. */
+    private final CountDownLatch _freigabe = new CountDownLatch( 1 );
+
+    /** Anzahl Aufrufe der Suche im Repo-Mock. */
+    private final AtomicInteger _anzahlQueries = new AtomicInteger();
+
+    /** Threads, die in einem Test gestartet wurden. */
+    private final List<Thread> _threads = new ArrayList<>();
+
+
+    @BeforeEach
+    void erzeugeSuche() {
+
+        _repo           = mock( SchlagzeilenRepo.class );
+        _eigeneMetriken = mock( EigenePrometheusMetriken.class );
+
+        when( _repo.findAllById( any() ) ).thenAnswer( aufruf -> {
+
+            final List<SchlagzeilenEntity> ergebnis = new ArrayList<>();
+            for ( Long id : aufruf.<Iterable<Long>>getArgument( 0 ) ) { ergebnis.add( schlagzeile( id ) ); }
+
+            return ergebnis;
+        });
+
+        _suche = erzeugeSuche( Duration.ofMillis( TIMEOUT_MS ) );
+    }
+
+
+    @AfterEach
+    void beendeThreads() throws InterruptedException {
+
+        _freigabe.countDown();
+        for ( Thread thread : _threads ) {
+
+            thread.interrupt();
+            thread.join( TIMEOUT_MS );
+        }
+    }
+
+
+    @Test
+    void wartendeBekommenErgebnisDerErstenSuche() throws Exception {
+
+        when( _repo.sucheSchlagzeilen( anyString(), any() ) ).thenAnswer( aufruf -> {
+
+            _anzahlQueries.incrementAndGet();
+            _freigabe.await();
+            return seite( aufruf.getArgument( 1 ), 1L, 2L, 3L );
+        });
+
+        final List<CompletableFuture<Page<SchlagzeilenEntity>>> ergebnisse = new ArrayList<>();
+        for ( String suchbegriff : List.of( "Erdbeben", "erdbeben", "ERDBEBEN", "Erdbeben", "erdBeben" ) ) {
+
+            ergebnisse.add( starteSuche( suchbegriff ) );
+        }
+
+        warteBisAlleBlockiert();
+        assertEquals( 1, _anzahlQueries.get() );
+
+        _freigabe.countDown();
+
+        for ( CompletableFuture<Page<SchlagzeilenEntity>> ergebnis : ergebnisse ) {
+
+            final Page<SchlagzeilenEntity> page = ergebnis.get( TIMEOUT_MS, TimeUnit.MILLISECONDS );
+            assertEquals( List.of( 1L, 2L, 3L ), page.getContent().stream().map( SchlagzeilenEntity::getId ).toList() );
+            assertEquals( ANZAHL_TREFFER, page.getTotalElements() );
+        }
+        assertEquals( 1, _anzahlQueries.get() );
+        verify( _eigeneMetriken, times( 4 ) ).erfasseZusammengefassteSuche( "ergebnis" );
+
+        // danach aus dem Cache, ohne neue Query
+        assertEquals( 3, _suche.suche( "Erdbeben", SEITE ).getNumberOfElements() );
+        assertEquals( 1, _anzahlQueries.get() );
+    }
+
+
+    @Test
+    void exceptionDerErstenSucheGehtAnAlleWartenden() throws Exception {
+
+        final IllegalStateException fehler = new IllegalStateException( "DB nicht erreichbar" );
+
+        when( _repo.sucheSchlagzeilen( anyString(), any() ) ).thenAnswer( aufruf -> {
+
+            if ( _anzahlQueries.incrementAndGet() == 1 ) {
+
+                _freigabe.await();
+                throw fehler;
+            }
+            return seite( aufruf.getArgument( 1 ), 7L );
+        });
+
+        final List<CompletableFuture<Page<SchlagzeilenEntity>>> ergebnisse = new ArrayList<>();
+        for ( int i = 0; i < 4; i++ ) { ergebnisse.add( starteSuche( "Dürre" ) ); }
+
+        warteBisAlleBlockiert();
+        _freigabe.countDown();
+
+        // erste Suche wirft die Exception selbst, jeder Wartende eine eigene mit dieser als Ursache
+        final List<Throwable> exceptions = new ArrayList<>();
+        for ( CompletableFuture<Page<SchlagzeilenEntity>> ergebnis : ergebnisse ) {
+
+            final Throwable ex = exceptionVon( ergebnis );
+            if ( ex != fehler ) {
+
+                assertInstanceOf( IllegalStateException.class, ex );
+                assertSame( fehler, ex.getCause() );
+                exceptions.forEach( andere -> assertNotSame( andere, ex ) );
+                exceptions.add( ex );
+            }
+        }
+        assertEquals( 3, exceptions.size() );
+        assertEquals( 1, _anzahlQueries.get() );
+        verify( _eigeneMetriken, times( 3 ) ).erfasseZusammengefassteSuche( "fehler" );
+
+        // Fehler wird nicht gecacht: nächste Suche führt neue Query aus
+        assertEquals( 1, _suche.suche( "Dürre", SEITE ).getNumberOfElements() );
+        assertEquals( 2, _anzahlQueries.get() );
+    }
+
+
+    @Test
+    void neuerVersuchNachAbbruchDerErstenSuche() throws Exception {
+
+        final AtomicReference<Thread> ersteSuche = new AtomicReference<>();
+
+        when( _repo.sucheSchlagzeilen( anyString(), any() ) ).thenAnswer( aufruf -> {
+
+            if ( _anzahlQueries.incrementAndGet() == 1 ) {
+
+                ersteSuche.set( Thread.currentThread() );
+                try {
+
+                    _freigabe.await();
+                }
+                catch ( InterruptedException ex ) {
+
+                    // wie JDBC-Treiber: Interrupt-Flag bleibt gesetzt, Abbruch als RuntimeException
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException( "Query abgebrochen", ex );
+                }
+            }
+            return seite( aufruf.getArgument( 1 ), 5L, 6L );
+        });
+
+        final CompletableFuture<Page<SchlagzeilenEntity>> erste = starteSuche( "Waldbrand" );
+        warteAufErsteSuche( ersteSuche );
+        final CompletableFuture<Page<SchlagzeilenEntity>> zweite = starteSuche( "Waldbrand" );
+        warteBisAlleBlockiert();
+
+        ersteSuche.get().interrupt();
+
+        assertInstanceOf( IllegalStateException.class, exceptionVon( erste ) );
+
+        final Page<SchlagzeilenEntity> page = zweite.get( TIMEOUT_MS, TimeUnit.MILLISECONDS );
+        assertEquals( List.of( 5L, 6L ), page.getContent().stream().map( SchlagzeilenEntity::getId ).toList() );
+        assertEquals( 2, _anzahlQueries.get() );
+        verify( _eigeneMetriken ).erfasseZusammengefassteSuche( "neuer_versuch" );
+        verify( _eigeneMetriken, never() ).erfasseZusammengefassteSuche( "fehler" );
+    }
+
+
+    @Test
+    void unterbrechungBeimWartenBetrifftNurDenWartenden() throws Exception {
+
+        when( _repo.sucheSchlagzeilen( anyString(), any() ) ).thenAnswer( aufruf -> {
+
+            _anzahlQueries.incrementAndGet();
+            _freigabe.await();
+            return seite( aufruf.getArgument( 1 ), 9L );
+        });
+
+        final CompletableFuture<Page<SchlagzeilenEntity>> erste = starteSuche( "Lawine" );
+        warteBisAlleBlockiert();
+        final CompletableFuture<Page<SchlagzeilenEntity>> wartende = starteSuche( "Lawine" );
+        warteBisAlleBlockiert();
+
+        _threads.get( 1 ).interrupt();
+        // CompletableFuture.get() wirft CancellationException direkt, nicht verpackt
+        assertThrows( CancellationException.class, () -> wartende.get( TIMEOUT_MS, TimeUnit.MILLISECONDS ) );
+
+        _freigabe.countDown();
+        assertEquals( 1, erste.get( TIMEOUT_MS, TimeUnit.MILLISECONDS ).getNumberOfElements() );
+        assertEquals( 1, _anzahlQueries.get() );
+    }
+
+
+    @Test
+    void wartezeitAufLaufendeSucheIstBegrenzt() throws Exception {
+
+        _suche = erzeugeSuche( Duration.ofMillis( 200 ) );
+
+        when( _repo.sucheSchlagzeilen( anyString(), any() ) ).thenAnswer( aufruf -> {
+
+            _anzahlQueries.incrementAndGet();
+            _freigabe.await();
+            return seite( aufruf.getArgument( 1 ), 4L );
+        });
+
+        final CompletableFuture<Page<SchlagzeilenEntity>> erste = starteSuche( "Sturmflut" );
+        warteBisAlleBlockiert();
+        final CompletableFuture<Page<SchlagzeilenEntity>> wartende = starteSuche( "Sturmflut" );
+
+        final Throwable ex = exceptionVon( wartende );
+        assertInstanceOf( IllegalStateException.class, ex );
+        verify( _eigeneMetriken ).erfasseZusammengefassteSuche( "zeitueberschreitung" );
+
+        // erste Suche ist davon nicht betroffen
+        _freigabe.countDown();
+        assertEquals( 1, erste.get( TIMEOUT_MS, TimeUnit.MILLISECONDS ).getNumberOfElements() );
+        assertEquals( 1, _anzahlQueries.get() );
+    }
+
+
+    private SchlagzeilenSuche erzeugeSuche( Duration wartezeit ) {
+
+        return new SchlagzeilenSuche( _repo,
+                                      mock( TrigrammIndex.class ),      // isAufgebaut() == false: JPQL-Query
+                                      mock( SchlagzeilenShards.class ), // isAktiv() == false
+                                      mock( DatenVersion.class ),
+                                      mock( TransactionTemplate.class ),
+                                      _eigeneMetriken,
+                                      1_000_000, 2, true, wartezeit );
+    }
+
+
+    /**
+     * Startet eine Suche in einem eigenen Thread.
+     */
+    private CompletableFuture<Page<SchlagzeilenEntity>> starteSuche( String suchbegriff ) {
+
+        final CompletableFuture<Page<SchlagzeilenEntity>> ergebnis = new CompletableFuture<>();
+
+        final Thread thread = new Thread( () -> {
+
+            try {
+
+                ergebnis.complete( _suche.suche( suchbegriff, SEITE ) );
+            }
+            catch ( RuntimeException ex ) {
+
+                ergebnis.completeExceptionally( ex );
+            }
+        }, "suche-" + _threads.size() );
+
+        _threads.add( thread );
+        thread.start();
+
+        return ergebnis;
+    }
+
+
+    /**
+     * Wartet, bis alle noch laufenden Threads blockiert sind (auf die Freigabe im
+     * Repo-Mock oder auf das Ergebnis der ersten Suche).
+     */
+    private void warteBisAlleBlockiert() throws InterruptedException {
+
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while ( System.currentTimeMillis() < deadline ) {
+
+            if ( _threads.stream().allMatch( t -> !t.isAlive() || t.getState() == Thread.State.WAITING
+                                                               || t.getState() == Thread.State.TIMED_WAITING ) ) {
+
+                return;
+            }
+            Thread.sleep( 10 );
+        }
+        fail( "Threads nicht blockiert" );
+    }
+
+
+    /**
+     * Wartet, bis die erste Suche im Repo-Mock angekommen ist.
+     */
+    private static void warteAufErsteSuche( AtomicReference<Thread> ersteSuche ) throws InterruptedException {
+
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while ( ersteSuche.get() == null && System.currentTimeMillis() < deadline ) {
+
+            Thread.sleep( 10 );
+        }
+        assertNotNull( ersteSuche.get(), "Erste Suche nicht gestartet" );
+    }
+
+
+    /**
+     * Liefert die Exception, mit der eine Suche beendet wurde.
+     */
+    private static Throwable exceptionVon( CompletableFuture<?> ergebnis ) {
+
+        final ExecutionException ex = assertThrows( ExecutionException.class,
+                                                    () -> ergebnis.get( TIMEOUT_MS, TimeUnit.MILLISECONDS ) );
+        return ex.getCause();
+    }
+
+
+    private static Page<SchlagzeilenEntity> seite( Pageable pageable, Long... ids ) {
+
+        final List<SchlagzeilenEntity> inhalt = new ArrayList<>();
+        for ( Long id : ids ) { inhalt.add( schlagzeile( id ) ); }
+
+        return new PageImpl<>( inhalt, pageable, ANZAHL_TREFFER );
+    }
+
+
+    private static SchlagzeilenEntity schlagzeile( long id ) {
+
+        final SchlagzeilenEntity entity = new SchlagzeilenEntity( "Schlagzeile " + id, true );
+        ReflectionTestUtils.setField( entity, "id", id );
+
+        return entity;
+    }
+
+}
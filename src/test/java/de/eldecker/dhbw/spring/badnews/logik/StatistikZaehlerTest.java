@@ -0,0 +1,96 @@
+package de.eldecker.dhbw.spring.badnews.logik;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenRepo;
+import de.eldecker.dhbw.spring.badnews.helferlein.EigenePrometheusMetriken;
+import de.eldecker.dhbw.spring.badnews.model.AnzahlByKategorie;
+
+
+/**
+ * Unit-Tests für die Konsistenz-Prüfung in {@link StatistikZaehler}; die
+ * {@code GROUP BY}-Query kommt aus einem Repo-Mock.
+ */
+class StatistikZaehlerTest {
+
+    private SchlagzeilenRepo _repo;
+
+    private DatenVersion _datenVersion;
+
+    /** Objekt unter Test. */
+    private StatistikZaehler _zaehler;
+
+
+    @BeforeEach
+    void erzeugeZaehler() {
+
+        _repo         = mock( SchlagzeilenRepo.class );
+        _datenVersion = new DatenVersion();
+
+        _zaehler = new StatistikZaehler( _repo,
+                                         mock( SchlagzeilenShards.class ), // isAktiv() == false
+                                         mock( EigenePrometheusMetriken.class ),
+                                         _datenVersion );
+
+        datenInDb( 10, 5 );
+        _zaehler.aufbauen();
+    }
+
+
+    @Test
+    void ohneAbweichungKeineNeueVersion() {
+
+        _zaehler.pruefen();
+        _zaehler.pruefen();
+
+        assertEquals( 0, _datenVersion.getVersion() );
+        assertEquals( List.of( new AnzahlByKategorie( true, 10 ), new AnzahlByKategorie( false, 5 ) ),
+                      _zaehler.getStatistik() );
+        assertEquals( 15, _zaehler.getAnzahlGesamt() );
+    }
+
+
+    @Test
+    void einmaligeAbweichungWirdNichtKorrigiert() {
+
+        datenInDb( 12, 5 );
+        _zaehler.pruefen();
+
+        datenInDb( 10, 5 );
+        _zaehler.pruefen();
+
+        assertEquals( 0, _datenVersion.getVersion() );
+        assertEquals( 10, _zaehler.getStatistik().get( 0 ).anzahl() );
+    }
+
+
+    @Test
+    void korrekturErhoehtVersion() {
+
+        datenInDb( 12, 4 ); // z.B. per SQL an den Beobachtern vorbei geschrieben
+
+        _zaehler.pruefen();
+        assertEquals( 0, _datenVersion.getVersion() );
+
+        _zaehler.pruefen();
+        assertEquals( 1, _datenVersion.getVersion() );
+        assertEquals( 16, _zaehler.getAnzahlGesamt() );
+        assertEquals( List.of( new AnzahlByKategorie( true, 12 ), new AnzahlByKategorie( false, 4 ) ),
+                      _zaehler.getStatistik() );
+    }
+
+
+    private void datenInDb( long inland, long ausland ) {
+
+        when( _repo.zaehleSchlagzeilenInlandAusland() ).thenReturn( List.of( new AnzahlByKategorie( true , inland  ),
+                                                                              new AnzahlByKategorie( false, ausland ) ) );
+    }
+
+}
@@ -0,0 +1,38 @@
+package de.eldecker.dhbw.spring.badnews.logik;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+
+/**
+ * Hilfsmethoden für Tests, die mit einem Spring-Kontext und den beim Start
+ * importierten Zufalls-Schlagzeilen arbeiten.
+ */
+final class TestDaten {
+
+    /** Max. Wartezeit auf Ende von Aufbau der Indizes und Import. */
+    private static final long TIMEOUT_MS = 60_000;
+
+
+    /**
+     * Dummy-Konstruktor, um Instanziierung dieser Klasse zu verhindern.
+     */
+    private TestDaten() {}
+
+
+    /**
+     * Wartet, bis Aufbau der Indizes und Import im Hintergrund beendet sind.
+     *
+     * @param fortschritt Bean mit Fortschritt des Imports
+     */
+    static void warteAufImport( DatenImportFortschritt fortschritt ) throws InterruptedException {
+
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while ( fortschritt.isLaeuft() && System.currentTimeMillis() < deadline ) {
+
+            Thread.sleep( 50 );
+        }
+
+        assertFalse( fortschritt.isLaeuft(), "Import nicht rechtzeitig beendet" );
+    }
+
+}
@@ -0,0 +1,227 @@
+package de.eldecker.dhbw.spring.badnews.logik;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenRepo;
+
+
+/**
+ * Tests für {@link TrigrammIndex}: Die Suche über den Index muss dieselben
+ * IDs in derselben Reihenfolge liefern wie die JPQL-Query mit {@code LIKE},
+ * auch nach Einfügen, Ändern und Löschen von Schlagzeilen.
+ * <br><br>
+ *
+ * Die Anwendung läuft mit einer In-Memory-DB, die beim Start mit
+ * Zufalls-Schlagzeilen gefüllt wird; die Properties sind dieselben wie in
+ * {@link KeysetPaginierungTest}, damit der Spring-Kontext wiederverwendet wird.
+ */
+@SpringBootTest( properties = { "spring.datasource.url=jdbc:h2:mem:badnews-test;DB_CLOSE_DELAY=-1",
+                                "badnews.import.anzahl=3000",
+                                "badnews.reaktiv.port=-1",
+                                "logging.file.name=" } )
+class TrigrammIndexTest {
+
+    /** Suchbegriffe mit Groß-/Kleinschreibung, Umlauten, Leerzeichen und ohne Treffer. */
+    private static final List<String> SUCHBEGRIFFE =
+            List.of( "erdbeben", "BEBEN IN", "berg", "württ", "ÜBERFALL", "Ölkat", "eiß", "in der",
+                     "n u", "Bosnien und Herzegowina", "skandal in s", "xyz", "in in" );
+
+    @Autowired
+    private TrigrammIndex _trigrammIndex;
+
+    @Autowired
+    private SchlagzeilenRepo _repo;
+
+    @Autowired
+    private TransactionTemplate _transactionTemplate;
+
+    @Autowired
+    private DatenImportFortschritt _fortschritt;
+
+
+    /**
+     * Index wird erst nach dem Start im Hintergrund aufgebaut, siehe
+     * {@link DatenImporterApplicationRunner}.
+     */
+    @BeforeEach
+    void warteAufImport() throws InterruptedException {
+
+        TestDaten.warteAufImport( _fortschritt );
+
+        assertTrue( _trigrammIndex.isAufgebaut() );
+    }
+
+
+    @Test
+    void gleichesErgebnisWieJpql() {
+
+        for ( String suchbegriff : SUCHBEGRIFFE ) {
+
+            assertArrayEquals( sucheMitJpql( suchbegriff ), _trigrammIndex.suche( suchbegriff ), suchbegriff );
+        }
+    }
+
+
+    @Test
+    void suchstringKuerzerAlsDreiZeichenOhneTreffer() {
+
+        assertEquals( 0, _trigrammIndex.suche( ""   ).length );
+        assertEquals( 0, _trigrammIndex.suche( "e"  ).length );
+        assertEquals( 0, _trigrammIndex.suche( "in" ).length );
+        assertEquals( 0, _trigrammIndex.suche( "Öl" ).length );
+    }
+
+
+    @Test
+    void einfuegenAendernLoeschen() {
+
+        final long id = _transactionTemplate.execute( status ->
+                _repo.save( new SchlagzeilenEntity( "Rätselhafter STROMAUSFALL in Überlingen", true ) ).getId() );
+
+        assertArrayEquals( new long[] { id }, _trigrammIndex.suche( "überlingen" ) );
+        assertArrayEquals( new long[] { id }, _trigrammIndex.suche( "RÄTSEL"     ) );
+        vergleicheMitJpql( "stromausfall", "überlingen", "rätsel" );
+
+        _transactionTemplate.executeWithoutResult( status ->
+                _repo.findById( id ).orElseThrow().setSchlagzeile( "Hitzewelle in Görlitz" ) );
+
+        assertEquals( 0, _trigrammIndex.suche( "überlingen" ).length );
+        assertArrayEquals( new long[] { id }, _trigrammIndex.suche( "görlitz" ) );
+        vergleicheMitJpql( "stromausfall", "überlingen", "rätsel", "görlitz", "hitzewelle" );
+
+        _transactionTemplate.executeWithoutResult( status -> _repo.deleteById( id ) );
+
+        assertEquals( 0, _trigrammIndex.suche( "görlitz" ).length );
+        vergleicheMitJpql( "görlitz", "hitzewelle" );
+    }
+
+
+    @Test
+    void aendernVonSchlagzeileAusWoerterbuch() {
+
+        final long id = sucheMitJpql( "erdbeben in" )[ 0 ];
+
+        _transactionTemplate.executeWithoutResult( status ->
+                _repo.findById( id ).orElseThrow().setSchlagzeile( "Waldbrand in Island" ) );
+
+        assertFalse( enthaelt( _trigrammIndex.suche( "erdbeben" ), id ) );
+        assertTrue(  enthaelt( _trigrammIndex.suche( "waldbrand in isl" ), id ) );
+        vergleicheMitJpql( SUCHBEGRIFFE.toArray( String[]::new ) );
+        vergleicheMitJpql( "waldbrand in isl" );
+    }
+
+
+    @Test
+    void platzhalterZeichenWerdenWieTextGesucht() {
+
+        final long id = _transactionTemplate.execute( status ->
+                _repo.save( new SchlagzeilenEntity( "Rabatt 50% auf Ware_Neu in C:\\Temp", true ) ).getId() );
+
+        assertArrayEquals( new long[] { id }, _trigrammIndex.suche( "50% auf" ) );
+        assertArrayEquals( new long[] { id }, _trigrammIndex.suche( "e_n" ) );
+        assertArrayEquals( new long[] { id }, _trigrammIndex.suche( ":\\t" ) );
+        assertEquals( 0, _trigrammIndex.suche( "___" ).length );
+        assertEquals( 0, _trigrammIndex.suche( "%%%" ).length );
+        vergleicheMitJpql( "50% auf", "e_n", ":\\t", "___", "%%%", "_in", "e%n", "\\\\\\" );
+
+        _transactionTemplate.executeWithoutResult( status -> _repo.deleteById( id ) );
+    }
+
+
+    @Test
+    void vieleAenderungenUndLoeschungen() {
+
+        final List<Long> ids = new ArrayList<>();
+        for ( int i = 0; i < 200; i++ ) {
+
+            final String text = "Zollstreik in Quxburg Nr. " + i;
+            ids.add( _transactionTemplate.execute( status -> _repo.save( new SchlagzeilenEntity( text, true ) ).getId() ) );
+        }
+        vergleicheMitJpql( "zollstreik", "quxburg nr. 1", "nr. 42" );
+
+        // mehr als die Hälfte löschen bzw. ändern, damit die Posting-Listen aufgeräumt werden
+        for ( int i = 0; i < 200; i++ ) {
+
+            final long id = ids.get( i );
+            if ( i % 3 == 0 ) {
+
+                _transactionTemplate.executeWithoutResult( status -> _repo.deleteById( id ) );
+
+            } else if ( i % 3 == 1 ) {
+
+                _transactionTemplate.executeWithoutResult( status ->
+                        _repo.findById( id ).orElseThrow().setSchlagzeile( "Zollstreik in Quxdorf" ) );
+            }
+        }
+        vergleicheMitJpql( "zollstreik", "quxburg", "quxdorf", "nr. 1", "nr. 42", "nr. 43" );
+
+        // wieder zurück auf den alten Text: Einträge in den Posting-Listen gelten wieder
+        for ( int i = 1; i < 200; i += 3 ) {
+
+            final long   id   = ids.get( i );
+            final String text = "Zollstreik in Quxburg Nr. " + i;
+            _transactionTemplate.executeWithoutResult( status -> _repo.findById( id ).orElseThrow().setSchlagzeile( text ) );
+        }
+        vergleicheMitJpql( "zollstreik", "quxburg", "quxdorf", "nr. 1", "nr. 42", "nr. 43" );
+
+        for ( int i = 0; i < 200; i++ ) {
+
+            if ( i % 3 != 0 ) {
+
+                final long id = ids.get( i );
+                _transactionTemplate.executeWithoutResult( status -> _repo.deleteById( id ) );
+            }
+        }
+        assertEquals( 0, _trigrammIndex.suche( "zollstreik" ).length );
+        vergleicheMitJpql( "zollstreik", "quxburg", "in q" );
+    }
+
+
+    /**
+     * Prüft für alle Suchbegriffe, dass Index und JPQL-Query gleiches Ergebnis liefern.
+     */
+    private void vergleicheMitJpql( String... suchbegriffe ) {
+
+        for ( String suchbegriff : suchbegriffe ) {
+
+            assertArrayEquals( sucheMitJpql( suchbegriff ), _trigrammIndex.suche( suchbegriff ), suchbegriff );
+        }
+    }
+
+
+    /**
+     * Alle Treffer mit der JPQL-Query (ohne Index).
+     *
+     * @return IDs der Treffer aufsteigend sortiert
+     */
+    private long[] sucheMitJpql( String suchbegriff ) {
+
+        return _repo.sucheSchlagzeilenNach( suchbegriff, 0L, Limit.unlimited() )
+                    .stream()
+                    .mapToLong( SchlagzeilenEntity::getId )
+                    .toArray();
+    }
+
+
+    private static boolean enthaelt( long[] ids, long id ) {
+
+        for ( long i : ids ) { if ( i == id ) { return true; } }
+
+        return false;
+    }
+
+}
@@ -0,0 +1,236 @@
+package de.eldecker.dhbw.spring.badnews.logik;
+
+import static de.eldecker.dhbw.spring.badnews.logik.VorschlagsTrie.MAX_VORSCHLAEGE;
+import static java.util.Locale.GERMAN;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.eldecker.dhbw.spring.badnews.db.SchlagzeilenEntity;
+import de.eldecker.dhbw.spring.badnews.model.Vorschlag;
+
+
+/**
+ * Unit-Tests für {@link VorschlagsTrie}: Nach Einfügen, Ändern und Löschen
+ * von Schlagzeilen müssen die Top-Listen dieselben Vorschläge liefern wie
+ * eine Berechnung mit Brute Force über alle Begriffe. Der Trie wird ohne
+ * DB verwendet ({@link VorschlagsTrie#aufbauen()} wird nicht aufgerufen),
+ * es gibt also nur die Begriffe aus den Schlagzeilen im Test.
+ */
+class VorschlagsTrieTest {
+
+    /** Mehrteilige Begriffe, die per Teilstring gezählt werden, wie in {@link VorschlagsTrie}. */
+    private static final List<String> MEHRTEILIGE_BEGRIFFE =
+            Stream.of( SchlagzeilenErzeuger.EREIGNISSE_ARRAY,
+                       SchlagzeilenErzeuger.ORTE_DEUTSCHLAD_ARRAY,
+                       SchlagzeilenErzeuger.ORTE_NATIONEN_ARRAY )
+                  .flatMap( Arrays::stream )
+                  .filter( begriff -> begriff.contains( " " ) )
+                  .toList();
+
+    /** Objekt unter Test. */
+    private VorschlagsTrie _trie;
+
+    /** Erwartete Häufigkeit je Begriff in Kleinbuchstaben. */
+    private final Map<String, Long> _haeufigkeiten = new HashMap<>();
+
+    /** Schreibweise je Begriff in Kleinbuchstaben (erste Schreibweise, die vorkam). */
+    private final Map<String, String> _schreibweisen = new HashMap<>();
+
+    /** Zufallsgenerator mit festem Seed, damit der Test reproduzierbar ist. */
+    private final Random _random = new Random( 4711 );
+
+
+    @BeforeEach
+    void erzeugeTrie() {
+
+        _trie = new VorschlagsTrie( null, null );
+    }
+
+
+    @Test
+    void leeresPraefixUndUnbekanntesPraefix() {
+
+        einfuegen( new SchlagzeilenEntity( "Erdbeben in Bayern", true ) );
+
+        assertEquals( List.of(), _trie.vorschlaege( ""   , MAX_VORSCHLAEGE ) );
+        assertEquals( List.of(), _trie.vorschlaege( "xyz", MAX_VORSCHLAEGE ) );
+        assertEquals( List.of( new Vorschlag( "Erdbeben", 1 ) ), _trie.vorschlaege( "ERD", MAX_VORSCHLAEGE ) );
+    }
+
+
+    @Test
+    void mehrteiligerBegriffUndUmlaute() {
+
+        einfuegen( new SchlagzeilenEntity( "Großbrand in Bosnien und Herzegowina", false ) );
+        einfuegen( new SchlagzeilenEntity( "Ärger in Überlingen", true ) );
+
+        assertEquals( List.of( new Vorschlag( "Bosnien", 1 ), new Vorschlag( "Bosnien und Herzegowina", 1 ) ),
+                      _trie.vorschlaege( "bos", MAX_VORSCHLAEGE ) );
+        assertEquals( List.of( new Vorschlag( "Überlingen", 1 ) ), _trie.vorschlaege( "ü", MAX_VORSCHLAEGE ) );
+        assertEquals( List.of( new Vorschlag( "Ärger", 1 ) ), _trie.vorschlaege( "Ä", MAX_VORSCHLAEGE ) );
+        pruefeAllePraefixe();
+    }
+
+
+    @Test
+    void anzahlWirdBegrenzt() {
+
+        for ( SchlagzeilenEntity entity : erzeugeSchlagzeilen( 500, 1 ) ) { einfuegen( entity ); }
+
+        assertEquals( 3, _trie.vorschlaege( "b", 3 ).size() );
+        assertEquals( MAX_VORSCHLAEGE, _trie.vorschlaege( "b", 1000 ).size() );
+    }
+
+
+    @Test
+    void topListenNachEinfuegenAendernUndLoeschen() {
+
+        final List<SchlagzeilenEntity> schlagzeilen = new ArrayList<>( erzeugeSchlagzeilen( 2000, 2 ) );
+        schlagzeilen.add( new SchlagzeilenEntity( "Ärger in Überlingen", true ) );
+        schlagzeilen.add( new SchlagzeilenEntity( "Großbrand in Bosnien und Herzegowina", false ) );
+
+        for ( SchlagzeilenEntity entity : schlagzeilen ) { einfuegen( entity ); }
+        pruefeAllePraefixe();
+
+        // Hälfte löschen; dabei fallen Begriffe aus Top-Listen heraus und andere rücken nach
+        for ( int i = 0; i < 1000; i++ ) {
+
+            loeschen( schlagzeilen.remove( _random.nextInt( schlagzeilen.size() ) ) );
+        }
+        pruefeAllePraefixe();
+
+        // Text ändern, jeweils auf Text einer anderen Schlagzeile
+        for ( int i = 0; i < 300; i++ ) {
+
+            final SchlagzeilenEntity entity = schlagzeilen.get( _random.nextInt( schlagzeilen.size() ) );
+            final String textNeu = schlagzeilen.get( _random.nextInt( schlagzeilen.size() ) ).getSchlagzeile();
+            aendern( entity, textNeu );
+        }
+        pruefeAllePraefixe();
+
+        // alle löschen: Begriffe bleiben mit Häufigkeit 0 im Trie, Sortierung dann alphabetisch
+        for ( SchlagzeilenEntity entity : schlagzeilen ) { loeschen( entity ); }
+        pruefeAllePraefixe();
+        assertTrue( _trie.vorschlaege( "b", MAX_VORSCHLAEGE ).stream().allMatch( v -> v.haeufigkeit() == 0 ) );
+    }
+
+
+    @Test
+    void nurInlandGeaendertOhneWirkung() {
+
+        final SchlagzeilenEntity entity = new SchlagzeilenEntity( "Erdbeben in Bayern", true );
+        einfuegen( entity );
+
+        entity.setInland( false );
+        _trie.nachAenderung( entity, true, entity.getSchlagzeile() );
+
+        assertEquals( List.of( new Vorschlag( "Erdbeben", 1 ) ), _trie.vorschlaege( "erd", MAX_VORSCHLAEGE ) );
+    }
+
+
+    /**
+     * Zufalls-Schlagzeilen aus dem Wörterbuch, reproduzierbar.
+     */
+    private static List<SchlagzeilenEntity> erzeugeSchlagzeilen( int anzahl, long seed ) {
+
+        return new SchlagzeilenErzeuger().erzeugeZufallsSchlagzeilenParallel( anzahl, seed );
+    }
+
+
+    private void einfuegen( SchlagzeilenEntity entity ) {
+
+        _trie.nachEinfuegen( entity );
+        zaehle( entity.getSchlagzeile(), +1 );
+    }
+
+
+    private void aendern( SchlagzeilenEntity entity, String textNeu ) {
+
+        final String textAlt = entity.getSchlagzeile();
+        entity.setSchlagzeile( textNeu );
+
+        _trie.nachAenderung( entity, entity.isInland(), textAlt );
+        zaehle( textAlt, -1 );
+        zaehle( textNeu, +1 );
+    }
+
+
+    private void loeschen( SchlagzeilenEntity entity ) {
+
+        _trie.nachLoeschen( entity );
+        zaehle( entity.getSchlagzeile(), -1 );
+    }
+
+
+    /**
+     * Erwartete Häufigkeiten für alle Begriffe eines Texts ändern.
+     */
+    private void zaehle( String text, int delta ) {
+
+        final List<String> begriffe = new ArrayList<>( Arrays.asList( text.split( " " ) ) );
+        for ( String begriff : MEHRTEILIGE_BEGRIFFE ) {
+
+            if ( text.contains( begriff ) ) { begriffe.add( begriff ); }
+        }
+
+        for ( String begriff : begriffe ) {
+
+            final String schluessel = begriff.toLowerCase( GERMAN );
+            _schreibweisen.putIfAbsent( schluessel, begriff );
+            _haeufigkeiten.merge( schluessel, (long) delta, Long::sum );
+        }
+    }
+
+
+    /**
+     * Vergleicht für alle Präfixe (bis drei Zeichen und vollständige Begriffe)
+     * die Vorschläge des Trie mit den per Brute Force berechneten.
+     */
+    private void pruefeAllePraefixe() {
+
+        final List<String> praefixe = new ArrayList<>();
+        for ( String schluessel : _haeufigkeiten.keySet() ) {
+
+            for ( int i = 1; i <= Math.min( 3, schluessel.length() ); i++ ) {
+
+                praefixe.add( schluessel.substring( 0, i ) );
+            }
+            praefixe.add( schluessel );
+        }
+
+        for ( String praefix : praefixe ) {
+
+            assertEquals( erwarteteVorschlaege( praefix ), _trie.vorschlaege( praefix, MAX_VORSCHLAEGE ), praefix );
+        }
+    }
+
+
+    /**
+     * Brute Force: alle Begriffe mit dem Präfix, sortiert nach Häufigkeit absteigend,
+     * dann alphabetisch (Kleinbuchstaben).
+     */
+    private List<Vorschlag> erwarteteVorschlaege( String praefix ) {
+
+        return _haeufigkeiten.entrySet()
+                             .stream()
+                             .filter( eintrag -> eintrag.getKey().startsWith( praefix ) )
+                             .sorted( Comparator.comparingLong( ( Map.Entry<String, Long> e ) -> -e.getValue() )
+                                                .thenComparing( Map.Entry::getKey ) )
+                             .limit( MAX_VORSCHLAEGE )
+                             .map( e -> new Vorschlag( _schreibweisen.get( e.getKey() ), e.getValue() ) )
+                             .toList();
+    }
+
+}